@@ -3,12 +3,13 @@ package com.capitalone.identity.identitybuilder.client;
 import com.capitalone.identity.identitybuilder.client.dynamic.PollingConfiguration;
 import com.capitalone.identity.identitybuilder.client.local.LocalDebugItemStore;
 import com.capitalone.identity.identitybuilder.client.s3.ConfigStoreClientS3Configuration;
-import com.capitalone.identity.identitybuilder.client.s3.S3ItemStore;
 import com.capitalone.identity.identitybuilder.events.PolicyCoreEventPublisher;
 import com.capitalone.identity.identitybuilder.model.*;
 import com.capitalone.identity.identitybuilder.polling.*;
 import com.capitalone.identity.identitybuilder.repository.ItemStore;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.List;
 
@@ -33,6 +34,17 @@ public interface ConfigStoreClient {
      */
     Entity getEntity(EntityInfo entityInfo);
 
+    /**
+     * Asynchronous variant of {@link #getEntity(EntityInfo)}.
+     *
+     * @param entityInfo that can be obtained via {@link #getEntityInfo(EntityType, EntityType...)}
+     * @return a {@link Mono} that emits the full entity, or errors with the exceptions described by
+     * {@link #getEntity(EntityInfo)}
+     */
+    default Mono<Entity> getEntityAsync(EntityInfo entityInfo) {
+        return Mono.fromCallable(() -> getEntity(entityInfo)).subscribeOn(Schedulers.boundedElastic());
+    }
+
     /**
      * Retrieves a stream of all {@link EntityInfo} objects in configuration store that match the filter.
      * <p>
@@ -74,10 +86,7 @@ public interface ConfigStoreClient {
                                          PollingConfiguration properties,
                                          ConfigStoreClient_ApplicationEventPublisher publisher) {
 
-        ItemStore s3Store = new S3ItemStore(
-                configStoreClientS3Configuration.getAwsClient(),
-                configStoreClientS3Configuration.getBucketName(),
-                configStoreClientS3Configuration.getRootPrefix());
+        ItemStore s3Store = configStoreClientS3Configuration.newItemStore();
 
         String pollingPropertiesName = properties.getExternalPollingPropertiesObjectKey();
         PollingConfigurationStreamProvider streamProvider = pollingPropertiesName != null
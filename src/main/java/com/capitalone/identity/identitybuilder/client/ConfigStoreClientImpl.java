@@ -9,6 +9,7 @@ import com.capitalone.identity.identitybuilder.repository.EntityProvider;
 import com.capitalone.identity.identitybuilder.repository.ItemStore;
 import org.springframework.lang.NonNull;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.Objects;
@@ -32,6 +33,11 @@ public class ConfigStoreClientImpl implements ConfigStoreClient {
         return provider.getEntity(entityInfo);
     }
 
+    @Override
+    public Mono<Entity> getEntityAsync(EntityInfo entityInfo) {
+        return provider.getEntityAsync(entityInfo);
+    }
+
     @Override
     public Flux<EntityInfo> getEntityInfo(EntityType type, EntityType... typeFilter) {
         return provider.getEntities(type, typeFilter);
@@ -41,4 +47,11 @@ public class ConfigStoreClientImpl implements ConfigStoreClient {
     public Flux<List<EntityState.Delta<EntityInfo>>> getEntityUpdatesBatch(List<EntityInfo> startList, EntityType type, EntityType... typeFilter) {
         return provider.getEntityUpdatesBatch(startList, type, typeFilter);
     }
+
+    /**
+     * Stops loading entities. Spring calls this when a client bean is destroyed.
+     */
+    public void close() {
+        provider.close();
+    }
 }
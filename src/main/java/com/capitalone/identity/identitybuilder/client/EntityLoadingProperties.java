@@ -0,0 +1,50 @@
+package com.capitalone.identity.identitybuilder.client;
+
+import com.capitalone.identity.identitybuilder.repository.EntityProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.stereotype.Component;
+
+/**
+ * Concurrency limits applied when loading the items of an entity. See {@link EntityProvider#getEntityAsync}.
+ */
+@Component
+@Conditional(ClientProperties.LibraryEnabled.class)
+public class EntityLoadingProperties {
+
+    private static final String MAX_CONCURRENT_FETCHES = "csc.entity-loading.max-concurrent-fetches";
+    private static final String MAX_CONCURRENT_FETCHES_PER_ENTITY = "csc.entity-loading.max-concurrent-fetches-per-entity";
+
+    private final int maxConcurrentFetches;
+    private final int maxConcurrentFetchesPerEntity;
+
+    /**
+     * @param maxConcurrentFetches          maximum item fetches in flight across all entity loads
+     * @param maxConcurrentFetchesPerEntity maximum item fetches in flight for a single entity load
+     */
+    public EntityLoadingProperties(
+            @Value("${" + MAX_CONCURRENT_FETCHES + ":" + EntityProvider.DEFAULT_MAX_CONCURRENT_FETCHES + "}")
+            int maxConcurrentFetches,
+            @Value("${" + MAX_CONCURRENT_FETCHES_PER_ENTITY + ":" + EntityProvider.DEFAULT_MAX_CONCURRENT_FETCHES_PER_ENTITY + "}")
+            int maxConcurrentFetchesPerEntity) {
+        this.maxConcurrentFetches = requirePositive(MAX_CONCURRENT_FETCHES, maxConcurrentFetches);
+        this.maxConcurrentFetchesPerEntity = requirePositive(MAX_CONCURRENT_FETCHES_PER_ENTITY, maxConcurrentFetchesPerEntity);
+    }
+
+    public int getMaxConcurrentFetches() {
+        return maxConcurrentFetches;
+    }
+
+    public int getMaxConcurrentFetchesPerEntity() {
+        return maxConcurrentFetchesPerEntity;
+    }
+
+    private static int requirePositive(String property, int value) {
+        if (value < 1) {
+            String msg = String.format("Invalid property '%s=%s'. Must be at least 1.", property, value);
+            throw new IllegalArgumentException(msg);
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,330 @@
+package com.capitalone.identity.identitybuilder.client.archive;
+
+import com.capitalone.identity.identitybuilder.model.ConfigStoreItem;
+import com.capitalone.identity.identitybuilder.model.ConfigStoreItemInfo;
+import com.capitalone.identity.identitybuilder.repository.CommonItemStore;
+import com.capitalone.identity.identitybuilder.util.CompressionUtils;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.NonNull;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Serves a snapshot of a config store from a single zip archive, e.g. one baked into a container image, so a
+ * client can load all entities without listing or downloading anything.
+ * <p>
+ * The listing is read from the central directory of the archive when the store is created, and item content is
+ * read from a memory mapping of the archive file, so opening the store does not read any item content. Archives
+ * that are not a file, e.g. classpath resources inside a jar, are read into memory instead.
+ * <p>
+ * The tag of an item is the comment of its archive entry, as written by {@link ArchiveItemWriter}, which records
+ * the tags of the store the snapshot was taken from. Entries without a comment are tagged with their CRC-32 and
+ * size. Items with a compressed name are decompressed like in the other item stores. Stored and deflated entries
+ * are supported, ZIP64 and encrypted archives are not.
+ */
+public class ArchiveItemStore extends CommonItemStore {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int END_SIZE = 22;
+    private static final int MAX_ARCHIVE_COMMENT_SIZE = 0xFFFF;
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+    private static final int FLAG_ENCRYPTED = 1;
+
+    /**
+     * @param location file system path, or Spring resource location such as {@code classpath:snapshot.zip}
+     */
+    public static ArchiveItemStore open(@NonNull String location) throws IOException {
+        Resource resource = new DefaultResourceLoader().getResource(location);
+        if (!resource.exists() && URI.create(location).getScheme() == null) {
+            resource = new DefaultResourceLoader().getResource("file:" + location);
+        }
+        if (!resource.exists()) {
+            throw new IllegalArgumentException("Archive not found: " + location);
+        }
+        if (resource.isFile()) {
+            return new ArchiveItemStore(resource.getFile().toPath());
+        }
+        try (InputStream stream = resource.getInputStream()) {
+            return new ArchiveItemStore(ByteBuffer.wrap(stream.readAllBytes()));
+        }
+    }
+
+    private final ByteBuffer archive;
+    private final List<Entry> entries;
+    private final Map<String, Entry> entriesByName;
+
+    /**
+     * Memory-map an archive file.
+     */
+    public ArchiveItemStore(@NonNull Path file) throws IOException {
+        this(map(file));
+    }
+
+    /**
+     * @param archive content of the archive
+     */
+    public ArchiveItemStore(@NonNull ByteBuffer archive) throws IOException {
+        this.archive = archive.slice().order(ByteOrder.LITTLE_ENDIAN);
+        this.entries = readCentralDirectory(this.archive);
+        this.entriesByName = new HashMap<>(entries.size() * 2);
+        for (Entry entry : entries) {
+            entriesByName.put(entry.info.getName(), entry);
+        }
+    }
+
+    /**
+     * @return number of items in the archive
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public Set<ConfigStoreItemInfo> getAllItemInfo() {
+        return entries.stream().map(entry -> entry.info).collect(Collectors.toSet());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the archive does not contain the item with the requested tag
+     */
+    @Override
+    public ConfigStoreItem getItem(ConfigStoreItemInfo info) throws IOException {
+        Entry entry = getEntry(info);
+        byte[] content = read(entry);
+        return new ConfigStoreItem(entry.info, CompressionUtils.isCompressedName(entry.info.getName())
+                ? CompressionUtils.decompress(content)
+                : content);
+    }
+
+    @Override
+    public InputStream getItemStream(ConfigStoreItemInfo info) throws IOException {
+        Entry entry = getEntry(info);
+        InputStream stream = new ByteArrayInputStream(read(entry));
+        return CompressionUtils.isCompressedName(entry.info.getName()) ? CompressionUtils.decompress(stream) : stream;
+    }
+
+    @Override
+    public Flux<ConfigStoreItemInfo> getStoredItemInfo() {
+        return Flux.fromIterable(entries).map(entry -> entry.info);
+    }
+
+    /**
+     * Entries are sorted by name, so a prefix listing starts at the first match instead of filtering all items.
+     */
+    @Override
+    public Flux<ConfigStoreItemInfo> getStoredItemInfo(String prefix) {
+        return Flux.defer(() -> {
+            int low = 0;
+            int high = entries.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (entries.get(mid).info.getName().compareTo(prefix) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return Flux.fromIterable(entries.subList(low, entries.size()))
+                    .map(entry -> entry.info)
+                    .takeWhile(info -> info.getName().startsWith(prefix));
+        });
+    }
+
+    @Override
+    public Optional<ConfigStoreItemInfo> getSingleStoredItemInfo(String key) {
+        return Optional.ofNullable(entriesByName.get(key)).map(entry -> entry.info);
+    }
+
+    private Entry getEntry(ConfigStoreItemInfo info) {
+        Entry entry = entriesByName.get(info.getName());
+        if (entry == null || !entry.info.equals(info)) {
+            throw new IllegalArgumentException("Item not found in archive: " + info);
+        }
+        return entry;
+    }
+
+    private byte[] read(Entry entry) throws IOException {
+        ByteBuffer buffer = archive.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int headerOffset = entry.localHeaderOffset;
+        if (headerOffset + LOCAL_HEADER_SIZE > buffer.limit()
+                || buffer.getInt(headerOffset) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("Invalid local header of archive entry: " + entry.info.getName());
+        }
+        int dataOffset = headerOffset + LOCAL_HEADER_SIZE
+                + Short.toUnsignedInt(buffer.getShort(headerOffset + 26))
+                + Short.toUnsignedInt(buffer.getShort(headerOffset + 28));
+        if ((long) dataOffset + entry.compressedSize > buffer.limit()) {
+            throw new ZipException("Truncated archive entry: " + entry.info.getName());
+        }
+        buffer.limit(dataOffset + entry.compressedSize).position(dataOffset);
+
+        byte[] content = new byte[entry.size];
+        if (entry.method == METHOD_STORED) {
+            buffer.get(content);
+        } else {
+            Inflater inflater = new Inflater(true);
+            try {
+                inflater.setInput(buffer);
+                int length = 0;
+                while (length < content.length && !inflater.finished()) {
+                    int read = inflater.inflate(content, length, content.length - length);
+                    if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    length += read;
+                }
+                if (length != content.length) {
+                    throw new ZipException("Invalid size of archive entry: " + entry.info.getName());
+                }
+            } catch (DataFormatException e) {
+                throw new ZipException("Invalid content of archive entry: " + entry.info.getName() + ", "
+                        + e.getMessage());
+            } finally {
+                inflater.end();
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        if ((int) crc.getValue() != entry.crc) {
+            throw new ZipException("Invalid CRC-32 of archive entry: " + entry.info.getName());
+        }
+        return content;
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new ZipException("Archive larger than 2 GB not supported: " + file);
+            }
+            // the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * @return file entries of the archive, sorted by name
+     */
+    private static List<Entry> readCentralDirectory(ByteBuffer archive) throws ZipException {
+        int end = findEnd(archive);
+        int count = Short.toUnsignedInt(archive.getShort(end + 10));
+        long directorySize = Integer.toUnsignedLong(archive.getInt(end + 12));
+        long directoryOffset = Integer.toUnsignedLong(archive.getInt(end + 16));
+        if (count == 0xFFFF || directoryOffset == 0xFFFFFFFFL) {
+            throw new ZipException("ZIP64 archives are not supported");
+        }
+        if (directoryOffset + directorySize > end) {
+            throw new ZipException("Invalid central directory offset: " + directoryOffset);
+        }
+
+        List<Entry> entries = new ArrayList<>(count);
+        int offset = (int) directoryOffset;
+        for (int i = 0; i < count; i++) {
+            if (offset + CENTRAL_HEADER_SIZE > end || archive.getInt(offset) != CENTRAL_HEADER_SIGNATURE) {
+                throw new ZipException("Invalid central directory header at offset " + offset);
+            }
+            int flags = Short.toUnsignedInt(archive.getShort(offset + 8));
+            int method = Short.toUnsignedInt(archive.getShort(offset + 10));
+            int crc = archive.getInt(offset + 16);
+            long compressedSize = Integer.toUnsignedLong(archive.getInt(offset + 20));
+            long size = Integer.toUnsignedLong(archive.getInt(offset + 24));
+            int nameLength = Short.toUnsignedInt(archive.getShort(offset + 28));
+            int extraLength = Short.toUnsignedInt(archive.getShort(offset + 30));
+            int commentLength = Short.toUnsignedInt(archive.getShort(offset + 32));
+            long localHeaderOffset = Integer.toUnsignedLong(archive.getInt(offset + 42));
+            int nameOffset = offset + CENTRAL_HEADER_SIZE;
+            String name = getString(archive, nameOffset, nameLength);
+            String comment = getString(archive, nameOffset + nameLength + extraLength, commentLength);
+            offset = nameOffset + nameLength + extraLength + commentLength;
+
+            if (name.endsWith("/")) {
+                // directory
+                continue;
+            }
+            if ((flags & FLAG_ENCRYPTED) != 0) {
+                throw new ZipException("Encrypted archive entries are not supported: " + name);
+            }
+            if (method != METHOD_STORED && method != METHOD_DEFLATED) {
+                throw new ZipException("Unsupported compression method " + method + " of archive entry: " + name);
+            }
+            if (compressedSize > Integer.MAX_VALUE || size > Integer.MAX_VALUE
+                    || localHeaderOffset >= directoryOffset) {
+                throw new ZipException("ZIP64 archives are not supported");
+            }
+            String tag = comment.isEmpty() ? String.format("%08x-%d", crc, size) : comment;
+            entries.add(new Entry(new ConfigStoreItemInfo(name, tag), method, crc, (int) compressedSize, (int) size,
+                    (int) localHeaderOffset));
+        }
+        entries.sort(Comparator.comparing(entry -> entry.info.getName()));
+        for (int i = 1; i < entries.size(); i++) {
+            if (entries.get(i).info.getName().equals(entries.get(i - 1).info.getName())) {
+                throw new ZipException("Duplicate archive entry: " + entries.get(i).info.getName());
+            }
+        }
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * @return offset of the end of central directory record, which is followed by the archive comment
+     */
+    private static int findEnd(ByteBuffer archive) throws ZipException {
+        int last = archive.limit() - END_SIZE;
+        int first = Math.max(0, last - MAX_ARCHIVE_COMMENT_SIZE);
+        for (int offset = last; offset >= first; offset--) {
+            if (archive.getInt(offset) == END_SIGNATURE
+                    && offset + END_SIZE + Short.toUnsignedInt(archive.getShort(offset + 20)) == archive.limit()) {
+                return offset;
+            }
+        }
+        throw new ZipException("Not a zip archive, end of central directory not found");
+    }
+
+    private static String getString(ByteBuffer archive, int offset, int length) throws ZipException {
+        if (offset + length > archive.limit()) {
+            throw new ZipException("Truncated central directory");
+        }
+        byte[] bytes = new byte[length];
+        archive.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Entry {
+        final ConfigStoreItemInfo info;
+        final int method;
+        final int crc;
+        final int compressedSize;
+        final int size;
+        final int localHeaderOffset;
+
+        Entry(ConfigStoreItemInfo info, int method, int crc, int compressedSize, int size, int localHeaderOffset) {
+            this.info = info;
+            this.method = method;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.capitalone.identity.identitybuilder.client.archive;
+
+import com.capitalone.identity.identitybuilder.ConfigStoreConstants;
+import com.capitalone.identity.identitybuilder.model.ConfigStoreItemInfo;
+import com.capitalone.identity.identitybuilder.repository.ItemStore;
+import com.capitalone.identity.identitybuilder.util.CompressionUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.lang.NonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Takes a snapshot of an item store, e.g. the S3 bucket of an environment, and writes it to a zip archive that an
+ * {@link ArchiveItemStore} serves. Each entry records the tag of its item in the source store, so a client that
+ * starts from the snapshot and then scans the source store only reloads entities that changed since the snapshot.
+ * <p>
+ * Run this when building an image, after the config that it should start with was published.
+ */
+public class ArchiveItemWriter {
+    private static final Logger LOGGER = LogManager.getLogger(ConfigStoreConstants.LOGGER_NAME);
+
+    private final ItemStore source;
+
+    public ArchiveItemWriter(@NonNull ItemStore source) {
+        this.source = Objects.requireNonNull(source);
+    }
+
+    /**
+     * Write the snapshot to a temporary file next to {@code target}, then move it into place.
+     *
+     * @return number of items written
+     */
+    public int write(@NonNull Path target) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            int count;
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                count = write(out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.info("Wrote item archive: path={}, items={}, size={}", target, count, Files.size(target));
+            return count;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Write the snapshot as a zip archive, in listing order.
+     *
+     * @return number of items written
+     */
+    public int write(@NonNull OutputStream out) throws IOException {
+        List<ConfigStoreItemInfo> infos = source.getStoredItemInfo().collectList().block();
+        ZipOutputStream zip = new ZipOutputStream(out);
+        for (ConfigStoreItemInfo info : Objects.requireNonNull(infos)) {
+            byte[] content = source.getItem(info).getContentBytes();
+            ZipEntry entry = new ZipEntry(info.getName());
+            entry.setComment(info.getTag());
+            if (CompressionUtils.isCompressedName(info.getName())) {
+                // stores return the decompressed content, while the archive keeps the item as named
+                content = CompressionUtils.compress(content);
+                CRC32 crc = new CRC32();
+                crc.update(content);
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(content.length);
+                entry.setCrc(crc.getValue());
+            }
+            zip.putNextEntry(entry);
+            zip.write(content);
+            zip.closeEntry();
+        }
+        zip.finish();
+        return infos.size();
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.capitalone.identity.identitybuilder.client.archive;
+
+import com.capitalone.identity.identitybuilder.ConfigStoreConstants;
+import com.capitalone.identity.identitybuilder.model.ConfigStoreItem;
+import com.capitalone.identity.identitybuilder.model.ConfigStoreItemInfo;
+import com.capitalone.identity.identitybuilder.model.ScanRequest;
+import com.capitalone.identity.identitybuilder.polling.ScanRequester;
+import com.capitalone.identity.identitybuilder.repository.CommonItemStore;
+import com.capitalone.identity.identitybuilder.repository.ItemStore;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.lang.NonNull;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Serves a startup snapshot until the first scan, then the live store, e.g. the S3 bucket the snapshot was taken
+ * from.
+ * <p>
+ * Listings and lookups are served by the snapshot until {@link #switchToLive()}, so the initial entity load does
+ * not touch the live store. The scan requester returned by {@link #switchOnScan(ScanRequester)} switches to the
+ * live store with an immediate scan, which reloads the entities that changed since the snapshot was taken, and
+ * then passes on the requests of its delegate. Items are read from the snapshot whenever it holds them with the
+ * requested tag, also after the switch.
+ */
+public class SnapshotItemStore extends CommonItemStore {
+    private static final Logger LOGGER = LogManager.getLogger(ConfigStoreConstants.LOGGER_NAME);
+
+    private final ItemStore snapshot;
+    private final ItemStore live;
+    private volatile boolean switched;
+
+    public SnapshotItemStore(@NonNull ItemStore snapshot, @NonNull ItemStore live) {
+        this.snapshot = Objects.requireNonNull(snapshot);
+        this.live = Objects.requireNonNull(live);
+    }
+
+    /**
+     * Serve listings and lookups from the live store from now on.
+     */
+    public void switchToLive() {
+        if (!switched) {
+            switched = true;
+            LOGGER.info("Switched from startup snapshot to live item store");
+        }
+    }
+
+    /**
+     * @return whether listings and lookups are served from the live store
+     */
+    public boolean isLive() {
+        return switched;
+    }
+
+    /**
+     * @return a requester that requests a scan right away, followed by the requests of {@code scanRequester}, and
+     * switches this store to the live store before each scan
+     */
+    public ScanRequester switchOnScan(@NonNull ScanRequester scanRequester) {
+        Objects.requireNonNull(scanRequester);
+        return () -> Flux.concat(
+                        Mono.fromSupplier(() -> new ScanRequest(System.currentTimeMillis())),
+                        scanRequester.getScanRequests())
+                .doOnNext(request -> switchToLive());
+    }
+
+    @Override
+    public Set<ConfigStoreItemInfo> getAllItemInfo() throws IOException {
+        return getListingStore().getAllItemInfo();
+    }
+
+    @Override
+    public ConfigStoreItem getItem(ConfigStoreItemInfo info) throws IOException {
+        return getItemStore(info).getItem(info);
+    }
+
+    @Override
+    public InputStream getItemStream(ConfigStoreItemInfo info) throws IOException {
+        return getItemStore(info).getItemStream(info);
+    }
+
+    @Override
+    public Flux<ConfigStoreItemInfo> getStoredItemInfo() {
+        return Flux.defer(() -> getListingStore().getStoredItemInfo());
+    }
+
+    @Override
+    public Flux<ConfigStoreItemInfo> getStoredItemInfo(String prefix) {
+        return Flux.defer(() -> getListingStore().getStoredItemInfo(prefix));
+    }
+
+    /**
+     * Before the switch, items missing from the snapshot are looked up in the live store, e.g. legacy metadata
+     * that the snapshot was taken without.
+     */
+    @Override
+    public Optional<ConfigStoreItemInfo> getSingleStoredItemInfo(String key) {
+        if (switched) {
+            return live.getSingleStoredItemInfo(key);
+        }
+        Optional<ConfigStoreItemInfo> info = snapshot.getSingleStoredItemInfo(key);
+        return info.isPresent() ? info : live.getSingleStoredItemInfo(key);
+    }
+
+    private ItemStore getListingStore() {
+        return switched ? live : snapshot;
+    }
+
+    private ItemStore getItemStore(ConfigStoreItemInfo info) {
+        return snapshot.getSingleStoredItemInfo(info.getName()).filter(info::equals).isPresent() ? snapshot : live;
+    }
+
+}
@@ -14,6 +14,7 @@ import org.apache.logging.log4j.Logger;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.Objects;
@@ -33,6 +34,16 @@ public class LocalDebugConfigStoreClient implements ConfigStoreClient {
                                        @NonNull ClientEnvironment environment,
                                        @NonNull ScanRequester scanRequester,
                                        @NonNull ConfigStoreScanCompleted_Publisher scanPublisher) {
+        this(rootDir, environment, scanRequester, scanPublisher,
+                EntityProvider.DEFAULT_MAX_CONCURRENT_FETCHES, EntityProvider.DEFAULT_MAX_CONCURRENT_FETCHES_PER_ENTITY);
+    }
+
+    public LocalDebugConfigStoreClient(@Nullable String rootDir,
+                                       @NonNull ClientEnvironment environment,
+                                       @NonNull ScanRequester scanRequester,
+                                       @NonNull ConfigStoreScanCompleted_Publisher scanPublisher,
+                                       int maxConcurrentFetches,
+                                       int maxConcurrentFetchesPerEntity) {
 
         LOGGER.debug("Config Store Client: LOCAL DEBUG ENABLED. Root Directory Used: {}", rootDir);
         try {
@@ -40,7 +51,9 @@ public class LocalDebugConfigStoreClient implements ConfigStoreClient {
             entityProvider = new EntityProvider(itemStore,
                     Objects.requireNonNull(scanRequester),
                     Objects.requireNonNull(scanPublisher),
-                    environment);
+                    environment,
+                    maxConcurrentFetches,
+                    maxConcurrentFetchesPerEntity);
         } catch (IllegalArgumentException e) {
             final String msg = String.format("Must set property '%s' before running in local debug mode.",
                     DevLocalProperties.DEV_LOCAL_ROOT_DIR);
@@ -54,6 +67,11 @@ public class LocalDebugConfigStoreClient implements ConfigStoreClient {
         return entityProvider.getEntity(entityInfo);
     }
 
+    @Override
+    public Mono<Entity> getEntityAsync(EntityInfo entityInfo) {
+        return entityProvider.getEntityAsync(entityInfo);
+    }
+
     @Override
     public Flux<EntityInfo> getEntityInfo(EntityType type, EntityType... typeFilter) {
         return entityProvider.getEntities(type, typeFilter);
@@ -64,4 +82,11 @@ public class LocalDebugConfigStoreClient implements ConfigStoreClient {
         return entityProvider.getEntityUpdatesBatch(startList, type, typeFilter);
     }
 
+    /**
+     * Stops loading entities. Spring calls this when a client bean is destroyed.
+     */
+    public void close() {
+        entityProvider.close();
+    }
+
 }
@@ -17,14 +17,19 @@ public class LocalDebugConfiguration {
     @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
     ConfigStoreClient getLocalDebugClient(DevLocalProperties localDebugProperties,
                                           ClientProperties clientProperties,
+                                          EntityLoadingProperties entityLoadingProperties,
+                                          LocalDebugWatchProperties localDebugWatchProperties,
                                           Optional<ScanRequester> scanRequester,
                                           Optional<ConfigStoreClient_ApplicationEventPublisher> scanPublisher) {
 
         return new LocalDebugConfigStoreClient(
                 localDebugProperties.getRootDirectory(),
                 clientProperties.getClientEnvironment(),
-                scanRequester.orElse(Flux::never),
-                scanPublisher.orElse(ConfigStoreClient_ApplicationEventPublisher.EMPTY));
+                localDebugWatchProperties.apply(scanRequester.orElse(Flux::never),
+                        localDebugProperties.getRootDirectory()),
+                scanPublisher.orElse(ConfigStoreClient_ApplicationEventPublisher.EMPTY),
+                entityLoadingProperties.getMaxConcurrentFetches(),
+                entityLoadingProperties.getMaxConcurrentFetchesPerEntity());
     }
 
 }
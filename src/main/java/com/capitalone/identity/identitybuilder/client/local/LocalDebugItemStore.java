@@ -5,36 +5,40 @@ import com.capitalone.identity.identitybuilder.client.DevLocalProperties;
 import com.capitalone.identity.identitybuilder.model.ConfigStoreItem;
 import com.capitalone.identity.identitybuilder.model.ConfigStoreItemInfo;
 import com.capitalone.identity.identitybuilder.repository.CommonItemStore;
+import com.capitalone.identity.identitybuilder.util.CompressionUtils;
 import com.capitalone.identity.identitybuilder.util.StringUtils;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.Comparator;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.Set;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
+/**
+ * Reads items from a local directory, for local development and testing.
+ * <p>
+ * Content hashes, which are the item tags, are cached by path, size and modification time, so a scan only reads
+ * files that changed since the previous scan. Files modified within {@value #RACY_MODIFICATION_MILLIS} ms of a scan
+ * are hashed again on the next scan, since a change within the timestamp granularity of the file system would
+ * otherwise go unnoticed.
+ */
 public class LocalDebugItemStore extends CommonItemStore {
 
-    private static Stream<Path> getFileStream(String directory) {
-        try {
-            return Files.walk(Paths.get(directory));
-        } catch (IOException e) {
-            throw new IllegalStateException(e);
-        }
-    }
+    static final long RACY_MODIFICATION_MILLIS = 2000;
+    private static final int HASH_PARALLELISM = Math.max(2, Runtime.getRuntime().availableProcessors());
 
     public static Optional<String> getLocalConfigDirectory(String rootDir) {
         return Optional.ofNullable(rootDir)
@@ -64,42 +68,82 @@ public class LocalDebugItemStore extends CommonItemStore {
     }
 
     private final String rootDir;
+    private final Map<Path, CachedHash> hashes = new ConcurrentHashMap<>();
+    private final AtomicLong hashCount = new AtomicLong();
 
     public LocalDebugItemStore(String rootDir) {
         this.rootDir = getLocalConfigDirectory(rootDir)
                 .orElseThrow(() -> new IllegalArgumentException("Invalid Item Store Directory:=" + rootDir));
     }
 
+    /**
+     * @return number of files whose content was hashed, as opposed to tags served from the hash cache
+     */
+    public long getHashCount() {
+        return hashCount.get();
+    }
+
     @Override
     public Set<ConfigStoreItemInfo> getAllItemInfo() {
-        return getConfigStoreItemInfoStream().collect(Collectors.toSet());
+        return getStoredItemInfo().collect(Collectors.toSet()).block();
     }
 
     @Override
     public ConfigStoreItem getItem(ConfigStoreItemInfo info) throws IOException {
         Path path = Paths.get(info.getName());
-        try (InputStream stream = Files.newInputStream(path)) {
-            return new ConfigStoreItem(info, IOUtils.toString(stream));
-        }
+        byte[] content = Files.readAllBytes(path);
+        return new ConfigStoreItem(info, CompressionUtils.isCompressedName(info.getName())
+                ? CompressionUtils.decompress(content)
+                : content);
     }
 
+    @Override
+    public InputStream getItemStream(ConfigStoreItemInfo info) throws IOException {
+        InputStream stream = Files.newInputStream(Paths.get(info.getName()));
+        return CompressionUtils.isCompressedName(info.getName()) ? CompressionUtils.decompress(stream) : stream;
+    }
+
+    /**
+     * Lists files in path order. Files without a cached hash are hashed in parallel, and entries of files that no
+     * longer exist are dropped from the cache once the listing completes.
+     */
     @Override
     public Flux<ConfigStoreItemInfo> getStoredItemInfo() {
-        return Flux.fromStream(this::getConfigStoreItemInfoStream);
+        return Flux.defer(() -> {
+            long scanStart = System.currentTimeMillis();
+            List<FileEntry> files = getFiles(Paths.get(rootDir));
+            return Flux.fromIterable(files)
+                    .flatMapSequential(file -> {
+                        CachedHash cached = hashes.get(file.path);
+                        if (cached != null && cached.matches(file.attributes)) {
+                            return Mono.just(file.toItemInfo(cached.tag));
+                        }
+                        return Mono.fromCallable(() -> file.toItemInfo(getContentHash(file, scanStart)))
+                                .subscribeOn(Schedulers.boundedElastic());
+                    }, HASH_PARALLELISM)
+                    .doOnComplete(() -> hashes.keySet().retainAll(
+                            files.stream().map(file -> file.path).collect(Collectors.toSet())));
+        });
     }
 
     @Override
     public Optional<ConfigStoreItemInfo> getSingleStoredItemInfo(String key) {
         try {
-            return getFileStream(key)
-                    .filter(path -> path.toFile().isFile())
+            Path path = Paths.get(key);
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (attributes.isRegularFile()) {
+                FileEntry file = new FileEntry(path, attributes);
+                CachedHash cached = hashes.get(path);
+                String tag = cached != null && cached.matches(attributes)
+                        ? cached.tag
+                        : getContentHash(file, System.currentTimeMillis());
+                return Optional.of(file.toItemInfo(tag));
+            }
+            // a directory key resolves to its first file
+            return getFiles(path).stream()
                     .findFirst()
-                    .map(path -> {
-                        String objectLocation = Objects.requireNonNull(path.toString());
-                        String tag = getContentHash(path);
-                        return new ConfigStoreItemInfo(objectLocation, tag);
-                    });
-        } catch (RuntimeException e) {
+                    .map(file -> file.toItemInfo(getContentHash(file, System.currentTimeMillis())));
+        } catch (IOException | RuntimeException e) {
             // Treat this as a catch-all for "item not found" to avoid
             // spamming local development environment with error messages
             // when a file assumed to be there d.n. exist. (see S3ItemStore for
@@ -108,24 +152,91 @@ public class LocalDebugItemStore extends CommonItemStore {
         }
     }
 
-    private String getContentHash(Path path) {
-        try (InputStream stream = Files.newInputStream(path)) {
+    /**
+     * Hash the content of a file, and cache the hash unless the file was modified too recently to tell a later
+     * change from its modification time.
+     */
+    private String getContentHash(FileEntry file, long now) {
+        String tag;
+        try (InputStream stream = Files.newInputStream(file.path)) {
             String policyContent = IOUtils.toString(stream);
-            return StringUtils.getContentHash(policyContent);
+            tag = StringUtils.getContentHash(policyContent);
         } catch (IOException e) {
             throw Exceptions.propagate(e);
         }
+        hashCount.incrementAndGet();
+        long modified = file.attributes.lastModifiedTime().toMillis();
+        if (now - modified >= RACY_MODIFICATION_MILLIS) {
+            hashes.put(file.path, new CachedHash(file.attributes, tag));
+        } else {
+            hashes.remove(file.path);
+        }
+        return tag;
+    }
+
+    /**
+     * @return regular files below {@code directory}, sorted by path
+     */
+    private static List<FileEntry> getFiles(Path directory) {
+        List<FileEntry> files = new ArrayList<>();
+        try {
+            Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                    if (attributes.isSymbolicLink()) {
+                        // links are listed as the file they point to, and skipped when that is not a file
+                        attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    }
+                    if (attributes.isRegularFile()) {
+                        files.add(new FileEntry(file, attributes));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+                    if (e instanceof NoSuchFileException && !file.equals(directory)) {
+                        // deleted while walking
+                        return FileVisitResult.CONTINUE;
+                    }
+                    throw e;
+                }
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        files.sort(Comparator.comparing(file -> file.path));
+        return files;
     }
 
-    private Stream<ConfigStoreItemInfo> getConfigStoreItemInfoStream() {
-        return getFileStream(rootDir)
-                .sorted(Comparator.naturalOrder())
-                .filter(path -> path.toFile().isFile())
-                .map(path -> {
-                    String objectLocation = Objects.requireNonNull(path.toString());
-                    String tag = getContentHash(path);
-                    return new ConfigStoreItemInfo(objectLocation, tag);
-                });
+    private static final class FileEntry {
+        final Path path;
+        final BasicFileAttributes attributes;
+
+        FileEntry(Path path, BasicFileAttributes attributes) {
+            this.path = path;
+            this.attributes = attributes;
+        }
+
+        ConfigStoreItemInfo toItemInfo(String tag) {
+            return new ConfigStoreItemInfo(Objects.requireNonNull(path.toString()), tag);
+        }
+    }
+
+    private static final class CachedHash {
+        final long size;
+        final FileTime lastModified;
+        final String tag;
+
+        CachedHash(BasicFileAttributes attributes, String tag) {
+            this.size = attributes.size();
+            this.lastModified = attributes.lastModifiedTime();
+            this.tag = tag;
+        }
+
+        boolean matches(BasicFileAttributes attributes) {
+            return size == attributes.size() && lastModified.equals(attributes.lastModifiedTime());
+        }
     }
 
 }
@@ -0,0 +1,77 @@
+package com.capitalone.identity.identitybuilder.client.local;
+
+import com.capitalone.identity.identitybuilder.polling.ScanRequester;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+
+/**
+ * Optional properties that scan the local debug directory when its files change, see
+ * {@link LocalDirectoryWatchScanRequester}.
+ */
+@Lazy
+@Component
+public class LocalDebugWatchProperties {
+
+    private static final String ENABLED = "csc.dev-local.watch.enabled";
+    private static final String DEBOUNCE = "csc.dev-local.watch.debounce";
+
+    private final boolean enabled;
+    private final Duration debounce;
+
+    /**
+     * @param enabled  whether file changes trigger scans
+     * @param debounce ISO-8601 quiet period after the last file change before a scan is requested
+     */
+    public LocalDebugWatchProperties(@Value("${" + ENABLED + ":false}") boolean enabled,
+                                     @Value("${" + DEBOUNCE + ":#{null}}") String debounce) {
+        Duration duration;
+        try {
+            duration = Optional.ofNullable(debounce).map(Duration::parse)
+                    .orElse(LocalDirectoryWatchScanRequester.DEFAULT_DEBOUNCE);
+        } catch (DateTimeParseException e) {
+            String msg = String.format("Invalid property '%s=%s'. Must be an ISO-8601 duration.", DEBOUNCE, debounce);
+            throw new IllegalArgumentException(msg, e);
+        }
+        if (duration.isNegative()) {
+            String msg = String.format("Invalid property '%s=%s'. Must not be negative.", DEBOUNCE, debounce);
+            throw new IllegalArgumentException(msg);
+        }
+        this.enabled = enabled;
+        this.debounce = duration;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Duration getDebounce() {
+        return debounce;
+    }
+
+    /**
+     * @return a requester that adds scans on changes below {@code rootDir} to those of {@code scanRequester}, or
+     * {@code scanRequester} itself when watching is disabled or the directory does not exist
+     */
+    ScanRequester apply(ScanRequester scanRequester, String rootDir) {
+        if (!enabled) {
+            return scanRequester;
+        }
+        Optional<String> directory;
+        try {
+            directory = LocalDebugItemStore.getLocalConfigDirectory(rootDir);
+        } catch (IllegalArgumentException e) {
+            // reported when the item store is created
+            return scanRequester;
+        }
+        return directory
+                .<ScanRequester>map(dir -> new LocalDirectoryWatchScanRequester(Paths.get(dir), scanRequester, debounce))
+                .orElse(scanRequester);
+    }
+
+}
@@ -0,0 +1,144 @@
+package com.capitalone.identity.identitybuilder.client.local;
+
+import com.capitalone.identity.identitybuilder.ConfigStoreConstants;
+import com.capitalone.identity.identitybuilder.model.ScanRequest;
+import com.capitalone.identity.identitybuilder.polling.ScanRequester;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.lang.NonNull;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Objects;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Adds scan requests to those of a delegate {@link ScanRequester} whenever files below a local directory change, so
+ * edits show up without waiting for the next poll.
+ * <p>
+ * Events are watched with a {@link WatchService} on the directory and all of its subdirectories, including ones
+ * created later. A burst of events, e.g. a checkout or build that writes many files, results in one full scan once
+ * no event was observed for the debounce period. If the directory can't be watched, only the requests of the
+ * delegate are emitted.
+ */
+public class LocalDirectoryWatchScanRequester implements ScanRequester {
+    private static final Logger LOGGER = LogManager.getLogger(ConfigStoreConstants.LOGGER_NAME);
+
+    public static final Duration DEFAULT_DEBOUNCE = Duration.ofMillis(250);
+
+    private final Path directory;
+    private final ScanRequester delegate;
+    private final Duration debounce;
+
+    /**
+     * @param delegate provides scan requests in addition to those triggered by file changes, e.g. polling
+     * @param debounce quiet period after the last file event before a scan is requested
+     */
+    public LocalDirectoryWatchScanRequester(@NonNull Path directory, @NonNull ScanRequester delegate,
+                                            @NonNull Duration debounce) {
+        if (debounce.isNegative()) {
+            throw new IllegalArgumentException("debounce must not be negative, found: " + debounce);
+        }
+        this.directory = Objects.requireNonNull(directory);
+        this.delegate = Objects.requireNonNull(delegate);
+        this.debounce = debounce;
+    }
+
+    @Override
+    public Flux<ScanRequest> getScanRequests() {
+        Flux<ScanRequest> watchRequests = getFileEvents()
+                .sampleTimeout(event -> Mono.delay(debounce))
+                .map(event -> {
+                    LOGGER.debug("Local directory changed, requesting scan: {}", event);
+                    return new ScanRequest(System.currentTimeMillis());
+                });
+        return Flux.merge(delegate.getScanRequests(), watchRequests);
+    }
+
+    /**
+     * @return paths of changed files, or {@link #directory} when events were lost
+     */
+    Flux<Path> getFileEvents() {
+        return Flux.<Path>create(sink -> {
+            WatchService watchService;
+            try {
+                watchService = directory.getFileSystem().newWatchService();
+                register(watchService, directory);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Local directory can't be watched, changes are picked up by polling only: {}",
+                        directory, e);
+                sink.complete();
+                return;
+            }
+            Disposable task = Schedulers.boundedElastic().schedule(() -> watch(watchService, sink));
+            sink.onDispose(() -> {
+                task.dispose();
+                try {
+                    watchService.close();
+                } catch (IOException e) {
+                    LOGGER.debug("Failed to close watch service of {}", directory, e);
+                }
+            });
+        }, FluxSink.OverflowStrategy.LATEST);
+    }
+
+    private void watch(WatchService watchService, FluxSink<Path> sink) {
+        try {
+            while (!sink.isCancelled()) {
+                WatchKey key = watchService.take();
+                Path watched = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW) {
+                        sink.next(directory);
+                        continue;
+                    }
+                    Path path = watched.resolve((Path) event.context());
+                    if (event.kind() == ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                        registerQuietly(watchService, path);
+                    }
+                    sink.next(path);
+                }
+                key.reset();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // disposed
+        }
+    }
+
+    private void registerQuietly(WatchService watchService, Path path) {
+        try {
+            register(watchService, path);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Failed to watch new local directory: {}", path, e);
+        }
+    }
+
+    private static void register(WatchService watchService, Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) throws IOException {
+                dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+                if (e instanceof NoSuchFileException && !file.equals(root)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                throw e;
+            }
+        });
+    }
+
+}
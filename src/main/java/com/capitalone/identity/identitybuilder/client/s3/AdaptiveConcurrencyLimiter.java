@@ -0,0 +1,278 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.retry.PredefinedRetryPolicies;
+import com.amazonaws.retry.RetryPolicy;
+import com.amazonaws.retry.RetryUtils;
+import com.capitalone.identity.identitybuilder.ConfigStoreConstants;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of concurrent S3 requests with an additive-increase/multiplicative-decrease (AIMD) limit.
+ * <p>
+ * The limit grows by one for every {@code limit} successful requests made while the limit is in use, and shrinks
+ * multiplicatively when S3 throttles a request (503 SlowDown or another throttling error) or when a request takes
+ * more than {@value #LATENCY_TOLERANCE} times the smoothed latency of requests of the same {@link Operation}. Each
+ * operation keeps its own latency baseline, since e.g. a listing page normally takes longer than a small GET. Only
+ * requests started after the most recent decrease can shrink the limit again, so one burst of throttling reduces the
+ * limit once rather than once per affected request.
+ * <p>
+ * Throttled requests are retried after a jittered exponential backoff, so the S3 client should not retry them
+ * itself, see {@link #newClientRetryPolicy(int)}. Callers that cannot acquire a permit within {@code maxWait} are
+ * rejected with a {@link RejectedExecutionException}.
+ */
+public class AdaptiveConcurrencyLimiter {
+    private static final Logger LOGGER = LogManager.getLogger(ConfigStoreConstants.LOGGER_NAME);
+
+    public static final int DEFAULT_INITIAL_LIMIT = 16;
+    public static final int DEFAULT_MIN_LIMIT = 1;
+    public static final int DEFAULT_MAX_LIMIT = 64;
+    public static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(30);
+
+    static final double THROTTLE_DECREASE_RATIO = 0.5;
+    static final double LATENCY_DECREASE_RATIO = 0.9;
+    static final double LATENCY_TOLERANCE = 2.0;
+    private static final double LATENCY_SMOOTHING = 0.05;
+    static final int MAX_THROTTLE_RETRIES = 3;
+    private static final Duration DEFAULT_BASE_BACKOFF = Duration.ofMillis(100);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(5);
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long maxWaitNanos;
+    private final Duration baseBackoff;
+    private final LongSupplier nanoTime;
+
+    private double limit;
+    private int inFlight;
+    private final double[] smoothedLatencyNanos = new double[Operation.values().length];
+    private long lastDecreaseNanos;
+
+    private final AtomicLong rejectionCount = new AtomicLong();
+    private final AtomicLong throttleCount = new AtomicLong();
+
+    /**
+     * @param initialLimit number of concurrent requests allowed before any requests have completed
+     * @param minLimit     lower bound of the limit
+     * @param maxLimit     upper bound of the limit
+     * @param maxWait      maximum time a request waits for a permit before it is rejected
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, Duration maxWait) {
+        this(initialLimit, minLimit, maxLimit, maxWait, DEFAULT_BASE_BACKOFF, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, Duration maxWait,
+                               Duration baseBackoff, LongSupplier nanoTime) {
+        if (minLimit < 1) {
+            throw new IllegalArgumentException("minLimit must be at least 1, found: " + minLimit);
+        }
+        if (maxLimit < minLimit) {
+            throw new IllegalArgumentException(String.format("maxLimit must be at least minLimit (%s), found: %s",
+                    minLimit, maxLimit));
+        }
+        if (initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException(String.format("initialLimit must be between %s and %s, found: %s",
+                    minLimit, maxLimit, initialLimit));
+        }
+        if (maxWait.isNegative()) {
+            throw new IllegalArgumentException("maxWait must not be negative, found: " + maxWait);
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.baseBackoff = Objects.requireNonNull(baseBackoff);
+        this.nanoTime = Objects.requireNonNull(nanoTime);
+        this.lastDecreaseNanos = nanoTime.getAsLong() - 1;
+    }
+
+    /**
+     * Like {@link #execute(Operation, Supplier)} for a {@link Operation#GET GET}.
+     */
+    public <T> T execute(Supplier<T> request) {
+        return execute(Operation.GET, request);
+    }
+
+    /**
+     * Run a request once a permit is available, retrying it with backoff if it is throttled.
+     *
+     * @param operation kind of request, whose latency baseline the request is measured against
+     * @return the result of {@code request}
+     * @throws RejectedExecutionException if no permit became available within the maximum wait
+     */
+    public <T> T execute(Operation operation, Supplier<T> request) {
+        return execute(operation, request, (result, release) -> {
+            release.run();
+            return result;
+        });
+    }
+
+    /**
+     * Like {@link #execute(Operation, Supplier)}, but the permit of a request that received a response is only
+     * released when {@code onResponse} runs the release action it is given, e.g. once the response body is read.
+     * The latency of the request is still measured up to the response. The action may run more than once.
+     */
+    <T> T execute(Operation operation, Supplier<T> request, BiFunction<T, Runnable, T> onResponse) {
+        for (int attempt = 0; ; attempt++) {
+            long start = acquire();
+            T result;
+            try {
+                result = request.get();
+            } catch (AmazonServiceException e) {
+                boolean throttled = isThrottled(e);
+                release(operation, start, nanoTime.getAsLong(), throttled);
+                if (!throttled || attempt >= MAX_THROTTLE_RETRIES) {
+                    throw e;
+                }
+                LOGGER.debug("S3 request throttled, retrying: attempt={}", attempt + 1);
+                backoff(attempt);
+                continue;
+            } catch (RuntimeException | Error e) {
+                release(operation, start, null, false);
+                throw e;
+            }
+            long end = nanoTime.getAsLong();
+            AtomicBoolean released = new AtomicBoolean();
+            return onResponse.apply(result, () -> {
+                if (released.compareAndSet(false, true)) {
+                    release(operation, start, end, false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Retry policy for an S3 client whose requests run through a limiter: the SDK default, except that throttled
+     * requests are not retried by the client. The limiter retries them itself after reducing its limit, and SDK
+     * retries would hide the throttling from it while holding the permit.
+     */
+    public static RetryPolicy newClientRetryPolicy(int maxErrorRetry) {
+        RetryPolicy.RetryCondition retryCondition = (request, exception, retriesAttempted) ->
+                !(exception instanceof AmazonServiceException && isThrottled((AmazonServiceException) exception))
+                        && PredefinedRetryPolicies.DEFAULT_RETRY_CONDITION
+                        .shouldRetry(request, exception, retriesAttempted);
+        return new RetryPolicy(retryCondition, PredefinedRetryPolicies.DEFAULT_BACKOFF_STRATEGY, maxErrorRetry,
+                false);
+    }
+
+    /**
+     * @return current number of concurrent requests allowed
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlightCount() {
+        return inFlight;
+    }
+
+    /**
+     * @return number of requests rejected because no permit became available within the maximum wait
+     */
+    public long getRejectionCount() {
+        return rejectionCount.get();
+    }
+
+    /**
+     * @return number of requests throttled by S3, including retried requests
+     */
+    public long getThrottleCount() {
+        return throttleCount.get();
+    }
+
+    /**
+     * @return start time of the request
+     */
+    private synchronized long acquire() {
+        long deadline = nanoTime.getAsLong() + maxWaitNanos;
+        while (inFlight >= (int) limit) {
+            long remaining = deadline - nanoTime.getAsLong();
+            if (remaining <= 0) {
+                rejectionCount.incrementAndGet();
+                throw new RejectedExecutionException(String.format(
+                        "S3 request rejected, no permit available: limit=%s, inFlight=%s", (int) limit, inFlight));
+            }
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while waiting for S3 request permit", e);
+            }
+        }
+        inFlight++;
+        return nanoTime.getAsLong();
+    }
+
+    /**
+     * @param end completion time of a request that received a response, or null if the request failed without one
+     */
+    private synchronized void release(Operation operation, long start, Long end, boolean throttled) {
+        if (throttled) {
+            throttleCount.incrementAndGet();
+            decrease(start, end, THROTTLE_DECREASE_RATIO);
+        } else if (end != null) {
+            onLatency(operation, start, end);
+        }
+        inFlight--;
+        notifyAll();
+    }
+
+    private void onLatency(Operation operation, long start, long end) {
+        double latency = end - start;
+        double smoothedLatency = smoothedLatencyNanos[operation.ordinal()];
+        if (smoothedLatency == 0) {
+            smoothedLatency = latency;
+        }
+        if (latency > smoothedLatency * LATENCY_TOLERANCE) {
+            decrease(start, end, LATENCY_DECREASE_RATIO);
+        } else if (inFlight * 2 >= limit) {
+            // only grow while the limit is actually in use, so an idle period does not inflate it
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+        smoothedLatencyNanos[operation.ordinal()] = smoothedLatency + LATENCY_SMOOTHING * (latency - smoothedLatency);
+    }
+
+    private void decrease(long start, long end, double ratio) {
+        if (start - lastDecreaseNanos >= 0) {
+            limit = Math.max(minLimit, Math.floor(limit * ratio));
+            lastDecreaseNanos = end;
+        }
+    }
+
+    private void backoff(int attempt) {
+        long cap = Math.min(MAX_BACKOFF.toNanos(), baseBackoff.toNanos() << attempt);
+        long delay = cap > 0 ? ThreadLocalRandom.current().nextLong(cap + 1) : 0;
+        try {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while backing off throttled S3 request", e);
+        }
+    }
+
+    static boolean isThrottled(AmazonServiceException e) {
+        return e.getStatusCode() == 503 || RetryUtils.isThrottlingException(e);
+    }
+
+    /**
+     * Kinds of S3 requests with their own latency baseline
+     */
+    public enum Operation {
+        GET,
+        HEAD,
+        LIST
+    }
+
+}
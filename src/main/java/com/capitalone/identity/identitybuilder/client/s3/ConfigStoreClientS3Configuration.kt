@@ -2,7 +2,12 @@ package com.capitalone.identity.identitybuilder.client.s3
 
 import com.amazonaws.regions.Regions
 import com.amazonaws.services.s3.AmazonS3
+import com.capitalone.identity.identitybuilder.ConfigStoreConstants
+import com.capitalone.identity.identitybuilder.repository.ItemStore
 import com.capitalone.identity.identitybuilder.util.AWSUtil
+import software.amazon.awssdk.services.s3.S3AsyncClient
+import java.nio.file.Paths
+import java.time.Duration
 
 
 data class ConfigStoreClientS3Configuration @JvmOverloads constructor(
@@ -23,11 +28,191 @@ data class ConfigStoreClientS3Configuration @JvmOverloads constructor(
      * Used with [com.amazonaws.ClientConfiguration]
      */
     var awsProxyEnabled: Boolean = false,
+    /**
+     * Number of top-level namespaces under [rootPrefix] that are listed concurrently during a scan. A value of 1
+     * lists the bucket sequentially. See [S3ItemStore]
+     */
+    var listingParallelism: Int = S3ItemStore.DEFAULT_LISTING_PARALLELISM,
+    /**
+     * Directory of the on-disk item content cache. Caching is disabled when null. See [ItemContentCache]
+     */
+    var contentCacheDirectory: String? = null,
+    /**
+     * Maximum total size of content kept in the on-disk item content cache
+     */
+    var contentCacheMaxSizeBytes: Long = ItemContentCache.DEFAULT_MAX_SIZE_BYTES,
+    /**
+     * How long single-key metadata lookups, including misses, are cached. [Duration.ZERO] disables the cache.
+     * See [S3ItemStore.getSingleStoredItemInfo]
+     */
+    var lookupCacheTtl: Duration = S3ItemStore.DEFAULT_LOOKUP_CACHE_TTL,
+    /**
+     * Key of an index object published by [S3ItemIndexWriter]. When set, scans read the index instead of listing
+     * the bucket. See [S3ItemStore.getStoredItemInfo]
+     */
+    var indexKey: String? = null,
+    /**
+     * Maximum age of an index that is still used for scans. Older indexes fall back to listing the bucket
+     */
+    var indexMaxAge: Duration = S3ItemStore.DEFAULT_INDEX_MAX_AGE,
+    /**
+     * Run S3 requests made by [S3ItemStore] through an [AdaptiveConcurrencyLimiter]
+     */
+    var requestLimitEnabled: Boolean = false,
+    /**
+     * Concurrent request limit of the [AdaptiveConcurrencyLimiter] before it has adapted
+     */
+    var requestLimitInitial: Int = AdaptiveConcurrencyLimiter.DEFAULT_INITIAL_LIMIT,
+    /**
+     * Lower bound of the adaptive concurrent request limit
+     */
+    var requestLimitMin: Int = AdaptiveConcurrencyLimiter.DEFAULT_MIN_LIMIT,
+    /**
+     * Upper bound of the adaptive concurrent request limit
+     */
+    var requestLimitMax: Int = AdaptiveConcurrencyLimiter.DEFAULT_MAX_LIMIT,
+    /**
+     * Maximum time a request waits for the limiter before it is rejected
+     */
+    var requestLimitMaxWait: Duration = AdaptiveConcurrencyLimiter.DEFAULT_MAX_WAIT,
+    /**
+     * Hedge slow item downloads made by [S3ItemStore] with an [S3RequestHedger]
+     */
+    var hedgingEnabled: Boolean = false,
+    /**
+     * Percentile of recent download latencies after which a download is hedged
+     */
+    var hedgingPercentile: Double = S3RequestHedger.DEFAULT_PERCENTILE,
+    /**
+     * Lower bound of the delay after which a download is hedged
+     */
+    var hedgingMinDelay: Duration = S3RequestHedger.DEFAULT_MIN_DELAY,
+    /**
+     * Maximum share of downloads that are hedged
+     */
+    var hedgingMaxRatio: Double = S3RequestHedger.DEFAULT_MAX_HEDGE_RATIO,
+    /**
+     * Connection pool and timeout settings of [awsClient]
+     */
+    var httpProfile: S3HttpClientProfile = S3HttpClientProfile(),
+    /**
+     * Collect per-operation request metrics from [awsClient], see [requestMetrics]
+     */
+    var requestMetricsEnabled: Boolean = false,
+    /**
+     * Use [S3AsyncItemStore] on the non-blocking [awsAsyncClient] instead of [S3ItemStore], see [newItemStore]
+     */
+    var asyncClientEnabled: Boolean = false,
+    /**
+     * Download items larger than [S3RangedGetProfile.thresholdBytes] as concurrent byte-range GETs. Null downloads
+     * every item with a single GET. See [S3ItemStore.getItem]
+     */
+    var rangedGetProfile: S3RangedGetProfile? = null,
+    /**
+     * Serve small items from a pack published by [S3ItemPackWriter]. Null loads every item individually. See
+     * [S3ItemStore.getItem]
+     */
+    var packProfile: S3ItemPackProfile? = null,
+    /**
+     * List object versions instead of objects and pin item downloads to the listed version, so an item overwritten
+     * between a listing and its download still loads. See [S3ItemStore.getItem]
+     */
+    var versionedListingEnabled: Boolean = false,
 ) {
     /**
      * This field is lazy-initialized and is set with param values from the time of first call
      */
     val awsClient: AmazonS3 by lazy {
-        AWSUtil.createAmazonS3Client(region, awsCredentialProfileName, awsProxyEnabled)
+        // with a request limiter, throttled requests are retried by the limiter rather than by the client
+        val retryPolicy = if (requestLimitEnabled) {
+            AdaptiveConcurrencyLimiter.newClientRetryPolicy(ConfigStoreConstants.MAX_RETRY_COUNT)
+        } else {
+            null
+        }
+        AWSUtil.createAmazonS3Client(region, awsCredentialProfileName, awsProxyEnabled, httpProfile, requestMetrics,
+            retryPolicy)
+    }
+
+    /**
+     * This field is lazy-initialized and is set with param values from the time of first call
+     */
+    val awsAsyncClient: S3AsyncClient by lazy {
+        AWSUtil.createS3AsyncClient(region, awsCredentialProfileName, awsProxyEnabled, httpProfile)
+    }
+
+    /**
+     * This field is lazy-initialized and is set with param values from the time of first call
+     */
+    val requestMetrics: S3RequestMetrics? by lazy {
+        if (requestMetricsEnabled) S3RequestMetrics() else null
+    }
+
+    /**
+     * This field is lazy-initialized and is set with param values from the time of first call
+     */
+    private val ownContentCache: ItemContentCache? by lazy {
+        contentCacheDirectory?.let { ItemContentCache(Paths.get(it), contentCacheMaxSizeBytes) }
+    }
+
+    private var sharedContentCache: ItemContentCache? = null
+
+    /**
+     * The content cache of the configuration passed to [shareContentCache], if any, otherwise one created from
+     * [contentCacheDirectory] on first call
+     */
+    val contentCache: ItemContentCache?
+        get() = sharedContentCache ?: ownContentCache
+
+    /**
+     * Use the content cache of [other], e.g. for the failover region of the same bucket, so that a single cache
+     * accounts for the size of its directory and evicts its files
+     */
+    fun shareContentCache(other: ConfigStoreClientS3Configuration) {
+        sharedContentCache = other.contentCache
+    }
+
+    /**
+     * This field is lazy-initialized and is set with param values from the time of first call
+     */
+    val requestLimiter: AdaptiveConcurrencyLimiter? by lazy {
+        if (requestLimitEnabled) {
+            AdaptiveConcurrencyLimiter(requestLimitInitial, requestLimitMin, requestLimitMax, requestLimitMaxWait)
+        } else {
+            null
+        }
+    }
+
+    /**
+     * This field is lazy-initialized and is set with param values from the time of first call
+     */
+    val requestHedger: S3RequestHedger? by lazy {
+        if (hedgingEnabled) S3RequestHedger(hedgingPercentile, hedgingMinDelay, hedgingMaxRatio) else null
+    }
+
+    /**
+     * Options set on this configuration that only [S3ItemStore] supports
+     */
+    val asyncUnsupportedOptions: List<String>
+        get() = listOfNotNull(
+            "contentCacheDirectory".takeIf { contentCacheDirectory != null || sharedContentCache != null },
+            "indexKey".takeIf { indexKey != null },
+            "packProfile".takeIf { packProfile != null },
+            "rangedGetProfile".takeIf { rangedGetProfile != null },
+            "requestLimitEnabled".takeIf { requestLimitEnabled },
+            "hedgingEnabled".takeIf { hedgingEnabled },
+            "versionedListingEnabled".takeIf { versionedListingEnabled },
+        )
+
+    /**
+     * @return a new [S3AsyncItemStore] when [asyncClientEnabled], otherwise a new [S3ItemStore]
+     * @throws IllegalStateException when [asyncClientEnabled] together with [asyncUnsupportedOptions], which the
+     * async store would silently ignore
+     */
+    fun newItemStore(): ItemStore = if (asyncClientEnabled) {
+        val unsupported = asyncUnsupportedOptions
+        check(unsupported.isEmpty()) { "Options not supported by the async client: $unsupported" }
+        S3AsyncItemStore(this)
+    } else {
+        S3ItemStore(this)
     }
 }
@@ -0,0 +1,316 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.capitalone.identity.identitybuilder.ConfigStoreConstants;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.lang.NonNull;
+
+import javax.xml.bind.DatatypeConverter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Bounded on-disk cache of item content addressed by object key and ETag. An object's content never changes for a
+ * given ETag, so entries never need to be invalidated; they are only evicted, least recently used first, once the
+ * total size of cached content exceeds {@code maxSizeBytes}.
+ * <p>
+ * Entries are written to a temporary file, flushed to disk and atomically moved into place, and the move is flushed
+ * to the directory, so a crash never leaves a partially written entry behind. Entries already present in the directory
+ * are picked up on construction, which lets a restarted process serve unchanged items from disk.
+ */
+public class ItemContentCache {
+    private static final Logger LOGGER = LogManager.getLogger(ConfigStoreConstants.LOGGER_NAME);
+
+    public static final long DEFAULT_MAX_SIZE_BYTES = 100L * 1024 * 1024;
+    private static final String ENTRY_SUFFIX = ".item";
+    private static final String TEMP_SUFFIX = ".tmp";
+    /**
+     * Age after which a temporary file is assumed to be left by an interrupted write rather than in progress in
+     * another process sharing the directory
+     */
+    static final Duration STALE_TEMP_FILE_AGE = Duration.ofHours(1);
+
+    private final Path directory;
+    private final long maxSizeBytes;
+
+    /**
+     * Entry file name to entry, in access order
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeBytes = 0;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * @param directory    cache directory, created if it does not exist
+     * @param maxSizeBytes maximum total size of cached content
+     */
+    public ItemContentCache(@NonNull Path directory, long maxSizeBytes) {
+        if (maxSizeBytes < 1) {
+            throw new IllegalArgumentException("maxSizeBytes must be at least 1, found: " + maxSizeBytes);
+        }
+        this.directory = Objects.requireNonNull(directory);
+        this.maxSizeBytes = maxSizeBytes;
+        try {
+            Files.createDirectories(directory);
+            loadExistingEntries();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to initialize item content cache at " + directory, e);
+        }
+    }
+
+    /**
+     * @return cached content for the key and tag, or empty if it is not cached
+     */
+    public Optional<byte[]> get(String key, String tag) {
+        String fileName = getFileName(key, tag);
+        Entry entry = lookup(fileName);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        try {
+            byte[] content = Files.readAllBytes(directory.resolve(fileName));
+            hitCount.incrementAndGet();
+            return Optional.of(content);
+        } catch (IOException e) {
+            // entry was evicted or removed externally after the lookup
+            LOGGER.debug("Item content cache entry unreadable: key={}, tag={}", key, tag, e);
+            removeIfCurrent(fileName, entry);
+            missCount.incrementAndGet();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return a stream over cached content for the key and tag, or empty if it is not cached. The caller must close
+     * the stream.
+     */
+    public Optional<InputStream> openStream(String key, String tag) {
+        String fileName = getFileName(key, tag);
+        Entry entry = lookup(fileName);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        try {
+            InputStream stream = Files.newInputStream(directory.resolve(fileName));
+            hitCount.incrementAndGet();
+            return Optional.of(stream);
+        } catch (IOException e) {
+            LOGGER.debug("Item content cache entry unreadable: key={}, tag={}", key, tag, e);
+            removeIfCurrent(fileName, entry);
+            missCount.incrementAndGet();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Store content for the key and tag. Content larger than the cache is not stored. Failure to write the entry
+     * is logged and otherwise ignored.
+     */
+    public void put(String key, String tag, byte[] content) {
+        if (content.length > maxSizeBytes) {
+            return;
+        }
+        String fileName = getFileName(key, tag);
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(directory, fileName, TEMP_SUFFIX);
+            writeDurably(temp, content);
+            synchronized (this) {
+                moveAtomically(temp, directory.resolve(fileName));
+                syncDirectory(directory);
+                Entry previous = entries.put(fileName, new Entry(content.length));
+                sizeBytes += content.length - (previous != null ? previous.size : 0);
+                evictToFit();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to write item content cache entry: key={}, tag={}", key, tag, e);
+            deleteQuietly(temp);
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    public long getMaxSizeBytes() {
+        return maxSizeBytes;
+    }
+
+    private void evictToFit() {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (sizeBytes > maxSizeBytes && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            iterator.remove();
+            sizeBytes -= eldest.getValue().size;
+            deleteQuietly(directory.resolve(eldest.getKey()));
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return the entry of the file, or null after counting a miss
+     */
+    synchronized Entry lookup(String fileName) {
+        Entry entry = entries.get(fileName);
+        if (entry == null) {
+            missCount.incrementAndGet();
+        }
+        return entry;
+    }
+
+    /**
+     * Remove the entry of an unreadable file, unless a concurrent {@link #put(String, String, byte[])} has replaced
+     * it since it was looked up, in which case the file is the new entry's.
+     */
+    synchronized void removeIfCurrent(String fileName, Entry entry) {
+        if (entries.remove(fileName, entry)) {
+            sizeBytes -= entry.size;
+        }
+    }
+
+    /**
+     * Index entries left by a previous process, oldest first, and remove temporary files from interrupted writes.
+     * Temporary files younger than {@link #STALE_TEMP_FILE_AGE} may be writes in progress in another process and are
+     * kept.
+     */
+    private synchronized void loadExistingEntries() throws IOException {
+        List<Path> existing = new ArrayList<>();
+        FileTime staleBefore = FileTime.from(Instant.now().minus(STALE_TEMP_FILE_AGE));
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    deleteIfStale(file, staleBefore);
+                } else if (name.endsWith(ENTRY_SUFFIX) && Files.isRegularFile(file)) {
+                    existing.add(file);
+                }
+            });
+        }
+        Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+        for (Path file : existing) {
+            attributes.put(file, Files.readAttributes(file, BasicFileAttributes.class));
+        }
+        existing.sort(Comparator.comparing(file -> attributes.get(file).lastModifiedTime()));
+        for (Path file : existing) {
+            long size = attributes.get(file).size();
+            entries.put(file.getFileName().toString(), new Entry(size));
+            sizeBytes += size;
+        }
+        evictToFit();
+    }
+
+    /**
+     * Write the content and flush it to disk, so that once the file is moved into place a crash can't leave the
+     * entry's name pointing at content that was never written.
+     */
+    private static void writeDurably(Path file, byte[] content) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Flush the directory, so that a move into it survives a crash. Not every platform can open a directory; there the
+     * move is left to the file system to persist.
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            LOGGER.debug("Unable to sync item content cache directory: {}", directory, e);
+        }
+    }
+
+    private static void deleteIfStale(Path file, FileTime staleBefore) {
+        try {
+            if (Files.getLastModifiedTime(file).compareTo(staleBefore) < 0) {
+                deleteQuietly(file);
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Unable to read item content cache file: {}", file, e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.debug("Unable to delete item content cache file: {}", file, e);
+        }
+    }
+
+    /**
+     * @return a file name that is safe on any file system and unique to the key and tag
+     */
+    static String getFileName(String key, String tag) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(key.getBytes(StandardCharsets.UTF_8));
+            md.update((byte) 0);
+            md.update(String.valueOf(tag).getBytes(StandardCharsets.UTF_8));
+            return DatatypeConverter.printHexBinary(md.digest()).toLowerCase() + ENTRY_SUFFIX;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A cached file as of one write; compared by identity, so a rewrite of the same file is a different entry
+     */
+    static final class Entry {
+        final long size;
+
+        Entry(long size) {
+            this.size = size;
+        }
+    }
+
+}
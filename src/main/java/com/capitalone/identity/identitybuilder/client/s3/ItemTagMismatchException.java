@@ -0,0 +1,19 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+/**
+ * Thrown when a store has no copy of an item with the requested tag (ETag), e.g. because the item changed since it
+ * was listed or replication to the region is behind.
+ * <p>
+ * Extends {@link IllegalArgumentException}, which stores threw for missing items before, so existing callers keep
+ * working.
+ */
+public class ItemTagMismatchException extends IllegalArgumentException {
+
+    public ItemTagMismatchException(String key, String tag) {
+        super(String.format("Item not found: key: %s, tag: %s", key, tag));
+    }
+
+    public ItemTagMismatchException(String key, String tag, Throwable cause) {
+        super(String.format("Item not found: key: %s, tag: %s", key, tag), cause);
+    }
+}
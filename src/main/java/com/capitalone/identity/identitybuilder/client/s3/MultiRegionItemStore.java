@@ -0,0 +1,274 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.capitalone.identity.identitybuilder.ConfigStoreConstants;
+import com.capitalone.identity.identitybuilder.model.ConfigStoreItem;
+import com.capitalone.identity.identitybuilder.model.ConfigStoreItemInfo;
+import com.capitalone.identity.identitybuilder.repository.CommonItemStore;
+import com.capitalone.identity.identitybuilder.repository.ItemStore;
+import com.capitalone.identity.identitybuilder.util.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.lang.NonNull;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Reads from two regional copies of the same bucket, e.g. the east and west buckets, and routes each read to the
+ * region with the lower observed latency.
+ * <p>
+ * Latency is a moving average of item and lookup reads. Every {@value #PROBE_INTERVAL}th read goes to the other
+ * region so its average stays current. A region that was not read yet ranks after measured regions, so reads stay
+ * in the local region until the first probe measures the remote one. A region that fails a read, e.g. because S3 throttles it or is unavailable,
+ * is skipped for a cooldown period and the read is retried in the other region.
+ * <p>
+ * Items are read with the tag observed by a listing, which stores only serve when their copy has the same tag
+ * (ETag). A region that does not have the item with that tag, e.g. because replication is behind, is not treated as
+ * failed; the item is read from the other region instead and the disagreement is counted, see
+ * {@link #getTagMismatchCount()}.
+ * <p>
+ * Listings fail over only when the failing region has not emitted any items yet, so a listing never contains
+ * items of both regions.
+ */
+public class MultiRegionItemStore extends CommonItemStore {
+    private static final Logger LOGGER = LogManager.getLogger(ConfigStoreConstants.LOGGER_NAME);
+
+    public static final Duration DEFAULT_FAILURE_COOLDOWN = Duration.ofSeconds(30);
+    static final int PROBE_INTERVAL = 64;
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private final List<Region> regions;
+    private final long failureCooldownNanos;
+    private final LongSupplier nanoTime;
+
+    private long readCount;
+    private final AtomicLong failoverCount = new AtomicLong();
+    private final AtomicLong tagMismatchCount = new AtomicLong();
+
+    /**
+     * @param localName   name of the region of the local store, e.g. {@code us-east-1}
+     * @param localStore  store preferred while no latencies were observed
+     * @param remoteName  name of the region of the remote store
+     * @param remoteStore store of the other region
+     */
+    public MultiRegionItemStore(@NonNull String localName, @NonNull ItemStore localStore,
+                                @NonNull String remoteName, @NonNull ItemStore remoteStore) {
+        this(localName, localStore, remoteName, remoteStore, DEFAULT_FAILURE_COOLDOWN);
+    }
+
+    /**
+     * @param failureCooldown how long a region that failed a read is skipped
+     */
+    public MultiRegionItemStore(@NonNull String localName, @NonNull ItemStore localStore,
+                                @NonNull String remoteName, @NonNull ItemStore remoteStore,
+                                @NonNull Duration failureCooldown) {
+        this(localName, localStore, remoteName, remoteStore, failureCooldown, System::nanoTime);
+    }
+
+    MultiRegionItemStore(String localName, ItemStore localStore, String remoteName, ItemStore remoteStore,
+                         Duration failureCooldown, LongSupplier nanoTime) {
+        if (failureCooldown.isNegative()) {
+            throw new IllegalArgumentException("failureCooldown must not be negative, found: " + failureCooldown);
+        }
+        this.regions = Arrays.asList(
+                new Region(StringUtils.requireNotNullOrBlank(localName), Objects.requireNonNull(localStore)),
+                new Region(StringUtils.requireNotNullOrBlank(remoteName), Objects.requireNonNull(remoteStore)));
+        this.failureCooldownNanos = failureCooldown.toNanos();
+        this.nanoTime = Objects.requireNonNull(nanoTime);
+    }
+
+    /**
+     * @return name of the region the next read is sent to, unless it is a probe of the other region
+     */
+    public synchronized String getPreferredRegion() {
+        return getRoutingOrder(false).get(0).name;
+    }
+
+    /**
+     * @return number of reads that failed in one region and were served by the other
+     */
+    public long getFailoverCount() {
+        return failoverCount.get();
+    }
+
+    /**
+     * @return number of items that one region did not have with the tag that the other region served
+     */
+    public long getTagMismatchCount() {
+        return tagMismatchCount.get();
+    }
+
+    @Override
+    public Set<ConfigStoreItemInfo> getAllItemInfo() {
+        return getStoredItemInfo().collect(Collectors.toSet()).block();
+    }
+
+    @Override
+    public ConfigStoreItem getItem(ConfigStoreItemInfo info) throws IOException {
+        return read(info.getName(), store -> store.getItem(info));
+    }
+
+    @Override
+    public InputStream getItemStream(ConfigStoreItemInfo info) throws IOException {
+        return read(info.getName(), store -> store.getItemStream(info));
+    }
+
+    @Override
+    public Optional<ConfigStoreItemInfo> getSingleStoredItemInfo(String key) {
+        try {
+            return read(key, store -> store.getSingleStoredItemInfo(key));
+        } catch (IOException e) {
+            // not thrown by lookups
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Flux<ConfigStoreItemInfo> getStoredItemInfo() {
+        return list(ItemStore::getStoredItemInfo);
+    }
+
+    @Override
+    public Flux<ConfigStoreItemInfo> getStoredItemInfo(String prefix) {
+        return list(store -> store.getStoredItemInfo(prefix));
+    }
+
+    private Flux<ConfigStoreItemInfo> list(Function<ItemStore, Flux<ConfigStoreItemInfo>> listing) {
+        return Flux.defer(() -> {
+            List<Region> order;
+            synchronized (this) {
+                order = getRoutingOrder(false);
+            }
+            return list(order, 0, listing);
+        });
+    }
+
+    private Flux<ConfigStoreItemInfo> list(List<Region> order, int index,
+                                           Function<ItemStore, Flux<ConfigStoreItemInfo>> listing) {
+        Region region = order.get(index);
+        AtomicBoolean emitted = new AtomicBoolean();
+        Flux<ConfigStoreItemInfo> items = Flux.defer(() -> listing.apply(region.store))
+                .doOnNext(info -> emitted.set(true));
+        if (index + 1 == order.size()) {
+            return items;
+        }
+        return items.onErrorResume(e -> !emitted.get(), e -> {
+            onFailure(region, e);
+            failoverCount.incrementAndGet();
+            return list(order, index + 1, listing);
+        });
+    }
+
+    /**
+     * Run a read in the preferred region, and in the other region if it fails.
+     */
+    private <T> T read(String key, RegionRead<T> read) throws IOException {
+        List<Region> order;
+        synchronized (this) {
+            order = getRoutingOrder(++readCount % PROBE_INTERVAL == 0);
+        }
+        Exception failure = null;
+        Region tagMismatch = null;
+        for (Region region : order) {
+            long start = nanoTime.getAsLong();
+            try {
+                T result = read.apply(region.store);
+                onSuccess(region, nanoTime.getAsLong() - start);
+                if (tagMismatch != null) {
+                    tagMismatchCount.incrementAndGet();
+                    LOGGER.warn("Regions disagree on item tag, read from other region: key={}, missingIn={}, "
+                            + "readFrom={}", key, tagMismatch.name, region.name);
+                } else if (failure != null) {
+                    failoverCount.incrementAndGet();
+                }
+                return result;
+            } catch (ItemTagMismatchException e) {
+                // the region does not have the item with the requested tag
+                tagMismatch = region;
+                failure = addSuppressed(e, failure);
+            } catch (IOException | RuntimeException e) {
+                onFailure(region, e);
+                failure = addSuppressed(e, failure);
+            }
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        }
+        throw (RuntimeException) failure;
+    }
+
+    private static Exception addSuppressed(Exception current, Exception previous) {
+        if (previous != null) {
+            current.addSuppressed(previous);
+        }
+        return current;
+    }
+
+    /**
+     * @param probe whether to prefer the region with the higher latency
+     * @return measured healthy regions by latency, then unmeasured healthy regions, followed by regions in their
+     * failure cooldown
+     */
+    private List<Region> getRoutingOrder(boolean probe) {
+        long now = nanoTime.getAsLong();
+        List<Region> healthy = new ArrayList<>(regions.size());
+        List<Region> cooling = new ArrayList<>(regions.size());
+        for (Region region : regions) {
+            (region.failed && region.failedUntilNanos - now > 0 ? cooling : healthy).add(region);
+        }
+        // stable sort keeps the local region first while latencies are equal
+        healthy.sort(Comparator.<Region, Boolean>comparing(region -> region.latencyNanos == 0)
+                .thenComparingDouble(region -> region.latencyNanos));
+        if (probe && healthy.size() > 1) {
+            Collections.reverse(healthy);
+        }
+        healthy.addAll(cooling);
+        return healthy;
+    }
+
+    private synchronized void onSuccess(Region region, long latencyNanos) {
+        region.latencyNanos = region.latencyNanos == 0 ? latencyNanos
+                : region.latencyNanos + LATENCY_SMOOTHING * (latencyNanos - region.latencyNanos);
+    }
+
+    private synchronized void onFailure(Region region, Throwable e) {
+        LOGGER.warn("Read failed in region {}, using other region for {} ms", region.name,
+                Duration.ofNanos(failureCooldownNanos).toMillis(), e);
+        region.failed = true;
+        region.failedUntilNanos = nanoTime.getAsLong() + failureCooldownNanos;
+    }
+
+    @FunctionalInterface
+    private interface RegionRead<T> {
+        T apply(ItemStore store) throws IOException;
+    }
+
+    private static final class Region {
+        final String name;
+        final ItemStore store;
+        /**
+         * Moving average of read latency, 0 until the first read. Guarded by the enclosing store
+         */
+        double latencyNanos;
+        /**
+         * Whether the region failed a read, and until when it is skipped. Guarded by the enclosing store
+         */
+        boolean failed;
+        long failedUntilNanos;
+
+        Region(String name, ItemStore store) {
+            this.name = name;
+            this.store = store;
+        }
+    }
+
+}
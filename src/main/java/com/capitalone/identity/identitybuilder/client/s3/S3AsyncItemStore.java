@@ -0,0 +1,167 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.capitalone.identity.identitybuilder.ConfigStoreConstants;
+import com.capitalone.identity.identitybuilder.model.ConfigStoreItem;
+import com.capitalone.identity.identitybuilder.model.ConfigStoreItemInfo;
+import com.capitalone.identity.identitybuilder.repository.CommonItemStore;
+import com.capitalone.identity.identitybuilder.util.CompressionUtils;
+import com.capitalone.identity.identitybuilder.util.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.lang.NonNull;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * {@link com.capitalone.identity.identitybuilder.repository.ItemStore} backed by the non-blocking AWS SDK v2
+ * {@link S3AsyncClient}. Listings are streamed page by page as a {@link Flux} and item downloads complete as a
+ * {@link Mono} without holding a thread while the request is in flight, so the number of concurrent downloads is
+ * bounded by the HTTP client's connection pool rather than by thread count.
+ * <p>
+ * Unlike {@link S3ItemStore}, this store does not support the content cache, item index, lookup cache, or request
+ * limiter; it always lists the bucket and downloads items directly.
+ */
+public class S3AsyncItemStore extends CommonItemStore {
+    private static final Logger LOGGER = LogManager.getLogger(ConfigStoreConstants.LOGGER_NAME);
+
+    private static final int NOT_FOUND = 404;
+    private static final int PRECONDITION_FAILED = 412;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final S3AsyncClient s3Client;
+    private final String bucketName;
+    private final String rootPrefix;
+
+    public S3AsyncItemStore(@NonNull S3AsyncClient s3Client, @NonNull String bucketName, @NonNull String rootPrefix) {
+        this.s3Client = Objects.requireNonNull(s3Client);
+        this.bucketName = StringUtils.requireNotNullOrBlank(bucketName);
+        this.rootPrefix = Objects.requireNonNull(rootPrefix);
+    }
+
+    public S3AsyncItemStore(@NonNull S3AsyncClient s3Client, @NonNull String bucketName) {
+        this(s3Client, bucketName, "");
+    }
+
+    public S3AsyncItemStore(@NonNull ConfigStoreClientS3Configuration configuration) {
+        this(configuration.getAwsAsyncClient(), configuration.getBucketName(), configuration.getRootPrefix());
+    }
+
+    @Override
+    public Set<ConfigStoreItemInfo> getAllItemInfo() {
+        return getStoredItemInfo().collect(Collectors.toSet()).block();
+    }
+
+    @Override
+    public ConfigStoreItem getItem(ConfigStoreItemInfo info) throws IOException {
+        try {
+            return getItemAsync(info).block();
+        } catch (RuntimeException e) {
+            Throwable cause = Exceptions.unwrap(e);
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Downloads the item without blocking. The request only succeeds if the object still has the tag of
+     * {@code info}, otherwise it fails with {@link ItemTagMismatchException}. Compressed objects are decompressed,
+     * see {@link CompressionUtils}.
+     */
+    @Override
+    public Mono<ConfigStoreItem> getItemAsync(ConfigStoreItemInfo info) {
+        return Mono.defer(() -> {
+            String key = rootPrefixBoundedLocation(info.getName());
+            GetObjectRequest request = GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .ifMatch(quoteETag(info.getTag()))
+                    .build();
+            return Mono.fromFuture(() -> s3Client.getObject(request, AsyncResponseTransformer.toBytes()))
+                    .onErrorMap(S3Exception.class, e -> e.statusCode() == PRECONDITION_FAILED
+                            ? new ItemTagMismatchException(key, info.getTag(), e)
+                            : e)
+                    .handle((bytes, sink) -> {
+                        byte[] content = bytes.asByteArrayUnsafe();
+                        LOGGER.debug("Downloaded: {} ({} bytes)", key, content.length);
+                        try {
+                            if (CompressionUtils.isCompressed(key, bytes.response().contentEncoding())) {
+                                content = CompressionUtils.decompress(content);
+                            }
+                            sink.next(new ConfigStoreItem(info, content));
+                        } catch (IOException e) {
+                            sink.error(e);
+                        }
+                    });
+        });
+    }
+
+    @Override
+    public Flux<ConfigStoreItemInfo> getStoredItemInfo() {
+        return getStoredItemInfo(rootPrefix);
+    }
+
+    @Override
+    public Flux<ConfigStoreItemInfo> getStoredItemInfo(String prefix) {
+        if (!prefix.startsWith(rootPrefix) && !rootPrefix.startsWith(prefix)) {
+            return Flux.empty();
+        }
+        String listPrefix = prefix.length() > rootPrefix.length() ? prefix : rootPrefix;
+        ListObjectsV2Request request = ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .prefix(listPrefix)
+                .maxKeys(MAX_PAGE_SIZE)
+                .build();
+        return Flux.from(s3Client.listObjectsV2Paginator(request).contents())
+                .map(object -> new ConfigStoreItemInfo(object.key(), unquoteETag(object.eTag())));
+    }
+
+    @Override
+    public Optional<ConfigStoreItemInfo> getSingleStoredItemInfo(String key) {
+        String boundedKey = rootPrefixBoundedLocation(key);
+        HeadObjectRequest request = HeadObjectRequest.builder().bucket(bucketName).key(boundedKey).build();
+        return Mono.fromFuture(() -> s3Client.headObject(request))
+                .map(response -> Optional.of(new ConfigStoreItemInfo(boundedKey, unquoteETag(response.eTag()))))
+                .onErrorResume(S3Exception.class, e -> e.statusCode() == NOT_FOUND
+                        ? Mono.just(Optional.empty())
+                        : Mono.error(e))
+                .block();
+    }
+
+    /**
+     * SDK v2 reports ETags in their quoted HTTP form, while {@link S3ItemStore} and the rest of this library use the
+     * unquoted form, so tags are unquoted to stay comparable across stores.
+     */
+    static String unquoteETag(String eTag) {
+        if (eTag != null && eTag.length() >= 2 && eTag.startsWith("\"") && eTag.endsWith("\"")) {
+            return eTag.substring(1, eTag.length() - 1);
+        }
+        return eTag;
+    }
+
+    static String quoteETag(String eTag) {
+        return eTag.startsWith("\"") ? eTag : "\"" + eTag + "\"";
+    }
+
+    private String rootPrefixBoundedLocation(String location) {
+        if (location != null && location.startsWith(rootPrefix)) {
+            return location;
+        } else {
+            throw new UnsupportedOperationException(
+                    String.format("Requested location outside root context [rootPrefix='%s', location='%s']",
+                            rootPrefix, location));
+        }
+    }
+
+}
@@ -14,6 +14,7 @@ public class S3BucketResolver {
 
     private final String bucketName;
     private final Regions regions;
+    private final String failoverBucketName;
 
     public String getBucketName() {
         return bucketName;
@@ -23,6 +24,21 @@ public class S3BucketResolver {
         return regions;
     }
 
+    /**
+     * @return name of the bucket of the other region, e.g. the west bucket when deployed in the east region
+     */
+    public String getFailoverBucketName() {
+        return failoverBucketName;
+    }
+
+    /**
+     * @param westRegion region of the west bucket
+     * @return region of the bucket of the other region
+     */
+    public Regions getFailoverRegions(Regions westRegion) {
+        return regions == Regions.US_EAST_1 ? westRegion : Regions.US_EAST_1;
+    }
+
     public S3BucketResolver(S3ConfigurationProperties properties) {
 
         if (properties.getRegionsOverride() != null) {
@@ -37,5 +53,8 @@ public class S3BucketResolver {
         bucketName = (regions == Regions.US_EAST_1)
                 ? properties.getBucketNameForEastRegion()
                 : properties.getBucketNameForWestRegion();
+        failoverBucketName = (regions == Regions.US_EAST_1)
+                ? properties.getBucketNameForWestRegion()
+                : properties.getBucketNameForEastRegion();
     }
 }
@@ -0,0 +1,170 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.capitalone.identity.identitybuilder.ConfigStoreConstants;
+import com.capitalone.identity.identitybuilder.util.ParseUtils;
+import com.capitalone.identity.identitybuilder.util.StringUtils;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Append-only journal of change records stored under a prefix of the bucket. Each record lists the object keys
+ * that were added, updated, or deleted by one change to the bucket content.
+ * <p>
+ * Record keys start with the zero-padded creation time in epoch milliseconds, so listing the journal prefix after
+ * a cursor key returns only newer records, in the order they were written.
+ */
+public class S3ChangeJournal {
+    private static final Logger LOGGER = LogManager.getLogger(ConfigStoreConstants.LOGGER_NAME);
+
+    private static final String RECORD_KEY_FORMAT = "%s%013d-%s.json";
+
+    private final AmazonS3 s3Client;
+    private final String bucketName;
+    private final String journalPrefix;
+    private final Clock clock;
+
+    /**
+     * @param journalPrefix prefix under which change records are stored, e.g. {@code "journal/"}
+     */
+    public S3ChangeJournal(@NonNull AmazonS3 s3Client, @NonNull String bucketName, @NonNull String journalPrefix) {
+        this(s3Client, bucketName, journalPrefix, Clock.systemUTC());
+    }
+
+    S3ChangeJournal(AmazonS3 s3Client, String bucketName, String journalPrefix, Clock clock) {
+        this.s3Client = Objects.requireNonNull(s3Client);
+        this.bucketName = StringUtils.requireNotNullOrBlank(bucketName);
+        this.journalPrefix = StringUtils.requireNotNullOrBlank(journalPrefix);
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    /**
+     * Write a change record. Publishers call this after changing the bucket content.
+     *
+     * @param changedKeys keys of all objects added, updated, or deleted by the change
+     * @return key of the written record
+     */
+    public String publish(@NonNull Collection<String> changedKeys) {
+        Record record = new Record();
+        record.createdAt = clock.millis();
+        record.keys = new ArrayList<>(new TreeSet<>(changedKeys));
+        String recordKey = String.format(RECORD_KEY_FORMAT, journalPrefix, record.createdAt, UUID.randomUUID());
+        try {
+            s3Client.putObject(bucketName, recordKey, ParseUtils.MAPPER.writeValueAsString(record));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        LOGGER.debug("Published change record: key={}, changes={}", recordKey, record.keys.size());
+        return recordKey;
+    }
+
+    /**
+     * @return a cursor positioned before every record created at or after {@code epochMillis}
+     */
+    public String getCursorAt(long epochMillis) {
+        return String.format("%s%013d", journalPrefix, Math.max(epochMillis, 0));
+    }
+
+    /**
+     * Read all records after the cursor.
+     *
+     * @param cursor record key, or a cursor from {@link #getCursorAt(long)}, after which records are read
+     * @return the records in the order they were written
+     * @throws IOException if a record can't be read
+     */
+    public List<RecordEntry> readAfter(@NonNull String cursor) throws IOException {
+        return readAfter(cursor, recordKey -> false);
+    }
+
+    /**
+     * Read all records after the cursor, except the ones already read.
+     *
+     * @param cursor record key, or a cursor from {@link #getCursorAt(long)}, after which records are read
+     * @param isRead whether a record key was read before, in which case it is neither downloaded nor returned
+     * @return the unread records in the order they were written
+     * @throws IOException if a record can't be read
+     */
+    public List<RecordEntry> readAfter(@NonNull String cursor, @NonNull Predicate<String> isRead) throws IOException {
+        List<RecordEntry> entries = new ArrayList<>();
+        ObjectListing listing = s3Client.listObjects(new ListObjectsRequest()
+                .withBucketName(bucketName)
+                .withPrefix(journalPrefix)
+                .withMarker(cursor));
+        while (true) {
+            for (S3ObjectSummary summary : listing.getObjectSummaries()) {
+                if (isRead.test(summary.getKey())) {
+                    continue;
+                }
+                entries.add(new RecordEntry(summary.getKey(), readRecord(summary.getKey())));
+            }
+            if (!listing.isTruncated()) {
+                return entries;
+            }
+            listing = s3Client.listNextBatchOfObjects(listing);
+        }
+    }
+
+    private Record readRecord(String recordKey) throws IOException {
+        S3Object object = s3Client.getObject(bucketName, recordKey);
+        try (S3ObjectInputStream objectContent = object.getObjectContent()) {
+            Record record = ParseUtils.MAPPER.readValue(objectContent, Record.class);
+            if (record.keys == null) {
+                throw new IOException("Change record missing keys: " + recordKey);
+            }
+            return record;
+        }
+    }
+
+    /**
+     * Represents a single change record.
+     */
+    public static class Record {
+
+        /**
+         * Epoch milliseconds when the record was created
+         */
+        @JsonProperty(value = "CreatedAt")
+        public long createdAt;
+
+        @JsonProperty(value = "Keys")
+        @Nullable
+        public List<String> keys = new ArrayList<>();
+
+    }
+
+    /**
+     * A change record and the key it is stored under, which can be used as a cursor.
+     */
+    public static class RecordEntry {
+        private final String recordKey;
+        private final Record record;
+
+        RecordEntry(String recordKey, Record record) {
+            this.recordKey = recordKey;
+            this.record = record;
+        }
+
+        public String getRecordKey() {
+            return recordKey;
+        }
+
+        public Record getRecord() {
+            return record;
+        }
+    }
+
+}
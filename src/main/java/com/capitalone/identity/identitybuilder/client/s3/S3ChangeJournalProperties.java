@@ -0,0 +1,62 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.capitalone.identity.identitybuilder.polling.ScanRequester;
+import org.apache.logging.log4j.util.Strings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Optional properties that enable change journal scans, see {@link S3ChangeJournalScanRequester}.
+ */
+@Lazy
+@Component
+public class S3ChangeJournalProperties {
+
+    private static final String JOURNAL_PREFIX = S3ConfigurationProperties.S3_PROPERTY_BASE + ".journal.prefix";
+    private static final String RECONCILIATION_INTERVAL = S3ConfigurationProperties.S3_PROPERTY_BASE + ".journal.reconciliation-interval";
+
+    private final String journalPrefix;
+    private final int reconciliationInterval;
+
+    /**
+     * @param journalPrefix          prefix of change records in the bucket, blank to always scan the whole bucket
+     * @param reconciliationInterval every this many scans a full scan is performed
+     */
+    public S3ChangeJournalProperties(
+            @Value("${" + JOURNAL_PREFIX + ":}") String journalPrefix,
+            @Value("${" + RECONCILIATION_INTERVAL + ":" + S3ChangeJournalScanRequester.DEFAULT_RECONCILIATION_INTERVAL + "}") int reconciliationInterval) {
+        if (reconciliationInterval < 1) {
+            String msg = String.format("Invalid property '%s=%s'. Must be at least 1.",
+                    RECONCILIATION_INTERVAL, reconciliationInterval);
+            throw new IllegalArgumentException(msg);
+        }
+        this.journalPrefix = Strings.isBlank(journalPrefix) ? null : journalPrefix;
+        this.reconciliationInterval = reconciliationInterval;
+    }
+
+    /**
+     * @return prefix of change records, or null when change journal scans are disabled
+     */
+    public String getJournalPrefix() {
+        return journalPrefix;
+    }
+
+    public int getReconciliationInterval() {
+        return reconciliationInterval;
+    }
+
+    /**
+     * @return a requester that reads the change journal on each request of {@code scanRequester}, or
+     * {@code scanRequester} itself when change journal scans are disabled
+     */
+    ScanRequester apply(ScanRequester scanRequester, ConfigStoreClientS3Configuration configuration) {
+        if (journalPrefix == null) {
+            return scanRequester;
+        }
+        S3ChangeJournal journal = new S3ChangeJournal(configuration.getAwsClient(), configuration.getBucketName(),
+                journalPrefix);
+        return new S3ChangeJournalScanRequester(journal, scanRequester, reconciliationInterval);
+    }
+
+}
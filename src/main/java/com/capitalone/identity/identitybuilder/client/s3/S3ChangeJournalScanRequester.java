@@ -0,0 +1,135 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.capitalone.identity.identitybuilder.ConfigStoreConstants;
+import com.capitalone.identity.identitybuilder.model.ScanRequest;
+import com.capitalone.identity.identitybuilder.polling.ScanRequester;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.lang.NonNull;
+import reactor.core.publisher.Flux;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Turns the scan requests of a delegate {@link ScanRequester} into partial scan requests that only contain the
+ * keys changed since the previous request, as read from an {@link S3ChangeJournal}. Every
+ * {@code reconciliationInterval}-th request, and any request for which the journal can't be read, is passed on
+ * as a full scan to heal changes that were never journaled.
+ * <p>
+ * Record keys start with the creation time on the publisher's clock, so a record of a publisher with a slower
+ * clock, or of a concurrent publish, can sort before records that were already read. The cursor therefore trails
+ * the newest record read by {@code clockSkewAllowance}, the window after it is listed again on every request, and
+ * the records of that window that were already read are skipped by key. Applying a change record more than once
+ * would be harmless anyway, because a partial scan reads the current state of the affected entities.
+ */
+public class S3ChangeJournalScanRequester implements ScanRequester {
+    private static final Logger LOGGER = LogManager.getLogger(ConfigStoreConstants.LOGGER_NAME);
+
+    public static final int DEFAULT_RECONCILIATION_INTERVAL = 24;
+    public static final Duration DEFAULT_CLOCK_SKEW_ALLOWANCE = Duration.ofMinutes(5);
+
+    private final S3ChangeJournal journal;
+    private final ScanRequester delegate;
+    private final int reconciliationInterval;
+    private final Duration clockSkewAllowance;
+    private final Clock clock;
+
+    /**
+     * @param delegate               provides the timing of scan requests
+     * @param reconciliationInterval every this many requests a full scan is requested
+     */
+    public S3ChangeJournalScanRequester(@NonNull S3ChangeJournal journal, @NonNull ScanRequester delegate,
+                                        int reconciliationInterval) {
+        this(journal, delegate, reconciliationInterval, DEFAULT_CLOCK_SKEW_ALLOWANCE, Clock.systemUTC());
+    }
+
+    S3ChangeJournalScanRequester(S3ChangeJournal journal, ScanRequester delegate, int reconciliationInterval,
+                                 Duration clockSkewAllowance, Clock clock) {
+        if (reconciliationInterval < 1) {
+            throw new IllegalArgumentException("reconciliationInterval must be at least 1, found: "
+                    + reconciliationInterval);
+        }
+        this.journal = Objects.requireNonNull(journal);
+        this.delegate = Objects.requireNonNull(delegate);
+        this.reconciliationInterval = reconciliationInterval;
+        this.clockSkewAllowance = Objects.requireNonNull(clockSkewAllowance);
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    @Override
+    public Flux<ScanRequest> getScanRequests() {
+        return Flux.defer(() -> {
+            Cursor cursor = new Cursor(getTimeCursor());
+            return delegate.getScanRequests().map(request -> toJournalScanRequest(request, cursor));
+        });
+    }
+
+    private ScanRequest toJournalScanRequest(ScanRequest request, Cursor cursor) {
+        cursor.requestCount++;
+        if (request.isPartial()) {
+            return request;
+        }
+        if (cursor.requestCount % reconciliationInterval == 0) {
+            // the full scan covers all records written before it starts
+            cursor.moveTo(getTimeCursor());
+            LOGGER.debug("Change journal reconciliation scan requested");
+            return request;
+        }
+        try {
+            List<S3ChangeJournal.RecordEntry> entries = journal.readAfter(cursor.position, cursor.readKeys::contains);
+            Set<String> changedKeys = new HashSet<>();
+            for (S3ChangeJournal.RecordEntry entry : entries) {
+                changedKeys.addAll(Objects.requireNonNull(entry.getRecord().keys));
+                cursor.readKeys.add(entry.getRecordKey());
+                cursor.latestRecordTime = Math.max(cursor.latestRecordTime, entry.getRecord().createdAt);
+            }
+            cursor.moveTo(journal.getCursorAt(cursor.latestRecordTime - clockSkewAllowance.toMillis()));
+            LOGGER.debug("Change journal read: records={}, changedKeys={}", entries.size(), changedKeys.size());
+            return new ScanRequest(request.getStartScheduled(), request.getScanType(), changedKeys);
+        } catch (Exception e) {
+            LOGGER.warn("Change journal unreadable, requesting full scan instead", e);
+            cursor.moveTo(getTimeCursor());
+            return request;
+        }
+    }
+
+    private String getTimeCursor() {
+        return journal.getCursorAt(clock.millis() - clockSkewAllowance.toMillis());
+    }
+
+    /**
+     * Journal position of one subscription to {@link #getScanRequests()}
+     */
+    private static final class Cursor {
+        String position;
+        long requestCount = 0;
+        long latestRecordTime = 0;
+        /**
+         * Keys of the records after {@link #position} that were already read; keys before it are dropped, so the
+         * set is bounded by the records of one clock skew window
+         */
+        final NavigableSet<String> readKeys = new TreeSet<>();
+
+        Cursor(String position) {
+            this.position = position;
+        }
+
+        /**
+         * Move forward to {@code next}, never back
+         */
+        void moveTo(String next) {
+            if (next.compareTo(position) > 0) {
+                position = next;
+                readKeys.headSet(position, true).clear();
+            }
+        }
+    }
+
+}
@@ -1,16 +1,17 @@
 package com.capitalone.identity.identitybuilder.client.s3;
 
-import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.regions.Regions;
 import com.capitalone.identity.identitybuilder.client.*;
+import com.capitalone.identity.identitybuilder.client.archive.SnapshotItemStore;
 import com.capitalone.identity.identitybuilder.polling.ScanRequester;
 import com.capitalone.identity.identitybuilder.repository.EntityProvider;
 import com.capitalone.identity.identitybuilder.repository.ItemStore;
-import com.capitalone.identity.identitybuilder.util.AWSUtil;
 import org.springframework.boot.autoconfigure.condition.AllNestedConditions;
 import org.springframework.context.annotation.*;
 import reactor.core.publisher.Flux;
 
 import java.util.Optional;
+import java.util.function.Function;
 
 @Configuration
 @Conditional(S3Configuration.S3Enabled.class)
@@ -22,18 +23,68 @@ public class S3Configuration {
     @Primary
     @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
     ConfigStoreClient getS3Client(S3ConfigurationProperties s3ConfigurationProperties,
+                                  S3ItemStoreProperties s3ItemStoreProperties,
+                                  S3RequestLimitProperties s3RequestLimitProperties,
+                                  S3HedgingProperties s3HedgingProperties,
+                                  S3HttpClientProperties s3HttpClientProperties,
+                                  S3RangedGetProperties s3RangedGetProperties,
+                                  S3ItemPackProperties s3ItemPackProperties,
+                                  S3MultiRegionProperties s3MultiRegionProperties,
+                                  EntityLoadingProperties entityLoadingProperties,
+                                  S3ChangeJournalProperties s3ChangeJournalProperties,
+                                  S3SnapshotProperties s3SnapshotProperties,
                                   Optional<ScanRequester> scanRequester,
                                   Optional<ConfigStoreClient_ApplicationEventPublisher> publisher) {
 
         S3BucketResolver s3BucketResolver = new S3BucketResolver(s3ConfigurationProperties);
-        AmazonS3 s3Client = AWSUtil.createAmazonS3Client(s3BucketResolver.getRegions(),
+        Function<ConfigStoreClientS3Configuration, ConfigStoreClientS3Configuration> applyProperties =
+                configuration -> {
+                    s3ItemStoreProperties.applyTo(configuration);
+                    s3RequestLimitProperties.applyTo(configuration);
+                    s3HedgingProperties.applyTo(configuration);
+                    s3HttpClientProperties.applyTo(configuration);
+                    s3RangedGetProperties.applyTo(configuration);
+                    s3ItemPackProperties.applyTo(configuration);
+                    return configuration;
+                };
+        ConfigStoreClientS3Configuration configuration = applyProperties.apply(new ConfigStoreClientS3Configuration(
+                s3BucketResolver.getBucketName(), "",
+                s3BucketResolver.getRegions(),
                 s3ConfigurationProperties.getCredentialProfileName(),
-                s3ConfigurationProperties.getIsProxyEnabled());
-        ItemStore s3Store = new S3ItemStore(s3Client, s3BucketResolver.getBucketName());
+                s3ConfigurationProperties.getIsProxyEnabled()));
+        ItemStore s3Store = configuration.newItemStore();
+        if (s3MultiRegionProperties.isEnabled()) {
+            if (configuration.getAsyncClientEnabled()) {
+                throw new IllegalStateException("csc.s3.multi-region.enabled is not supported by the async client");
+            }
+            Regions failoverRegions = s3BucketResolver.getFailoverRegions(s3MultiRegionProperties.getWestRegion());
+            ConfigStoreClientS3Configuration failoverConfiguration = applyProperties.apply(
+                    new ConfigStoreClientS3Configuration(
+                            s3BucketResolver.getFailoverBucketName(), "",
+                            failoverRegions,
+                            s3ConfigurationProperties.getCredentialProfileName(),
+                            s3ConfigurationProperties.getIsProxyEnabled()));
+            // both regions hold the same content, and one cache per directory keeps its size accounting intact
+            failoverConfiguration.shareContentCache(configuration);
+            s3Store = new MultiRegionItemStore(
+                    s3BucketResolver.getRegions().getName(), s3Store,
+                    failoverRegions.getName(), failoverConfiguration.newItemStore(),
+                    s3MultiRegionProperties.getFailureCooldown());
+        }
+        ScanRequester s3ScanRequester = scanRequester
+                .map(requester -> s3ChangeJournalProperties.apply(requester, configuration))
+                .orElse(Flux::never);
+        if (s3SnapshotProperties.getArchive() != null) {
+            SnapshotItemStore snapshotStore = new SnapshotItemStore(s3SnapshotProperties.openArchive(), s3Store);
+            s3Store = snapshotStore;
+            s3ScanRequester = snapshotStore.switchOnScan(s3ScanRequester);
+        }
         EntityProvider entityProvider = new EntityProvider(s3Store,
-                scanRequester.orElse(Flux::never),
+                s3ScanRequester,
                 publisher.orElse(ConfigStoreClient_ApplicationEventPublisher.EMPTY),
-                s3ConfigurationProperties.getClientEnvironment()
+                s3ConfigurationProperties.getClientEnvironment(),
+                entityLoadingProperties.getMaxConcurrentFetches(),
+                entityLoadingProperties.getMaxConcurrentFetchesPerEntity()
         );
 
         return new ConfigStoreClientImpl(entityProvider);
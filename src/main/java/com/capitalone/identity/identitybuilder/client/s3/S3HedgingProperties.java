@@ -0,0 +1,79 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Optional properties that hedge slow item downloads with an {@link S3RequestHedger}.
+ */
+@Lazy
+@Component
+public class S3HedgingProperties {
+
+    private static final String ENABLED = S3ConfigurationProperties.S3_PROPERTY_BASE + ".hedging.enabled";
+    private static final String PERCENTILE = S3ConfigurationProperties.S3_PROPERTY_BASE + ".hedging.percentile";
+    private static final String MIN_DELAY = S3ConfigurationProperties.S3_PROPERTY_BASE + ".hedging.min-delay";
+    private static final String MAX_RATIO = S3ConfigurationProperties.S3_PROPERTY_BASE + ".hedging.max-ratio";
+
+    private final boolean enabled;
+    private final double percentile;
+    private final Duration minDelay;
+    private final double maxRatio;
+
+    /**
+     * @param enabled    whether slow item downloads are hedged
+     * @param percentile percentile of recent download latencies after which a download is hedged
+     * @param minDelay   ISO-8601 lower bound of the delay after which a download is hedged
+     * @param maxRatio   maximum share of downloads that are hedged
+     */
+    public S3HedgingProperties(
+            @Value("${" + ENABLED + ":false}") boolean enabled,
+            @Value("${" + PERCENTILE + ":" + S3RequestHedger.DEFAULT_PERCENTILE + "}") double percentile,
+            @Value("${" + MIN_DELAY + ":#{null}}") String minDelay,
+            @Value("${" + MAX_RATIO + ":" + S3RequestHedger.DEFAULT_MAX_HEDGE_RATIO + "}") double maxRatio) {
+        if (!(percentile > 0 && percentile < 1)) {
+            String msg = String.format("Invalid property '%s=%s'. Must be between 0 and 1.", PERCENTILE, percentile);
+            throw new IllegalArgumentException(msg);
+        }
+        if (!(maxRatio > 0 && maxRatio <= 1)) {
+            String msg = String.format("Invalid property '%s=%s'. Must be greater than 0 and at most 1.",
+                    MAX_RATIO, maxRatio);
+            throw new IllegalArgumentException(msg);
+        }
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelay = S3ItemStoreProperties.parseDuration(MIN_DELAY, minDelay, S3RequestHedger.DEFAULT_MIN_DELAY);
+        this.maxRatio = maxRatio;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public Duration getMinDelay() {
+        return minDelay;
+    }
+
+    public double getMaxRatio() {
+        return maxRatio;
+    }
+
+    /**
+     * Apply these properties to a client configuration.
+     */
+    ConfigStoreClientS3Configuration applyTo(ConfigStoreClientS3Configuration configuration) {
+        configuration.setHedgingEnabled(enabled);
+        configuration.setHedgingPercentile(percentile);
+        configuration.setHedgingMinDelay(minDelay);
+        configuration.setHedgingMaxRatio(maxRatio);
+        return configuration;
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.capitalone.identity.identitybuilder.client.s3
+
+import com.amazonaws.ClientConfiguration
+import java.time.Duration
+
+/**
+ * HTTP connection settings of the S3 client. Defaults match the AWS SDK defaults.
+ */
+data class S3HttpClientProfile @JvmOverloads constructor(
+    /**
+     * Maximum number of pooled connections, which caps the number of concurrent S3 requests
+     */
+    val maxConnections: Int = ClientConfiguration.DEFAULT_MAX_CONNECTIONS,
+    /**
+     * Timeout for establishing a connection
+     */
+    val connectionTimeout: Duration = Duration.ofMillis(ClientConfiguration.DEFAULT_CONNECTION_TIMEOUT.toLong()),
+    /**
+     * Timeout for data to be received on an open connection
+     */
+    val socketTimeout: Duration = Duration.ofMillis(ClientConfiguration.DEFAULT_SOCKET_TIMEOUT.toLong()),
+    /**
+     * Maximum lifetime of a pooled connection, after which it is no longer reused. Null keeps connections
+     * indefinitely
+     */
+    val connectionTtl: Duration? = null,
+    /**
+     * Maximum time a connection may sit idle in the pool before it is closed instead of reused
+     */
+    val connectionMaxIdle: Duration = Duration.ofMillis(ClientConfiguration.DEFAULT_CONNECTION_MAX_IDLE_MILLIS),
+    /**
+     * Idle time after which a pooled connection is validated before it is reused
+     */
+    val validateAfterInactivity: Duration =
+        Duration.ofMillis(ClientConfiguration.DEFAULT_VALIDATE_AFTER_INACTIVITY_MILLIS.toLong()),
+    /**
+     * Enable TCP keep-alive on connections
+     */
+    val tcpKeepAlive: Boolean = ClientConfiguration.DEFAULT_TCP_KEEP_ALIVE,
+) {
+    init {
+        require(maxConnections >= 1) { "maxConnections must be at least 1, found: $maxConnections" }
+        require(!connectionTimeout.isNegative) { "connectionTimeout must not be negative, found: $connectionTimeout" }
+        require(!socketTimeout.isNegative) { "socketTimeout must not be negative, found: $socketTimeout" }
+        require(connectionTtl == null || !connectionTtl.isNegative) {
+            "connectionTtl must not be negative, found: $connectionTtl"
+        }
+        require(!connectionMaxIdle.isNegative) { "connectionMaxIdle must not be negative, found: $connectionMaxIdle" }
+        require(!validateAfterInactivity.isNegative) {
+            "validateAfterInactivity must not be negative, found: $validateAfterInactivity"
+        }
+    }
+
+    /**
+     * Apply these settings to an SDK client configuration.
+     */
+    fun applyTo(configuration: ClientConfiguration): ClientConfiguration = configuration
+        .withMaxConnections(maxConnections)
+        .withConnectionTimeout(Math.toIntExact(connectionTimeout.toMillis()))
+        .withSocketTimeout(Math.toIntExact(socketTimeout.toMillis()))
+        .withConnectionTTL(connectionTtl?.toMillis() ?: ClientConfiguration.DEFAULT_CONNECTION_TTL)
+        .withConnectionMaxIdleMillis(connectionMaxIdle.toMillis())
+        .withValidateAfterInactivityMillis(Math.toIntExact(validateAfterInactivity.toMillis()))
+        .withTcpKeepAlive(tcpKeepAlive)
+}
@@ -0,0 +1,96 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.amazonaws.ClientConfiguration;
+import org.apache.logging.log4j.util.Strings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Optional HTTP connection pool properties of the S3 client, see {@link S3HttpClientProfile}.
+ */
+@Lazy
+@Component
+public class S3HttpClientProperties {
+
+    private static final String HTTP_BASE = S3ConfigurationProperties.S3_PROPERTY_BASE + ".http";
+    private static final String MAX_CONNECTIONS = HTTP_BASE + ".max-connections";
+    private static final String CONNECTION_TIMEOUT = HTTP_BASE + ".connection-timeout";
+    private static final String SOCKET_TIMEOUT = HTTP_BASE + ".socket-timeout";
+    private static final String CONNECTION_TTL = HTTP_BASE + ".connection-ttl";
+    private static final String CONNECTION_MAX_IDLE = HTTP_BASE + ".connection-max-idle";
+    private static final String VALIDATE_AFTER_INACTIVITY = HTTP_BASE + ".validate-after-inactivity";
+    private static final String TCP_KEEP_ALIVE = HTTP_BASE + ".tcp-keep-alive";
+    private static final String REQUEST_METRICS_ENABLED = HTTP_BASE + ".request-metrics.enabled";
+    private static final String ASYNC_CLIENT_ENABLED = HTTP_BASE + ".async-client.enabled";
+
+    private final S3HttpClientProfile profile;
+    private final boolean requestMetricsEnabled;
+    private final boolean asyncClientEnabled;
+
+    /**
+     * @param maxConnections          maximum number of pooled connections
+     * @param connectionTimeout       ISO-8601 timeout for establishing a connection
+     * @param socketTimeout           ISO-8601 timeout for data on an open connection
+     * @param connectionTtl           ISO-8601 maximum lifetime of a pooled connection, blank to keep connections
+     *                                indefinitely
+     * @param connectionMaxIdle       ISO-8601 maximum idle time of a pooled connection before it is closed
+     * @param validateAfterInactivity ISO-8601 idle time after which a pooled connection is validated before reuse
+     * @param tcpKeepAlive            enable TCP keep-alive
+     * @param requestMetricsEnabled   collect per-operation request metrics, see {@link S3RequestMetrics}
+     * @param asyncClientEnabled      load items with {@link S3AsyncItemStore} on the non-blocking SDK v2 client
+     */
+    public S3HttpClientProperties(
+            @Value("${" + MAX_CONNECTIONS + ":" + ClientConfiguration.DEFAULT_MAX_CONNECTIONS + "}") int maxConnections,
+            @Value("${" + CONNECTION_TIMEOUT + ":#{null}}") String connectionTimeout,
+            @Value("${" + SOCKET_TIMEOUT + ":#{null}}") String socketTimeout,
+            @Value("${" + CONNECTION_TTL + ":}") String connectionTtl,
+            @Value("${" + CONNECTION_MAX_IDLE + ":#{null}}") String connectionMaxIdle,
+            @Value("${" + VALIDATE_AFTER_INACTIVITY + ":#{null}}") String validateAfterInactivity,
+            @Value("${" + TCP_KEEP_ALIVE + ":" + ClientConfiguration.DEFAULT_TCP_KEEP_ALIVE + "}") boolean tcpKeepAlive,
+            @Value("${" + REQUEST_METRICS_ENABLED + ":false}") boolean requestMetricsEnabled,
+            @Value("${" + ASYNC_CLIENT_ENABLED + ":false}") boolean asyncClientEnabled) {
+        if (maxConnections < 1) {
+            String msg = String.format("Invalid property '%s=%s'. Must be at least 1.", MAX_CONNECTIONS, maxConnections);
+            throw new IllegalArgumentException(msg);
+        }
+        S3HttpClientProfile defaults = new S3HttpClientProfile();
+        this.profile = new S3HttpClientProfile(
+                maxConnections,
+                S3ItemStoreProperties.parseDuration(CONNECTION_TIMEOUT, connectionTimeout, defaults.getConnectionTimeout()),
+                S3ItemStoreProperties.parseDuration(SOCKET_TIMEOUT, socketTimeout, defaults.getSocketTimeout()),
+                Strings.isBlank(connectionTtl) ? null
+                        : S3ItemStoreProperties.parseDuration(CONNECTION_TTL, connectionTtl, null),
+                S3ItemStoreProperties.parseDuration(CONNECTION_MAX_IDLE, connectionMaxIdle, defaults.getConnectionMaxIdle()),
+                S3ItemStoreProperties.parseDuration(VALIDATE_AFTER_INACTIVITY, validateAfterInactivity,
+                        defaults.getValidateAfterInactivity()),
+                tcpKeepAlive);
+        this.requestMetricsEnabled = requestMetricsEnabled;
+        this.asyncClientEnabled = asyncClientEnabled;
+    }
+
+    public S3HttpClientProfile getProfile() {
+        return profile;
+    }
+
+    public boolean isRequestMetricsEnabled() {
+        return requestMetricsEnabled;
+    }
+
+    public boolean isAsyncClientEnabled() {
+        return asyncClientEnabled;
+    }
+
+    /**
+     * Apply these properties to a client configuration.
+     */
+    ConfigStoreClientS3Configuration applyTo(ConfigStoreClientS3Configuration configuration) {
+        configuration.setHttpProfile(profile);
+        configuration.setRequestMetricsEnabled(requestMetricsEnabled);
+        configuration.setAsyncClientEnabled(asyncClientEnabled);
+        return configuration;
+    }
+
+}
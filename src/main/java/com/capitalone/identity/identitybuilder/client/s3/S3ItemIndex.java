@@ -0,0 +1,54 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents an index object stored in the bucket that lists every item under a root prefix. Written by
+ * {@link S3ItemIndexWriter} and read by {@link S3ItemStore} in place of a bucket listing.
+ */
+public class S3ItemIndex {
+
+    public static final int FORMAT_VERSION = 1;
+
+    @JsonProperty(value = "FormatVersion")
+    public int formatVersion = FORMAT_VERSION;
+
+    /**
+     * Epoch milliseconds when the index was generated
+     */
+    @JsonProperty(value = "GeneratedAt")
+    public long generatedAt;
+
+    /**
+     * Items in key order
+     */
+    @JsonProperty(value = "Items")
+    public List<Entry> items = new ArrayList<>();
+
+    public static class Entry {
+
+        @JsonProperty(value = "Name")
+        @Nullable
+        public String name;
+
+        @JsonProperty(value = "Tag")
+        @Nullable
+        public String tag;
+
+        @JsonProperty(value = "Size")
+        public long size;
+
+        public Entry() {
+        }
+
+        public Entry(String name, String tag, long size) {
+            this.name = name;
+            this.tag = tag;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.capitalone.identity.identitybuilder.ConfigStoreConstants;
+import com.capitalone.identity.identitybuilder.util.ParseUtils;
+import com.capitalone.identity.identitybuilder.util.StringUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.util.Strings;
+import org.springframework.lang.NonNull;
+
+import java.time.Clock;
+import java.util.Objects;
+
+/**
+ * Publishes an {@link S3ItemIndex} of every item under a root prefix so that an {@link S3ItemStore} configured with
+ * the same index key can scan by reading one object instead of listing the bucket. Run this after each change to
+ * the bucket content, e.g. at the end of a deployment pipeline.
+ */
+public class S3ItemIndexWriter {
+    private static final Logger LOGGER = LogManager.getLogger(ConfigStoreConstants.LOGGER_NAME);
+
+    private final AmazonS3 s3Client;
+    private final String bucketName;
+    private final String rootPrefix;
+    private final String indexKey;
+    private final Clock clock;
+
+    public S3ItemIndexWriter(@NonNull AmazonS3 s3Client, @NonNull String bucketName, @NonNull String rootPrefix,
+                             @NonNull String indexKey) {
+        this(s3Client, bucketName, rootPrefix, indexKey, Clock.systemUTC());
+    }
+
+    S3ItemIndexWriter(AmazonS3 s3Client, String bucketName, String rootPrefix, String indexKey, Clock clock) {
+        this.s3Client = Objects.requireNonNull(s3Client);
+        this.bucketName = StringUtils.requireNotNullOrBlank(bucketName);
+        this.rootPrefix = Objects.requireNonNull(rootPrefix);
+        this.indexKey = StringUtils.requireNotNullOrBlank(indexKey);
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    /**
+     * List all items under the root prefix and write them to the index object.
+     *
+     * @return the published index
+     */
+    public S3ItemIndex publish() {
+        S3ItemIndex index = new S3ItemIndex();
+        index.generatedAt = clock.millis();
+
+        ListObjectsRequest request = new ListObjectsRequest().withBucketName(bucketName);
+        if (Strings.isNotBlank(rootPrefix)) {
+            request.setPrefix(rootPrefix);
+        }
+        ObjectListing listing = s3Client.listObjects(request);
+        while (true) {
+            for (S3ObjectSummary summary : listing.getObjectSummaries()) {
+                if (!indexKey.equals(summary.getKey())) {
+                    index.items.add(new S3ItemIndex.Entry(summary.getKey(), summary.getETag(), summary.getSize()));
+                }
+            }
+            if (!listing.isTruncated()) {
+                break;
+            }
+            listing = s3Client.listNextBatchOfObjects(listing);
+        }
+
+        try {
+            s3Client.putObject(bucketName, indexKey, ParseUtils.MAPPER.writeValueAsString(index));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        LOGGER.info("Published item index: bucket={}, key={}, items={}", bucketName, indexKey, index.items.size());
+        return index;
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents the manifest of a pack object, which holds the content of many small items back to back. Written by
+ * {@link S3ItemPackWriter} and read by {@link S3ItemStore}, which serves packed items from the pack instead of
+ * downloading each item with its own request.
+ * <p>
+ * The manifest is stored at the pack key with {@link #MANIFEST_SUFFIX} appended and records, for each item, the
+ * item tag at the time it was packed and the byte range of its content in the pack.
+ */
+public class S3ItemPack {
+
+    public static final int FORMAT_VERSION = 1;
+    public static final String MANIFEST_SUFFIX = ".manifest.json";
+
+    @JsonProperty(value = "FormatVersion")
+    public int formatVersion = FORMAT_VERSION;
+
+    /**
+     * Epoch milliseconds when the pack was generated
+     */
+    @JsonProperty(value = "GeneratedAt")
+    public long generatedAt;
+
+    /**
+     * ETag of the pack object the offsets refer to
+     */
+    @JsonProperty(value = "PackTag")
+    @Nullable
+    public String packTag;
+
+    /**
+     * Packed items in key order
+     */
+    @JsonProperty(value = "Items")
+    public List<Entry> items = new ArrayList<>();
+
+    public static String getManifestKey(String packKey) {
+        return packKey + MANIFEST_SUFFIX;
+    }
+
+    public static class Entry {
+
+        @JsonProperty(value = "Name")
+        @Nullable
+        public String name;
+
+        @JsonProperty(value = "Tag")
+        @Nullable
+        public String tag;
+
+        @JsonProperty(value = "Offset")
+        public long offset;
+
+        @JsonProperty(value = "Length")
+        public long length;
+
+        /**
+         * Content encoding of the item object, e.g. {@code gzip}. The packed bytes are stored as they were in the
+         * item object
+         */
+        @JsonProperty(value = "ContentEncoding")
+        @Nullable
+        public String contentEncoding;
+
+        public Entry() {
+        }
+
+        public Entry(String name, String tag, long offset, long length, String contentEncoding) {
+            this.name = name;
+            this.tag = tag;
+            this.offset = offset;
+            this.length = length;
+            this.contentEncoding = contentEncoding;
+        }
+    }
+}
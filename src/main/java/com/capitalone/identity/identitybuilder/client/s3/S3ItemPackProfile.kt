@@ -0,0 +1,23 @@
+package com.capitalone.identity.identitybuilder.client.s3
+
+/**
+ * Settings for serving small items from a pack published by [S3ItemPackWriter], see [S3ItemStore.getItem].
+ */
+data class S3ItemPackProfile @JvmOverloads constructor(
+    /**
+     * Key of the pack object. Its manifest is stored at [S3ItemPack.getManifestKey]
+     */
+    val packKey: String,
+    /**
+     * Download the whole pack once and serve packed items from memory, instead of reading each item with a
+     * byte-range GET of the pack
+     */
+    val cacheWholePack: Boolean = false,
+) {
+    init {
+        require(packKey.isNotBlank()) { "packKey must not be blank" }
+    }
+
+    val manifestKey: String
+        get() = S3ItemPack.getManifestKey(packKey)
+}
@@ -0,0 +1,47 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import org.apache.logging.log4j.util.Strings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Optional properties that serve small items from a pack published by {@link S3ItemPackWriter}, see
+ * {@link S3ItemPackProfile}.
+ */
+@Lazy
+@Component
+public class S3ItemPackProperties {
+
+    private static final String PACK_BASE = S3ConfigurationProperties.S3_PROPERTY_BASE + ".pack";
+    private static final String KEY = PACK_BASE + ".key";
+    private static final String CACHE_WHOLE_PACK = PACK_BASE + ".cache-whole-pack";
+
+    private final S3ItemPackProfile profile;
+
+    /**
+     * @param key            key of the pack object, blank to load every item individually
+     * @param cacheWholePack download the whole pack once instead of reading packed items with byte-range GETs
+     */
+    public S3ItemPackProperties(
+            @Value("${" + KEY + ":}") String key,
+            @Value("${" + CACHE_WHOLE_PACK + ":false}") boolean cacheWholePack) {
+        this.profile = Strings.isBlank(key) ? null : new S3ItemPackProfile(key, cacheWholePack);
+    }
+
+    /**
+     * @return pack settings, or null when items are not loaded from a pack
+     */
+    public S3ItemPackProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Apply these properties to a client configuration.
+     */
+    ConfigStoreClientS3Configuration applyTo(ConfigStoreClientS3Configuration configuration) {
+        configuration.setPackProfile(profile);
+        return configuration;
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.*;
+import com.capitalone.identity.identitybuilder.ConfigStoreConstants;
+import com.capitalone.identity.identitybuilder.util.ParseUtils;
+import com.capitalone.identity.identitybuilder.util.StringUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.util.Strings;
+import org.springframework.lang.NonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.util.Collections;
+import java.util.Objects;
+
+/**
+ * Bundles every item under a root prefix that is no larger than a maximum size into one pack object, and publishes
+ * an {@link S3ItemPack} manifest of the byte range of each item next to it. An {@link S3ItemStore} configured with
+ * the same pack key then loads packed items from the pack instead of with one request per item. Item objects are
+ * left in place, so stores without the pack, and items that change after packing, keep using them.
+ * <p>
+ * Run this after each change to the bucket content, e.g. at the end of a deployment pipeline.
+ */
+public class S3ItemPackWriter {
+    private static final Logger LOGGER = LogManager.getLogger(ConfigStoreConstants.LOGGER_NAME);
+
+    public static final long DEFAULT_MAX_ITEM_SIZE = 64L * 1024;
+
+    private final AmazonS3 s3Client;
+    private final String bucketName;
+    private final String rootPrefix;
+    private final String packKey;
+    private final long maxItemSize;
+    private final Clock clock;
+
+    public S3ItemPackWriter(@NonNull AmazonS3 s3Client, @NonNull String bucketName, @NonNull String rootPrefix,
+                            @NonNull String packKey) {
+        this(s3Client, bucketName, rootPrefix, packKey, DEFAULT_MAX_ITEM_SIZE);
+    }
+
+    /**
+     * @param maxItemSize items larger than this many bytes are not packed
+     */
+    public S3ItemPackWriter(@NonNull AmazonS3 s3Client, @NonNull String bucketName, @NonNull String rootPrefix,
+                            @NonNull String packKey, long maxItemSize) {
+        this(s3Client, bucketName, rootPrefix, packKey, maxItemSize, Clock.systemUTC());
+    }
+
+    S3ItemPackWriter(AmazonS3 s3Client, String bucketName, String rootPrefix, String packKey, long maxItemSize,
+                     Clock clock) {
+        this.s3Client = Objects.requireNonNull(s3Client);
+        this.bucketName = StringUtils.requireNotNullOrBlank(bucketName);
+        this.rootPrefix = Objects.requireNonNull(rootPrefix);
+        this.packKey = StringUtils.requireNotNullOrBlank(packKey);
+        if (maxItemSize < 1) {
+            throw new IllegalArgumentException("maxItemSize must be at least 1, found: " + maxItemSize);
+        }
+        this.maxItemSize = maxItemSize;
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    /**
+     * Pack all small items under the root prefix, then write the pack object followed by its manifest. Items that
+     * change while they are being packed are left out.
+     *
+     * @return the published manifest
+     */
+    public S3ItemPack publish() {
+        S3ItemPack pack = new S3ItemPack();
+        pack.generatedAt = clock.millis();
+        String manifestKey = S3ItemPack.getManifestKey(packKey);
+        ByteArrayOutputStream packContent = new ByteArrayOutputStream();
+
+        ListObjectsRequest request = new ListObjectsRequest().withBucketName(bucketName);
+        if (Strings.isNotBlank(rootPrefix)) {
+            request.setPrefix(rootPrefix);
+        }
+        ObjectListing listing = s3Client.listObjects(request);
+        while (true) {
+            for (S3ObjectSummary summary : listing.getObjectSummaries()) {
+                String key = summary.getKey();
+                if (summary.getSize() <= maxItemSize && !key.equals(packKey) && !key.equals(manifestKey)) {
+                    addItem(pack, packContent, key, summary.getETag());
+                }
+            }
+            if (!listing.isTruncated()) {
+                break;
+            }
+            listing = s3Client.listNextBatchOfObjects(listing);
+        }
+
+        byte[] content = packContent.toByteArray();
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(content.length);
+        pack.packTag = s3Client.putObject(new PutObjectRequest(bucketName, packKey,
+                new ByteArrayInputStream(content), metadata)).getETag();
+        try {
+            s3Client.putObject(bucketName, manifestKey, ParseUtils.MAPPER.writeValueAsString(pack));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        LOGGER.info("Published item pack: bucket={}, key={}, items={}, size={}", bucketName, packKey,
+                pack.items.size(), content.length);
+        return pack;
+    }
+
+    private void addItem(S3ItemPack pack, ByteArrayOutputStream packContent, String key, String tag) {
+        GetObjectRequest request = new GetObjectRequest(bucketName, key);
+        request.setMatchingETagConstraints(Collections.singletonList(tag));
+        S3Object object = s3Client.getObject(request);
+        if (object == null) {
+            LOGGER.debug("Item changed while packing, not packed: key={}", key);
+            return;
+        }
+        byte[] content;
+        try (S3ObjectInputStream objectContent = object.getObjectContent()) {
+            content = objectContent.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        pack.items.add(new S3ItemPack.Entry(key, tag, packContent.size(), content.length,
+                object.getObjectMetadata().getContentEncoding()));
+        packContent.writeBytes(content);
+    }
+
+}
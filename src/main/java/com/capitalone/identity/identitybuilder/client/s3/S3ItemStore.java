@@ -4,33 +4,157 @@ import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.*;
 import com.amazonaws.util.IOUtils;
 import com.capitalone.identity.identitybuilder.ConfigStoreConstants;
+import com.capitalone.identity.identitybuilder.client.s3.AdaptiveConcurrencyLimiter.Operation;
 import com.capitalone.identity.identitybuilder.model.ConfigStoreItem;
 import com.capitalone.identity.identitybuilder.model.ConfigStoreItemInfo;
 import com.capitalone.identity.identitybuilder.repository.CommonItemStore;
+import com.capitalone.identity.identitybuilder.util.CompressionUtils;
+import com.capitalone.identity.identitybuilder.util.ParseUtils;
 import com.capitalone.identity.identitybuilder.util.StringUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.util.Strings;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class S3ItemStore extends CommonItemStore {
     private static final Logger LOGGER = LogManager.getLogger(ConfigStoreConstants.LOGGER_NAME);
 
+    public static final int DEFAULT_LISTING_PARALLELISM = 1;
+    public static final Duration DEFAULT_LOOKUP_CACHE_TTL = Duration.ZERO;
+    private static final long LOOKUP_CACHE_MAX_SIZE = 10_000;
+    private static final long VERSION_ID_CACHE_MAX_SIZE = 100_000;
+    public static final Duration DEFAULT_INDEX_MAX_AGE = Duration.ofHours(24);
+    private static final int NOT_FOUND = 404;
+    private static final String DELIMITER = "/";
+
     private final String bucketName;
     private final String rootPrefix;
     private final AmazonS3 s3Client;
     private final int maxPageSize = 1000;
+    private final int listingParallelism;
+    private final ItemContentCache contentCache;
+    private final Cache<String, Optional<ConfigStoreItemInfo>> lookupCache;
+    private final String indexKey;
+    private final Duration indexMaxAge;
+    private final AdaptiveConcurrencyLimiter requestLimiter;
+    private final S3RequestHedger requestHedger;
+    private final S3RangedGetProfile rangedGet;
+    private final Cache<ConfigStoreItemInfo, Long> largeObjectSizes;
+    private final S3ItemPackProfile pack;
+    private final Cache<ConfigStoreItemInfo, String> versionIds;
+    private final Set<String> reservedKeys;
+    private final Clock clock;
+    private final AtomicReference<LoadedIndex> loadedIndex = new AtomicReference<>();
+    private final AtomicReference<LoadedPack> loadedPack = new AtomicReference<>();
+    private volatile boolean packRead;
 
-    public S3ItemStore(@NonNull AmazonS3 s3Client, @NonNull String bucketName, @NonNull String rootPrefix) {
+    /**
+     * @param listingParallelism when greater than 1, the bucket is listed by first discovering the top-level
+     *                           namespaces under {@code rootPrefix} with a delimiter listing and then listing
+     *                           up to this many namespaces concurrently. A value of 1 lists the bucket
+     *                           sequentially, one page at a time.
+     * @param contentCache       optional cache of item content, checked before downloading an item
+     * @param lookupCacheTtl     how long results of {@link #getSingleStoredItemInfo(String)}, including keys that
+     *                           were not found, are cached. Cached results are refreshed by every listing that
+     *                           covers their key. {@link Duration#ZERO} disables the cache, and is the default of
+     *                           the other constructors.
+     */
+    public S3ItemStore(@NonNull AmazonS3 s3Client, @NonNull String bucketName, @NonNull String rootPrefix,
+                       int listingParallelism, @Nullable ItemContentCache contentCache,
+                       @NonNull Duration lookupCacheTtl) {
+        this(s3Client, bucketName, rootPrefix, listingParallelism, contentCache, lookupCacheTtl,
+                null, DEFAULT_INDEX_MAX_AGE, null, null, null, null, false, Clock.systemUTC());
+    }
+
+    /**
+     * @param indexKey    optional key of an {@link S3ItemIndex} published by {@link S3ItemIndexWriter}. When set,
+     *                    scans read the index instead of listing the bucket, and fall back to a listing if the index
+     *                    is missing, unreadable, or older than {@code indexMaxAge}
+     * @param indexMaxAge    maximum age of an index that is still used for scans
+     * @param requestLimiter optional limiter that every LIST, GET and HEAD request made by this store runs through
+     * @param requestHedger  optional hedger that single-GET item downloads run through
+     * @param rangedGet      optional settings to download large items as concurrent byte-range GETs
+     * @param pack           optional pack of small items, published by {@link S3ItemPackWriter}, that packed items
+     *                       are read from
+     * @param versionedListing list object versions instead of objects, so that items are downloaded from the exact
+     *                         version a listing observed even if they were overwritten since. Requires the
+     *                         {@code s3:ListBucketVersions} and {@code s3:GetObjectVersion} permissions
+     */
+    S3ItemStore(AmazonS3 s3Client, String bucketName, String rootPrefix, int listingParallelism,
+                ItemContentCache contentCache, Duration lookupCacheTtl, String indexKey, Duration indexMaxAge,
+                AdaptiveConcurrencyLimiter requestLimiter, S3RequestHedger requestHedger,
+                S3RangedGetProfile rangedGet, S3ItemPackProfile pack, boolean versionedListing, Clock clock) {
         this.bucketName = StringUtils.requireNotNullOrBlank(bucketName);
         this.s3Client = Objects.requireNonNull(s3Client);
         this.rootPrefix = Objects.requireNonNull(rootPrefix);
+        if (listingParallelism < 1) {
+            throw new IllegalArgumentException("listingParallelism must be at least 1, found: " + listingParallelism);
+        }
+        this.listingParallelism = listingParallelism;
+        this.contentCache = contentCache;
+        if (lookupCacheTtl.isNegative()) {
+            throw new IllegalArgumentException("lookupCacheTtl must not be negative, found: " + lookupCacheTtl);
+        }
+        this.lookupCache = lookupCacheTtl.isZero() ? null : CacheBuilder.newBuilder()
+                .expireAfterWrite(lookupCacheTtl)
+                .maximumSize(LOOKUP_CACHE_MAX_SIZE)
+                .build();
+        this.indexKey = Strings.isBlank(indexKey) ? null : indexKey;
+        this.indexMaxAge = Objects.requireNonNull(indexMaxAge);
+        this.requestLimiter = requestLimiter;
+        this.requestHedger = requestHedger;
+        this.rangedGet = rangedGet;
+        this.largeObjectSizes = rangedGet == null ? null : CacheBuilder.newBuilder()
+                .maximumSize(LOOKUP_CACHE_MAX_SIZE)
+                .build();
+        this.pack = pack;
+        this.versionIds = !versionedListing ? null : CacheBuilder.newBuilder()
+                .maximumSize(VERSION_ID_CACHE_MAX_SIZE)
+                .build();
+        Set<String> reserved = new HashSet<>();
+        if (this.indexKey != null) {
+            reserved.add(this.indexKey);
+        }
+        if (pack != null) {
+            reserved.add(pack.getPackKey());
+            reserved.add(pack.getManifestKey());
+        }
+        this.reservedKeys = Collections.unmodifiableSet(reserved);
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    public S3ItemStore(@NonNull AmazonS3 s3Client, @NonNull String bucketName, @NonNull String rootPrefix,
+                       int listingParallelism, @Nullable ItemContentCache contentCache) {
+        this(s3Client, bucketName, rootPrefix, listingParallelism, contentCache, DEFAULT_LOOKUP_CACHE_TTL);
+    }
+
+    public S3ItemStore(@NonNull AmazonS3 s3Client, @NonNull String bucketName, @NonNull String rootPrefix,
+                       int listingParallelism) {
+        this(s3Client, bucketName, rootPrefix, listingParallelism, null);
+    }
+
+    public S3ItemStore(@NonNull AmazonS3 s3Client, @NonNull String bucketName, @NonNull String rootPrefix) {
+        this(s3Client, bucketName, rootPrefix, DEFAULT_LISTING_PARALLELISM);
     }
 
     public S3ItemStore(@NonNull AmazonS3 s3Client, @NonNull String bucketName) {
@@ -38,81 +162,707 @@ public class S3ItemStore extends CommonItemStore {
     }
 
     public S3ItemStore(@NonNull ConfigStoreClientS3Configuration configuration) {
-        this(configuration.getAwsClient(), configuration.getBucketName(), configuration.getRootPrefix());
+        this(configuration.getAwsClient(), configuration, Clock.systemUTC());
+    }
+
+    S3ItemStore(AmazonS3 s3Client, ConfigStoreClientS3Configuration configuration, Clock clock) {
+        this(s3Client, configuration.getBucketName(), configuration.getRootPrefix(),
+                configuration.getListingParallelism(), configuration.getContentCache(),
+                configuration.getLookupCacheTtl(), configuration.getIndexKey(), configuration.getIndexMaxAge(),
+                configuration.getRequestLimiter(), configuration.getRequestHedger(),
+                configuration.getRangedGetProfile(), configuration.getPackProfile(),
+                configuration.getVersionedListingEnabled(), clock);
+    }
+
+    /**
+     * @return the item content cache used by this store, if any, e.g. to report hit/miss/eviction counts
+     */
+    public Optional<ItemContentCache> getContentCache() {
+        return Optional.ofNullable(contentCache);
+    }
+
+    /**
+     * @return the S3 request limiter used by this store, if any, e.g. to report its current limit
+     */
+    public Optional<AdaptiveConcurrencyLimiter> getRequestLimiter() {
+        return Optional.ofNullable(requestLimiter);
+    }
+
+    /**
+     * @return the S3 request hedger used by this store, if any, e.g. to report its hedge and win counts
+     */
+    public Optional<S3RequestHedger> getRequestHedger() {
+        return Optional.ofNullable(requestHedger);
     }
 
     @Override
     public Set<ConfigStoreItemInfo> getAllItemInfo() {
-        return getConfigStoreItemInfoStream(rootPrefix, maxPageSize).collect(Collectors.toSet());
+        return getStoredItemInfo().collect(Collectors.toSet()).block();
     }
 
+    /**
+     * Downloads the item with a GET that is conditional on the tag of {@code info}. When ranged downloads are
+     * enabled and a listing or lookup observed that the item is larger than the threshold, it is instead downloaded
+     * as concurrent byte-range GETs that are each conditional on the tag, so all parts come from the same version.
+     * <p>
+     * Objects with a {@code gzip} content encoding or a {@code .gz} key suffix are decompressed, and the content
+     * cache holds the decompressed content.
+     * <p>
+     * When a pack is configured and the item was packed with the same tag, the item is read from the pack instead,
+     * either with a byte-range GET of the pack or from the whole pack kept in memory.
+     * <p>
+     * With versioned listing, GETs are pinned to the version id the listing observed for the tag. If no version id
+     * is known and the item was overwritten since it was listed, the version with the tag is looked up in the
+     * version history of the key, so the load does not fail.
+     * <p>
+     * When request hedging is enabled, a single-GET download that is slower than recent downloads is duplicated
+     * and the first download to complete is used.
+     */
     @Override
     public ConfigStoreItem getItem(ConfigStoreItemInfo info) throws IOException {
 
         final String key = rootPrefixBoundedLocation(info.getName());
         final String tag = info.getTag();
-        final GetObjectRequest request = new GetObjectRequest(bucketName, key);
-        request.setMatchingETagConstraints(Collections.singletonList(tag));
+        if (contentCache != null) {
+            Optional<byte[]> cached = contentCache.get(key, tag);
+            if (cached.isPresent()) {
+                LOGGER.debug("Served from content cache: {}", key);
+                return new ConfigStoreItem(info, cached.get());
+            }
+        }
 
-        // Get item and look for item in version history if not found
-        S3Object object = Optional.ofNullable(s3Client.getObject(request))
-                .orElseThrow(() -> {
-                    String msg = String.format("Item not found: key: %s, tag: %s", key, tag);
-                    return new IllegalArgumentException(msg);
-                });
+        byte[] content = pack != null ? readPackedItem(info).orElse(null) : null;
+        if (content == null) {
+            content = download(info, key, tag);
+        }
+        if (contentCache != null) {
+            contentCache.put(key, tag, content);
+        }
+        return new ConfigStoreItem(info, content);
+
+    }
+
+    /**
+     * @return decompressed content of the item object
+     */
+    private byte[] download(ConfigStoreItemInfo info, String key, String tag) throws IOException {
+        Long size = largeObjectSizes != null ? largeObjectSizes.getIfPresent(info) : null;
+        byte[] content;
+        boolean compressed;
+        if (size != null) {
+            content = new byte[Math.toIntExact(size)];
+            compressed = CompressionUtils.isCompressed(key, getObjectRanges(key, tag, content));
+        } else {
+            ObjectContent object = requestHedger != null
+                    ? requestHedger.execute(onResponse -> readObject(key, tag, onResponse))
+                    : readObject(key, tag, objectContent -> { });
+            content = object.content;
+            compressed = CompressionUtils.isCompressed(key, object.contentEncoding);
+        }
+        LOGGER.debug("Downloaded: {} ({} bytes)", key, content.length);
+        return compressed ? CompressionUtils.decompress(content) : content;
+    }
+
+    /**
+     * @param onResponse accepts the content stream before it is read
+     */
+    private ObjectContent readObject(String key, String tag, Consumer<S3ObjectInputStream> onResponse)
+            throws IOException {
+        S3Object object = getObject(key, tag);
+        try (S3ObjectInputStream objectContent = object.getObjectContent()) {
+            onResponse.accept(objectContent);
+            return new ObjectContent(IOUtils.toByteArray(objectContent),
+                    object.getObjectMetadata().getContentEncoding());
+        }
+    }
+
+    /**
+     * @return decompressed content of the item read from the pack, or empty if the item is not packed with this
+     * tag or the pack was replaced since its manifest was read
+     */
+    private Optional<byte[]> readPackedItem(ConfigStoreItemInfo info) throws IOException {
+        if (!packRead) {
+            readPack();
+        }
+        LoadedPack current = loadedPack.get();
+        S3ItemPack.Entry entry = current != null && !current.stale ? current.entries.get(info) : null;
+        if (entry == null) {
+            return Optional.empty();
+        }
+        byte[] content = entry.length == 0 ? new byte[0]
+                : pack.getCacheWholePack() ? readFromPackData(current, entry) : readPackRange(current, entry);
+        if (content == null) {
+            LOGGER.warn("Item pack changed since its manifest was read, loading items individually: key={}",
+                    pack.getPackKey());
+            current.stale = true;
+            return Optional.empty();
+        }
+        LOGGER.debug("Served from item pack: {}", info.getName());
+        return Optional.of(CompressionUtils.isCompressed(entry.name, entry.contentEncoding)
+                ? CompressionUtils.decompress(content)
+                : content);
+    }
 
+    /**
+     * @return the packed bytes of the item, or null if the pack no longer has the tag of the manifest
+     */
+    private byte[] readPackRange(LoadedPack current, S3ItemPack.Entry entry) throws IOException {
+        GetObjectRequest request = new GetObjectRequest(bucketName, pack.getPackKey())
+                .withRange(entry.offset, entry.offset + entry.length - 1);
+        request.setMatchingETagConstraints(Collections.singletonList(current.packTag));
+        S3Object object = get(request);
+        if (object == null) {
+            return null;
+        }
+        int length = Math.toIntExact(entry.length);
         try (S3ObjectInputStream objectContent = object.getObjectContent()) {
-            String result = IOUtils.toString(objectContent);
-            LOGGER.debug("Downloaded: {}:={}", key, result);
-            return new ConfigStoreItem(info, result);
+            byte[] content = objectContent.readNBytes(length);
+            if (content.length != length || objectContent.read() != -1) {
+                throw new IOException("Unexpected size of packed item: " + entry.name);
+            }
+            return content;
+        }
+    }
+
+    /**
+     * @return the packed bytes of the item, or null if the pack no longer has the tag of the manifest
+     */
+    private byte[] readFromPackData(LoadedPack current, S3ItemPack.Entry entry) throws IOException {
+        byte[] data;
+        synchronized (current) {
+            if (current.data == null) {
+                GetObjectRequest request = new GetObjectRequest(bucketName, pack.getPackKey());
+                request.setMatchingETagConstraints(Collections.singletonList(current.packTag));
+                S3Object object = get(request);
+                if (object == null) {
+                    return null;
+                }
+                try (S3ObjectInputStream objectContent = object.getObjectContent()) {
+                    current.data = IOUtils.toByteArray(objectContent);
+                }
+                LOGGER.debug("Downloaded item pack: key={}, size={}", pack.getPackKey(), current.data.length);
+            }
+            data = current.data;
         }
+        if (entry.offset + entry.length > data.length) {
+            throw new IOException("Unexpected size of packed item: " + entry.name);
+        }
+        return Arrays.copyOfRange(data, (int) entry.offset, (int) (entry.offset + entry.length));
+    }
+
+    /**
+     * Fills {@code content} with the object, downloaded as concurrent byte ranges.
+     *
+     * @return content encoding of the object, if any
+     */
+    private String getObjectRanges(String key, String tag, byte[] content) throws IOException {
+        long size = content.length;
+        long partSize = rangedGet.getPartSizeBytes();
+        try {
+            return Flux.range(0, rangedGet.getPartCount(size))
+                    .flatMap(part -> Mono.fromCallable(() -> {
+                        long start = part * partSize;
+                        return Optional.ofNullable(
+                                readRange(key, tag, content, start, Math.min(size, start + partSize) - 1));
+                    }).subscribeOn(Schedulers.boundedElastic()), rangedGet.getParallelism())
+                    .collectList()
+                    .map(encodings -> encodings.get(0))
+                    .block()
+                    .orElse(null);
+        } catch (RuntimeException e) {
+            Throwable cause = Exceptions.unwrap(e);
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the inclusive byte range {@code [start, end]} of the object into {@code content} at offset
+     * {@code start}.
+     *
+     * @return content encoding of the object, if any
+     */
+    private String readRange(String key, String tag, byte[] content, long start, long end) throws IOException {
+        final GetObjectRequest request = newGetObjectRequest(key, tag).withRange(start, end);
+        int length = Math.toIntExact(end - start + 1);
+        S3Object object = getObject(request, tag);
+        try (S3ObjectInputStream objectContent = object.getObjectContent()) {
+            int read = objectContent.readNBytes(content, (int) start, length);
+            if (read != length || objectContent.read() != -1) {
+                throw new IOException(String.format("Unexpected size of range %s-%s of item: key: %s, tag: %s",
+                        start, end, key, tag));
+            }
+        }
+        return object.getObjectMetadata().getContentEncoding();
+    }
 
+    /**
+     * Streams the item from the content cache or the pack when present, otherwise directly from the S3 response
+     * body, decompressing it if needed. Streamed content is not added to the content cache, since that would
+     * require buffering it.
+     */
+    @Override
+    public InputStream getItemStream(ConfigStoreItemInfo info) throws IOException {
+        final String key = rootPrefixBoundedLocation(info.getName());
+        final String tag = info.getTag();
+        if (contentCache != null) {
+            Optional<InputStream> cached = contentCache.openStream(key, tag);
+            if (cached.isPresent()) {
+                LOGGER.debug("Streamed from content cache: {}", key);
+                return cached.get();
+            }
+        }
+        if (pack != null) {
+            Optional<byte[]> packed = readPackedItem(info);
+            if (packed.isPresent()) {
+                return new ByteArrayInputStream(packed.get());
+            }
+        }
+        S3Object object = getObject(key, tag);
+        return CompressionUtils.isCompressed(key, object.getObjectMetadata().getContentEncoding())
+                ? CompressionUtils.decompress(object.getObjectContent())
+                : object.getObjectContent();
+    }
+
+    private S3Object getObject(String key, String tag) {
+        return getObject(newGetObjectRequest(key, tag), tag);
+    }
+
+    /**
+     * @return a request for the item, pinned to the version a versioned listing observed for the tag, if any
+     */
+    private GetObjectRequest newGetObjectRequest(String key, String tag) {
+        String versionId = versionIds != null ? versionIds.getIfPresent(new ConfigStoreItemInfo(key, tag)) : null;
+        return new GetObjectRequest(bucketName, key, versionId);
+    }
+
+    private S3Object getObject(GetObjectRequest request, String tag) {
+        final String key = request.getKey();
+        request.setMatchingETagConstraints(Collections.singletonList(tag));
+
+        // Get item and look for item in version history if not found
+        S3Object object = get(request);
+        if (object == null && versionIds != null && request.getVersionId() == null) {
+            Optional<String> versionId = findVersionId(key, tag);
+            if (versionId.isPresent()) {
+                LOGGER.debug("Item changed since it was listed, loading listed version: key={}, versionId={}",
+                        key, versionId.get());
+                versionIds.put(new ConfigStoreItemInfo(key, tag), versionId.get());
+                request.setVersionId(versionId.get());
+                object = get(request);
+            }
+        }
+        return Optional.ofNullable(object)
+                .orElseThrow(() -> new ItemTagMismatchException(key, tag));
+    }
+
+    /**
+     * @return id of the newest version of {@code key} with the tag, or empty if no such version is retained
+     */
+    private Optional<String> findVersionId(String key, String tag) {
+        ListVersionsRequest request = new ListVersionsRequest().withBucketName(bucketName).withPrefix(key);
+        VersionListing listing = request(Operation.LIST, () -> s3Client.listVersions(request));
+        while (true) {
+            for (S3VersionSummary version : listing.getVersionSummaries()) {
+                if (key.equals(version.getKey()) && !version.isDeleteMarker() && tag.equals(version.getETag())) {
+                    return Optional.of(version.getVersionId());
+                }
+            }
+            if (!listing.isTruncated()) {
+                return Optional.empty();
+            }
+            final VersionListing previous = listing;
+            listing = request(Operation.LIST, () -> s3Client.listNextBatchOfVersions(previous));
+        }
     }
 
+    /**
+     * Streams item info page by page in lexicographic key order, as returned by S3. Pages are requested from
+     * S3 as downstream demand requires them, so the full listing is never held in memory.
+     * <p>
+     * When an index key is configured, the index object is read instead with a GET that is conditional on its
+     * ETag, so an unchanged index costs a single request and no download. The bucket is listed instead when the
+     * index is missing, unreadable, or stale.
+     * <p>
+     * A listing that completes also refreshes cached {@link #getSingleStoredItemInfo(String)} results with what
+     * it observed, as does a listing of a prefix for the keys under it.
+     * <p>
+     * When a pack is configured, its manifest is re-read the same way before the listing starts.
+     */
     @Override
     public Flux<ConfigStoreItemInfo> getStoredItemInfo() {
-        Stream<ConfigStoreItemInfo> configStoreItemInfoStream = getConfigStoreItemInfoStream(rootPrefix, maxPageSize);
-        return Flux.fromStream(configStoreItemInfoStream)
-                .sort(Comparator.comparing(ConfigStoreItemInfo::getName));
+        Flux<ConfigStoreItemInfo> items = indexKey == null
+                ? listBucket()
+                : Flux.defer(() -> readIndex().map(Flux::fromIterable).orElseGet(this::listBucket));
+        Flux<ConfigStoreItemInfo> listing = pack == null ? items : Flux.defer(() -> {
+            readPack();
+            return items;
+        });
+        return refreshLookupCache(listing, "");
     }
 
+    /**
+     * @return {@code listing}, which updates the cached lookups of the keys it observes, and once it completes
+     * marks the cached keys under {@code prefix} that it did not observe as not found
+     */
+    private Flux<ConfigStoreItemInfo> refreshLookupCache(Flux<ConfigStoreItemInfo> listing, String prefix) {
+        return lookupCache == null ? listing : Flux.defer(() -> {
+            // keys cached before the listing started that the listing has not yet observed
+            Set<String> unseenKeys = lookupCache.asMap().keySet().stream()
+                    .filter(key -> key.startsWith(prefix))
+                    .collect(Collectors.toCollection(HashSet::new));
+            return listing
+                    .doOnNext(info -> {
+                        if (unseenKeys.remove(info.getName())) {
+                            lookupCache.put(info.getName(), Optional.of(info));
+                        }
+                    })
+                    .doOnComplete(() -> unseenKeys.forEach(key -> lookupCache.put(key, Optional.empty())));
+        });
+    }
+
+    /**
+     * Looks up a single key with one HEAD request. Results, including keys that were not found, are cached for
+     * the configured lookup cache TTL.
+     */
     @Override
     public Optional<ConfigStoreItemInfo> getSingleStoredItemInfo(String key) {
         String boundedKey = rootPrefixBoundedLocation(key);
-        ObjectMetadata objectMetadata = s3Client.doesObjectExist(bucketName, boundedKey)
-                ? s3Client.getObjectMetadata(bucketName, boundedKey)
-                : null;
+        if (lookupCache == null) {
+            return headObject(boundedKey);
+        }
+        Optional<ConfigStoreItemInfo> cached = lookupCache.getIfPresent(boundedKey);
+        if (cached != null) {
+            return cached;
+        }
+        Optional<ConfigStoreItemInfo> result = headObject(boundedKey);
+        lookupCache.put(boundedKey, result);
+        return result;
+    }
 
-        return Optional.ofNullable(objectMetadata)
-                .map(objectData -> new ConfigStoreItemInfo(boundedKey, objectData.getETag()));
+    private Optional<ConfigStoreItemInfo> headObject(String key) {
+        try {
+            ObjectMetadata objectMetadata = request(Operation.HEAD, () -> s3Client.getObjectMetadata(bucketName, key));
+            return Optional.ofNullable(objectMetadata)
+                    .map(objectData -> recordSize(new ConfigStoreItemInfo(key, objectData.getETag()),
+                            objectData.getContentLength()));
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == NOT_FOUND) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
 
+    /**
+     * Lists only the keys under {@code prefix}. Prefixes outside of the root prefix contain no items.
+     */
+    @Override
+    public Flux<ConfigStoreItemInfo> getStoredItemInfo(String prefix) {
+        if (!prefix.startsWith(rootPrefix)) {
+            return rootPrefix.startsWith(prefix) ? getStoredItemInfo() : Flux.empty();
+        }
+        Flux<ConfigStoreItemInfo> listing = getConfigStoreItemInfoPages(prefix, maxPageSize);
+        return refreshLookupCache(reservedKeys.isEmpty() ? listing
+                : listing.filter(info -> !reservedKeys.contains(info.getName())), prefix);
+    }
+
+    private Flux<ConfigStoreItemInfo> listBucket() {
+        Flux<ConfigStoreItemInfo> listing = listingParallelism > 1
+                ? getShardedConfigStoreItemInfo(rootPrefix, maxPageSize, listingParallelism)
+                : getConfigStoreItemInfoPages(rootPrefix, maxPageSize);
+        return reservedKeys.isEmpty() ? listing : listing.filter(info -> !reservedKeys.contains(info.getName()));
+    }
+
+    /**
+     * Fetch the index if it changed since it was last read.
+     *
+     * @return items of the current index, or empty if the index can't be used and the bucket must be listed
+     */
+    Optional<List<ConfigStoreItemInfo>> readIndex() {
+        LoadedIndex previous = loadedIndex.get();
+        GetObjectRequest request = new GetObjectRequest(bucketName, indexKey);
+        if (previous != null) {
+            request.setNonmatchingETagConstraints(Collections.singletonList(previous.tag));
+        }
+
+        LoadedIndex current;
+        try {
+            // null when the index has not changed
+            S3Object object = get(request);
+            current = object != null ? parseIndex(object) : previous;
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() != NOT_FOUND) {
+                throw e;
+            }
+            LOGGER.warn("Item index not found, listing bucket instead: key={}", indexKey);
+            loadedIndex.set(null);
+            return Optional.empty();
+        } catch (IOException e) {
+            LOGGER.warn("Item index unreadable, listing bucket instead: key={}", indexKey, e);
+            loadedIndex.set(null);
+            return Optional.empty();
+        }
+        loadedIndex.set(current);
+
+        Duration age = Duration.ofMillis(clock.millis() - current.generatedAt);
+        if (age.compareTo(indexMaxAge) > 0) {
+            LOGGER.warn("Item index is stale, listing bucket instead: key={}, age={}", indexKey, age);
+            return Optional.empty();
+        }
+        return Optional.of(current.items);
+    }
+
+    private LoadedIndex parseIndex(S3Object object) throws IOException {
+        try (S3ObjectInputStream objectContent = object.getObjectContent()) {
+            S3ItemIndex index = ParseUtils.MAPPER.readValue(objectContent, S3ItemIndex.class);
+            if (index.formatVersion != S3ItemIndex.FORMAT_VERSION || index.items == null) {
+                throw new IOException("Unsupported item index format version: " + index.formatVersion);
+            }
+            List<ConfigStoreItemInfo> items = new ArrayList<>(index.items.size());
+            for (S3ItemIndex.Entry entry : index.items) {
+                if (Strings.isBlank(entry.name) || entry.tag == null) {
+                    throw new IOException("Item index entry missing name or tag");
+                }
+                if (entry.name.startsWith(rootPrefix) && !reservedKeys.contains(entry.name)) {
+                    items.add(new ConfigStoreItemInfo(entry.name, entry.tag));
+                }
+            }
+            items.sort(Comparator.comparing(ConfigStoreItemInfo::getName));
+            LOGGER.debug("Loaded item index: key={}, items={}", indexKey, items.size());
+            return new LoadedIndex(object.getObjectMetadata().getETag(), index.generatedAt,
+                    Collections.unmodifiableList(items));
+        }
+    }
+
+    /**
+     * Fetch the pack manifest if it changed since it was last read. Packed items are loaded individually while the
+     * manifest is missing or unreadable.
+     */
+    void readPack() {
+        LoadedPack previous = loadedPack.get();
+        GetObjectRequest request = new GetObjectRequest(bucketName, pack.getManifestKey());
+        if (previous != null) {
+            request.setNonmatchingETagConstraints(Collections.singletonList(previous.manifestTag));
+        }
+        try {
+            // null when the manifest has not changed
+            S3Object object = get(request);
+            if (object != null) {
+                loadedPack.set(parsePack(object));
+            }
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() != NOT_FOUND) {
+                throw e;
+            }
+            LOGGER.warn("Item pack manifest not found, loading items individually: key={}", pack.getManifestKey());
+            loadedPack.set(null);
+        } catch (IOException e) {
+            LOGGER.warn("Item pack manifest unreadable, loading items individually: key={}",
+                    pack.getManifestKey(), e);
+            loadedPack.set(null);
+        }
+        packRead = true;
+    }
+
+    private LoadedPack parsePack(S3Object object) throws IOException {
+        try (S3ObjectInputStream objectContent = object.getObjectContent()) {
+            S3ItemPack manifest = ParseUtils.MAPPER.readValue(objectContent, S3ItemPack.class);
+            if (manifest.formatVersion != S3ItemPack.FORMAT_VERSION || manifest.items == null
+                    || manifest.packTag == null) {
+                throw new IOException("Unsupported item pack format version: " + manifest.formatVersion);
+            }
+            Map<ConfigStoreItemInfo, S3ItemPack.Entry> entries = new HashMap<>();
+            for (S3ItemPack.Entry entry : manifest.items) {
+                if (Strings.isBlank(entry.name) || entry.tag == null || entry.offset < 0 || entry.length < 0) {
+                    throw new IOException("Item pack entry missing name or tag, or with an invalid range");
+                }
+                entries.put(new ConfigStoreItemInfo(entry.name, entry.tag), entry);
+            }
+            LOGGER.debug("Loaded item pack manifest: key={}, items={}", pack.getManifestKey(), entries.size());
+            return new LoadedPack(object.getObjectMetadata().getETag(), manifest.packTag, entries);
+        }
     }
 
     Stream<ConfigStoreItemInfo> getConfigStoreItemInfoStream(String prefix, int maxPageSize) {
-        ListObjectsRequest listObjectsRequest = Strings.isBlank(prefix)
-                ? new ListObjectsRequest().withBucketName(bucketName).withMaxKeys(maxPageSize)
-                : new ListObjectsRequest().withBucketName(bucketName).withMaxKeys(maxPageSize).withPrefix(prefix);
+        return getConfigStoreItemInfoPages(prefix, maxPageSize).toStream();
+    }
+
+    /**
+     * Lists all items under {@code prefix} one page at a time, in key order. At most one page is read ahead of
+     * downstream demand.
+     * <p>
+     * With versioned listing, object versions are listed instead and only the latest version of each key that is
+     * not a delete marker is emitted. Its version id is remembered for the name and tag, so the item is later
+     * downloaded from exactly that version.
+     */
+    Flux<ConfigStoreItemInfo> getConfigStoreItemInfoPages(String prefix, int maxPageSize) {
+        if (versionIds != null) {
+            return getVersionListings(newListVersionsRequest(prefix, maxPageSize))
+                    .concatMapIterable(VersionListing::getVersionSummaries, 1)
+                    .filter(version -> version.isLatest() && !version.isDeleteMarker())
+                    .map(this::toItemInfo);
+        }
+        return getObjectListings(newListObjectsRequest(prefix, maxPageSize))
+                .concatMapIterable(ObjectListing::getObjectSummaries, 1)
+                .map(this::toItemInfo);
+    }
+
+    /**
+     * Lists all items under {@code prefix} by first discovering the top-level namespaces with a delimiter listing,
+     * then listing up to {@code parallelism} namespaces concurrently. Namespace listings are emitted in the
+     * position of their common prefix, interleaved with items that sit directly under {@code prefix}, so the
+     * result keeps the same key order as a sequential listing. With versioned listing, both the delimiter listing and
+     * the namespace listings list object versions, so every item records its version id.
+     *
+     * @param parallelism maximum number of namespaces listed concurrently
+     * @return all items under the prefix in key order
+     */
+    Flux<ConfigStoreItemInfo> getShardedConfigStoreItemInfo(String prefix, int maxPageSize, int parallelism) {
+        Flux<List<ListingSegment>> segmentPages = versionIds != null
+                ? getVersionListings(newListVersionsRequest(prefix, maxPageSize).withDelimiter(DELIMITER))
+                .map(this::getListingSegments)
+                : getObjectListings(newListObjectsRequest(prefix, maxPageSize).withDelimiter(DELIMITER))
+                .map(this::getListingSegments);
+        return segmentPages
+                .concatMapIterable(segments -> segments, 1)
+                .flatMapSequential(segment -> segment.item != null
+                        ? Mono.just(segment.item)
+                        : getConfigStoreItemInfoPages(segment.key, maxPageSize).subscribeOn(Schedulers.boundedElastic()),
+                        parallelism);
+    }
 
-        ObjectListing objectListing = s3Client.listObjects(listObjectsRequest);
-        Set<ConfigStoreItemInfo> resultConfigStore = processObjectListingItems(objectListing);
+    private <T> T request(Operation operation, Supplier<T> request) {
+        return requestLimiter != null ? requestLimiter.execute(operation, request) : request.get();
+    }
 
-        // if it reaches the default limit of 1000, the if block code will be executed
-        while (objectListing.isTruncated()) {
-            objectListing = s3Client.listNextBatchOfObjects(objectListing);
-            resultConfigStore.addAll(processObjectListingItems(objectListing));
+    /**
+     * Runs a GET through the request limiter, if any. The permit of the request is held until the content stream of
+     * the returned object is closed, so that the limit also bounds the responses whose bodies are still being read.
+     *
+     * @return the object, or null if it did not match the constraints of the request
+     */
+    private S3Object get(GetObjectRequest request) {
+        if (requestLimiter == null) {
+            return s3Client.getObject(request);
         }
+        return requestLimiter.execute(Operation.GET, () -> s3Client.getObject(request), (object, release) -> {
+            if (object == null) {
+                release.run();
+                return null;
+            }
+            S3ObjectInputStream content = object.getObjectContent();
+            object.setObjectContent(new S3ObjectInputStream(new FilterInputStream(content) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        release.run();
+                    }
+                }
+            }, content.getHttpRequest()));
+            return object;
+        });
+    }
+
+    /**
+     * @return a stream of listing pages starting with {@code request}. Each page is requested from S3 on demand.
+     */
+    private Flux<ObjectListing> getObjectListings(ListObjectsRequest request) {
+        return Flux.generate(Optional::<ObjectListing>empty, (previous, sink) -> {
+            ObjectListing listing = previous
+                    .map(page -> request(Operation.LIST, () -> s3Client.listNextBatchOfObjects(page)))
+                    .orElseGet(() -> request(Operation.LIST, () -> s3Client.listObjects(request)));
+            sink.next(listing);
+            if (!listing.isTruncated()) {
+                sink.complete();
+            }
+            return Optional.of(listing);
+        });
+    }
 
-        return resultConfigStore.stream();
+    /**
+     * @return a stream of version listing pages starting with {@code request}. Each page is requested from S3 on
+     * demand.
+     */
+    private Flux<VersionListing> getVersionListings(ListVersionsRequest request) {
+        return Flux.generate(Optional::<VersionListing>empty, (previous, sink) -> {
+            VersionListing listing = previous
+                    .map(page -> request(Operation.LIST, () -> s3Client.listNextBatchOfVersions(page)))
+                    .orElseGet(() -> request(Operation.LIST, () -> s3Client.listVersions(request)));
+            sink.next(listing);
+            if (!listing.isTruncated()) {
+                sink.complete();
+            }
+            return Optional.of(listing);
+        });
     }
 
-    private Set<ConfigStoreItemInfo> processObjectListingItems(ObjectListing objectListing) {
+    /**
+     * @return object summaries and common prefixes of a delimiter listing page merged into key order. An object
+     * key that is not under a common prefix sorts entirely before or after all keys under that prefix.
+     */
+    private List<ListingSegment> getListingSegments(ObjectListing listing) {
+        List<ListingSegment> segments = new ArrayList<>();
+        listing.getObjectSummaries().forEach(summary -> segments.add(
+                new ListingSegment(summary.getKey(), toItemInfo(summary))));
+        return sortSegments(segments, listing.getCommonPrefixes());
+    }
+
+    /**
+     * Like {@link #getListingSegments(ObjectListing)}, with only the latest version of each key that is not a delete
+     * marker as an object.
+     */
+    private List<ListingSegment> getListingSegments(VersionListing listing) {
+        List<ListingSegment> segments = new ArrayList<>();
+        listing.getVersionSummaries().stream()
+                .filter(version -> version.isLatest() && !version.isDeleteMarker())
+                .forEach(version -> segments.add(new ListingSegment(version.getKey(), toItemInfo(version))));
+        return sortSegments(segments, listing.getCommonPrefixes());
+    }
 
-        List<S3ObjectSummary> objectSummaries = new ArrayList<>(objectListing.getObjectSummaries());
-        return objectSummaries.parallelStream()
-                .map(objectSummary -> {
-                    String key = objectSummary.getKey();
-                    return new ConfigStoreItemInfo(key, objectSummary.getETag());
-                }).collect(Collectors.toSet());
+    private static List<ListingSegment> sortSegments(List<ListingSegment> segments, List<String> commonPrefixes) {
+        commonPrefixes.forEach(commonPrefix -> segments.add(new ListingSegment(commonPrefix, null)));
+        segments.sort(Comparator.comparing(segment -> segment.key));
+        return segments;
+    }
+
+    private ListObjectsRequest newListObjectsRequest(String prefix, int maxPageSize) {
+        return Strings.isBlank(prefix)
+                ? new ListObjectsRequest().withBucketName(bucketName).withMaxKeys(maxPageSize)
+                : new ListObjectsRequest().withBucketName(bucketName).withMaxKeys(maxPageSize).withPrefix(prefix);
+    }
+
+    private ListVersionsRequest newListVersionsRequest(String prefix, int maxPageSize) {
+        return Strings.isBlank(prefix)
+                ? new ListVersionsRequest().withBucketName(bucketName).withMaxResults(maxPageSize)
+                : new ListVersionsRequest().withBucketName(bucketName).withMaxResults(maxPageSize).withPrefix(prefix);
+    }
+
+    private ConfigStoreItemInfo toItemInfo(S3VersionSummary version) {
+        ConfigStoreItemInfo info = recordSize(new ConfigStoreItemInfo(version.getKey(), version.getETag()),
+                version.getSize());
+        versionIds.put(info, version.getVersionId());
+        return info;
+    }
+
+    private ConfigStoreItemInfo toItemInfo(S3ObjectSummary objectSummary) {
+        return recordSize(new ConfigStoreItemInfo(objectSummary.getKey(), objectSummary.getETag()),
+                objectSummary.getSize());
+    }
+
+    /**
+     * Remember the size of items large enough to be downloaded in parts. Sizes are keyed by name and tag, so a
+     * recorded size never goes stale.
+     */
+    private ConfigStoreItemInfo recordSize(ConfigStoreItemInfo info, long size) {
+        if (largeObjectSizes != null && size > rangedGet.getThresholdBytes()) {
+            largeObjectSizes.put(info, size);
+        }
+        return info;
     }
 
     private String rootPrefixBoundedLocation(String location) {
@@ -126,4 +876,69 @@ public class S3ItemStore extends CommonItemStore {
         }
     }
 
+    /**
+     * Items of the last index read, and the index ETag used to skip downloading it again while unchanged.
+     */
+    private static final class LoadedIndex {
+        final String tag;
+        final long generatedAt;
+        final List<ConfigStoreItemInfo> items;
+
+        LoadedIndex(String tag, long generatedAt, List<ConfigStoreItemInfo> items) {
+            this.tag = tag;
+            this.generatedAt = generatedAt;
+            this.items = items;
+        }
+    }
+
+    /**
+     * Entries of the last pack manifest read, keyed by item name and tag, and the manifest ETag used to skip
+     * downloading it again while unchanged.
+     */
+    private static final class LoadedPack {
+        final String manifestTag;
+        final String packTag;
+        final Map<ConfigStoreItemInfo, S3ItemPack.Entry> entries;
+        /**
+         * Whole pack content when it is cached in memory, guarded by this
+         */
+        byte[] data;
+        /**
+         * Set when the pack no longer matches this manifest
+         */
+        volatile boolean stale;
+
+        LoadedPack(String manifestTag, String packTag, Map<ConfigStoreItemInfo, S3ItemPack.Entry> entries) {
+            this.manifestTag = manifestTag;
+            this.packTag = packTag;
+            this.entries = entries;
+        }
+    }
+
+    /**
+     * Downloaded content of an object and its content encoding, if any
+     */
+    private static final class ObjectContent {
+        final byte[] content;
+        final String contentEncoding;
+
+        ObjectContent(byte[] content, String contentEncoding) {
+            this.content = content;
+            this.contentEncoding = contentEncoding;
+        }
+    }
+
+    /**
+     * Either a single object or a common prefix (namespace) found in a delimiter listing.
+     */
+    private static final class ListingSegment {
+        final String key;
+        final ConfigStoreItemInfo item;
+
+        ListingSegment(String key, ConfigStoreItemInfo item) {
+            this.key = key;
+            this.item = item;
+        }
+    }
+
 }
@@ -0,0 +1,135 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import org.apache.logging.log4j.util.Strings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+
+/**
+ * Optional tuning properties for the {@link S3ItemStore} used by the S3 client configuration.
+ */
+@Lazy
+@Component
+public class S3ItemStoreProperties {
+
+    private static final String LISTING_PARALLELISM = S3ConfigurationProperties.S3_PROPERTY_BASE + ".listing.parallelism";
+    private static final String CONTENT_CACHE_DIRECTORY = S3ConfigurationProperties.S3_PROPERTY_BASE + ".content-cache.directory";
+    private static final String CONTENT_CACHE_MAX_SIZE_BYTES = S3ConfigurationProperties.S3_PROPERTY_BASE + ".content-cache.max-size-bytes";
+    private static final String LOOKUP_CACHE_TTL = S3ConfigurationProperties.S3_PROPERTY_BASE + ".lookup-cache.ttl";
+    private static final String INDEX_KEY = S3ConfigurationProperties.S3_PROPERTY_BASE + ".index.key";
+    private static final String INDEX_MAX_AGE = S3ConfigurationProperties.S3_PROPERTY_BASE + ".index.max-age";
+    private static final String VERSIONED_LISTING_ENABLED = S3ConfigurationProperties.S3_PROPERTY_BASE + ".versioned-listing.enabled";
+
+    private final int listingParallelism;
+    private final String contentCacheDirectory;
+    private final long contentCacheMaxSizeBytes;
+    private final Duration lookupCacheTtl;
+    private final String indexKey;
+    private final Duration indexMaxAge;
+    private final boolean versionedListingEnabled;
+
+    /**
+     * @param listingParallelism       number of top-level namespaces listed concurrently during a scan
+     * @param contentCacheDirectory    directory of the on-disk item content cache, blank to disable the cache
+     * @param contentCacheMaxSizeBytes maximum total size of content kept in the item content cache
+     * @param lookupCacheTtl           ISO-8601 duration single-key metadata lookups are cached, PT0S to disable
+     * @param indexKey                 key of a published item index to scan instead of listing the bucket, blank
+     *                                 to always list the bucket
+     * @param indexMaxAge              ISO-8601 maximum age of an item index that is still used for scans
+     * @param versionedListingEnabled  list object versions and download items from the listed version
+     */
+    public S3ItemStoreProperties(
+            @Value("${" + LISTING_PARALLELISM + ":" + S3ItemStore.DEFAULT_LISTING_PARALLELISM + "}") int listingParallelism,
+            @Value("${" + CONTENT_CACHE_DIRECTORY + ":}") String contentCacheDirectory,
+            @Value("${" + CONTENT_CACHE_MAX_SIZE_BYTES + ":" + ItemContentCache.DEFAULT_MAX_SIZE_BYTES + "}") long contentCacheMaxSizeBytes,
+            @Value("${" + LOOKUP_CACHE_TTL + ":#{null}}") String lookupCacheTtl,
+            @Value("${" + INDEX_KEY + ":}") String indexKey,
+            @Value("${" + INDEX_MAX_AGE + ":#{null}}") String indexMaxAge,
+            @Value("${" + VERSIONED_LISTING_ENABLED + ":false}") boolean versionedListingEnabled) {
+        if (listingParallelism < 1) {
+            String msg = String.format("Invalid property '%s=%s'. Must be at least 1.",
+                    LISTING_PARALLELISM, listingParallelism);
+            throw new IllegalArgumentException(msg);
+        }
+        if (contentCacheMaxSizeBytes < 1) {
+            String msg = String.format("Invalid property '%s=%s'. Must be at least 1.",
+                    CONTENT_CACHE_MAX_SIZE_BYTES, contentCacheMaxSizeBytes);
+            throw new IllegalArgumentException(msg);
+        }
+        this.listingParallelism = listingParallelism;
+        this.contentCacheDirectory = Strings.isBlank(contentCacheDirectory) ? null : contentCacheDirectory;
+        this.contentCacheMaxSizeBytes = contentCacheMaxSizeBytes;
+        this.lookupCacheTtl = parseDuration(LOOKUP_CACHE_TTL, lookupCacheTtl, S3ItemStore.DEFAULT_LOOKUP_CACHE_TTL);
+        this.indexKey = Strings.isBlank(indexKey) ? null : indexKey;
+        this.indexMaxAge = parseDuration(INDEX_MAX_AGE, indexMaxAge, S3ItemStore.DEFAULT_INDEX_MAX_AGE);
+        this.versionedListingEnabled = versionedListingEnabled;
+    }
+
+    public int getListingParallelism() {
+        return listingParallelism;
+    }
+
+    /**
+     * @return cache directory, or null when the item content cache is disabled
+     */
+    public String getContentCacheDirectory() {
+        return contentCacheDirectory;
+    }
+
+    public long getContentCacheMaxSizeBytes() {
+        return contentCacheMaxSizeBytes;
+    }
+
+    public Duration getLookupCacheTtl() {
+        return lookupCacheTtl;
+    }
+
+    /**
+     * @return key of the item index, or null when scans always list the bucket
+     */
+    public String getIndexKey() {
+        return indexKey;
+    }
+
+    public Duration getIndexMaxAge() {
+        return indexMaxAge;
+    }
+
+    public boolean isVersionedListingEnabled() {
+        return versionedListingEnabled;
+    }
+
+    /**
+     * Apply these properties to a client configuration.
+     */
+    ConfigStoreClientS3Configuration applyTo(ConfigStoreClientS3Configuration configuration) {
+        configuration.setListingParallelism(listingParallelism);
+        configuration.setContentCacheDirectory(contentCacheDirectory);
+        configuration.setContentCacheMaxSizeBytes(contentCacheMaxSizeBytes);
+        configuration.setLookupCacheTtl(lookupCacheTtl);
+        configuration.setIndexKey(indexKey);
+        configuration.setIndexMaxAge(indexMaxAge);
+        configuration.setVersionedListingEnabled(versionedListingEnabled);
+        return configuration;
+    }
+
+    static Duration parseDuration(String property, String value, Duration defaultValue) {
+        Duration duration;
+        try {
+            duration = Optional.ofNullable(value).map(Duration::parse).orElse(defaultValue);
+        } catch (DateTimeParseException e) {
+            String msg = String.format("Invalid property '%s=%s'. Must be an ISO-8601 duration.", property, value);
+            throw new IllegalArgumentException(msg, e);
+        }
+        if (duration.isNegative()) {
+            String msg = String.format("Invalid property '%s=%s'. Must not be negative.", property, value);
+            throw new IllegalArgumentException(msg);
+        }
+        return duration;
+    }
+
+}
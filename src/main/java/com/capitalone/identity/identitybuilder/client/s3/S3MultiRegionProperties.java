@@ -0,0 +1,64 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.amazonaws.regions.Regions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Optional properties that read from both the east and the west bucket with a {@link MultiRegionItemStore}.
+ */
+@Lazy
+@Component
+public class S3MultiRegionProperties {
+
+    private static final String MULTI_REGION_BASE = S3ConfigurationProperties.S3_PROPERTY_BASE + ".multi-region";
+    private static final String ENABLED = MULTI_REGION_BASE + ".enabled";
+    private static final String WEST_REGION = MULTI_REGION_BASE + ".west-region";
+    private static final String FAILURE_COOLDOWN = MULTI_REGION_BASE + ".failure-cooldown";
+
+    private final boolean enabled;
+    private final Regions westRegion;
+    private final Duration failureCooldown;
+
+    /**
+     * @param enabled         whether reads are routed across the east and west buckets
+     * @param westRegion      region of the west bucket, used when the service is deployed in the east region
+     * @param failureCooldown ISO-8601 duration a region that failed a read is skipped
+     */
+    public S3MultiRegionProperties(
+            @Value("${" + ENABLED + ":false}") boolean enabled,
+            @Value("${" + WEST_REGION + ":us-west-2}") String westRegion,
+            @Value("${" + FAILURE_COOLDOWN + ":#{null}}") String failureCooldown) {
+        Regions region;
+        try {
+            region = Regions.fromName(westRegion);
+        } catch (IllegalArgumentException e) {
+            String msg = String.format("Invalid property '%s=%s'. Must be an AWS region name.", WEST_REGION, westRegion);
+            throw new IllegalArgumentException(msg, e);
+        }
+        if (region == Regions.US_EAST_1) {
+            String msg = String.format("Invalid property '%s=%s'. Must not be the east region.", WEST_REGION, westRegion);
+            throw new IllegalArgumentException(msg);
+        }
+        this.enabled = enabled;
+        this.westRegion = region;
+        this.failureCooldown = S3ItemStoreProperties.parseDuration(FAILURE_COOLDOWN, failureCooldown,
+                MultiRegionItemStore.DEFAULT_FAILURE_COOLDOWN);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Regions getWestRegion() {
+        return westRegion;
+    }
+
+    public Duration getFailureCooldown() {
+        return failureCooldown;
+    }
+
+}
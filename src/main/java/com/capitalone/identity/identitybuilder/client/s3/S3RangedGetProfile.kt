@@ -0,0 +1,36 @@
+package com.capitalone.identity.identitybuilder.client.s3
+
+/**
+ * Settings for downloading large items as concurrent byte-range GETs, see [S3ItemStore.getItem].
+ */
+data class S3RangedGetProfile @JvmOverloads constructor(
+    /**
+     * Items larger than this many bytes are downloaded in parts
+     */
+    val thresholdBytes: Long = DEFAULT_THRESHOLD_BYTES,
+    /**
+     * Size of each byte range requested from S3
+     */
+    val partSizeBytes: Long = DEFAULT_PART_SIZE_BYTES,
+    /**
+     * Maximum number of parts of one item downloaded concurrently
+     */
+    val parallelism: Int = DEFAULT_PARALLELISM,
+) {
+    init {
+        require(thresholdBytes >= 1) { "thresholdBytes must be at least 1, found: $thresholdBytes" }
+        require(partSizeBytes >= 1) { "partSizeBytes must be at least 1, found: $partSizeBytes" }
+        require(parallelism >= 1) { "parallelism must be at least 1, found: $parallelism" }
+    }
+
+    /**
+     * @return number of byte ranges an item of [size] bytes is downloaded in
+     */
+    fun getPartCount(size: Long): Int = Math.toIntExact((size + partSizeBytes - 1) / partSizeBytes)
+
+    companion object {
+        const val DEFAULT_THRESHOLD_BYTES: Long = 8L * 1024 * 1024
+        const val DEFAULT_PART_SIZE_BYTES: Long = 4L * 1024 * 1024
+        const val DEFAULT_PARALLELISM: Int = 4
+    }
+}
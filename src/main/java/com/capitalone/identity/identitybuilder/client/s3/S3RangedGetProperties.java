@@ -0,0 +1,63 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Optional properties that download large items as concurrent byte-range GETs, see {@link S3RangedGetProfile}.
+ */
+@Lazy
+@Component
+public class S3RangedGetProperties {
+
+    private static final String RANGED_GET_BASE = S3ConfigurationProperties.S3_PROPERTY_BASE + ".ranged-get";
+    private static final String ENABLED = RANGED_GET_BASE + ".enabled";
+    private static final String THRESHOLD_BYTES = RANGED_GET_BASE + ".threshold-bytes";
+    private static final String PART_SIZE_BYTES = RANGED_GET_BASE + ".part-size-bytes";
+    private static final String PARALLELISM = RANGED_GET_BASE + ".parallelism";
+
+    private final S3RangedGetProfile profile;
+
+    /**
+     * @param enabled        whether large items are downloaded in parts
+     * @param thresholdBytes items larger than this are downloaded in parts
+     * @param partSizeBytes  size of each requested byte range
+     * @param parallelism    maximum number of parts of one item downloaded concurrently
+     */
+    public S3RangedGetProperties(
+            @Value("${" + ENABLED + ":false}") boolean enabled,
+            @Value("${" + THRESHOLD_BYTES + ":" + S3RangedGetProfile.DEFAULT_THRESHOLD_BYTES + "}") long thresholdBytes,
+            @Value("${" + PART_SIZE_BYTES + ":" + S3RangedGetProfile.DEFAULT_PART_SIZE_BYTES + "}") long partSizeBytes,
+            @Value("${" + PARALLELISM + ":" + S3RangedGetProfile.DEFAULT_PARALLELISM + "}") int parallelism) {
+        if (thresholdBytes < 1) {
+            String msg = String.format("Invalid property '%s=%s'. Must be at least 1.", THRESHOLD_BYTES, thresholdBytes);
+            throw new IllegalArgumentException(msg);
+        }
+        if (partSizeBytes < 1) {
+            String msg = String.format("Invalid property '%s=%s'. Must be at least 1.", PART_SIZE_BYTES, partSizeBytes);
+            throw new IllegalArgumentException(msg);
+        }
+        if (parallelism < 1) {
+            String msg = String.format("Invalid property '%s=%s'. Must be at least 1.", PARALLELISM, parallelism);
+            throw new IllegalArgumentException(msg);
+        }
+        this.profile = enabled ? new S3RangedGetProfile(thresholdBytes, partSizeBytes, parallelism) : null;
+    }
+
+    /**
+     * @return ranged download settings, or null when large items are downloaded with a single GET
+     */
+    public S3RangedGetProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Apply these properties to a client configuration.
+     */
+    ConfigStoreClientS3Configuration applyTo(ConfigStoreClientS3Configuration configuration) {
+        configuration.setRangedGetProfile(profile);
+        return configuration;
+    }
+
+}
@@ -0,0 +1,302 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.capitalone.identity.identitybuilder.ConfigStoreConstants;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Reduces tail latency of S3 GETs by hedging: when a request has not completed within a delay taken from a
+ * percentile of recent request latencies, a duplicate request is started and whichever completes first is used.
+ * Both requests run on the scheduler, and the caller returns as soon as either completes, also when the original
+ * request has not even received a response yet.
+ * <p>
+ * Hedging starts once {@value #MIN_SAMPLES} latencies have been observed. The share of requests that are hedged
+ * is capped by a budget that grows by {@code maxHedgeRatio} per request, so a slow period cannot double the
+ * request rate. Failures of a hedge are ignored in favor of the original request, and a failure of the original
+ * request is reported even when a hedge is still in flight.
+ * <p>
+ * Requests must be idempotent. A request that reads an S3 object passes its content stream to the
+ * {@link Request#call(Consumer) response consumer}, so that the stream is aborted as soon as the other request wins
+ * instead of being read to the end. A losing request that still waits for its response is aborted once the response
+ * arrives, without holding up the caller.
+ */
+public class S3RequestHedger {
+    private static final Logger LOGGER = LogManager.getLogger(ConfigStoreConstants.LOGGER_NAME);
+
+    public static final double DEFAULT_PERCENTILE = 0.95;
+    public static final Duration DEFAULT_MIN_DELAY = Duration.ofMillis(20);
+    public static final double DEFAULT_MAX_HEDGE_RATIO = 0.05;
+
+    static final int MIN_SAMPLES = 20;
+    private static final int SAMPLE_WINDOW = 1024;
+    private static final int DELAY_UPDATE_INTERVAL = 16;
+    private static final double MAX_BUDGET = 10;
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final double maxHedgeRatio;
+    private final Scheduler scheduler;
+    private final LongSupplier nanoTime;
+
+    private final long[] samples = new long[SAMPLE_WINDOW];
+    private long sampleCount;
+    private volatile long delayNanos = -1;
+    private double budget;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong hedgeCount = new AtomicLong();
+    private final AtomicLong hedgeWinCount = new AtomicLong();
+    private final AtomicLong budgetExhaustedCount = new AtomicLong();
+
+    /**
+     * @param percentile    percentile of recent request latencies after which a request is hedged, e.g. 0.95
+     * @param minDelay      lower bound of the hedge delay
+     * @param maxHedgeRatio maximum share of requests that are hedged
+     */
+    public S3RequestHedger(double percentile, Duration minDelay, double maxHedgeRatio) {
+        this(percentile, minDelay, maxHedgeRatio, Schedulers.boundedElastic(), System::nanoTime);
+    }
+
+    S3RequestHedger(double percentile, Duration minDelay, double maxHedgeRatio, Scheduler scheduler,
+                    LongSupplier nanoTime) {
+        if (!(percentile > 0 && percentile < 1)) {
+            throw new IllegalArgumentException("percentile must be between 0 and 1, found: " + percentile);
+        }
+        if (minDelay.isNegative()) {
+            throw new IllegalArgumentException("minDelay must not be negative, found: " + minDelay);
+        }
+        if (!(maxHedgeRatio > 0 && maxHedgeRatio <= 1)) {
+            throw new IllegalArgumentException("maxHedgeRatio must be greater than 0 and at most 1, found: "
+                    + maxHedgeRatio);
+        }
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.maxHedgeRatio = maxHedgeRatio;
+        this.scheduler = Objects.requireNonNull(scheduler);
+        this.nanoTime = Objects.requireNonNull(nanoTime);
+    }
+
+    /**
+     * Like {@link #execute(Request)} for a request without a response stream to abort.
+     */
+    public <T> T execute(Callable<T> request) throws IOException {
+        return execute(onResponse -> request.call());
+    }
+
+    /**
+     * Run a request, and a hedge of it if it is slow, and wait for the first to complete. The response stream of
+     * the other request is aborted.
+     *
+     * @return the result of {@code request}
+     */
+    public <T> T execute(Request<T> request) throws IOException {
+        requestCount.incrementAndGet();
+        allowHedge();
+        long delay = delayNanos;
+        CompletableFuture<Completion<T>> result = new CompletableFuture<>();
+        Attempt original = new Attempt();
+        Attempt hedgeAttempt = new Attempt();
+        scheduler.schedule(() -> run(request, original, result, hedgeAttempt, false));
+        Disposable hedge = delay < 0 ? null : scheduler.schedule(() -> {
+            if (!result.isDone() && tryAcquireHedge()) {
+                hedgeCount.incrementAndGet();
+                LOGGER.debug("S3 request slower than {} ms, hedging", TimeUnit.NANOSECONDS.toMillis(delay));
+                run(request, hedgeAttempt, result, original, true);
+            }
+        }, delay, TimeUnit.NANOSECONDS);
+        try {
+            Completion<T> completion = result.get();
+            if (completion.hedge) {
+                hedgeWinCount.incrementAndGet();
+            }
+            return completion.value;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            original.abort();
+            hedgeAttempt.abort();
+            InterruptedIOException exception = new InterruptedIOException("Interrupted while waiting for S3 request");
+            exception.initCause(e);
+            throw exception;
+        } catch (ExecutionException e) {
+            throw asIOException(e.getCause());
+        } finally {
+            if (hedge != null) {
+                hedge.dispose();
+            }
+        }
+    }
+
+    /**
+     * @return current delay after which requests are hedged, or empty while too few latencies were observed
+     */
+    public Optional<Duration> getHedgeDelay() {
+        long delay = delayNanos;
+        return delay < 0 ? Optional.empty() : Optional.of(Duration.ofNanos(delay));
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return number of hedges started
+     */
+    public long getHedgeCount() {
+        return hedgeCount.get();
+    }
+
+    /**
+     * @return number of hedges that completed before the request they duplicated
+     */
+    public long getHedgeWinCount() {
+        return hedgeWinCount.get();
+    }
+
+    /**
+     * @return number of slow requests that were not hedged because the hedge budget was exhausted
+     */
+    public long getBudgetExhaustedCount() {
+        return budgetExhaustedCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("S3RequestHedger{requests=%s, hedges=%s, hedgeWins=%s, budgetExhausted=%s, delay=%s}",
+                getRequestCount(), getHedgeCount(), getHedgeWinCount(), getBudgetExhaustedCount(),
+                getHedgeDelay().orElse(null));
+    }
+
+    /**
+     * Run the original request or the hedge, and abort the other one if this one completes first
+     */
+    private <T> void run(Request<T> request, Attempt attempt, CompletableFuture<Completion<T>> result, Attempt other,
+                         boolean hedge) {
+        long start = nanoTime.getAsLong();
+        try {
+            T value = request.call(attempt);
+            onLatency(nanoTime.getAsLong() - start);
+            if (result.complete(new Completion<>(value, hedge))) {
+                other.abort();
+            }
+        } catch (Throwable e) {
+            if (hedge) {
+                LOGGER.debug("S3 request hedge failed, waiting for original request", e);
+            } else if (result.completeExceptionally(e)) {
+                other.abort();
+            } else {
+                // the hedge won and aborted the response stream
+                LOGGER.debug("S3 request failed after its hedge completed", e);
+            }
+        }
+    }
+
+    private static IOException asIOException(Throwable e) {
+        if (e instanceof IOException) {
+            return (IOException) e;
+        } else if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        } else if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new IOException(e);
+    }
+
+    private synchronized void allowHedge() {
+        budget = Math.min(MAX_BUDGET, budget + maxHedgeRatio);
+    }
+
+    private synchronized boolean tryAcquireHedge() {
+        if (budget < 1) {
+            budgetExhaustedCount.incrementAndGet();
+            return false;
+        }
+        budget--;
+        return true;
+    }
+
+    private synchronized void onLatency(long latencyNanos) {
+        samples[(int) (sampleCount % SAMPLE_WINDOW)] = latencyNanos;
+        sampleCount++;
+        if (sampleCount >= MIN_SAMPLES && (sampleCount % DELAY_UPDATE_INTERVAL == 0 || delayNanos < 0)) {
+            long[] window = Arrays.copyOf(samples, (int) Math.min(sampleCount, SAMPLE_WINDOW));
+            Arrays.sort(window);
+            int index = Math.min(window.length - 1, (int) Math.ceil(percentile * window.length) - 1);
+            delayNanos = Math.max(minDelayNanos, window[index]);
+        }
+    }
+
+    /**
+     * A request that can be hedged
+     */
+    @FunctionalInterface
+    public interface Request<T> {
+        /**
+         * @param onResponse accepts the content stream of the S3 object being read, if any, so that it can be
+         *                   aborted when the other request wins
+         */
+        T call(Consumer<S3ObjectInputStream> onResponse) throws Exception;
+    }
+
+    /**
+     * Response stream of the original request or the hedge, aborted once the other one wins
+     */
+    private static final class Attempt implements Consumer<S3ObjectInputStream> {
+        private S3ObjectInputStream stream;
+        private boolean aborted;
+
+        @Override
+        public void accept(S3ObjectInputStream stream) {
+            synchronized (this) {
+                if (!aborted) {
+                    this.stream = stream;
+                    return;
+                }
+            }
+            stream.abort();
+        }
+
+        void abort() {
+            S3ObjectInputStream current;
+            synchronized (this) {
+                aborted = true;
+                current = stream;
+                stream = null;
+            }
+            if (current != null) {
+                current.abort();
+            }
+        }
+    }
+
+    /**
+     * Result of the first request to complete, and whether it was the hedge
+     */
+    private static final class Completion<T> {
+        final T value;
+        final boolean hedge;
+
+        Completion(T value, boolean hedge) {
+            this.value = value;
+            this.hedge = hedge;
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Optional properties that run S3 requests through an {@link AdaptiveConcurrencyLimiter}.
+ */
+@Lazy
+@Component
+public class S3RequestLimitProperties {
+
+    private static final String ENABLED = S3ConfigurationProperties.S3_PROPERTY_BASE + ".request-limit.enabled";
+    private static final String INITIAL = S3ConfigurationProperties.S3_PROPERTY_BASE + ".request-limit.initial";
+    private static final String MIN = S3ConfigurationProperties.S3_PROPERTY_BASE + ".request-limit.min";
+    private static final String MAX = S3ConfigurationProperties.S3_PROPERTY_BASE + ".request-limit.max";
+    private static final String MAX_WAIT = S3ConfigurationProperties.S3_PROPERTY_BASE + ".request-limit.max-wait";
+
+    private final boolean enabled;
+    private final int initial;
+    private final int min;
+    private final int max;
+    private final Duration maxWait;
+
+    /**
+     * @param enabled whether S3 requests are limited
+     * @param initial concurrent request limit before the limiter has adapted
+     * @param min     lower bound of the limit
+     * @param max     upper bound of the limit
+     * @param maxWait ISO-8601 maximum time a request waits for the limiter before it is rejected
+     */
+    public S3RequestLimitProperties(
+            @Value("${" + ENABLED + ":false}") boolean enabled,
+            @Value("${" + INITIAL + ":" + AdaptiveConcurrencyLimiter.DEFAULT_INITIAL_LIMIT + "}") int initial,
+            @Value("${" + MIN + ":" + AdaptiveConcurrencyLimiter.DEFAULT_MIN_LIMIT + "}") int min,
+            @Value("${" + MAX + ":" + AdaptiveConcurrencyLimiter.DEFAULT_MAX_LIMIT + "}") int max,
+            @Value("${" + MAX_WAIT + ":#{null}}") String maxWait) {
+        if (min < 1) {
+            String msg = String.format("Invalid property '%s=%s'. Must be at least 1.", MIN, min);
+            throw new IllegalArgumentException(msg);
+        }
+        if (max < min) {
+            String msg = String.format("Invalid property '%s=%s'. Must be at least %s.", MAX, max, min);
+            throw new IllegalArgumentException(msg);
+        }
+        if (initial < min || initial > max) {
+            String msg = String.format("Invalid property '%s=%s'. Must be between %s and %s.", INITIAL, initial, min, max);
+            throw new IllegalArgumentException(msg);
+        }
+        this.enabled = enabled;
+        this.initial = initial;
+        this.min = min;
+        this.max = max;
+        this.maxWait = S3ItemStoreProperties.parseDuration(MAX_WAIT, maxWait, AdaptiveConcurrencyLimiter.DEFAULT_MAX_WAIT);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getInitial() {
+        return initial;
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    public Duration getMaxWait() {
+        return maxWait;
+    }
+
+    /**
+     * Apply these properties to a client configuration.
+     */
+    ConfigStoreClientS3Configuration applyTo(ConfigStoreClientS3Configuration configuration) {
+        configuration.setRequestLimitEnabled(enabled);
+        configuration.setRequestLimitInitial(initial);
+        configuration.setRequestLimitMin(min);
+        configuration.setRequestLimitMax(max);
+        configuration.setRequestLimitMaxWait(maxWait);
+        return configuration;
+    }
+
+}
@@ -0,0 +1,160 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.metrics.RequestMetricCollector;
+import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.util.AWSRequestMetrics;
+import com.amazonaws.util.TimingInfo;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects request counts, error counts, latencies and response sizes per S3 operation (LIST, GET, HEAD) from
+ * the SDK client it is registered with. For GET, latency is the time until the response headers are received and
+ * size is the declared content length, since the body is read after the SDK reports the request as complete.
+ */
+public class S3RequestMetrics extends RequestMetricCollector {
+
+    public static final String LIST = "LIST";
+    public static final String GET = "GET";
+    public static final String HEAD = "HEAD";
+
+    private final Map<String, OperationStats> operations = new ConcurrentHashMap<>();
+
+    @Override
+    public void collectMetrics(Request<?> request, Response<?> response) {
+        String operation = getOperation(request);
+        OperationStats stats = operations.computeIfAbsent(operation, op -> new OperationStats());
+        stats.count.increment();
+        if (response == null) {
+            stats.errorCount.increment();
+        }
+        AWSRequestMetrics requestMetrics = request.getAWSRequestMetrics();
+        TimingInfo timingInfo = requestMetrics != null ? requestMetrics.getTimingInfo() : null;
+        Double latencyMillis = timingInfo != null ? timingInfo.getTimeTakenMillisIfKnown() : null;
+        if (latencyMillis != null) {
+            long latency = Math.round(latencyMillis);
+            stats.totalLatencyMillis.add(latency);
+            stats.maxLatencyMillis.accumulate(latency);
+        }
+        if (response != null && response.getHttpResponse() != null && !HEAD.equals(operation)) {
+            String contentLength = response.getHttpResponse().getHeader("Content-Length");
+            if (contentLength != null) {
+                try {
+                    stats.bytes.add(Long.parseLong(contentLength));
+                } catch (NumberFormatException e) {
+                    // size is best effort
+                }
+            }
+        }
+    }
+
+    /**
+     * @return a snapshot of the metrics of an operation, e.g. {@link #GET}, if any requests were made
+     */
+    public Optional<Snapshot> getSnapshot(String operation) {
+        return Optional.ofNullable(operations.get(operation)).map(OperationStats::snapshot);
+    }
+
+    /**
+     * @return snapshots of all operations with requests, by operation name
+     */
+    public Map<String, Snapshot> getSnapshots() {
+        Map<String, Snapshot> result = new TreeMap<>();
+        operations.forEach((operation, stats) -> result.put(operation, stats.snapshot()));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "S3RequestMetrics" + getSnapshots();
+    }
+
+    static String getOperation(Request<?> request) {
+        Object original = request.getOriginalRequest();
+        if (original instanceof ListObjectsRequest || original instanceof ListObjectsV2Request) {
+            return LIST;
+        } else if (original instanceof GetObjectMetadataRequest) {
+            return HEAD;
+        } else if (original instanceof GetObjectRequest) {
+            return GET;
+        } else {
+            return request.getHttpMethod().name();
+        }
+    }
+
+    private static class OperationStats {
+        final LongAdder count = new LongAdder();
+        final LongAdder errorCount = new LongAdder();
+        final LongAdder totalLatencyMillis = new LongAdder();
+        final LongAccumulator maxLatencyMillis = new LongAccumulator(Math::max, 0);
+        final LongAdder bytes = new LongAdder();
+
+        Snapshot snapshot() {
+            return new Snapshot(count.sum(), errorCount.sum(), totalLatencyMillis.sum(), maxLatencyMillis.get(),
+                    bytes.sum());
+        }
+    }
+
+    public static final class Snapshot {
+        private final long count;
+        private final long errorCount;
+        private final long totalLatencyMillis;
+        private final long maxLatencyMillis;
+        private final long bytes;
+
+        Snapshot(long count, long errorCount, long totalLatencyMillis, long maxLatencyMillis, long bytes) {
+            this.count = count;
+            this.errorCount = errorCount;
+            this.totalLatencyMillis = totalLatencyMillis;
+            this.maxLatencyMillis = maxLatencyMillis;
+            this.bytes = bytes;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return number of requests that failed after any retries made by the SDK
+         */
+        public long getErrorCount() {
+            return errorCount;
+        }
+
+        public long getTotalLatencyMillis() {
+            return totalLatencyMillis;
+        }
+
+        public double getMeanLatencyMillis() {
+            return count == 0 ? 0 : (double) totalLatencyMillis / count;
+        }
+
+        public long getMaxLatencyMillis() {
+            return maxLatencyMillis;
+        }
+
+        /**
+         * @return total response size in bytes, not reported for HEAD requests
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("{count=%s, errors=%s, meanLatencyMillis=%.1f, maxLatencyMillis=%s, bytes=%s}",
+                    count, errorCount, getMeanLatencyMillis(), maxLatencyMillis, bytes);
+        }
+    }
+
+}
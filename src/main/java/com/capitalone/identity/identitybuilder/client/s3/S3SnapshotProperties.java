@@ -0,0 +1,56 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.capitalone.identity.identitybuilder.client.archive.ArchiveItemStore;
+import com.capitalone.identity.identitybuilder.client.archive.SnapshotItemStore;
+import org.apache.logging.log4j.util.Strings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Optional properties that load entities from a snapshot archive at startup before switching to the bucket, see
+ * {@link SnapshotItemStore}.
+ */
+@Lazy
+@Component
+public class S3SnapshotProperties {
+
+    private static final String ARCHIVE = S3ConfigurationProperties.S3_PROPERTY_BASE + ".snapshot.archive";
+
+    private final String archive;
+
+    /**
+     * @param archive file path or classpath location of a snapshot archive, blank to load from the bucket
+     */
+    public S3SnapshotProperties(@Value("${" + ARCHIVE + ":}") String archive) {
+        this.archive = Strings.isBlank(archive) ? null : archive;
+    }
+
+    /**
+     * @return location of the snapshot archive, or null when entities are loaded from the bucket
+     */
+    public String getArchive() {
+        return archive;
+    }
+
+    /**
+     * @return the snapshot archive
+     * @throws IllegalArgumentException if the archive can't be opened
+     */
+    ArchiveItemStore openArchive() {
+        try {
+            return ArchiveItemStore.open(archive);
+        } catch (IllegalArgumentException e) {
+            String msg = String.format("Invalid property '%s=%s'. Must be a file or classpath resource.",
+                    ARCHIVE, archive);
+            throw new IllegalArgumentException(msg, e);
+        } catch (IOException e) {
+            String msg = String.format("Invalid property '%s=%s'. Not a readable zip archive.", ARCHIVE, archive);
+            throw new IllegalArgumentException(msg, new UncheckedIOException(e));
+        }
+    }
+
+}
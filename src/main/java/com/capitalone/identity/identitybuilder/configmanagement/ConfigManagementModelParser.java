@@ -179,9 +179,9 @@ public class ConfigManagementModelParser {
         Optional<String> schema = Optional.ofNullable(schemaContent);
         Map<String, String> useCases = ConfigStoreItem.getItems(items, ConfigStoreItem.Type.CONFIG_USECASE).stream()
                 .collect(Collectors.toMap(item -> {
-                    String[] split = item.getName().split(ENTITY_NAMESPACE_SEPARATOR);
+                    String[] split = item.getLogicalName().split(ENTITY_NAMESPACE_SEPARATOR);
                     return split[split.length - 1].replace(JSON_EXTENSION, Strings.EMPTY);
-                }, item -> item.content));
+                }, item -> item.getContent()));
         if(!defaults.isPresent() && useCases.isEmpty() && !schema.isPresent()) {
             return null;
         }
@@ -312,9 +312,9 @@ public class ConfigManagementModelParser {
             if (subSchemas.get(FEATURES_REQUIRED_SCHEMA_KEY) != null || !nonOverridableProperties.isEmpty()) {
                 Map<String, String> nonOverridableConfigs = nonOverridableProperties.stream()
                         .collect(Collectors.toMap(item -> {
-                    String[] split = item.getName().split(ENTITY_NAMESPACE_SEPARATOR);
+                    String[] split = item.getLogicalName().split(ENTITY_NAMESPACE_SEPARATOR);
                     return split[split.length - 1].replace(JSON_EXTENSION, Strings.EMPTY);
-                }, item -> item.content));
+                }, item -> item.getContent()));
                 //Get the features schema to validate
                 String nonOverridableString = OBJECT_MAPPER.writeValueAsString(subSchemas.get(FEATURES_REQUIRED_SCHEMA_KEY));
                 JsonSchema nonOverridableSchema = SCHEMA_FACTORY.getSchema(nonOverridableString);
@@ -1,10 +1,22 @@
 package com.capitalone.identity.identitybuilder.model;
 
 
+import com.capitalone.identity.identitybuilder.util.CompressionUtils;
 import com.capitalone.identity.identitybuilder.util.StringUtils;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -13,6 +25,10 @@ import java.util.stream.Collectors;
 
 public final class ConfigStoreItem {
 
+    /*
+     * Patterns of each type, tried in the order of getTypeFromPath; ItemTypeClassifier matches all of them in a
+     * single pass and these remain the reference it is tested against
+     */
     static Pattern dmnPattern = Pattern.compile(".*/\\d+\\.\\d+(?:|/\\d+)/rules/*.*\\.dmn");
     static Pattern processPattern = Pattern.compile(".*/\\d+\\.\\d+(?:|/\\d+)/process/*.*\\.xml");
     static Pattern libraryPattern = Pattern.compile(".*/routes/*.*\\.xml");
@@ -24,53 +40,71 @@ public final class ConfigStoreItem {
     static Pattern policyStatusPattern = Pattern.compile(".*/metadata\\.json");
     static Pattern policyStatusSparsePattern = Pattern.compile(".*/\\d+\\.\\d+(?:|/\\d+)/policy-metadata\\.json");
 
+    /**
+     * Prefer {@link ConfigStoreItemInfo#getType()}, which classifies the name only once.
+     */
     @NonNull
     public static Type getTypeFromPath(@Nullable String path) {
         if (path == null) {
             return Type.UNRECOGNIZED;
-        } else if (dmnPattern.matcher(path).matches()) {
-            return Type.RULES;
-        } else if (libraryPattern.matcher(path).matches()) {
-            return Type.LIBRARY;
-        } else if (processPattern.matcher(path).matches()) {
-            return Type.PROCESS;
-        } else if (policyStatusPattern.matcher(path).matches()) {
-            return Type.POLICY_STATUS;
-        } else if (policyStatusSparsePattern.matcher(path).matches()) {
-            return Type.POLICY_STATUS_SPARSE;
-        } else if (!configUseCaseAllowedPattern.matcher(path).matches()
-                && configUsecasePattern.matcher(path).matches()) {
-            return Type.CONFIG_USECASE;
-        } else if (configDefaultPattern.matcher(path).matches()) {
-            return Type.CONFIG_DEFAULT;
-        } else if (configSchemaPattern.matcher(path).matches()) {
-            return Type.CONFIG_SCHEMA;
-        } else if (configFeaturesPattern.matcher(path).matches()) {
-            return Type.CONFIG_FEATURES;
-        }else {
-            return Type.UNRECOGNIZED;
         }
+        return ItemTypeClassifier.classify(CompressionUtils.stripCompressionSuffix(path));
     }
 
     @NonNull
     public static Optional<ConfigStoreItem> getItem(@NonNull Set<ConfigStoreItem> items, @NonNull Type type) {
-        return items.stream().filter(item -> ConfigStoreItem.getTypeFromPath(item.info.getName()) == type).findAny();
+        return items.stream().filter(item -> item.getType() == type).findAny();
     }
 
     @NonNull
     public static Set<ConfigStoreItem> getItems(@NonNull Set<ConfigStoreItem> items, @NonNull Type type) {
-        return items.stream().filter(item -> ConfigStoreItem.getTypeFromPath(item.info.getName()) == type).collect(Collectors.toSet());
+        return items.stream().filter(item -> item.getType() == type).collect(Collectors.toSet());
     }
 
+    /**
+     * @return unmodifiable sets of the items of each type, with an empty set for types without items
+     */
     @NonNull
-    public final String content;
+    public static Map<Type, Set<ConfigStoreItem>> partitionByType(@NonNull Set<ConfigStoreItem> items) {
+        Map<Type, Set<ConfigStoreItem>> partition = new EnumMap<>(Type.class);
+        for (Type type : Type.values()) {
+            partition.put(type, new HashSet<>());
+        }
+        for (ConfigStoreItem item : items) {
+            partition.get(item.getType()).add(item);
+        }
+        partition.replaceAll((type, typeItems) -> Collections.unmodifiableSet(typeItems));
+        return Collections.unmodifiableMap(partition);
+    }
 
     @NonNull
     public final ConfigStoreItemInfo info;
 
+    /**
+     * Raw UTF-8 content, never exposed directly so the item stays immutable
+     */
+    private final byte[] content;
+
+    /**
+     * SHA-256 of {@link #content}; lets equality be decided without comparing the content itself
+     */
+    private final byte[] contentDigest;
+    private final int hashCode;
+
+    /**
+     * Decoded content, kept only while memory allows and re-decoded on demand
+     */
+    private volatile SoftReference<String> decodedContent;
+
     public ConfigStoreItem(@NonNull ConfigStoreItemInfo info, String content) {
-        this.info = Objects.requireNonNull(info);
-        this.content = Objects.requireNonNull(content);
+        this(info, Objects.requireNonNull(content).getBytes(StandardCharsets.UTF_8), content);
+    }
+
+    /**
+     * @param content UTF-8 encoded content, copied by this constructor
+     */
+    public ConfigStoreItem(@NonNull ConfigStoreItemInfo info, byte[] content) {
+        this(info, Objects.requireNonNull(content).clone(), null);
     }
 
     public ConfigStoreItem(@NonNull String name, String content) {
@@ -78,16 +112,66 @@ public final class ConfigStoreItem {
     }
 
     public ConfigStoreItem(@NonNull String name, @NonNull String content, @NonNull String contentTag) {
-        this.info = new ConfigStoreItemInfo(Objects.requireNonNull(name), Objects.requireNonNull(contentTag));
-        this.content = Objects.requireNonNull(content);
+        this(new ConfigStoreItemInfo(Objects.requireNonNull(name), Objects.requireNonNull(contentTag)), content);
+    }
+
+    private ConfigStoreItem(@NonNull ConfigStoreItemInfo info, @NonNull byte[] content, @Nullable String decoded) {
+        this.info = Objects.requireNonNull(info);
+        this.content = content;
+        this.contentDigest = digest(content);
+        this.hashCode = 31 * info.hashCode() + Arrays.hashCode(contentDigest);
+        this.decodedContent = decoded != null ? new SoftReference<>(decoded) : null;
     }
 
     public String getName() {
         return info.getName();
     }
 
+    /**
+     * @see ConfigStoreItemInfo#getLogicalName()
+     */
+    public String getLogicalName() {
+        return info.getLogicalName();
+    }
+
+    @NonNull
+    public Type getType() {
+        return info.getType();
+    }
+
+    /**
+     * @return content decoded as UTF-8; decoding happens on first access and again only if the decoded value
+     * was reclaimed by the garbage collector
+     */
+    @NonNull
     public String getContent() {
-        return content;
+        SoftReference<String> reference = decodedContent;
+        String result = reference != null ? reference.get() : null;
+        if (result == null) {
+            result = new String(content, StandardCharsets.UTF_8);
+            decodedContent = new SoftReference<>(result);
+        }
+        return result;
+    }
+
+    /**
+     * @return a copy of the raw UTF-8 content
+     */
+    @NonNull
+    public byte[] getContentBytes() {
+        return content.clone();
+    }
+
+    /**
+     * @return a new stream over the raw UTF-8 content, read without copying or decoding it
+     */
+    @NonNull
+    public InputStream getContentStream() {
+        return new ByteArrayInputStream(content);
+    }
+
+    public int getContentLength() {
+        return content.length;
     }
 
     @Override
@@ -95,13 +179,22 @@ public final class ConfigStoreItem {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ConfigStoreItem that = (ConfigStoreItem) o;
-        return content.equals(that.content) &&
-                info.equals(that.info);
+        return hashCode == that.hashCode
+                && MessageDigest.isEqual(contentDigest, that.contentDigest)
+                && info.equals(that.info);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(content, info);
+        return hashCode;
+    }
+
+    private static byte[] digest(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     public enum Type {
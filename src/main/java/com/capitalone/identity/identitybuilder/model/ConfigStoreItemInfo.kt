@@ -1,5 +1,6 @@
 package com.capitalone.identity.identitybuilder.model
 
+import com.capitalone.identity.identitybuilder.util.CompressionUtils
 import com.capitalone.identity.identitybuilder.util.StringUtils
 
 /**
@@ -9,4 +10,21 @@ data class ConfigStoreItemInfo(val name: String, val tag: String) {
     init {
         StringUtils.requireNotNullOrBlank(name)
     }
+
+    /**
+     * Type classified from the name on first access; racing threads compute the same value, so no locking is needed.
+     * Not part of equality, which only depends on name and tag.
+     */
+    @Transient
+    private var cachedType: ConfigStoreItem.Type? = null
+
+    val type: ConfigStoreItem.Type
+        get() = cachedType ?: ConfigStoreItem.getTypeFromPath(name).also { cachedType = it }
+
+    /**
+     * Name without compression suffix, which entities and configuration keys are derived from, so that a compressed
+     * item stands for the same entity as an uncompressed one. See [CompressionUtils.stripCompressionSuffix].
+     */
+    val logicalName: String
+        get() = CompressionUtils.stripCompressionSuffix(name)
 }
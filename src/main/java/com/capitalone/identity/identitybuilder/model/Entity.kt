@@ -8,6 +8,7 @@ import com.capitalone.identity.identitybuilder.model.abac.StoredPolicyAccessPars
 import com.capitalone.identity.identitybuilder.model.parsing.PolicyManifestJsonFileParser
 import com.capitalone.identity.identitybuilder.model.parsing.PolicyManifestParser.ManifestProcessingException
 import com.capitalone.identity.identitybuilder.model.parsing.PolicyMetadata
+import java.io.InputStream
 import java.util.*
 
 
@@ -16,6 +17,12 @@ abstract class Entity : Versionable {
     abstract val info: EntityInfo
     abstract val items: Set<ConfigStoreItem>
 
+    /**
+     * Opens a new stream over the content of each item, keyed by item name, so consumers can parse items
+     * incrementally without decoding them to strings. The caller must close the streams.
+     */
+    fun getItemStreams(): Map<String, InputStream> = items.associate { it.name to it.contentStream }
+
     override fun getId(): String = info.id
     override fun getVersion(): String = info.version
     override fun getIdPrefix(): String = info.idPrefix
@@ -34,20 +41,30 @@ abstract class Entity : Versionable {
         constructor(info: EntityInfo.Policy, items: Set<ConfigStoreItem>, entityActivationStatus: EntityActivationStatus)
                 : this(info, items, PolicyMetadata(entityActivationStatus))
 
+        /**
+         * Items of each type, partitioned once so the accessors below are lookups
+         */
+        private val itemsByType: Map<Type, Set<ConfigStoreItem>> = partitionByType(items)
+
         val configManagementModel: Optional<ConfigManagementModel> by lazy {
             getConfigManagementModelForEnv(null)
         }
 
         fun getConfigManagementModelForEnv(env: String?) :Optional<ConfigManagementModel> {
-            val defaults: String? = getItem(items, Type.CONFIG_DEFAULT).map { it.content }.orElse(null)
-            val schema: String? = getItem(items, Type.CONFIG_SCHEMA).map { it.content }.orElse(null)
-            val useCases: Set<ConfigStoreItem> = getItems(items, Type.CONFIG_USECASE)
-            val features: Set<ConfigStoreItem> = getItems(items, Type.CONFIG_FEATURES)
+            val defaults: String? = getItemOfType(Type.CONFIG_DEFAULT)?.content
+            val schema: String? = getItemOfType(Type.CONFIG_SCHEMA)?.content
+            val useCases: Set<ConfigStoreItem> = getItemsOfType(Type.CONFIG_USECASE)
+            val features: Set<ConfigStoreItem> = getItemsOfType(Type.CONFIG_FEATURES)
             return Optional.ofNullable(ConfigManagementModelParser.parse(info.locationPrefix, defaults, schema, useCases, features, env))
         }
 
-        val processItems: Set<ConfigStoreItem> get() = getItems(items, Type.PROCESS)
-        val ruleItems: Set<ConfigStoreItem> get() = getItems(items, Type.RULES)
+        val processItems: Set<ConfigStoreItem> get() = getItemsOfType(Type.PROCESS)
+        val ruleItems: Set<ConfigStoreItem> get() = getItemsOfType(Type.RULES)
+
+        fun getItemsOfType(type: Type): Set<ConfigStoreItem> = itemsByType.getValue(type)
+
+        private fun getItemOfType(type: Type): ConfigStoreItem? = getItemsOfType(type).firstOrNull()
+
         val entityActivationStatus: EntityActivationStatus by lazy { policyMetadata.status }
         val compileVersion: Int by lazy { policyMetadata.compileVersion }
 
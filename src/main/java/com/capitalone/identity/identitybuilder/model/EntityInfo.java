@@ -252,7 +252,7 @@ public abstract class EntityInfo implements Versionable, LogicalVersion {
         private final int policyMajorVersion;
 
         private static boolean recognizedItem(ConfigStoreItemInfo item) {
-            return !ConfigStoreItem.Type.UNRECOGNIZED.equals(ConfigStoreItem.getTypeFromPath(item.getName()));
+            return item.getType() != ConfigStoreItem.Type.UNRECOGNIZED;
         }
 
         private final Set<String> filteredItemNames;
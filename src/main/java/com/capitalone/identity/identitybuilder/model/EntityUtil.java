@@ -2,13 +2,14 @@ package com.capitalone.identity.identitybuilder.model;
 
 
 import org.reactivestreams.Publisher;
+import org.springframework.lang.Nullable;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -34,30 +35,89 @@ public class EntityUtil {
      */
     public static <T extends Versionable> Function<Flux<ScanRequest>, Publisher<SnapshotHolder<T>>> streamOfSnapshots(
             List<T> startItems, Supplier<Flux<T>> snapshotItemsProvider) {
-        return sourceFlux -> sourceFlux
-                .scan(new SnapshotHolder<>(startItems), (prevSnapshotHolder, sourceItem) -> {
-                    final Flux<T> startStream = Flux.fromIterable(prevSnapshotHolder.getItems());
-                    if (Schedulers.isInNonBlockingThread()) {
-                        final String msg = "Blocking operations are not allowed on this thread. Please publish events" +
-                                "from a non-blocking scheduler such as Schedulers.boundedElastic()";
-                        throw new IllegalStateException(msg);
-                    }
-                    //Suppression Note: see non-blocking thread check above
-                    //noinspection BlockingMethodInNonBlockingContext
-                    final List<T> endItems = snapshotItemsProvider.get()
-                            .collectList()
-                            .block();
-
-                    final Flux<T> endStream = Flux.fromIterable(Objects.requireNonNull(endItems));
-
-                    //Suppression Note: collectList never emits null
-                    //noinspection BlockingMethodInNonBlockingContext,ReactiveStreamsNullableInLambdaInTransform
-                    return getDeltaStream(startStream, endStream)
-                            .collectList()
-                            .map(changes -> new SnapshotHolder<>(endItems, changes, sourceItem))
-                            .block();
-                })
-                .filter(state -> state.getSourceItem() != null); // skips first emission, which is the start state
+        return streamOfSnapshots(startItems, snapshotItemsProvider, null);
+    }
+
+    /**
+     * Same as {@link #streamOfSnapshots(List, Supplier)}, except that a {@link ScanRequest#isPartial() partial}
+     * scan request only rescans the items affected by {@link ScanRequest#getChangedKeys()}. Unaffected items are
+     * carried over from the previous snapshot unchanged.
+     *
+     * @param partialSnapshotProvider resolves changed keys to affected items. When null, every scan request is
+     *                                treated as a full scan.
+     */
+    public static <T extends Versionable> Function<Flux<ScanRequest>, Publisher<SnapshotHolder<T>>> streamOfSnapshots(
+            List<T> startItems, Supplier<Flux<T>> snapshotItemsProvider,
+            @Nullable PartialSnapshotProvider<T> partialSnapshotProvider) {
+        return streamOfSnapshots(startItems, snapshotItemsProvider, partialSnapshotProvider, null);
+    }
+
+    /**
+     * Same as {@link #streamOfSnapshots(List, Supplier, PartialSnapshotProvider)}, with the scheduler that each scan
+     * subscribes to the providers on.
+     * <p/>
+     * Scans never block: each scan request is mapped to a snapshot with {@link Flux#concatMap(Function)}, so scans
+     * run one at a time and in order, each starting from the snapshot of the previous one, and a scan only occupies
+     * a thread while a provider emits. Providers that block, e.g. stores that list with a blocking client, need a
+     * scheduler that allows blocking, which is {@link Schedulers#boundedElastic()} by default. Providers that are
+     * asynchronous end to end can use {@link Schedulers#immediate()} to run scans on the threads they emit on.
+     *
+     * @param scanScheduler scheduler to subscribe to the providers on, or null for
+     *                      {@link Schedulers#boundedElastic()}
+     */
+    public static <T extends Versionable> Function<Flux<ScanRequest>, Publisher<SnapshotHolder<T>>> streamOfSnapshots(
+            List<T> startItems, Supplier<Flux<T>> snapshotItemsProvider,
+            @Nullable PartialSnapshotProvider<T> partialSnapshotProvider, @Nullable Scheduler scanScheduler) {
+        return sourceFlux -> Flux.defer(() -> {
+            final Scheduler scheduler = scanScheduler != null ? scanScheduler : Schedulers.boundedElastic();
+            // the previous snapshot of this subscription; scans are sequential, so only one scan accesses it at a time
+            final AtomicReference<SnapshotHolder<T>> previous = new AtomicReference<>(new SnapshotHolder<>(startItems));
+            return sourceFlux.concatMap(sourceItem -> Mono.defer(() -> {
+                                final SnapshotHolder<T> prevSnapshotHolder = previous.get();
+                                if (partialSnapshotProvider != null && sourceItem.isPartial()) {
+                                    return getPartialSnapshot(prevSnapshotHolder, sourceItem, partialSnapshotProvider);
+                                }
+                                return getFullSnapshot(prevSnapshotHolder, sourceItem, snapshotItemsProvider);
+                            })
+                            .subscribeOn(scheduler)
+                            .doOnNext(previous::set),
+                    1);
+        });
+    }
+
+    private static <T extends Versionable> Mono<SnapshotHolder<T>> getFullSnapshot(
+            SnapshotHolder<T> prevSnapshotHolder, ScanRequest sourceItem, Supplier<Flux<T>> snapshotItemsProvider) {
+        return snapshotItemsProvider.get()
+                .collectList()
+                .flatMap(endItems -> getDeltaStream(Flux.fromIterable(prevSnapshotHolder.getItems()),
+                        Flux.fromIterable(endItems))
+                        .collectList()
+                        .map(changes -> new SnapshotHolder<>(endItems, changes, sourceItem)));
+    }
+
+    private static <T extends Versionable> Mono<SnapshotHolder<T>> getPartialSnapshot(
+            SnapshotHolder<T> prevSnapshotHolder, ScanRequest sourceItem, PartialSnapshotProvider<T> provider) {
+
+        final Set<String> affectedRoots = provider.getAffectedRoots(Objects.requireNonNull(sourceItem.getChangedKeys()));
+
+        final List<T> startItems = new ArrayList<>();
+        final List<T> unaffectedItems = new ArrayList<>();
+        for (T item : prevSnapshotHolder.getItems()) {
+            (affectedRoots.contains(getRootPrefix(item)) ? startItems : unaffectedItems).add(item);
+        }
+
+        return Flux.fromIterable(new TreeSet<>(affectedRoots))
+                .concatMap(root -> provider.getCurrentItems(root)
+                        .filter(item -> root.equals(getRootPrefix(item))))
+                .collectList()
+                .flatMap(endItems -> getDeltaStream(Flux.fromIterable(startItems), Flux.fromIterable(endItems))
+                        .collectList()
+                        .map(changes -> {
+                            final List<T> nextState = new ArrayList<>(unaffectedItems);
+                            nextState.addAll(endItems);
+                            nextState.sort(Comparator.comparing(EntityUtil::getRootPrefix));
+                            return new SnapshotHolder<>(nextState, changes, sourceItem);
+                        }));
     }
 
     /**
@@ -90,7 +150,8 @@ public class EntityUtil {
                     } else {
                         T v1 = deltas.get(0).getEntityInfo();
                         T v2 = deltas.get(1).getEntityInfo();
-                        if (!v1.getVersion().equals(v2.getVersion())) {
+                        // providers may return the same instance for an unchanged item
+                        if (v1 != v2 && !v1.getVersion().equals(v2.getVersion())) {
                             return Flux.just(EntityState.Delta.update(v2));
                         } else {
                             return Flux.empty();
@@ -105,7 +166,15 @@ public class EntityUtil {
      * @return {@link String} concatenation of the {@link Versionable} object's id prefix and id from {@code delta}.
      */
     private static String getRootPrefixFromDelta(EntityState.Delta<?> delta) {
-        return delta.getEntityInfo().getIdPrefix() + delta.getEntityInfo().getId();
+        return getRootPrefix(delta.getEntityInfo());
+    }
+
+    /**
+     * @return {@link String} concatenation of the {@link Versionable} object's id prefix and id, which identifies
+     * the object within a snapshot and determines its order.
+     */
+    public static String getRootPrefix(Versionable item) {
+        return item.getIdPrefix() + item.getId();
     }
 
     private static <T extends Versionable> EntityState.Delta<T> enforceOrderedByLocation(
@@ -121,6 +190,22 @@ public class EntityUtil {
     }
 
 
+    /**
+     * Resolves changed object keys of a partial {@link ScanRequest} to the {@link Versionable} objects they affect.
+     */
+    public interface PartialSnapshotProvider<T extends Versionable> {
+
+        /**
+         * @return root prefixes (see {@link #getRootPrefix(Versionable)}) of all objects that contain any of the keys
+         */
+        Set<String> getAffectedRoots(Set<String> changedKeys);
+
+        /**
+         * @return current objects stored under the root prefix. Objects with a different root prefix are ignored.
+         */
+        Flux<T> getCurrentItems(String rootPrefix);
+    }
+
     public static class SnapshotHolder<T extends Versionable> {
 
         private final List<T> state = new ArrayList<>();
@@ -0,0 +1,221 @@
+package com.capitalone.identity.identitybuilder.model;
+
+import com.capitalone.identity.identitybuilder.model.ConfigStoreItem.Type;
+
+import java.util.Arrays;
+
+/**
+ * Determines the {@link Type} of an item name in a single pass over its '/'-separated segments, with the same
+ * result as trying the type patterns of {@link ConfigStoreItem} in order.
+ * <p>
+ * Every pattern starts with {@code .*} and contains no character class that matches a line terminator, so a name
+ * with a line terminator is never recognized. Most patterns require a version segment {@code <major>.<minor>},
+ * optionally followed by a {@code <patch>} segment, right before a {@code rules}, {@code process} or {@code config}
+ * segment. Each type is checked with a bounded number of passes over the segments, so classifying is linear in
+ * the length of the name, where the patterns backtrack over every '/' of it.
+ */
+final class ItemTypeClassifier {
+
+    private static final String RULES = "rules";
+    private static final String PROCESS = "process";
+    private static final String ROUTES = "routes";
+    private static final String CONFIG = "config";
+    private static final String FEATURES = "features";
+    private static final String DMN = ".dmn";
+    private static final String XML = ".xml";
+    private static final String JSON = ".json";
+    private static final String METADATA = "/metadata.json";
+    private static final String POLICY_METADATA = "policy-metadata.json";
+    private static final String DEFAULTS = "defaults.json";
+    private static final String SCHEMA = "schema.json";
+
+    private final String path;
+    /**
+     * Start of each segment, followed by the length of the path plus one
+     */
+    private final int[] starts;
+    private final int segmentCount;
+
+    private ItemTypeClassifier(String path, int[] starts, int segmentCount) {
+        this.path = path;
+        this.starts = starts;
+        this.segmentCount = segmentCount;
+    }
+
+    /**
+     * @param path name without compression suffix
+     */
+    static Type classify(String path) {
+        int length = path.length();
+        int[] starts = new int[8];
+        int count = 0;
+        int start = 0;
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? path.charAt(i) : '/';
+            if (c == '/') {
+                if (count + 1 >= starts.length) {
+                    starts = Arrays.copyOf(starts, starts.length * 2);
+                }
+                starts[count++] = start;
+                start = i + 1;
+            } else if (isLineTerminator(c)) {
+                return Type.UNRECOGNIZED;
+            }
+        }
+        starts[count] = length + 1;
+        return new ItemTypeClassifier(path, starts, count).classify();
+    }
+
+    private Type classify() {
+        boolean dmn = path.endsWith(DMN);
+        boolean xml = path.endsWith(XML);
+        boolean json = path.endsWith(JSON);
+        if (dmn && hasVersionedDirectory(RULES, DMN.length())) {
+            return Type.RULES;
+        } else if (xml && hasDirectory(ROUTES, XML.length())) {
+            return Type.LIBRARY;
+        } else if (xml && hasVersionedDirectory(PROCESS, XML.length())) {
+            return Type.PROCESS;
+        } else if (path.endsWith(METADATA)) {
+            return Type.POLICY_STATUS;
+        }
+        int last = segmentCount - 1;
+        if (segmentEquals(last, POLICY_METADATA) && isVersioned(last)) {
+            return Type.POLICY_STATUS_SPARSE;
+        } else if (json && !isUseCaseAllowed() && hasVersionedDirectory(CONFIG, JSON.length())) {
+            return Type.CONFIG_USECASE;
+        } else if (isConfigItem(last, DEFAULTS)) {
+            return Type.CONFIG_DEFAULT;
+        } else if (isConfigItem(last, SCHEMA)) {
+            return Type.CONFIG_SCHEMA;
+        } else if (json && hasFeatures()) {
+            return Type.CONFIG_FEATURES;
+        } else {
+            return Type.UNRECOGNIZED;
+        }
+    }
+
+    /**
+     * @return whether a segment after the first starts with {@code directory} and leaves at least
+     * {@code suffixLength} characters after it for the file suffix, like {@code directory/*.*\.xml} in a pattern
+     */
+    private boolean hasDirectory(String directory, int suffixLength) {
+        for (int segment = 1; segment < segmentCount; segment++) {
+            if (startsWith(segment, directory, suffixLength)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Like {@link #hasDirectory(String, int)} for a segment after a version
+     */
+    private boolean hasVersionedDirectory(String directory, int suffixLength) {
+        for (int segment = 2; segment < segmentCount; segment++) {
+            if (isVersioned(segment) && startsWith(segment, directory, suffixLength)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return whether the last segment is {@code name} in a {@code config} directory after a version
+     */
+    private boolean isConfigItem(int last, String name) {
+        return last >= 3 && segmentEquals(last, name) && segmentEquals(last - 1, CONFIG) && isVersioned(last - 1);
+    }
+
+    /**
+     * Files that {@code config/*.*\.json} matches but that are not use cases, see
+     * {@link ConfigStoreItem#configUseCaseAllowedPattern}
+     */
+    private boolean isUseCaseAllowed() {
+        if (path.endsWith("/" + DEFAULTS) || path.endsWith("/" + SCHEMA)) {
+            return true;
+        }
+        int features = path.indexOf("/" + FEATURES);
+        return features >= 0 && path.length() - features - 1 - FEATURES.length() >= JSON.length();
+    }
+
+    /**
+     * @return whether a {@code config} segment after a version is followed by a segment that starts with
+     * {@code features}, then {@code .json} or {@code -<letter or '-'>...json}
+     */
+    private boolean hasFeatures() {
+        for (int segment = 2; segment + 1 < segmentCount; segment++) {
+            if (segmentEquals(segment, CONFIG) && isVersioned(segment)
+                    && path.startsWith(FEATURES, starts[segment + 1])) {
+                int rest = starts[segment + 1] + FEATURES.length();
+                int restLength = path.length() - rest;
+                if (restLength == JSON.length()) {
+                    return true;
+                }
+                if (restLength >= JSON.length() + 2 && path.charAt(rest) == '-') {
+                    char c = path.charAt(rest + 1);
+                    if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '-') {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return whether the segment follows {@code /<major>.<minor>} or {@code /<major>.<minor>/<patch>}
+     */
+    private boolean isVersioned(int segment) {
+        return (segment >= 2 && isVersion(segment - 1))
+                || (segment >= 3 && isNumber(starts[segment - 1], end(segment - 1)) && isVersion(segment - 2));
+    }
+
+    private boolean isVersion(int segment) {
+        int start = starts[segment];
+        int end = end(segment);
+        int dot = start;
+        while (dot < end && path.charAt(dot) != '.') {
+            dot++;
+        }
+        return dot < end && isNumber(start, dot) && isNumber(dot + 1, end);
+    }
+
+    private boolean isNumber(int start, int end) {
+        if (end <= start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = path.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean startsWith(int segment, String prefix, int suffixLength) {
+        int start = starts[segment];
+        return path.startsWith(prefix, start) && path.length() - start - prefix.length() >= suffixLength;
+    }
+
+    private boolean segmentEquals(int segment, String value) {
+        int start = starts[segment];
+        return end(segment) - start == value.length() && path.startsWith(value, start);
+    }
+
+    /**
+     * @return index of the '/' after the segment, or the length of the path for the last segment
+     */
+    private int end(int segment) {
+        return starts[segment + 1] - 1;
+    }
+
+    /**
+     * @return whether {@code .} does not match the character in a regex without flags
+     */
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+}
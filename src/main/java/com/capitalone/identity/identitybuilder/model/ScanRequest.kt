@@ -5,10 +5,20 @@ package com.capitalone.identity.identitybuilder.model
  */
 class ScanRequest @JvmOverloads constructor(
     val startScheduled: Long,
-    val scanType: ScanType = ScanType.POLL
+    val scanType: ScanType = ScanType.POLL,
+    /**
+     * Object keys known to have changed since the previous scan. When null, the whole store is scanned. When set,
+     * only entities that contain one of these keys are rescanned, see [EntityUtil.streamOfSnapshots].
+     */
+    val changedKeys: Set<String>? = null,
 ) {
     val startActual: Long = System.currentTimeMillis()
 
+    /**
+     * @return true when this request is limited to [changedKeys] rather than the whole store
+     */
+    val isPartial: Boolean get() = changedKeys != null
+
     enum class ScanType {
         LOAD, POLL
     }
@@ -4,7 +4,6 @@ import com.capitalone.identity.identitybuilder.model.*;
 import com.capitalone.identity.identitybuilder.model.parsing.PolicyDefinition;
 
 import java.util.*;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public abstract class CommonItemStore implements ItemStore {
@@ -14,8 +13,17 @@ public abstract class CommonItemStore implements ItemStore {
     private static final String GROUP_LABEL_POLICY_MAJOR_VERSION = "policyMajorVersion";
     private static final String GROUP_LABEL_POLICY_MINOR_VERSION = "policyMinorVersion";
     private static final String GROUP_LABEL_POLICY_PATCH_VERSION = "policyPatchVersion";
+
+    /**
+     * Patterns of the items of each entity type. Items are matched with the equivalent {@link EntityPathClassifier}
+     * instead, which avoids the backtracking of the lazy prefix, and these patterns are its reference.
+     */
+    static final Pattern ACCESS_PATTERN = Pattern.compile("^(?<locationPrefix>.*?(?<entityId>(?<policyFullName>(?:[-_a-zA-Z\\d]+/){2}(?<policyShortName>[-_a-zA-Z0-9]+))/(?<policyMajorVersion>\\d+)/access-control)/(?<versionNumber>\\d+)/policy-access\\.json)$");
+    static final Pattern POLICY_PATTERN = Pattern.compile("^(?<locationPrefix>.*?(?<entityId>(?<policyFullName>(?:[-_a-zA-Z\\d]+/){2}(?<policyShortName>[-_a-zA-Z0-9]+))/(?<policyMajorVersion>\\d+)\\.(?<policyMinorVersion>\\d+))(?:/(?<policyPatchVersion>\\d+))?)/(?:policy-metadata\\.json|process/.*|rules/.*|config/.*)$");
+    static final Pattern PIP_PATTERN = Pattern.compile("^(?<locationPrefix>.*?(?<entityId>[-_a-zA-Z\\d]+/routes/*.*\\.xml))$");
+
     private final EntityFactory accessControlEntityFactory = new EntityFactory(
-            Pattern.compile("^(?<locationPrefix>.*?(?<entityId>(?<policyFullName>(?:[-_a-zA-Z\\d]+/){2}(?<policyShortName>[-_a-zA-Z0-9]+))/(?<policyMajorVersion>\\d+)/access-control)/(?<versionNumber>\\d+)/policy-access\\.json)$"),
+            ACCESS_PATTERN, EntityPathClassifier::matchAccess,
             (entityId, entityLocationPrefix, entityVersionNumber, matcher, items) -> new EntityInfo.Access(
                     entityId,
                     entityLocationPrefix,
@@ -27,7 +35,7 @@ public abstract class CommonItemStore implements ItemStore {
             ));
 
     private final EntityFactory policyEntityFactoryVersionNumberNamespace = new EntityFactory(
-            Pattern.compile("^(?<locationPrefix>.*?(?<entityId>(?<policyFullName>(?:[-_a-zA-Z\\d]+/){2}(?<policyShortName>[-_a-zA-Z0-9]+))/(?<policyMajorVersion>\\d+)\\.(?<policyMinorVersion>\\d+))(?:/(?<policyPatchVersion>\\d+))?)/(?:policy-metadata\\.json|process/.*|rules/.*|config/.*)$"),
+            POLICY_PATTERN, EntityPathClassifier::matchPolicy,
             (entityId, entityLocationPrefix, entityVersionNumber, matcher, items) -> {
                 PolicyDefinition policy = new PolicyDefinition(
                         entityLocationPrefix,
@@ -43,7 +51,7 @@ public abstract class CommonItemStore implements ItemStore {
             });
 
     private final EntityFactory pipEntityFactory = new EntityFactory(
-            Pattern.compile("^(?<locationPrefix>.*?(?<entityId>[-_a-zA-Z\\d]+/routes/*.*\\.xml))$"),
+            PIP_PATTERN, EntityPathClassifier::matchPip,
             (entityId, entityLocationPrefix, entityVersionNumber, matcher, items) -> new EntityInfo.Pip(
                     entityId, entityLocationPrefix, items
             ));
@@ -65,7 +73,7 @@ public abstract class CommonItemStore implements ItemStore {
         EntityInfo getInfo(String entityId,
                            String entityLocationPrefix,
                            int entityVersionNumber,
-                           Matcher matcher,
+                           EntityPathMatch matcher,
                            Set<ConfigStoreItemInfo> items);
     }
 }
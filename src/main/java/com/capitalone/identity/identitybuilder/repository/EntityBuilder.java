@@ -6,7 +6,6 @@ import com.capitalone.identity.identitybuilder.model.EntityInfo;
 
 import java.util.HashSet;
 import java.util.Set;
-import java.util.regex.Matcher;
 
 /**
  * Allows for construction of an immutable {@link EntityInfo} object during a scan operation.
@@ -18,11 +17,12 @@ class EntityBuilder {
     final String id;
     final String locationPrefix;
     final int versionNumber;
-    final Matcher objectMatcher;
+    final EntityPathMatch objectMatcher;
     final CommonItemStore.EntityFunction generator;
     final Set<ConfigStoreItemInfo> items = new HashSet<>();
+    private long itemDigest;
 
-    EntityBuilder(String id, String prefix, int versionNumber, Matcher objectMatcher,
+    EntityBuilder(String id, String prefix, int versionNumber, EntityPathMatch objectMatcher,
                   CommonItemStore.EntityFunction generator) {
         this.id = id;
         this.locationPrefix = prefix;
@@ -34,14 +34,17 @@ class EntityBuilder {
     /**
      * Adds a {@link ConfigStoreItem} to the set of individual items that define this entity. This operation
      * is conditional and depends on whether the provided item should be classified as part of the entity based
-     * on item name and location prefix of the entity.
+     * on item name and location prefix of the entity. Compressed items are classified by their logical name.
      *
      * @param item the item to add
      * @return true if the item is classified as part of the entity, false if the item does not belong to this entity
      */
     boolean addItem(ConfigStoreItemInfo item) {
-        if (item.getName().equals(locationPrefix) || item.getName().startsWith(locationPrefix + "/")) {
-            items.add(item);
+        String name = item.getLogicalName();
+        if (name.equals(locationPrefix) || name.startsWith(locationPrefix + "/")) {
+            if (items.add(item)) {
+                itemDigest += digest(item);
+            }
             return true;
         } else {
             return false;
@@ -51,4 +54,19 @@ class EntityBuilder {
     EntityInfo build() {
         return generator.getInfo(id, locationPrefix, versionNumber, objectMatcher, items);
     }
+
+    /**
+     * @return digest of the names and tags of the items added so far, independent of the order they were added in
+     */
+    long getItemDigest() {
+        return itemDigest;
+    }
+
+    private static long digest(ConfigStoreItemInfo item) {
+        long hash = ((long) item.getName().hashCode() << 32) | (item.getTag().hashCode() & 0xffffffffL);
+        // SplitMix64 finalizer, so that changes of similar items don't cancel out in the sum
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
 }
@@ -1,6 +1,9 @@
 package com.capitalone.identity.identitybuilder.repository;
 
+import com.capitalone.identity.identitybuilder.util.CompressionUtils;
+
 import java.util.Objects;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -10,23 +13,42 @@ import java.util.regex.Pattern;
  */
 final class EntityFactory {
 
-    private final Pattern objectPattern;
+    private final Function<EntityPath, EntityPathMatch> objectMatcher;
     private final CommonItemStore.EntityFunction entityGenerator;
     private final boolean doLookForVersion;
 
     public EntityFactory(Pattern objectPattern, CommonItemStore.EntityFunction entityGenerator) {
-        this.objectPattern = Objects.requireNonNull(objectPattern);
+        this(objectPattern, path -> {
+            Matcher matcher = objectPattern.matcher(path.name);
+            return matcher.matches() ? matcher::group : null;
+        }, entityGenerator);
+    }
+
+    /**
+     * @param objectPattern pattern with the named groups of {@code objectMatcher}
+     * @param objectMatcher matches item names like {@code objectPattern}, returning null for names that don't match
+     */
+    EntityFactory(Pattern objectPattern, Function<EntityPath, EntityPathMatch> objectMatcher,
+                  CommonItemStore.EntityFunction entityGenerator) {
+        this.objectMatcher = Objects.requireNonNull(objectMatcher);
         this.entityGenerator = Objects.requireNonNull(entityGenerator);
         this.doLookForVersion = objectPattern.pattern().contains("(?<versionNumber>");
     }
 
+    /**
+     * @param objectName item name, matched without its compression suffix
+     */
     EntityBuilder newBuilder(String objectName) {
-        final Matcher objectMatcher = objectPattern.matcher(objectName);
-        if (!objectMatcher.matches()) return null;
+        return newBuilder(new EntityPath(CompressionUtils.stripCompressionSuffix(objectName)));
+    }
+
+    EntityBuilder newBuilder(EntityPath objectPath) {
+        final EntityPathMatch match = objectMatcher.apply(objectPath);
+        if (match == null) return null;
 
-        String entityPrefix = Objects.requireNonNull(objectMatcher.group("locationPrefix"),
+        String entityPrefix = Objects.requireNonNull(match.group("locationPrefix"),
                 "Regex must have a named group of 'locationPrefix'");
-        String entityId = Objects.requireNonNull(objectMatcher.group("entityId"),
+        String entityId = Objects.requireNonNull(match.group("entityId"),
                 "Regex must have a named group of 'entityId'");
         if (!entityPrefix.contains(entityId)) {
             String msg = String.format("entityPrefix must contain entityId in regex [entityId=%s, entityPrefix=%s]",
@@ -34,8 +56,8 @@ final class EntityFactory {
             throw new IllegalStateException(msg);
         }
 
-        int versionNumber = doLookForVersion ? Integer.parseInt(objectMatcher.group("versionNumber")) : 0;
+        int versionNumber = doLookForVersion ? Integer.parseInt(match.group("versionNumber")) : 0;
 
-        return new EntityBuilder(entityId, entityPrefix, versionNumber, objectMatcher, entityGenerator);
+        return new EntityBuilder(entityId, entityPrefix, versionNumber, match, entityGenerator);
     }
 }
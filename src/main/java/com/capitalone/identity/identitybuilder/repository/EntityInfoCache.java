@@ -0,0 +1,153 @@
+package com.capitalone.identity.identitybuilder.repository;
+
+import com.capitalone.identity.identitybuilder.model.ConfigStoreItemInfo;
+import com.capitalone.identity.identitybuilder.model.EntityInfo;
+import com.capitalone.identity.identitybuilder.model.EntityType;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link EntityInfo} instances of earlier scans, keyed by location prefix together with the digest of the item
+ * listing they were built from, see {@link EntityBuilder#getItemDigest()}.
+ * <p>
+ * A scan that lists the same names and tags under a location prefix gets the earlier instance back instead of
+ * building a new one, so unchanged entities cost a set comparison rather than a rebuild, and consumers that
+ * key caches on the instances keep hitting them. The digest only rules out most changed entities before the sets
+ * are compared, since different listings can have the same digest. Instances are only cached once their prior versions are linked,
+ * and are never modified afterwards.
+ * <p>
+ * Full listings are also split into subtrees, one per top-level segment of the item names. A subtree whose listing
+ * is unchanged since the last full listing of the same entity types gets the entities of that listing back, so it
+ * is neither classified nor built again, and the work of a scan beyond the listing itself is proportional to the
+ * subtrees that changed.
+ * <p>
+ * Each full listing runs in a new generation that marks the entries and subtrees it sees; entries of the listed
+ * types that the listing did not see belong to deleted entities and are pruned when it completes.
+ */
+final class EntityInfoCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Subtree> subtrees = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * @return generation of a new full listing
+     */
+    long nextGeneration() {
+        return generation.incrementAndGet();
+    }
+
+    /**
+     * @return generation of the latest full listing, for listings of a single location
+     */
+    long currentGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * @return the cached instance built from the same items as {@code builder}, or null if there is none
+     */
+    EntityInfo get(EntityBuilder builder, long generation) {
+        Entry entry = entries.get(builder.locationPrefix);
+        if (entry == null
+                || entry.generator != builder.generator
+                || entry.versionNumber != builder.versionNumber
+                || entry.itemCount != builder.items.size()
+                || entry.itemDigest != builder.getItemDigest()
+                || !entry.builderId.equals(builder.id)
+                || !entry.items.equals(builder.items)) {
+            return null;
+        }
+        entry.generation = Math.max(entry.generation, generation);
+        return entry.info;
+    }
+
+    void put(EntityBuilder builder, EntityInfo info, long generation) {
+        entries.put(builder.locationPrefix, new Entry(builder, info, generation));
+    }
+
+    /**
+     * @param key   subtree together with the listed entity types
+     * @param items listing of the subtree, in key order
+     * @return the final entity versions built from the same listing, or null if the listing changed
+     */
+    List<EntityInfo> getSubtree(String key, List<ConfigStoreItemInfo> items, long generation) {
+        Subtree subtree = subtrees.get(key);
+        if (subtree == null || !subtree.items.equals(items)) {
+            return null;
+        }
+        subtree.generation = Math.max(subtree.generation, generation);
+        // keep the entries of the skipped versions, so that they can be reused once the subtree changes
+        for (EntityInfo info : subtree.entities) {
+            for (EntityInfo version = info; version != null; version = version.getPriorVersion()) {
+                Entry entry = entries.get(version.getLocationPrefix());
+                if (entry != null) {
+                    entry.generation = Math.max(entry.generation, generation);
+                }
+            }
+        }
+        return subtree.entities;
+    }
+
+    void putSubtree(String key, Set<EntityType> types, List<ConfigStoreItemInfo> items, List<EntityInfo> entities,
+                    long generation) {
+        subtrees.put(key, new Subtree(types, items, entities, generation));
+    }
+
+    /**
+     * Remove the entries of {@code types} that no listing saw since the full listing of {@code generation} started.
+     */
+    void prune(long generation, Set<EntityType> types) {
+        entries.values().removeIf(entry -> entry.generation < generation && types.contains(entry.info.getType()));
+        subtrees.values().removeIf(subtree -> subtree.generation < generation && subtree.types.equals(types));
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    int subtreeCount() {
+        return subtrees.size();
+    }
+
+    private static final class Entry {
+        final CommonItemStore.EntityFunction generator;
+        final String builderId;
+        final int versionNumber;
+        final int itemCount;
+        final long itemDigest;
+        final Set<ConfigStoreItemInfo> items;
+        final EntityInfo info;
+        volatile long generation;
+
+        Entry(EntityBuilder builder, EntityInfo info, long generation) {
+            this.generator = builder.generator;
+            this.builderId = builder.id;
+            this.versionNumber = builder.versionNumber;
+            this.itemCount = builder.items.size();
+            this.itemDigest = builder.getItemDigest();
+            this.items = Set.copyOf(builder.items);
+            this.info = info;
+            this.generation = generation;
+        }
+    }
+
+    private static final class Subtree {
+        final Set<EntityType> types;
+        final List<ConfigStoreItemInfo> items;
+        final List<EntityInfo> entities;
+        volatile long generation;
+
+        Subtree(Set<EntityType> types, List<ConfigStoreItemInfo> items, List<EntityInfo> entities, long generation) {
+            this.types = Set.copyOf(types);
+            this.items = List.copyOf(items);
+            this.entities = List.copyOf(entities);
+            this.generation = generation;
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.capitalone.identity.identitybuilder.repository;
+
+import java.util.Arrays;
+
+/**
+ * An item name split into its '/'-separated segments in a single pass, so that {@link EntityPathClassifier} can
+ * match it against the entity patterns of each entity type without scanning the name again.
+ */
+final class EntityPath {
+
+    final String name;
+    /**
+     * Start of each segment, followed by the length of the name plus one, so segment {@code i} spans
+     * {@code starts[i]} to {@code starts[i + 1] - 1}
+     */
+    private final int[] starts;
+    /**
+     * Start of the trailing run of {@link #isWordChar(char)} characters of each segment
+     */
+    private final int[] wordStarts;
+    private final int segmentCount;
+    /**
+     * Index of the first and last character that {@code .} does not match in a regex, or -1 if there are none
+     */
+    final int firstLineTerminator;
+    final int lastLineTerminator;
+
+    EntityPath(String name) {
+        this.name = name;
+        int length = name.length();
+        int[] segmentStarts = new int[8];
+        int[] segmentWordStarts = new int[8];
+        int count = 0;
+        int start = 0;
+        int wordStart = 0;
+        int firstTerminator = -1;
+        int lastTerminator = -1;
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? name.charAt(i) : '/';
+            if (c == '/') {
+                if (count + 1 >= segmentStarts.length) {
+                    segmentStarts = Arrays.copyOf(segmentStarts, segmentStarts.length * 2);
+                    segmentWordStarts = Arrays.copyOf(segmentWordStarts, segmentWordStarts.length * 2);
+                }
+                segmentStarts[count] = start;
+                segmentWordStarts[count] = wordStart;
+                count++;
+                start = i + 1;
+                wordStart = i + 1;
+            } else if (!isWordChar(c)) {
+                wordStart = i + 1;
+                if (isLineTerminator(c)) {
+                    if (firstTerminator < 0) {
+                        firstTerminator = i;
+                    }
+                    lastTerminator = i;
+                }
+            }
+        }
+        segmentStarts[count] = length + 1;
+        this.starts = segmentStarts;
+        this.wordStarts = segmentWordStarts;
+        this.segmentCount = count;
+        this.firstLineTerminator = firstTerminator;
+        this.lastLineTerminator = lastTerminator;
+    }
+
+    int getSegmentCount() {
+        return segmentCount;
+    }
+
+    int getStart(int segment) {
+        return starts[segment];
+    }
+
+    /**
+     * @return index of the '/' after the segment, or the length of the name for the last segment
+     */
+    int getEnd(int segment) {
+        return starts[segment + 1] - 1;
+    }
+
+    int getWordStart(int segment) {
+        return wordStarts[segment];
+    }
+
+    /**
+     * @return whether the segment is not empty and consists of {@link #isWordChar(char)} characters only
+     */
+    boolean isWord(int segment) {
+        return wordStarts[segment] == starts[segment] && getEnd(segment) > starts[segment];
+    }
+
+    /**
+     * @return whether the segment is not empty and consists of ASCII digits only
+     */
+    boolean isNumber(int segment) {
+        return isNumber(getStart(segment), getEnd(segment));
+    }
+
+    boolean isNumber(int start, int end) {
+        if (end <= start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (!isDigit(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean segmentEquals(int segment, String value) {
+        int start = getStart(segment);
+        return getEnd(segment) - start == value.length() && name.startsWith(value, start);
+    }
+
+    /**
+     * @return whether there is no line terminator at or after {@code index}
+     */
+    boolean hasNoLineTerminatorFrom(int index) {
+        return lastLineTerminator < index;
+    }
+
+    /**
+     * @return whether there is no line terminator before {@code index}
+     */
+    boolean hasNoLineTerminatorBefore(int index) {
+        return firstLineTerminator < 0 || firstLineTerminator >= index;
+    }
+
+    /**
+     * @return whether the character is in {@code [-_a-zA-Z0-9]}
+     */
+    static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c) || c == '-' || c == '_';
+    }
+
+    static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * @return whether {@code .} does not match the character in a regex without flags
+     */
+    static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+}
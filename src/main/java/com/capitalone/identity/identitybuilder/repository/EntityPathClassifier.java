@@ -0,0 +1,188 @@
+package com.capitalone.identity.identitybuilder.repository;
+
+/**
+ * Matches item names against the entity patterns of {@link CommonItemStore} without regular expressions.
+ * <p>
+ * Each pattern starts with a lazy {@code .*?} prefix followed by '/'-separated segments, so the regex engine tries
+ * every start position and backtracks into the segments after it. Since the first segment after the prefix ends at
+ * a '/' and may only contain {@code [-_a-zA-Z0-9]}, a match can only start at the beginning of the trailing run of
+ * those characters of a segment, and the shortest prefix is the one of the first segment where the rest of the
+ * pattern matches. The matchers below try those segments in order on an {@link EntityPath}, checking each later
+ * segment a bounded number of times, so matching is linear in the length of the name. The groups are the ones the
+ * regex would capture, including the restriction that {@code .} does not match line terminators.
+ */
+final class EntityPathClassifier {
+
+    static final String LOCATION_PREFIX = "locationPrefix";
+    static final String ENTITY_ID = "entityId";
+    static final String VERSION_NUMBER = "versionNumber";
+    static final String POLICY_SHORT_NAME = "policyShortName";
+    static final String POLICY_FULL_NAME = "policyFullName";
+    static final String POLICY_MAJOR_VERSION = "policyMajorVersion";
+    static final String POLICY_MINOR_VERSION = "policyMinorVersion";
+    static final String POLICY_PATCH_VERSION = "policyPatchVersion";
+
+    private static final String[] ACCESS_GROUPS = {LOCATION_PREFIX, ENTITY_ID, POLICY_FULL_NAME, POLICY_SHORT_NAME,
+            POLICY_MAJOR_VERSION, VERSION_NUMBER};
+    private static final String[] POLICY_GROUPS = {LOCATION_PREFIX, ENTITY_ID, POLICY_FULL_NAME, POLICY_SHORT_NAME,
+            POLICY_MAJOR_VERSION, POLICY_MINOR_VERSION, POLICY_PATCH_VERSION};
+    private static final String[] PIP_GROUPS = {LOCATION_PREFIX, ENTITY_ID};
+
+    private static final String ACCESS_CONTROL = "access-control";
+    private static final String POLICY_ACCESS = "policy-access.json";
+    private static final String POLICY_METADATA = "policy-metadata.json";
+    private static final String[] POLICY_DIRECTORIES = {"process/", "rules/", "config/"};
+    private static final String ROUTES = "routes";
+    private static final String XML_SUFFIX = ".xml";
+
+    private EntityPathClassifier() {
+    }
+
+    /**
+     * Equivalent of {@link CommonItemStore#ACCESS_PATTERN}, which matches
+     * {@code <prefix><a>/<b>/<policy>/<major>/access-control/<version>/policy-access.json}.
+     *
+     * @return the match, or null if the name is not an item of an access control entity
+     */
+    static EntityPathMatch matchAccess(EntityPath path) {
+        // all segments after the prefix are fixed, so only one segment can start the match
+        int segment = path.getSegmentCount() - 7;
+        if (segment < 0) {
+            return null;
+        }
+        int start = path.getWordStart(segment);
+        if (start < path.getEnd(segment)
+                && path.hasNoLineTerminatorBefore(start)
+                && path.isWord(segment + 1)
+                && path.isWord(segment + 2)
+                && path.isNumber(segment + 3)
+                && path.segmentEquals(segment + 4, ACCESS_CONTROL)
+                && path.isNumber(segment + 5)
+                && path.segmentEquals(segment + 6, POLICY_ACCESS)) {
+            return new Match(path.name, ACCESS_GROUPS, new int[]{
+                    0, path.name.length(),
+                    start, path.getEnd(segment + 4),
+                    start, path.getEnd(segment + 2),
+                    path.getStart(segment + 2), path.getEnd(segment + 2),
+                    path.getStart(segment + 3), path.getEnd(segment + 3),
+                    path.getStart(segment + 5), path.getEnd(segment + 5)});
+        }
+        return null;
+    }
+
+    /**
+     * Equivalent of {@link CommonItemStore#POLICY_PATTERN}, which matches
+     * {@code <prefix><a>/<b>/<policy>/<major>.<minor>[/<patch>]/} followed by {@code policy-metadata.json} or an
+     * item in the {@code process}, {@code rules} or {@code config} directory.
+     *
+     * @return the match, or null if the name is not an item of a policy entity
+     */
+    static EntityPathMatch matchPolicy(EntityPath path) {
+        int last = path.getSegmentCount() - 1;
+        for (int segment = 0; segment + 4 <= last; segment++) {
+            int start = path.getWordStart(segment);
+            if (!path.hasNoLineTerminatorBefore(start)) {
+                return null;
+            }
+            if (start == path.getEnd(segment)
+                    || !path.isWord(segment + 1)
+                    || !path.isWord(segment + 2)) {
+                continue;
+            }
+            int versionStart = path.getStart(segment + 3);
+            int versionEnd = path.getEnd(segment + 3);
+            int dot = versionStart;
+            while (dot < versionEnd && path.name.charAt(dot) != '.') {
+                dot++;
+            }
+            if (dot == versionEnd
+                    || !path.isNumber(versionStart, dot)
+                    || !path.isNumber(dot + 1, versionEnd)) {
+                continue;
+            }
+            // like the greedy optional group, try with a patch version first
+            boolean patch = segment + 5 <= last
+                    && path.isNumber(segment + 4)
+                    && isPolicyItem(path, path.getStart(segment + 5));
+            if (patch || isPolicyItem(path, path.getStart(segment + 4))) {
+                int prefixEnd = patch ? path.getEnd(segment + 4) : versionEnd;
+                return new Match(path.name, POLICY_GROUPS, new int[]{
+                        0, prefixEnd,
+                        start, versionEnd,
+                        start, path.getEnd(segment + 2),
+                        path.getStart(segment + 2), path.getEnd(segment + 2),
+                        versionStart, dot,
+                        dot + 1, versionEnd,
+                        patch ? path.getStart(segment + 4) : -1, patch ? path.getEnd(segment + 4) : -1});
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Equivalent of {@link CommonItemStore#PIP_PATTERN}, which matches {@code <prefix><a>/routes<rest>.xml}.
+     *
+     * @return the match, or null if the name is not a pip
+     */
+    static EntityPathMatch matchPip(EntityPath path) {
+        String name = path.name;
+        if (path.firstLineTerminator >= 0 || !name.endsWith(XML_SUFFIX)) {
+            return null;
+        }
+        int last = path.getSegmentCount() - 1;
+        for (int segment = 0; segment < last; segment++) {
+            int start = path.getWordStart(segment);
+            int routesStart = path.getStart(segment + 1);
+            if (start < path.getEnd(segment)
+                    && name.startsWith(ROUTES, routesStart)
+                    && routesStart + ROUTES.length() + XML_SUFFIX.length() <= name.length()) {
+                return new Match(name, PIP_GROUPS, new int[]{0, name.length(), start, name.length()});
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return whether the name continues at {@code start} with {@code policy-metadata.json} or an item of a policy
+     * directory
+     */
+    private static boolean isPolicyItem(EntityPath path, int start) {
+        String name = path.name;
+        if (name.length() - start == POLICY_METADATA.length() && name.startsWith(POLICY_METADATA, start)) {
+            return true;
+        }
+        for (String directory : POLICY_DIRECTORIES) {
+            if (name.startsWith(directory, start)) {
+                return path.hasNoLineTerminatorFrom(start);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Groups as start and end offsets into the name, with -1 for a group that is not part of the match.
+     */
+    private static final class Match implements EntityPathMatch {
+        private final String name;
+        private final String[] groups;
+        private final int[] offsets;
+
+        Match(String name, String[] groups, int[] offsets) {
+            this.name = name;
+            this.groups = groups;
+            this.offsets = offsets;
+        }
+
+        @Override
+        public String group(String group) {
+            for (int i = 0; i < groups.length; i++) {
+                if (groups[i].equals(group)) {
+                    int start = offsets[2 * i];
+                    return start < 0 ? null : name.substring(start, offsets[2 * i + 1]);
+                }
+            }
+            throw new IllegalArgumentException("No group with name <" + group + ">");
+        }
+    }
+
+}
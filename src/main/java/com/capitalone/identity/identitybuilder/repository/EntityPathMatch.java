@@ -0,0 +1,15 @@
+package com.capitalone.identity.identitybuilder.repository;
+
+/**
+ * Named groups of an item name that matched the pattern of an entity type, see {@link EntityFactory}.
+ */
+@FunctionalInterface
+interface EntityPathMatch {
+
+    /**
+     * @return the named group, or null if the group is optional and not part of the match
+     * @throws IllegalArgumentException if the pattern has no group with this name
+     */
+    String group(String name);
+
+}
@@ -5,23 +5,49 @@ import com.capitalone.identity.identitybuilder.model.*;
 import com.capitalone.identity.identitybuilder.model.parsing.PolicyManifestJsonFileParser;
 import com.capitalone.identity.identitybuilder.model.parsing.PolicyManifestParser;
 import com.capitalone.identity.identitybuilder.polling.ScanRequester;
+import com.capitalone.identity.identitybuilder.util.CompressionUtils;
+import com.capitalone.identity.identitybuilder.util.SingleFlight;
 import org.springframework.lang.NonNull;
+import reactor.core.Disposable;
 import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 /**
- * Provide logic for retrieval of {@link Entity} objects.
+ * Provide logic for retrieval of {@link Entity} objects. Close the provider once it is no longer used, to stop its
+ * item fetch queue and the fetch scheduler it owns.
  */
-public class EntityProvider {
+public class EntityProvider implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_CONCURRENT_FETCHES = 16;
+    public static final int DEFAULT_MAX_CONCURRENT_FETCHES_PER_ENTITY = 4;
+    static final String FETCH_THREAD_NAME_PREFIX = "csc-item-fetch";
+    private static final int FETCH_THREAD_TTL_SECONDS = 60;
+    private static final Duration FETCH_SCHEDULER_SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
 
     private final ItemStore store;
     private final ClientEnvironment environment;
     private final ScanRequester scanRequester;
     private final ConfigStoreScanCompleted_Publisher scanPublisher;
+    private final Scheduler fetchScheduler;
+    private final boolean ownsFetchScheduler;
+    private final FluxSink<Mono<Void>> fetchQueue;
+    private final Disposable fetchQueueSubscription;
+    private final Sinks.Empty<Void> closed = Sinks.empty();
+    private final int maxConcurrentFetchesPerEntity;
+    private final SingleFlight<ConfigStoreItemInfo, ConfigStoreItem> itemFetches = new SingleFlight<>();
+    private final EntityInfoCache entityInfoCache = new EntityInfoCache();
 
     final Map<EntityType, EntityFactory> entityFactoryMap = new EnumMap<>(EntityType.class);
 
@@ -33,10 +59,68 @@ public class EntityProvider {
     public EntityProvider(@NonNull ItemStore store, @NonNull ScanRequester scanRequester,
                           @NonNull ConfigStoreScanCompleted_Publisher scanPublisher,
                           ClientEnvironment environment) {
+        this(store, scanRequester, scanPublisher, environment,
+                DEFAULT_MAX_CONCURRENT_FETCHES, DEFAULT_MAX_CONCURRENT_FETCHES_PER_ENTITY);
+    }
+
+    /**
+     * Item fetches and entity builds run on a bounded scheduler of the provider, with one thread per concurrent
+     * fetch, so blocking stores don't compete with other users of a shared scheduler.
+     *
+     * @param maxConcurrentFetches          maximum number of item fetches in flight across all entity loads
+     * @param maxConcurrentFetchesPerEntity maximum number of item fetches in flight for a single entity load
+     */
+    public EntityProvider(@NonNull ItemStore store, @NonNull ScanRequester scanRequester,
+                          @NonNull ConfigStoreScanCompleted_Publisher scanPublisher,
+                          ClientEnvironment environment,
+                          int maxConcurrentFetches, int maxConcurrentFetchesPerEntity) {
+        this(store, scanRequester, scanPublisher, environment, maxConcurrentFetches, maxConcurrentFetchesPerEntity,
+                Schedulers.newBoundedElastic(Math.max(1, maxConcurrentFetches),
+                        Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE,
+                        FETCH_THREAD_NAME_PREFIX, FETCH_THREAD_TTL_SECONDS, true),
+                true);
+    }
+
+    /**
+     * @param fetchScheduler scheduler that item fetches and entity builds run on, since stores may block while they
+     *                       fetch an item. It is owned by the caller, who disposes it once the provider is no longer
+     *                       used
+     */
+    public EntityProvider(@NonNull ItemStore store, @NonNull ScanRequester scanRequester,
+                          @NonNull ConfigStoreScanCompleted_Publisher scanPublisher,
+                          ClientEnvironment environment,
+                          int maxConcurrentFetches, int maxConcurrentFetchesPerEntity,
+                          @NonNull Scheduler fetchScheduler) {
+        this(store, scanRequester, scanPublisher, environment, maxConcurrentFetches, maxConcurrentFetchesPerEntity,
+                Objects.requireNonNull(fetchScheduler), false);
+    }
+
+    private EntityProvider(ItemStore store, ScanRequester scanRequester,
+                           ConfigStoreScanCompleted_Publisher scanPublisher,
+                           ClientEnvironment environment,
+                           int maxConcurrentFetches, int maxConcurrentFetchesPerEntity,
+                           Scheduler fetchScheduler, boolean ownsFetchScheduler) {
+        if (maxConcurrentFetches < 1) {
+            throw new IllegalArgumentException("maxConcurrentFetches must be at least 1, found: " + maxConcurrentFetches);
+        }
+        if (maxConcurrentFetchesPerEntity < 1) {
+            throw new IllegalArgumentException("maxConcurrentFetchesPerEntity must be at least 1, found: "
+                    + maxConcurrentFetchesPerEntity);
+        }
         this.store = Objects.requireNonNull(store);
         this.environment = environment;
         this.scanRequester = Objects.requireNonNull(scanRequester);
         this.scanPublisher = Objects.requireNonNull(scanPublisher);
+        this.fetchScheduler = fetchScheduler;
+        this.ownsFetchScheduler = ownsFetchScheduler;
+        // every fetch of every entity load runs through one queue, which bounds the fetches in flight rather than
+        // the threads, so fetches of non-blocking stores don't count while they wait for a response
+        AtomicReference<FluxSink<Mono<Void>>> queue = new AtomicReference<>();
+        this.fetchQueueSubscription = Flux.<Mono<Void>>create(queue::set)
+                .flatMap(fetch -> fetch, maxConcurrentFetches)
+                .subscribe();
+        this.fetchQueue = queue.get();
+        this.maxConcurrentFetchesPerEntity = maxConcurrentFetchesPerEntity;
 
         entityFactoryMap.put(EntityType.PIP, store.getFactoryForEntityType(EntityType.PIP));
         entityFactoryMap.put(EntityType.ACCESS, store.getFactoryForEntityType(EntityType.ACCESS));
@@ -44,54 +128,134 @@ public class EntityProvider {
 
     }
 
+    /**
+     * Stops the item fetch queue and disposes the fetch scheduler if the provider owns it. Entity loads still in
+     * flight, and any started afterwards, fail with an {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        closed.tryEmitEmpty();
+        fetchQueueSubscription.dispose();
+        if (ownsFetchScheduler) {
+            // graceful, so that the errors of failed loads already handed to the scheduler are still delivered
+            fetchScheduler.disposeGracefully()
+                    .timeout(FETCH_SCHEDULER_SHUTDOWN_TIMEOUT)
+                    .onErrorResume(e -> Mono.fromRunnable(fetchScheduler::dispose))
+                    .subscribe();
+        }
+    }
+
     public Entity getEntity(EntityInfo info) {
-        Set<ConfigStoreItem> items = info.getItemInfo()
-                .parallelStream()
-                .map(this::getConfigStoreItem)
-                .collect(Collectors.toSet());
+        try {
+            return getEntityAsync(info).toFuture().join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw Exceptions.propagate(cause);
+            }
+        }
+    }
+
+    /**
+     * Load the items of an entity on the item fetch scheduler, limited to the configured per-entity and global
+     * number of concurrent fetches, and build the entity once all items are available. Concurrent loads that need
+     * the same item (same name and tag) share a single fetch, which completes even if the load is cancelled.
+     *
+     * @return a {@link Mono} that emits the entity, or errors with the same exceptions thrown by
+     * {@link #getEntity(EntityInfo)}
+     */
+    public Mono<Entity> getEntityAsync(EntityInfo info) {
+        return Mono.defer(() -> {
+            if (fetchQueueSubscription.isDisposed()) {
+                return closedError();
+            }
+            return Flux.fromIterable(info.getItemInfo())
+                    .flatMap(itemInfo -> itemFetches.execute(itemInfo, () -> fetch(itemInfo)),
+                            maxConcurrentFetchesPerEntity)
+                    .collect(Collectors.toSet())
+                    // building parses the items, which should not hold the thread that completed the last fetch
+                    .publishOn(fetchScheduler)
+                    .flatMap(items -> buildEntity(info, items));
+        });
+    }
+
+    private Mono<ConfigStoreItem> fetch(ConfigStoreItemInfo itemInfo) {
+        return limit(store.getItemAsync(itemInfo));
+    }
+
+    /**
+     * @return {@code call}, subscribed on the fetch scheduler once fewer than the maximum number of fetches are in
+     * flight
+     */
+    private <T> Mono<T> limit(Mono<T> call) {
+        return Mono.defer(() -> {
+            Sinks.One<T> result = Sinks.one();
+            Mono<T> resultUnlessClosed = Mono.firstWithSignal(result.asMono(), closed.asMono().then(closedError()));
+            fetchQueue.next(call
+                    .subscribeOn(fetchScheduler)
+                    .doOnSuccess(item -> {
+                        if (item != null) {
+                            result.tryEmitValue(item);
+                        } else {
+                            result.tryEmitEmpty();
+                        }
+                    })
+                    .doOnError(result::tryEmitError)
+                    .onErrorResume(e -> Mono.empty())
+                    .then());
+            return resultUnlessClosed;
+        });
+    }
 
+    private static <T> Mono<T> closedError() {
+        return Mono.error(() -> new IllegalStateException("EntityProvider is closed"));
+    }
+
+    private Mono<Entity> buildEntity(EntityInfo info, Set<ConfigStoreItem> items) {
         PolicyManifestJsonFileParser manifestParser = new PolicyManifestJsonFileParser();
         if (info instanceof EntityInfo.Policy) {
             return getPolicy((EntityInfo.Policy) info, items, manifestParser);
         } else if (info instanceof EntityInfo.Pip) {
-            return new Entity.Pip((EntityInfo.Pip) info, items);
+            return Mono.just(new Entity.Pip((EntityInfo.Pip) info, items));
         } else if (info instanceof EntityInfo.Access) {
-            return new Entity.Access((EntityInfo.Access) info, items);
+            return Mono.just(new Entity.Access((EntityInfo.Access) info, items));
         } else {
-            return new Entity.Simple(info, items);
+            return Mono.just(new Entity.Simple(info, items));
         }
     }
 
-    private Entity.Policy getPolicy(EntityInfo.Policy info, Set<ConfigStoreItem> items, PolicyManifestJsonFileParser manifestParser) {
-        EntityActivationStatus status;
+    /**
+     * Legacy metadata is looked up and fetched through the same limit as the items of the policy. A compressed
+     * {@code metadata.json.gz} is looked up when there is no uncompressed one.
+     */
+    private Mono<Entity> getPolicy(EntityInfo.Policy info, Set<ConfigStoreItem> items, PolicyManifestJsonFileParser manifestParser) {
         if (info.getPatchVersion() == 0
-                && info.getItemInfo().stream().noneMatch(item -> ConfigStoreItem.Type.POLICY_STATUS_SPARSE.equals(ConfigStoreItem.getTypeFromPath(item.getName())))) {
+                && info.getItemInfo().stream().noneMatch(item -> item.getType() == ConfigStoreItem.Type.POLICY_STATUS_SPARSE)) {
             String metadataLocation = info.getLocationPrefix().substring(0, info.getLocationPrefix().indexOf(info.getPolicyVersion()) - 1)
                     + "/metadata.json";
-            status = store.getSingleStoredItemInfo(metadataLocation)
-                    .map(itemInfo -> {
-                        try {
-                            return store.getItem(itemInfo);
-                        } catch (IOException e) {
-                            throw new IllegalArgumentException(e);
-                        }
-                    })
+            return limit(Mono.fromCallable(() -> store.getSingleStoredItemInfo(metadataLocation)
+                    .or(() -> store.getSingleStoredItemInfo(metadataLocation + CompressionUtils.GZIP_SUFFIX))))
+                    .flatMap(Mono::justOrEmpty)
+                    .flatMap(itemInfo -> limit(Mono.fromCallable(() -> store.getItem(itemInfo)))
+                            .onErrorMap(IOException.class, IllegalArgumentException::new))
                     .flatMap(item -> {
                         try {
-                            return manifestParser.parseVersionStatusFromLegacyMetadata(item.content, info.getPolicyVersion());
+                            return Mono.justOrEmpty(manifestParser.parseVersionStatusFromLegacyMetadata(item.getContent(), info.getPolicyVersion()));
                         } catch (PolicyManifestParser.ManifestProcessingException e) {
                             throw new IllegalArgumentException(e);
                         }
                     })
-                    .map(policyStatus -> policyStatus.toActivationStatus(environment))
-                    .orElseThrow(() -> new IllegalArgumentException("Unable to resolve activation status. " +
+                    .map(policyStatus -> (Entity) new Entity.Policy(info, items, policyStatus.toActivationStatus(environment)))
+                    .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("Unable to resolve activation status. " +
                             "policy-metadata.json not found, and status could not otherwise be determined from " +
-                            "metadata.json file at this location:=" + metadataLocation));
-
-            return new Entity.Policy(info, items, status);
+                            "metadata.json file at this location:=" + metadataLocation)));
         } else {
             // sparse metadata.json location
-            return new Entity.Policy(info, items);
+            return Mono.just(new Entity.Policy(info, items));
         }
     }
 
@@ -100,7 +264,45 @@ public class EntityProvider {
     }
 
     private Flux<EntityInfo> getEntities(EntityType[] entityFilter) {
-        return store.getStoredItemInfo()
+        return Flux.defer(() -> {
+            long generation = entityInfoCache.nextGeneration();
+            Set<EntityType> types = EnumSet.noneOf(EntityType.class);
+            types.addAll(Arrays.asList(entityFilter));
+            return store.getStoredItemInfo()
+                    .bufferUntilChanged(objectInfo -> getSubtree(objectInfo.getName()))
+                    .concatMap(items -> getSubtreeEntities(items, types, entityFilter, generation))
+                    .doOnComplete(() -> entityInfoCache.prune(generation, types));
+        });
+    }
+
+    /**
+     * Entities of a subtree of a full listing, taken from the earlier full listing if the subtree is unchanged.
+     * The location prefix of every entity contains a '/', so an entity never spans two subtrees.
+     */
+    private Flux<EntityInfo> getSubtreeEntities(List<ConfigStoreItemInfo> items, Set<EntityType> types,
+                                                EntityType[] entityFilter, long generation) {
+        String key = types + getSubtree(items.get(0).getName());
+        List<EntityInfo> unchanged = entityInfoCache.getSubtree(key, items, generation);
+        if (unchanged != null) {
+            return Flux.fromIterable(unchanged);
+        }
+        return getEntities(Flux.fromIterable(items), entityFilter, generation)
+                .collectList()
+                .doOnNext(entities -> entityInfoCache.putSubtree(key, types, items, entities, generation))
+                .flatMapIterable(entities -> entities);
+    }
+
+    /**
+     * @return top-level segment of an item name, including its '/'
+     */
+    private static String getSubtree(String name) {
+        int end = name.indexOf('/');
+        return end < 0 ? name : name.substring(0, end + 1);
+    }
+
+    private Flux<EntityInfo> getEntities(Flux<ConfigStoreItemInfo> storedItemInfo, EntityType[] entityFilter,
+                                         long generation) {
+        return storedItemInfo
                 // Populate entity builder with components objects
                 .scan(Optional.<EntityBuilder>empty(), (entityBuilder, objectInfo) -> {
                     EntityBuilder curBuilder = entityBuilder.orElse(null);
@@ -119,17 +321,33 @@ public class EntityProvider {
                 .bufferUntilChanged()
                 .map(entityBuilders -> entityBuilders.get(0))
                 .distinct()
-                .map(EntityBuilder::build)
+                // Reuse the instance of an earlier scan if the items of the entity version are unchanged
+                .map(builder -> new ScannedVersion(builder, entityInfoCache.get(builder, generation)))
                 // Group all versions with the same entity ID into a list
-                .bufferUntilChanged(EntityInfo::getId)
-                // Sort by version number
-                .map(versionList -> versionList.stream()
-                        .sorted(Comparator.comparingInt(EntityInfo::getPatchVersion))
-                        .collect(Collectors.toList()))
-                // Pack list into linked list where only final version is emitted
-                .map(versionList -> versionList.stream().reduce((current, next) -> next.setPriorVersion(current)))
-                .filter(Optional::isPresent)
-                .map(Optional::get);
+                .bufferUntilChanged(version -> version.info.getId())
+                // Sort by version number and link each version to its prior version, only the final one is emitted
+                .map(versionList -> linkVersions(versionList, generation));
+    }
+
+    /**
+     * @return the final version, linked to the earlier versions through {@link EntityInfo#getPriorVersion()}
+     */
+    private EntityInfo linkVersions(List<ScannedVersion> versionList, long generation) {
+        versionList.sort(Comparator.comparingInt(version -> version.info.getPatchVersion()));
+        EntityInfo prior = null;
+        for (ScannedVersion version : versionList) {
+            EntityInfo info = version.info;
+            if (version.reused && info.getPriorVersion() != prior) {
+                // an earlier version changed, and cached instances are never modified
+                info = version.builder.build();
+            }
+            if (prior != null && info.getPriorVersion() != prior) {
+                info.setPriorVersion(prior);
+            }
+            entityInfoCache.put(version.builder, info, generation);
+            prior = info;
+        }
+        return prior;
     }
 
     public Flux<EntityState.Delta<EntityInfo>> getEntityUpdates(List<EntityInfo> startList,
@@ -147,16 +365,49 @@ public class EntityProvider {
                 .filter(entityInfo -> filterList.contains(entityInfo.getType()))
                 .collect(Collectors.toList());
         return scanRequester.getScanRequests()
-                .transform(EntityUtil.streamOfSnapshots(startState, () -> getEntities(finalTypeFilter)))
+                .transform(EntityUtil.streamOfSnapshots(startState, () -> getEntities(finalTypeFilter),
+                        getPartialSnapshotProvider(finalTypeFilter)))
                 .doOnNext(snapshot -> scanPublisher.publishEvent(new ConfigStoreScanCompleted(snapshot.getSourceItem())))
                 .map(EntityUtil.SnapshotHolder::getChanges);
     }
 
+    /**
+     * Resolves changed keys of a partial scan to the entities that contain them, and rebuilds an entity by
+     * listing only the items under its location.
+     */
+    EntityUtil.PartialSnapshotProvider<EntityInfo> getPartialSnapshotProvider(EntityType[] typeFilter) {
+        return new EntityUtil.PartialSnapshotProvider<EntityInfo>() {
+            @Override
+            public Set<String> getAffectedRoots(Set<String> changedKeys) {
+                Set<String> roots = new HashSet<>();
+                for (String key : changedKeys) {
+                    EntityBuilder builder = getStoredObjectEntityBuilder(key, typeFilter);
+                    if (builder != null && builder.addItem(new ConfigStoreItemInfo(key, ""))) {
+                        roots.add(EntityUtil.getRootPrefix(builder.build()));
+                    }
+                }
+                return roots;
+            }
+
+            @Override
+            public Flux<EntityInfo> getCurrentItems(String rootPrefix) {
+                return getEntities(store.getStoredItemInfo(rootPrefix), typeFilter,
+                        entityInfoCache.currentGeneration());
+            }
+        };
+    }
+
+    /**
+     * @param objectName item name, matched without its compression suffix so that compressed and uncompressed items
+     *                   belong to the same entity
+     */
     EntityBuilder getStoredObjectEntityBuilder(final String objectName, final EntityType[] typeFilter) {
+        // split the logical name once for the factories of all types
+        EntityPath objectPath = new EntityPath(CompressionUtils.stripCompressionSuffix(objectName));
         for (EntityType type : typeFilter) {
             EntityFactory factory = entityFactoryMap.get(type);
             if (factory != null) {
-                EntityBuilder builder = factory.newBuilder(objectName);
+                EntityBuilder builder = factory.newBuilder(objectPath);
                 if (builder != null) {
                     return builder;
                 }
@@ -172,11 +423,18 @@ public class EntityProvider {
         return filterList.toArray(new EntityType[0]);
     }
 
-    private ConfigStoreItem getConfigStoreItem(ConfigStoreItemInfo info) {
-        try {
-            return store.getItem(info);
-        } catch (IOException e) {
-            throw Exceptions.propagate(e);
+    /**
+     * An entity version of a scan, either built from its items or reused from an earlier scan
+     */
+    private static final class ScannedVersion {
+        final EntityBuilder builder;
+        final EntityInfo info;
+        final boolean reused;
+
+        ScannedVersion(EntityBuilder builder, EntityInfo cachedInfo) {
+            this.builder = builder;
+            this.reused = cachedInfo != null;
+            this.info = reused ? cachedInfo : builder.build();
         }
     }
 
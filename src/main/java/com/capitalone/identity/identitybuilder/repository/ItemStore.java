@@ -4,8 +4,10 @@ import com.capitalone.identity.identitybuilder.model.ConfigStoreItem;
 import com.capitalone.identity.identitybuilder.model.ConfigStoreItemInfo;
 import com.capitalone.identity.identitybuilder.model.EntityType;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Optional;
 import java.util.Set;
 
@@ -15,11 +17,42 @@ public interface ItemStore {
 
     ConfigStoreItem getItem(ConfigStoreItemInfo info) throws IOException;
 
+    /**
+     * Asynchronous variant of {@link #getItem(ConfigStoreItemInfo)}. The default implementation defers the blocking
+     * call until subscription and runs it on the subscribing thread, so callers choose the scheduler with
+     * {@link Mono#subscribeOn(reactor.core.scheduler.Scheduler)}.
+     *
+     * @return a {@link Mono} that emits the item, or errors with the exception raised while fetching it
+     */
+    default Mono<ConfigStoreItem> getItemAsync(ConfigStoreItemInfo info) {
+        return Mono.fromCallable(() -> getItem(info));
+    }
+
+    /**
+     * Streaming variant of {@link #getItem(ConfigStoreItemInfo)} for consumers that can parse content incrementally.
+     * The default implementation reads the whole item first; stores that can stream from the underlying source
+     * should override it.
+     *
+     * @return a stream over the item content that the caller must close
+     */
+    default InputStream getItemStream(ConfigStoreItemInfo info) throws IOException {
+        return getItem(info).getContentStream();
+    }
+
     /**
      * @return {@link Flux<ConfigStoreItemInfo>} of all object metadata in the store.
      */
     Flux<ConfigStoreItemInfo> getStoredItemInfo();
 
+    /**
+     * @return {@link Flux<ConfigStoreItemInfo>} of object metadata in the store whose name starts with
+     * {@code prefix}, in the same order as {@link #getStoredItemInfo()}. The default implementation filters the
+     * full listing; stores that can list a prefix directly should override it.
+     */
+    default Flux<ConfigStoreItemInfo> getStoredItemInfo(String prefix) {
+        return getStoredItemInfo().filter(info -> info.getName().startsWith(prefix));
+    }
+
     Optional<ConfigStoreItemInfo> getSingleStoredItemInfo(String key);
 
     EntityFactory getFactoryForEntityType(EntityType type);
@@ -3,13 +3,23 @@ package com.capitalone.identity.identitybuilder.util;
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.Protocol;
 import com.amazonaws.auth.profile.ProfileCredentialsProvider;
+import com.amazonaws.metrics.RequestMetricCollector;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.retry.PredefinedRetryPolicies;
 import com.amazonaws.retry.RetryPolicy;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.capitalone.identity.identitybuilder.ConfigStoreConstants;
+import com.capitalone.identity.identitybuilder.client.s3.AdaptiveConcurrencyLimiter;
+import com.capitalone.identity.identitybuilder.client.s3.S3HttpClientProfile;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.ProxyConfiguration;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
 
 public class AWSUtil {
 
@@ -17,17 +27,81 @@ public class AWSUtil {
     }
 
     public static AmazonS3 createAmazonS3Client(Regions region, String profileName, boolean isProxyEnabled) {
+        return createAmazonS3Client(region, profileName, isProxyEnabled, new S3HttpClientProfile(), null);
+    }
+
+    /**
+     * @param httpProfile     connection pool and timeout settings of the client
+     * @param metricCollector optional collector of per-request metrics
+     */
+    public static AmazonS3 createAmazonS3Client(Regions region, String profileName, boolean isProxyEnabled,
+                                                @NonNull S3HttpClientProfile httpProfile,
+                                                @Nullable RequestMetricCollector metricCollector) {
+        return createAmazonS3Client(region, profileName, isProxyEnabled, httpProfile, metricCollector, null);
+    }
+
+    /**
+     * @param retryPolicy optional retry policy that replaces the default one, e.g.
+     *                    {@link AdaptiveConcurrencyLimiter#newClientRetryPolicy(int)}
+     */
+    public static AmazonS3 createAmazonS3Client(Regions region, String profileName, boolean isProxyEnabled,
+                                                @NonNull S3HttpClientProfile httpProfile,
+                                                @Nullable RequestMetricCollector metricCollector,
+                                                @Nullable RetryPolicy retryPolicy) {
+        ClientConfiguration clientConfiguration = httpProfile.applyTo(getClientConfiguration(isProxyEnabled));
+        if (retryPolicy != null) {
+            clientConfiguration.setRetryPolicy(retryPolicy);
+        }
         AmazonS3ClientBuilder s3Builder = AmazonS3ClientBuilder.standard()
-                .withClientConfiguration(getClientConfiguration(isProxyEnabled))
+                .withClientConfiguration(clientConfiguration)
                 .withRegion(region);
         if (StringUtils.isNotEmpty(profileName)) {
             s3Builder.withCredentials(new ProfileCredentialsProvider(profileName));
         }
+        if (metricCollector != null) {
+            s3Builder.withMetricsCollector(metricCollector);
+        }
+
+        return s3Builder.build();
+    }
 
+    /**
+     * Create a non-blocking SDK v2 S3 client with the same region, credentials, proxy and connection settings as
+     * {@link #createAmazonS3Client(Regions, String, boolean, S3HttpClientProfile, RequestMetricCollector)}.
+     * {@link S3HttpClientProfile#getMaxConnections()} bounds the number of concurrent requests.
+     */
+    public static S3AsyncClient createS3AsyncClient(Regions region, String profileName, boolean isProxyEnabled,
+                                                    @NonNull S3HttpClientProfile httpProfile) {
+        NettyNioAsyncHttpClient.Builder httpClient = NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(httpProfile.getMaxConnections())
+                .connectionTimeout(httpProfile.getConnectionTimeout())
+                .readTimeout(httpProfile.getSocketTimeout())
+                .connectionMaxIdleTime(httpProfile.getConnectionMaxIdle())
+                .tcpKeepAlive(httpProfile.getTcpKeepAlive());
+        if (httpProfile.getConnectionTtl() != null) {
+            httpClient.connectionTimeToLive(httpProfile.getConnectionTtl());
+        }
+        if (isProxyEnabled) {
+            httpClient.proxyConfiguration(ProxyConfiguration.builder()
+                    .host(ConfigStoreConstants.PROXY_HOST)
+                    .port(ConfigStoreConstants.PROXY_PORT)
+                    .build());
+        }
+        S3AsyncClientBuilder s3Builder = S3AsyncClient.builder()
+                .httpClientBuilder(httpClient)
+                .overrideConfiguration(override -> override.retryPolicy(software.amazon.awssdk.core.retry.RetryPolicy
+                        .builder()
+                        .numRetries(ConfigStoreConstants.MAX_RETRY_COUNT)
+                        .build()))
+                .region(Region.of(region.getName()));
+        if (StringUtils.isNotEmpty(profileName)) {
+            s3Builder.credentialsProvider(
+                    software.amazon.awssdk.auth.credentials.ProfileCredentialsProvider.create(profileName));
+        }
         return s3Builder.build();
     }
 
-    private static ClientConfiguration getClientConfiguration(boolean isProxyEnabled) {
+    static ClientConfiguration getClientConfiguration(boolean isProxyEnabled) {
         RetryPolicy retryPolicy = PredefinedRetryPolicies
                 .getDefaultRetryPolicyWithCustomMaxRetries(ConfigStoreConstants.MAX_RETRY_COUNT);
 
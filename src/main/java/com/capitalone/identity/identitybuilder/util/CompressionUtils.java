@@ -0,0 +1,75 @@
+package com.capitalone.identity.identitybuilder.util;
+
+import org.springframework.lang.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Helpers for items stored gzip-compressed. An item is compressed when its name ends with {@link #GZIP_SUFFIX} or
+ * when the store reports a {@link #GZIP_ENCODING} content encoding for it. The suffix is not part of the item's
+ * logical name, see {@link #stripCompressionSuffix(String)}.
+ */
+public class CompressionUtils {
+
+    public static final String GZIP_SUFFIX = ".gz";
+    public static final String GZIP_ENCODING = "gzip";
+
+    private CompressionUtils() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * @return {@code path} without a compression suffix, e.g. {@code a/1.0/process/p.xml} for
+     * {@code a/1.0/process/p.xml.gz}
+     */
+    public static String stripCompressionSuffix(String path) {
+        return isCompressedName(path) ? path.substring(0, path.length() - GZIP_SUFFIX.length()) : path;
+    }
+
+    public static boolean isCompressedName(@Nullable String path) {
+        return path != null && path.endsWith(GZIP_SUFFIX);
+    }
+
+    /**
+     * @param contentEncoding content encoding reported by the store, if any
+     */
+    public static boolean isCompressed(@Nullable String path, @Nullable String contentEncoding) {
+        return isCompressedName(path) || GZIP_ENCODING.equalsIgnoreCase(contentEncoding);
+    }
+
+    public static byte[] compress(byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(32, content.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            // not thrown by in-memory streams
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public static byte[] decompress(byte[] content) throws IOException {
+        try (InputStream in = decompress(new ByteArrayInputStream(content))) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * @return a stream of the decompressed content of {@code compressed}, which is closed with the returned stream
+     */
+    public static InputStream decompress(InputStream compressed) throws IOException {
+        try {
+            return new GZIPInputStream(compressed);
+        } catch (IOException e) {
+            compressed.close();
+            throw e;
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.capitalone.identity.identitybuilder.util;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls that share a key into a single in-flight call. The first caller for a key starts the
+ * call; callers that arrive before it terminates subscribe to the same result instead of starting their own. Once
+ * the call terminates the key is released, so the next caller starts a new call.
+ * <p>
+ * Only use keys that fully identify the result, since every caller waiting on a key receives the same value or
+ * error.
+ *
+ * @param <K> call key
+ * @param <V> call result
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param key  identifies the call
+     * @param call supplies the call to start if none is in flight for {@code key}; invoked lazily on subscription
+     * @return a {@link Mono} that shares the result of the in-flight call for {@code key}
+     */
+    public Mono<V> execute(K key, Supplier<Mono<V>> call) {
+        return Mono.defer(() -> inFlight.computeIfAbsent(key, k -> {
+            AtomicReference<Mono<V>> self = new AtomicReference<>();
+            Mono<V> shared = Mono.defer(call)
+                    .doFinally(signal -> inFlight.remove(k, self.get()))
+                    .cache();
+            self.set(shared);
+            return shared;
+        }));
+    }
+
+    /**
+     * @return number of keys with a call in flight
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+}
@@ -31,6 +31,7 @@ class ConfigStoreClientImplTest {
         assertNotNull(info);
         Entity entityStored = client.getEntity(info);
         assertEquals(info, entityStored.getInfo());
+        assertEquals(entityStored, client.getEntityAsync(info).block());
         assertEquals(4, info.getItemInfo().size());
         assertEquals(1, info.getFilteredItemNames().size());
 
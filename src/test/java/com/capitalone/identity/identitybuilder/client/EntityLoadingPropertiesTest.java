@@ -0,0 +1,23 @@
+package com.capitalone.identity.identitybuilder.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EntityLoadingPropertiesTest {
+
+    @Test
+    void construct_ok() {
+        EntityLoadingProperties properties = new EntityLoadingProperties(32, 8);
+        assertEquals(32, properties.getMaxConcurrentFetches());
+        assertEquals(8, properties.getMaxConcurrentFetchesPerEntity());
+    }
+
+    @Test
+    void construct_invalid() {
+        assertThrows(IllegalArgumentException.class, () -> new EntityLoadingProperties(0, 8));
+        assertThrows(IllegalArgumentException.class, () -> new EntityLoadingProperties(32, 0));
+    }
+
+}
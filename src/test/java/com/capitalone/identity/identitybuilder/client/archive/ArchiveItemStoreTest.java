@@ -0,0 +1,144 @@
+package com.capitalone.identity.identitybuilder.client.archive;
+
+import com.capitalone.identity.identitybuilder.client.s3.FakeAmazonS3;
+import com.capitalone.identity.identitybuilder.client.s3.S3ItemStore;
+import com.capitalone.identity.identitybuilder.model.ConfigStoreItemInfo;
+import com.capitalone.identity.identitybuilder.util.CompressionUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchiveItemStoreTest {
+
+    private final FakeAmazonS3 s3 = new FakeAmazonS3();
+    private final S3ItemStore s3Store = new S3ItemStore(s3, "bucket");
+
+    @Test
+    void snapshotOfStore(@TempDir Path directory) throws IOException {
+        s3.putObject("b/1.json", "two");
+        s3.putObject("a/2.json", "one".repeat(100));
+        s3.putObject("a/1.json", "");
+        Path file = directory.resolve("snapshot.zip");
+        assertEquals(3, new ArchiveItemWriter(s3Store).write(file));
+
+        ArchiveItemStore store = new ArchiveItemStore(file);
+        List<ConfigStoreItemInfo> infos = s3Store.getStoredItemInfo().collectList().block();
+        assertEquals(3, store.size());
+        assertEquals(infos, store.getStoredItemInfo().collectList().block());
+        assertEquals(infos.subList(0, 2), store.getStoredItemInfo("a/").collectList().block());
+        assertEquals(List.of(), store.getStoredItemInfo("c/").collectList().block());
+        assertEquals(Optional.of(infos.get(2)), store.getSingleStoredItemInfo("b/1.json"));
+        assertEquals(Optional.empty(), store.getSingleStoredItemInfo("b/2.json"));
+
+        for (ConfigStoreItemInfo info : infos) {
+            assertEquals(s3Store.getItem(info).getContent(), store.getItem(info).getContent());
+            try (InputStream stream = store.getItemStream(info)) {
+                assertArrayEquals(s3Store.getItem(info).getContentBytes(), stream.readAllBytes());
+            }
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> store.getItem(new ConfigStoreItemInfo("b/1.json", "other")));
+        assertThrows(IllegalArgumentException.class,
+                () -> store.getItem(new ConfigStoreItemInfo("b/2.json", infos.get(2).getTag())));
+    }
+
+    @Test
+    void open(@TempDir Path directory) throws IOException {
+        s3.putObject("a/1.json", "one");
+        Path file = directory.resolve("snapshot.zip");
+        new ArchiveItemWriter(s3Store).write(file);
+
+        assertEquals(1, ArchiveItemStore.open(file.toString()).size());
+        assertEquals(1, ArchiveItemStore.open(file.toUri().toString()).size());
+        assertThrows(IllegalArgumentException.class,
+                () -> ArchiveItemStore.open(directory.resolve("missing.zip").toString()));
+    }
+
+    @Test
+    void archiveWithoutTags() throws IOException {
+        byte[] process = "<process>".repeat(100).getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("a/"));
+            zip.putNextEntry(new ZipEntry("a/p.xml.gz"));
+            zip.write(CompressionUtils.compress(process));
+            zip.putNextEntry(storedEntry("a/1.json", "one".getBytes(StandardCharsets.UTF_8)));
+            zip.write("one".getBytes(StandardCharsets.UTF_8));
+            zip.setComment("archive comment");
+        }
+
+        ArchiveItemStore store = new ArchiveItemStore(ByteBuffer.wrap(out.toByteArray()));
+        CRC32 crc = new CRC32();
+        crc.update("one".getBytes(StandardCharsets.UTF_8));
+        ConfigStoreItemInfo json = new ConfigStoreItemInfo("a/1.json", String.format("%08x-3", crc.getValue()));
+        ConfigStoreItemInfo gz = store.getSingleStoredItemInfo("a/p.xml.gz").orElseThrow(AssertionError::new);
+        assertEquals(List.of(json, gz), store.getStoredItemInfo().collectList().block());
+        assertEquals("one", store.getItem(json).getContent());
+        assertArrayEquals(process, store.getItem(gz).getContentBytes());
+        try (InputStream stream = store.getItemStream(gz)) {
+            assertArrayEquals(process, stream.readAllBytes());
+        }
+    }
+
+    @Test
+    void invalidArchive() {
+        byte[] content = "not a zip".repeat(10).getBytes(StandardCharsets.UTF_8);
+        assertThrows(ZipException.class, () -> new ArchiveItemStore(ByteBuffer.wrap(content)));
+    }
+
+    @Test
+    void corruptEntry(@TempDir Path directory) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(storedEntry("a/1.json", "one".getBytes(StandardCharsets.UTF_8)));
+            zip.write("one".getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] content = out.toByteArray();
+        int data = indexOf(content, "one".getBytes(StandardCharsets.UTF_8));
+        content[data] = 'x';
+        Path file = Files.write(directory.resolve("corrupt.zip"), content);
+
+        ArchiveItemStore store = new ArchiveItemStore(file);
+        ConfigStoreItemInfo info = store.getSingleStoredItemInfo("a/1.json").orElseThrow(AssertionError::new);
+        assertThrows(ZipException.class, () -> store.getItem(info));
+    }
+
+    private static ZipEntry storedEntry(String name, byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(content.length);
+        entry.setCrc(crc.getValue());
+        return entry;
+    }
+
+    private static int indexOf(byte[] content, byte[] part) {
+        outer:
+        for (int i = 0; i <= content.length - part.length; i++) {
+            for (int j = 0; j < part.length; j++) {
+                if (content[i + j] != part[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        throw new AssertionError("not found");
+    }
+
+}
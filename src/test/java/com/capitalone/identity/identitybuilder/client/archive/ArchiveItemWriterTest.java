@@ -0,0 +1,51 @@
+package com.capitalone.identity.identitybuilder.client.archive;
+
+import com.capitalone.identity.identitybuilder.client.local.LocalDebugItemStore;
+import com.capitalone.identity.identitybuilder.model.ConfigStoreItemInfo;
+import com.capitalone.identity.identitybuilder.util.CompressionUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchiveItemWriterTest {
+
+    @Test
+    void write_compressedItemsKeepTheirName(@TempDir Path directory) throws IOException {
+        Path source = Files.createDirectory(directory.resolve("source"));
+        Path target = Files.createDirectory(directory.resolve("target"));
+        String process = "<process>".repeat(100);
+        Files.write(source.resolve("p.xml.gz"), CompressionUtils.compress(process.getBytes(StandardCharsets.UTF_8)));
+        Files.writeString(source.resolve("q.json"), "{}");
+        LocalDebugItemStore sourceStore = new LocalDebugItemStore(source.toString());
+        Path file = target.resolve("snapshot.zip");
+
+        assertEquals(2, new ArchiveItemWriter(sourceStore).write(file));
+        ArchiveItemStore store = new ArchiveItemStore(file);
+        List<ConfigStoreItemInfo> infos = sourceStore.getStoredItemInfo().collectList().block();
+        assertEquals(infos, store.getStoredItemInfo().collectList().block());
+        assertEquals(process, store.getItem(infos.get(0)).getContent());
+        assertEquals("{}", store.getItem(infos.get(1)).getContent());
+    }
+
+    @Test
+    void write_replacesTarget(@TempDir Path directory) throws IOException {
+        Path source = Files.createDirectory(directory.resolve("source"));
+        Path target = Files.createDirectory(directory.resolve("target"));
+        Files.writeString(source.resolve("q.json"), "{}");
+        Path file = Files.writeString(target.resolve("snapshot.zip"), "old");
+
+        new ArchiveItemWriter(new LocalDebugItemStore(source.toString())).write(file);
+        assertEquals(1, new ArchiveItemStore(file).size());
+        try (var files = Files.list(target)) {
+            assertEquals(List.of(file), files.toList());
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.capitalone.identity.identitybuilder.client.archive;
+
+import com.capitalone.identity.identitybuilder.client.s3.FakeAmazonS3;
+import com.capitalone.identity.identitybuilder.client.s3.S3ItemStore;
+import com.capitalone.identity.identitybuilder.model.ConfigStoreItemInfo;
+import com.capitalone.identity.identitybuilder.model.ScanRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotItemStoreTest {
+
+    private final FakeAmazonS3 s3 = new FakeAmazonS3();
+    private final S3ItemStore s3Store = new S3ItemStore(s3, "bucket");
+    private SnapshotItemStore store;
+    private List<ConfigStoreItemInfo> snapshotInfos;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        s3.putObject("a/1.json", "one");
+        s3.putObject("b/1.json", "two");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ArchiveItemWriter(s3Store).write(out);
+        ArchiveItemStore archive = new ArchiveItemStore(ByteBuffer.wrap(out.toByteArray()));
+        snapshotInfos = archive.getStoredItemInfo().collectList().block();
+        store = new SnapshotItemStore(archive, s3Store);
+        s3.resetRequestCounts();
+    }
+
+    @Test
+    void servedFromSnapshotBeforeSwitch() throws IOException {
+        s3.putObject("b/1.json", "changed");
+
+        assertFalse(store.isLive());
+        assertEquals(snapshotInfos, store.getStoredItemInfo().collectList().block());
+        assertEquals(snapshotInfos.subList(1, 2), store.getStoredItemInfo("b/").collectList().block());
+        assertEquals("two", store.getItem(snapshotInfos.get(1)).getContent());
+        assertEquals(Optional.of(snapshotInfos.get(0)), store.getSingleStoredItemInfo("a/1.json"));
+        assertEquals(0, s3.getRequestCount(FakeAmazonS3.LIST));
+        assertEquals(0, s3.getRequestCount(FakeAmazonS3.GET));
+    }
+
+    @Test
+    void missingLookupFallsBackToLiveStore() {
+        s3.putObject("c/metadata.json", "{}");
+        assertTrue(store.getSingleStoredItemInfo("c/metadata.json").isPresent());
+        assertFalse(store.isLive());
+    }
+
+    @Test
+    void switchOnScan() throws IOException {
+        ConfigStoreItemInfo changed = new ConfigStoreItemInfo("b/1.json", s3.putObject("b/1.json", "changed"));
+        ScanRequest polled = new ScanRequest(1);
+
+        List<ScanRequest> requests = store.switchOnScan(() -> Flux.just(polled)).getScanRequests()
+                .collectList().block(Duration.ofSeconds(5));
+        assertEquals(2, requests.size());
+        assertFalse(requests.get(0).isPartial());
+        assertSame(polled, requests.get(1));
+        assertTrue(store.isLive());
+
+        assertEquals(List.of(snapshotInfos.get(0), changed), store.getStoredItemInfo().collectList().block());
+        assertEquals(1, s3.getRequestCount(FakeAmazonS3.LIST));
+        // unchanged items are still read from the snapshot
+        assertEquals("one", store.getItem(snapshotInfos.get(0)).getContent());
+        assertEquals(0, s3.getRequestCount(FakeAmazonS3.GET));
+        assertEquals("changed", store.getItem(changed).getContent());
+        assertEquals(1, s3.getRequestCount(FakeAmazonS3.GET));
+    }
+
+}
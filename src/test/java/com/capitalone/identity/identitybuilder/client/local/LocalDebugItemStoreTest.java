@@ -1,14 +1,21 @@
 package com.capitalone.identity.identitybuilder.client.local;
 
 import com.capitalone.identity.identitybuilder.model.ConfigStoreItemInfo;
+import com.capitalone.identity.identitybuilder.util.CompressionUtils;
+import com.capitalone.identity.identitybuilder.util.StringUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.Set;
-import java.util.UUID;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
 
 import static org.apache.logging.log4j.core.util.Loader.getClassLoader;
 import static org.junit.jupiter.api.Assertions.*;
@@ -54,4 +61,87 @@ class LocalDebugItemStoreTest {
         assertFalse(info.isPresent());
     }
 
+    @Test
+    void getItemStream() throws IOException {
+        for (ConfigStoreItemInfo info : store.getAllItemInfo()) {
+            try (InputStream stream = store.getItemStream(info)) {
+                assertArrayEquals(store.getItem(info).getContentBytes(), stream.readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    void getItem_compressed(@TempDir Path directory) throws IOException {
+        String content = "<process>".repeat(100);
+        Path file = directory.resolve("p.xml.gz");
+        Files.write(file, CompressionUtils.compress(content.getBytes(StandardCharsets.UTF_8)));
+        LocalDebugItemStore compressedStore = new LocalDebugItemStore(directory.toString());
+
+        ConfigStoreItemInfo info = compressedStore.getSingleStoredItemInfo(file.toString())
+                .orElseThrow(AssertionError::new);
+        assertEquals(content, compressedStore.getItem(info).getContent());
+        try (InputStream stream = compressedStore.getItemStream(info)) {
+            assertEquals(content, new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void getStoredItemInfo_hashesOnlyChangedFiles(@TempDir Path directory) throws IOException {
+        Path a = writeOld(directory.resolve("a/1.json"), "one", Duration.ofHours(1));
+        writeOld(directory.resolve("b/1.json"), "two", Duration.ofHours(1));
+        writeOld(directory.resolve("b/2.json"), "three", Duration.ofHours(1));
+        LocalDebugItemStore localStore = new LocalDebugItemStore(directory.toString());
+
+        List<ConfigStoreItemInfo> infos = localStore.getStoredItemInfo().collectList().block();
+        assertEquals(List.of(
+                new ConfigStoreItemInfo(a.toString(), StringUtils.getContentHash("one")),
+                new ConfigStoreItemInfo(directory.resolve("b/1.json").toString(), StringUtils.getContentHash("two")),
+                new ConfigStoreItemInfo(directory.resolve("b/2.json").toString(), StringUtils.getContentHash("three"))),
+                infos);
+        assertEquals(3, localStore.getHashCount());
+
+        assertEquals(infos, localStore.getStoredItemInfo().collectList().block());
+        assertEquals(Optional.of(infos.get(0)), localStore.getSingleStoredItemInfo(a.toString()));
+        assertEquals(3, localStore.getHashCount());
+
+        writeOld(a, "uno", Duration.ofMinutes(30));
+        Files.delete(directory.resolve("b/2.json"));
+        assertEquals(Set.of(
+                new ConfigStoreItemInfo(a.toString(), StringUtils.getContentHash("uno")),
+                infos.get(1)), localStore.getAllItemInfo());
+        assertEquals(4, localStore.getHashCount());
+    }
+
+    @Test
+    void getStoredItemInfo_recentlyModifiedFileHashedAgain(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("1.json");
+        Files.writeString(file, "one");
+        LocalDebugItemStore localStore = new LocalDebugItemStore(directory.toString());
+
+        localStore.getAllItemInfo();
+        localStore.getAllItemInfo();
+        assertEquals(2, localStore.getHashCount());
+
+        // same size and, on coarse file systems, the same modification time
+        Files.writeString(file, "two");
+        assertEquals(Set.of(new ConfigStoreItemInfo(file.toString(), StringUtils.getContentHash("two"))),
+                localStore.getAllItemInfo());
+    }
+
+    @Test
+    void getItemInfo_directory(@TempDir Path directory) throws IOException {
+        Path file = writeOld(directory.resolve("a/1.json"), "one", Duration.ofHours(1));
+        LocalDebugItemStore localStore = new LocalDebugItemStore(directory.toString());
+
+        assertEquals(Optional.of(new ConfigStoreItemInfo(file.toString(), StringUtils.getContentHash("one"))),
+                localStore.getSingleStoredItemInfo(directory.resolve("a").toString()));
+    }
+
+    private static Path writeOld(Path file, String content, Duration age) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(age)));
+        return file;
+    }
+
 }
@@ -0,0 +1,40 @@
+package com.capitalone.identity.identitybuilder.client.local;
+
+import com.capitalone.identity.identitybuilder.polling.ScanRequester;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalDebugWatchPropertiesTest {
+
+    private final ScanRequester polling = Flux::never;
+
+    @Test
+    void construct_defaults(@TempDir Path directory) {
+        LocalDebugWatchProperties properties = new LocalDebugWatchProperties(false, null);
+        assertFalse(properties.isEnabled());
+        assertEquals(LocalDirectoryWatchScanRequester.DEFAULT_DEBOUNCE, properties.getDebounce());
+        assertSame(polling, properties.apply(polling, directory.toString()));
+    }
+
+    @Test
+    void construct_enabled(@TempDir Path directory) {
+        LocalDebugWatchProperties properties = new LocalDebugWatchProperties(true, "PT1S");
+        assertTrue(properties.isEnabled());
+        assertEquals(Duration.ofSeconds(1), properties.getDebounce());
+        assertTrue(properties.apply(polling, directory.toString()) instanceof LocalDirectoryWatchScanRequester);
+        assertSame(polling, properties.apply(polling, directory.resolve("missing").toString()));
+    }
+
+    @Test
+    void construct_invalid() {
+        assertThrows(IllegalArgumentException.class, () -> new LocalDebugWatchProperties(true, "1s"));
+        assertThrows(IllegalArgumentException.class, () -> new LocalDebugWatchProperties(true, "PT-1S"));
+    }
+
+}
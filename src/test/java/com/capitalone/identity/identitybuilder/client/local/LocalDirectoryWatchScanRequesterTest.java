@@ -0,0 +1,79 @@
+package com.capitalone.identity.identitybuilder.client.local;
+
+import com.capitalone.identity.identitybuilder.model.ScanRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalDirectoryWatchScanRequesterTest {
+
+    private static final Duration DEBOUNCE = Duration.ofMillis(50);
+
+    @Test
+    void construct_invalid(@TempDir Path directory) {
+        assertThrows(IllegalArgumentException.class,
+                () -> new LocalDirectoryWatchScanRequester(directory, Flux::never, Duration.ofMillis(-1)));
+        assertThrows(NullPointerException.class,
+                () -> new LocalDirectoryWatchScanRequester(null, Flux::never, DEBOUNCE));
+    }
+
+    @Test
+    void getScanRequests_delegatePassedThrough(@TempDir Path directory) {
+        ScanRequest request = new ScanRequest(1);
+        LocalDirectoryWatchScanRequester requester = new LocalDirectoryWatchScanRequester(directory,
+                () -> Flux.just(request), DEBOUNCE);
+        assertSame(request, requester.getScanRequests().blockFirst(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void getScanRequests_fileChangesRequestScan(@TempDir Path directory) throws Exception {
+        BlockingQueue<ScanRequest> requests = new LinkedBlockingQueue<>();
+        LocalDirectoryWatchScanRequester requester = new LocalDirectoryWatchScanRequester(directory,
+                Flux::never, DEBOUNCE);
+        Disposable subscription = requester.getScanRequests().subscribe(requests::add);
+        try {
+            for (int i = 0; i < 10; i++) {
+                Files.writeString(directory.resolve(i + ".json"), "{}");
+            }
+            ScanRequest request = requests.poll(10, TimeUnit.SECONDS);
+            assertNotNull(request);
+            assertFalse(request.isPartial());
+
+            // files in directories created after subscribing are watched too
+            Path nested = Files.createDirectories(directory.resolve("a"));
+            awaitQuiet(requests);
+            Files.writeString(nested.resolve("1.json"), "{}");
+            assertNotNull(requests.poll(10, TimeUnit.SECONDS));
+        } finally {
+            subscription.dispose();
+        }
+    }
+
+    @Test
+    void getFileEvents_missingDirectoryCompletes(@TempDir Path directory) {
+        LocalDirectoryWatchScanRequester requester = new LocalDirectoryWatchScanRequester(
+                directory.resolve("missing"), Flux::never, DEBOUNCE);
+        assertNull(requester.getFileEvents().blockFirst(Duration.ofSeconds(5)));
+    }
+
+    /**
+     * Wait until the requests of earlier events were emitted
+     */
+    private static void awaitQuiet(BlockingQueue<ScanRequest> requests) throws InterruptedException {
+        while (requests.poll(DEBOUNCE.toMillis() * 4, TimeUnit.MILLISECONDS) != null) {
+            // drain
+        }
+    }
+
+}
@@ -0,0 +1,278 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.retry.RetryPolicy;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    private AdaptiveConcurrencyLimiter newLimiter(int initial, int min, int max) {
+        return new AdaptiveConcurrencyLimiter(initial, min, max, Duration.ZERO, Duration.ZERO, nanoTime::get);
+    }
+
+    /**
+     * @return a request that takes {@code latency} on the fake clock
+     */
+    private <T> T timed(long latency, T result) {
+        nanoTime.addAndGet(latency);
+        return result;
+    }
+
+    private static AmazonS3Exception newException(int statusCode, String errorCode) {
+        AmazonS3Exception exception = new AmazonS3Exception(errorCode);
+        exception.setStatusCode(statusCode);
+        exception.setErrorCode(errorCode);
+        return exception;
+    }
+
+    @Test
+    void construct_invalid() {
+        Duration wait = Duration.ZERO;
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(1, 0, 1, wait));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(2, 2, 1, wait));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(1, 2, 4, wait));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(5, 2, 4, wait));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdaptiveConcurrencyLimiter(2, 1, 4, Duration.ofSeconds(-1)));
+    }
+
+    @Test
+    void execute_throttledRequestRetried() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(16, 1, 64);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = limiter.execute(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw newException(503, "SlowDown");
+            }
+            return timed(10, "ok");
+        });
+
+        assertEquals("ok", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2, limiter.getThrottleCount());
+        assertTrue(limiter.getLimit() <= 8, "limit: " + limiter.getLimit());
+        assertEquals(0, limiter.getInFlightCount());
+    }
+
+    @Test
+    void execute_throttledRetriesExhausted() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(16, 1, 64);
+        AtomicInteger attempts = new AtomicInteger();
+
+        AmazonS3Exception e = assertThrows(AmazonS3Exception.class, () -> limiter.execute(() -> {
+            attempts.incrementAndGet();
+            nanoTime.incrementAndGet();
+            throw newException(503, "SlowDown");
+        }));
+
+        assertEquals("SlowDown", e.getErrorCode());
+        assertEquals(AdaptiveConcurrencyLimiter.MAX_THROTTLE_RETRIES + 1, attempts.get());
+        assertEquals(AdaptiveConcurrencyLimiter.MAX_THROTTLE_RETRIES + 1, limiter.getThrottleCount());
+        assertEquals(1, limiter.getLimit());
+        assertEquals(0, limiter.getInFlightCount());
+    }
+
+    @Test
+    void execute_otherErrorsNotRetried() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(16, 1, 64);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(AmazonS3Exception.class, () -> limiter.execute(() -> {
+            attempts.incrementAndGet();
+            throw newException(404, "NoSuchKey");
+        }));
+        assertThrows(IllegalStateException.class, () -> limiter.execute(() -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException();
+        }));
+
+        assertEquals(2, attempts.get());
+        assertEquals(0, limiter.getThrottleCount());
+        assertEquals(16, limiter.getLimit());
+        assertEquals(0, limiter.getInFlightCount());
+    }
+
+    @Test
+    void execute_concurrentThrottlingDecreasesOnce() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(16, 1, 64, Duration.ofSeconds(5),
+                Duration.ZERO, nanoTime::get);
+        CountDownLatch started = new CountDownLatch(4);
+        CountDownLatch throttle = new CountDownLatch(1);
+        AtomicInteger attempts = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] futures = new Future<?>[4];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(() -> limiter.execute(() -> {
+                    if (attempts.incrementAndGet() <= 4) {
+                        started.countDown();
+                        awaitQuietly(throttle);
+                        throw newException(503, "SlowDown");
+                    }
+                    return "ok";
+                }));
+            }
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            nanoTime.addAndGet(10);
+            throttle.countDown();
+            for (Future<?> future : futures) {
+                assertEquals("ok", future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // all four requests started before the first decrease, so the burst halves the limit only once
+        assertEquals(4, limiter.getThrottleCount());
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    void execute_latencySpikeDecreasesLimit() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(10, 1, 64);
+        for (int i = 0; i < 5; i++) {
+            limiter.execute(() -> timed(100, "ok"));
+        }
+        assertEquals(10, limiter.getLimit());
+
+        limiter.execute(() -> timed(1000, "slow"));
+
+        assertEquals(9, limiter.getLimit());
+        assertEquals(0, limiter.getThrottleCount());
+    }
+
+    @Test
+    void execute_latencyMeasuredPerOperation() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(10, 1, 64);
+        for (int i = 0; i < 5; i++) {
+            limiter.execute(AdaptiveConcurrencyLimiter.Operation.GET, () -> timed(100, "ok"));
+        }
+
+        // listing pages are slower than small GETs without any degradation
+        for (int i = 0; i < 5; i++) {
+            limiter.execute(AdaptiveConcurrencyLimiter.Operation.LIST, () -> timed(1000, "page"));
+            limiter.execute(AdaptiveConcurrencyLimiter.Operation.GET, () -> timed(100, "ok"));
+        }
+        assertEquals(10, limiter.getLimit());
+
+        limiter.execute(AdaptiveConcurrencyLimiter.Operation.LIST, () -> timed(5000, "slow page"));
+        assertEquals(9, limiter.getLimit());
+    }
+
+    @Test
+    void execute_healthyRequestsIncreaseLimitWhileInUse() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(2, 1, 3);
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 10; round++) {
+                Future<?> a = executor.submit(() -> limiter.execute(() -> awaitQuietly(barrier)));
+                Future<?> b = executor.submit(() -> limiter.execute(() -> awaitQuietly(barrier)));
+                a.get(5, TimeUnit.SECONDS);
+                b.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(3, limiter.getLimit());
+    }
+
+    @Test
+    void execute_idleRequestsDoNotIncreaseLimit() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(4, 1, 64);
+        for (int i = 0; i < 100; i++) {
+            limiter.execute(() -> timed(100, "ok"));
+        }
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void execute_rejectedWhenNoPermitAvailable() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(1, 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> blocking = executor.submit(() -> limiter.execute(() -> {
+                started.countDown();
+                awaitQuietly(release);
+                return "ok";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertThrows(RejectedExecutionException.class, () -> limiter.execute(() -> "rejected"));
+            assertEquals(1, limiter.getRejectionCount());
+            assertEquals(1, limiter.getInFlightCount());
+
+            release.countDown();
+            assertEquals("ok", blocking.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals("ok", limiter.execute(() -> "ok"));
+    }
+
+    @Test
+    void isThrottled() {
+        assertTrue(AdaptiveConcurrencyLimiter.isThrottled(newException(503, "SlowDown")));
+        assertTrue(AdaptiveConcurrencyLimiter.isThrottled(newException(503, "ServiceUnavailable")));
+        assertTrue(AdaptiveConcurrencyLimiter.isThrottled(newException(429, "TooManyRequests")));
+        assertFalse(AdaptiveConcurrencyLimiter.isThrottled(newException(404, "NoSuchKey")));
+        assertFalse(AdaptiveConcurrencyLimiter.isThrottled(newException(500, "InternalError")));
+    }
+
+    @Test
+    void execute_permitHeldUntilReleased() {
+        AdaptiveConcurrencyLimiter limiter = newLimiter(1, 1, 1);
+        AtomicReference<Runnable> release = new AtomicReference<>();
+
+        assertEquals("ok", limiter.execute(AdaptiveConcurrencyLimiter.Operation.GET, () -> "ok", (result, onRelease) -> {
+            release.set(onRelease);
+            return result;
+        }));
+        assertEquals(1, limiter.getInFlightCount());
+        assertThrows(RejectedExecutionException.class, () -> limiter.execute(() -> "rejected"));
+
+        release.get().run();
+        release.get().run();
+        assertEquals(0, limiter.getInFlightCount());
+        assertEquals("ok", limiter.execute(() -> "ok"));
+    }
+
+    @Test
+    void newClientRetryPolicy_throttledRequestsNotRetried() {
+        RetryPolicy.RetryCondition condition = AdaptiveConcurrencyLimiter.newClientRetryPolicy(3).getRetryCondition();
+        AmazonWebServiceRequest request = AmazonWebServiceRequest.NOOP;
+
+        assertFalse(condition.shouldRetry(request, newException(503, "SlowDown"), 0));
+        assertFalse(condition.shouldRetry(request, newException(400, "Throttling"), 0));
+        assertTrue(condition.shouldRetry(request, newException(500, "InternalError"), 0));
+        assertEquals(3, AdaptiveConcurrencyLimiter.newClientRetryPolicy(3).getMaxErrorRetry());
+    }
+
+    private static Object awaitQuietly(Object latchOrBarrier) {
+        try {
+            if (latchOrBarrier instanceof CountDownLatch) {
+                assertTrue(((CountDownLatch) latchOrBarrier).await(5, TimeUnit.SECONDS));
+            } else {
+                ((CyclicBarrier) latchOrBarrier).await(5, TimeUnit.SECONDS);
+            }
+            return "ok";
+        } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
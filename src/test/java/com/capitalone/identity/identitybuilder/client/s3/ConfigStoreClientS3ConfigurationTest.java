@@ -3,6 +3,10 @@ package com.capitalone.identity.identitybuilder.client.s3;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.s3.AmazonS3;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -23,6 +27,70 @@ class ConfigStoreClientS3ConfigurationTest {
         assertFalse(config.getAwsProxyEnabled());
         assertNotNull(config.getAwsClient());
         assertNull(config.getAwsCredentialProfileName());
+        assertEquals(S3ItemStore.DEFAULT_LISTING_PARALLELISM, config.getListingParallelism());
+        assertNull(config.getContentCacheDirectory());
+        assertEquals(ItemContentCache.DEFAULT_MAX_SIZE_BYTES, config.getContentCacheMaxSizeBytes());
+        assertNull(config.getContentCache());
+        assertEquals(S3ItemStore.DEFAULT_LOOKUP_CACHE_TTL, config.getLookupCacheTtl());
+        assertNull(config.getIndexKey());
+        assertEquals(S3ItemStore.DEFAULT_INDEX_MAX_AGE, config.getIndexMaxAge());
+        assertFalse(config.getRequestLimitEnabled());
+        assertNull(config.getRequestLimiter());
+    }
+
+    @Test
+    void testBuild_requestLimiter() {
+        ConfigStoreClientS3Configuration config = new ConfigStoreClientS3Configuration("test");
+        config.setRequestLimitEnabled(true);
+        config.setRequestLimitInitial(4);
+        config.setRequestLimitMin(2);
+        config.setRequestLimitMax(8);
+
+        AdaptiveConcurrencyLimiter limiter = config.getRequestLimiter();
+        assertNotNull(limiter);
+        assertEquals(4, limiter.getLimit());
+        assertSame(limiter, config.getRequestLimiter());
+    }
+
+    @Test
+    void testBuild_sharedContentCache(@TempDir Path directory) {
+        ConfigStoreClientS3Configuration primary = new ConfigStoreClientS3Configuration("test");
+        primary.setContentCacheDirectory(directory.toString());
+        ConfigStoreClientS3Configuration failover = new ConfigStoreClientS3Configuration("test");
+        failover.setContentCacheDirectory(directory.toString());
+
+        failover.shareContentCache(primary);
+
+        assertNotNull(primary.getContentCache());
+        assertSame(primary.getContentCache(), failover.getContentCache());
+    }
+
+    @Test
+    void newItemStore_asyncClientRejectsUnsupportedOptions() {
+        ConfigStoreClientS3Configuration config = new ConfigStoreClientS3Configuration("test");
+        config.setAsyncClientEnabled(true);
+        config.setIndexKey("index.json");
+        config.setHedgingEnabled(true);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, config::newItemStore);
+
+        assertEquals(List.of("indexKey", "hedgingEnabled"), config.getAsyncUnsupportedOptions());
+        assertTrue(e.getMessage().contains("indexKey"), e.getMessage());
+        config.setAsyncClientEnabled(false);
+        assertInstanceOf(S3ItemStore.class, config.newItemStore());
+    }
+
+    @Test
+    void newItemStore_asyncClientSharedContentCacheUnsupported(@TempDir Path directory) {
+        ConfigStoreClientS3Configuration primary = new ConfigStoreClientS3Configuration("test");
+        primary.setContentCacheDirectory(directory.toString());
+        ConfigStoreClientS3Configuration failover = new ConfigStoreClientS3Configuration("test");
+        failover.setAsyncClientEnabled(true);
+
+        failover.shareContentCache(primary);
+
+        assertEquals(List.of("contentCacheDirectory"), failover.getAsyncUnsupportedOptions());
+        assertThrows(IllegalStateException.class, failover::newItemStore);
     }
 
     @Test
@@ -31,11 +99,13 @@ class ConfigStoreClientS3ConfigurationTest {
         config.setRegion(Regions.US_WEST_2);
         config.setAwsProxyEnabled(true);
         config.setAwsCredentialProfileName("CI_PROFILE");
+        config.setListingParallelism(16);
 
         assertEquals("test", config.getBucketName());
         assertEquals(Regions.US_WEST_2, config.getRegion());
         assertTrue(config.getAwsProxyEnabled());
         assertEquals("CI_PROFILE", config.getAwsCredentialProfileName());
+        assertEquals(16, config.getListingParallelism());
         assertNotNull(config.getAwsClient());
     }
 
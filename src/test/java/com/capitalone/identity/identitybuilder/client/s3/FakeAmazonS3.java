@@ -0,0 +1,385 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.*;
+import com.capitalone.identity.identitybuilder.util.StringUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory {@link com.amazonaws.services.s3.AmazonS3} that supports the subset of operations used by
+ * {@link S3ItemStore}. Keys are kept in lexicographic order to mirror S3 listing behavior and request counts
+ * are recorded per operation so tests can assert on round trips. Every put and delete is also kept as an object
+ * version, as in a bucket with versioning enabled.
+ */
+public class FakeAmazonS3 extends AbstractAmazonS3 {
+
+    public static final String LIST = "LIST";
+    public static final String GET = "GET";
+    public static final String HEAD = "HEAD";
+    public static final String LIST_VERSIONS = "LIST_VERSIONS";
+
+    private final Map<String, byte[]> objects = new ConcurrentSkipListMap<>();
+    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+    private final Map<String, String> contentEncodings = new ConcurrentHashMap<>();
+    private final Map<String, List<Version>> versions = new ConcurrentSkipListMap<>();
+    private final AtomicInteger versionCounter = new AtomicInteger();
+    private final AtomicInteger throttledRequests = new AtomicInteger();
+
+    public String putObject(String key, String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        objects.put(key, bytes);
+        contentEncodings.remove(key);
+        addVersion(key, bytes, null);
+        return getETag(bytes);
+    }
+
+    public void deleteObject(String key) {
+        objects.remove(key);
+        contentEncodings.remove(key);
+        addVersion(key, null, null);
+    }
+
+    /**
+     * @return id of the current version of an object, or null if it does not exist
+     */
+    public String getVersionId(String key) {
+        List<Version> keyVersions = versions.get(key);
+        Version latest = keyVersions == null ? null : keyVersions.get(0);
+        return latest == null || latest.content == null ? null : latest.versionId;
+    }
+
+    /**
+     * @return stored bytes of an object, or null if it does not exist
+     */
+    public byte[] getObjectBytes(String key) {
+        return objects.get(key);
+    }
+
+    public int getRequestCount(String operation) {
+        return Optional.ofNullable(requestCounts.get(operation)).map(AtomicInteger::get).orElse(0);
+    }
+
+    public void resetRequestCounts() {
+        requestCounts.clear();
+    }
+
+    /**
+     * Fail the next {@code count} requests of any operation with a 503 SlowDown error, as S3 does when a prefix
+     * receives more requests than it can serve. Throttled requests are still counted.
+     */
+    public void throttleNextRequests(int count) {
+        throttledRequests.set(count);
+    }
+
+    @Override
+    public PutObjectResult putObject(String bucketName, String key, String content) {
+        PutObjectResult result = new PutObjectResult();
+        result.setETag(putObject(key, content));
+        return result;
+    }
+
+    @Override
+    public PutObjectResult putObject(PutObjectRequest request) {
+        byte[] bytes;
+        try {
+            bytes = request.getInputStream().readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        objects.put(request.getKey(), bytes);
+        String contentEncoding = request.getMetadata() != null ? request.getMetadata().getContentEncoding() : null;
+        if (contentEncoding != null) {
+            contentEncodings.put(request.getKey(), contentEncoding);
+        } else {
+            contentEncodings.remove(request.getKey());
+        }
+        addVersion(request.getKey(), bytes, contentEncoding);
+        PutObjectResult result = new PutObjectResult();
+        result.setETag(getETag(bytes));
+        return result;
+    }
+
+    @Override
+    public ObjectListing listObjects(ListObjectsRequest request) {
+        count(LIST);
+        int maxKeys = Optional.ofNullable(request.getMaxKeys()).orElse(1000);
+        String prefix = Optional.ofNullable(request.getPrefix()).orElse("");
+        String delimiter = request.getDelimiter();
+        String marker = request.getMarker();
+
+        ObjectListing listing = new ObjectListing();
+        listing.setBucketName(request.getBucketName());
+        listing.setPrefix(request.getPrefix());
+        listing.setDelimiter(delimiter);
+        listing.setMarker(marker);
+        listing.setMaxKeys(maxKeys);
+
+        List<String> commonPrefixes = new ArrayList<>();
+        String lastEntry = null;
+        int entries = 0;
+        for (Map.Entry<String, byte[]> object : objects.entrySet()) {
+            String key = object.getKey();
+            if (!key.startsWith(prefix) || (marker != null && key.compareTo(marker) <= 0)) {
+                continue;
+            }
+            int delimiterIndex = delimiter == null ? -1 : key.indexOf(delimiter, prefix.length());
+            String entry = delimiterIndex < 0 ? key : key.substring(0, delimiterIndex + delimiter.length());
+            if (entry.equals(lastEntry) || (marker != null && entry.compareTo(marker) <= 0)) {
+                continue;
+            }
+            if (entries == maxKeys) {
+                listing.setTruncated(true);
+                listing.setNextMarker(lastEntry);
+                break;
+            }
+            if (delimiterIndex < 0) {
+                S3ObjectSummary summary = new S3ObjectSummary();
+                summary.setBucketName(request.getBucketName());
+                summary.setKey(key);
+                summary.setETag(getETag(object.getValue()));
+                summary.setSize(object.getValue().length);
+                listing.getObjectSummaries().add(summary);
+            } else {
+                commonPrefixes.add(entry);
+            }
+            lastEntry = entry;
+            entries++;
+        }
+        listing.setCommonPrefixes(commonPrefixes);
+        return listing;
+    }
+
+    @Override
+    public ObjectListing listNextBatchOfObjects(ObjectListing previousObjectListing) {
+        return listObjects(new ListObjectsRequest()
+                .withBucketName(previousObjectListing.getBucketName())
+                .withPrefix(previousObjectListing.getPrefix())
+                .withDelimiter(previousObjectListing.getDelimiter())
+                .withMarker(previousObjectListing.getNextMarker())
+                .withMaxKeys(previousObjectListing.getMaxKeys()));
+    }
+
+    /**
+     * Lists versions newest first within each key, with keys in lexicographic order. With a delimiter, keys that
+     * contain it after the prefix are rolled up into common prefixes, which count as one result each. Pages end after
+     * {@code maxResults} results and continue from the key and version id markers, or after the common prefix that
+     * ended the previous page.
+     */
+    @Override
+    public VersionListing listVersions(ListVersionsRequest request) {
+        count(LIST_VERSIONS);
+        int maxResults = Optional.ofNullable(request.getMaxResults()).orElse(1000);
+        String prefix = Optional.ofNullable(request.getPrefix()).orElse("");
+        String delimiter = request.getDelimiter();
+        String keyMarker = request.getKeyMarker();
+        boolean prefixMarker = keyMarker != null && request.getVersionIdMarker() == null;
+
+        VersionListing listing = new VersionListing();
+        listing.setBucketName(request.getBucketName());
+        listing.setPrefix(request.getPrefix());
+        listing.setDelimiter(delimiter);
+        listing.setKeyMarker(keyMarker);
+        listing.setVersionIdMarker(request.getVersionIdMarker());
+        listing.setMaxKeys(maxResults);
+
+        // markers are positioned after the last version of the previous page
+        boolean started = keyMarker == null || prefixMarker;
+        String lastKey = null;
+        String lastVersionId = null;
+        int results = 0;
+        for (Map.Entry<String, List<Version>> keyVersions : versions.entrySet()) {
+            String key = keyVersions.getKey();
+            if (!key.startsWith(prefix) || (keyMarker != null && key.compareTo(keyMarker) < 0)
+                    || (prefixMarker && key.startsWith(keyMarker))) {
+                continue;
+            }
+            int delimiterIndex = delimiter == null ? -1 : key.indexOf(delimiter, prefix.length());
+            if (delimiterIndex >= 0) {
+                String commonPrefix = key.substring(0, delimiterIndex + delimiter.length());
+                if (commonPrefix.equals(lastKey) && lastVersionId == null) {
+                    continue;
+                }
+                if (results == maxResults) {
+                    return truncate(listing, lastKey, lastVersionId);
+                }
+                listing.getCommonPrefixes().add(commonPrefix);
+                lastKey = commonPrefix;
+                lastVersionId = null;
+                results++;
+                continue;
+            }
+            List<Version> history = keyVersions.getValue();
+            for (int i = 0; i < history.size(); i++) {
+                Version version = history.get(i);
+                if (!started) {
+                    started = key.equals(keyMarker) && version.versionId.equals(request.getVersionIdMarker());
+                    continue;
+                }
+                if (results == maxResults) {
+                    return truncate(listing, lastKey, lastVersionId);
+                }
+                S3VersionSummary summary = new S3VersionSummary();
+                summary.setBucketName(request.getBucketName());
+                summary.setKey(key);
+                summary.setVersionId(version.versionId);
+                summary.setIsLatest(i == 0);
+                summary.setIsDeleteMarker(version.content == null);
+                if (version.content != null) {
+                    summary.setETag(getETag(version.content));
+                    summary.setSize(version.content.length);
+                }
+                listing.getVersionSummaries().add(summary);
+                lastKey = key;
+                lastVersionId = version.versionId;
+                results++;
+            }
+        }
+        return listing;
+    }
+
+    private static VersionListing truncate(VersionListing listing, String nextKeyMarker, String nextVersionIdMarker) {
+        listing.setTruncated(true);
+        listing.setNextKeyMarker(nextKeyMarker);
+        listing.setNextVersionIdMarker(nextVersionIdMarker);
+        return listing;
+    }
+
+    @Override
+    public VersionListing listNextBatchOfVersions(VersionListing previousVersionListing) {
+        return listVersions(new ListVersionsRequest()
+                .withBucketName(previousVersionListing.getBucketName())
+                .withPrefix(previousVersionListing.getPrefix())
+                .withDelimiter(previousVersionListing.getDelimiter())
+                .withKeyMarker(previousVersionListing.getNextKeyMarker())
+                .withVersionIdMarker(previousVersionListing.getNextVersionIdMarker())
+                .withMaxResults(previousVersionListing.getMaxKeys()));
+    }
+
+    @Override
+    public S3Object getObject(GetObjectRequest request) {
+        count(GET);
+        if (request.getVersionId() != null) {
+            return getObjectVersion(request);
+        }
+        byte[] content = getExisting(request.getKey());
+        String eTag = getETag(content);
+        List<String> matching = request.getMatchingETagConstraints();
+        if (matching != null && !matching.isEmpty() && !matching.contains(eTag)) {
+            return null;
+        }
+        List<String> nonMatching = request.getNonmatchingETagConstraints();
+        if (nonMatching != null && nonMatching.contains(eTag)) {
+            return null;
+        }
+        return toS3Object(request, content, contentEncodings.get(request.getKey()));
+    }
+
+    private S3Object getObjectVersion(GetObjectRequest request) {
+        Version version = versions.getOrDefault(request.getKey(), Collections.emptyList()).stream()
+                .filter(v -> v.versionId.equals(request.getVersionId()) && v.content != null)
+                .findFirst()
+                .orElseThrow(() -> {
+                    AmazonS3Exception exception = new AmazonS3Exception("The specified version does not exist.");
+                    exception.setStatusCode(404);
+                    exception.setErrorCode("NoSuchVersion");
+                    return exception;
+                });
+        List<String> matching = request.getMatchingETagConstraints();
+        if (matching != null && !matching.isEmpty() && !matching.contains(getETag(version.content))) {
+            return null;
+        }
+        return toS3Object(request, version.content, version.contentEncoding);
+    }
+
+    private S3Object toS3Object(GetObjectRequest request, byte[] content, String contentEncoding) {
+        S3Object object = new S3Object();
+        object.setBucketName(request.getBucketName());
+        object.setKey(request.getKey());
+        object.setObjectMetadata(getMetadata(content, contentEncoding));
+        long[] range = request.getRange();
+        if (range != null) {
+            int end = (int) Math.min(content.length - 1, range[1]);
+            object.getObjectMetadata().setContentLength(end - range[0] + 1);
+            object.setObjectContent(new ByteArrayInputStream(content, (int) range[0], end - (int) range[0] + 1));
+        } else {
+            object.setObjectContent(new ByteArrayInputStream(content));
+        }
+        return object;
+    }
+
+    @Override
+    public ObjectMetadata getObjectMetadata(String bucketName, String key) {
+        count(HEAD);
+        return getMetadata(getExisting(key), contentEncodings.get(key));
+    }
+
+    @Override
+    public boolean doesObjectExist(String bucketName, String objectName) {
+        count(HEAD);
+        return objects.containsKey(objectName);
+    }
+
+    private byte[] getExisting(String key) {
+        byte[] content = objects.get(key);
+        if (content == null) {
+            AmazonS3Exception exception = new AmazonS3Exception("The specified key does not exist.");
+            exception.setStatusCode(404);
+            exception.setErrorCode("NoSuchKey");
+            throw exception;
+        }
+        return content;
+    }
+
+    private static ObjectMetadata getMetadata(byte[] content, String contentEncoding) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setHeader("ETag", getETag(content));
+        metadata.setContentLength(content.length);
+        metadata.setContentEncoding(contentEncoding);
+        return metadata;
+    }
+
+    /**
+     * @param content null for a delete marker
+     */
+    private void addVersion(String key, byte[] content, String contentEncoding) {
+        String versionId = "v" + versionCounter.incrementAndGet();
+        versions.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>())
+                .add(0, new Version(versionId, content, contentEncoding));
+    }
+
+    private static String getETag(byte[] content) {
+        return StringUtils.getContentHash(new String(content, StandardCharsets.UTF_8));
+    }
+
+    private void count(String operation) {
+        requestCounts.computeIfAbsent(operation, op -> new AtomicInteger()).incrementAndGet();
+        if (throttledRequests.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+            AmazonS3Exception exception = new AmazonS3Exception("Please reduce your request rate.");
+            exception.setStatusCode(503);
+            exception.setErrorCode("SlowDown");
+            throw exception;
+        }
+    }
+
+    private static final class Version {
+        final String versionId;
+        final byte[] content;
+        final String contentEncoding;
+
+        Version(String versionId, byte[] content, String contentEncoding) {
+            this.versionId = versionId;
+            this.content = content;
+            this.contentEncoding = contentEncoding;
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.capitalone.identity.identitybuilder.util.StringUtils;
+import reactor.core.publisher.Flux;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.async.SdkPublisher;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.paginators.ListObjectsV2Publisher;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory {@link S3AsyncClient} that supports the subset of operations used by {@link S3AsyncItemStore}. Like
+ * S3, ETags are reported in quoted form and keys are listed in lexicographic order.
+ */
+public class FakeS3AsyncClient implements S3AsyncClient {
+
+    public static final String LIST = "LIST";
+    public static final String GET = "GET";
+    public static final String HEAD = "HEAD";
+
+    private final Map<String, byte[]> objects = new ConcurrentSkipListMap<>();
+    private final Map<String, String> contentEncodings = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+
+    /**
+     * @return unquoted ETag of the object
+     */
+    public String putObject(String key, String content) {
+        return putObject(key, content.getBytes(StandardCharsets.UTF_8), null);
+    }
+
+    /**
+     * @return unquoted ETag of the object
+     */
+    public String putObject(String key, byte[] content, String contentEncoding) {
+        objects.put(key, content);
+        if (contentEncoding != null) {
+            contentEncodings.put(key, contentEncoding);
+        } else {
+            contentEncodings.remove(key);
+        }
+        return StringUtils.getContentHash(new String(content, StandardCharsets.UTF_8));
+    }
+
+    public int getRequestCount(String operation) {
+        return Optional.ofNullable(requestCounts.get(operation)).map(AtomicInteger::get).orElse(0);
+    }
+
+    @Override
+    public CompletableFuture<ListObjectsV2Response> listObjectsV2(ListObjectsV2Request request) {
+        count(LIST);
+        int maxKeys = Optional.ofNullable(request.maxKeys()).orElse(1000);
+        String prefix = Optional.ofNullable(request.prefix()).orElse("");
+        String token = request.continuationToken();
+
+        List<S3Object> contents = new ArrayList<>();
+        String nextToken = null;
+        for (Map.Entry<String, byte[]> object : objects.entrySet()) {
+            String key = object.getKey();
+            if (!key.startsWith(prefix) || (token != null && key.compareTo(token) <= 0)) {
+                continue;
+            }
+            if (contents.size() == maxKeys) {
+                nextToken = contents.get(contents.size() - 1).key();
+                break;
+            }
+            contents.add(S3Object.builder().key(key).eTag(getETag(object.getValue())).build());
+        }
+        return CompletableFuture.completedFuture(ListObjectsV2Response.builder()
+                .name(request.bucket())
+                .prefix(request.prefix())
+                .maxKeys(maxKeys)
+                .contents(contents)
+                .keyCount(contents.size())
+                .isTruncated(nextToken != null)
+                .nextContinuationToken(nextToken)
+                .build());
+    }
+
+    @Override
+    public ListObjectsV2Publisher listObjectsV2Paginator(ListObjectsV2Request request) {
+        return new ListObjectsV2Publisher(this, request);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> getObject(GetObjectRequest request,
+                                              AsyncResponseTransformer<GetObjectResponse, T> transformer) {
+        count(GET);
+        byte[] content = objects.get(request.key());
+        if (content == null) {
+            return CompletableFuture.failedFuture(notFound(request.key()));
+        }
+        String eTag = getETag(content);
+        if (request.ifMatch() != null && !request.ifMatch().equals(eTag)) {
+            return CompletableFuture.failedFuture(S3Exception.builder()
+                    .message("At least one of the pre-conditions you specified did not hold")
+                    .statusCode(412)
+                    .build());
+        }
+        CompletableFuture<T> result = transformer.prepare();
+        transformer.onResponse(GetObjectResponse.builder()
+                .eTag(eTag)
+                .contentLength((long) content.length)
+                .contentEncoding(contentEncodings.get(request.key()))
+                .build());
+        transformer.onStream(SdkPublisher.adapt(Flux.just(ByteBuffer.wrap(content))));
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<HeadObjectResponse> headObject(HeadObjectRequest request) {
+        count(HEAD);
+        byte[] content = objects.get(request.key());
+        if (content == null) {
+            return CompletableFuture.failedFuture(notFound(request.key()));
+        }
+        return CompletableFuture.completedFuture(HeadObjectResponse.builder()
+                .eTag(getETag(content))
+                .contentLength((long) content.length)
+                .build());
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+        // nothing to release
+    }
+
+    private static S3Exception notFound(String key) {
+        return (S3Exception) NoSuchKeyException.builder()
+                .message("The specified key does not exist: " + key)
+                .statusCode(404)
+                .build();
+    }
+
+    private static String getETag(byte[] content) {
+        return "\"" + StringUtils.getContentHash(new String(content, StandardCharsets.UTF_8)) + "\"";
+    }
+
+    private void count(String operation) {
+        requestCounts.computeIfAbsent(operation, op -> new AtomicInteger()).incrementAndGet();
+    }
+
+}
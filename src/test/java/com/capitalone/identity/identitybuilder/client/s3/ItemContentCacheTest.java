@@ -0,0 +1,173 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemContentCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void construct() {
+        assertThrows(NullPointerException.class, () -> new ItemContentCache(null, 10));
+        assertThrows(IllegalArgumentException.class, () -> new ItemContentCache(directory, 0));
+    }
+
+    @Test
+    void getPut() {
+        ItemContentCache cache = new ItemContentCache(directory, 100);
+        assertEquals(Optional.empty(), cache.get("a/b", "tag"));
+
+        cache.put("a/b", "tag", bytes("content"));
+
+        assertArrayEquals(bytes("content"), cache.get("a/b", "tag").orElseThrow());
+        assertEquals(Optional.empty(), cache.get("a/b", "other-tag"));
+        assertEquals(Optional.empty(), cache.get("a/c", "tag"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(7, cache.getSizeBytes());
+        assertEquals(1, cache.getEntryCount());
+    }
+
+    @Test
+    void put_replacesEntry() {
+        ItemContentCache cache = new ItemContentCache(directory, 100);
+        cache.put("a", "tag", bytes("123"));
+        cache.put("a", "tag", bytes("12345"));
+
+        assertArrayEquals(bytes("12345"), cache.get("a", "tag").orElseThrow());
+        assertEquals(5, cache.getSizeBytes());
+        assertEquals(1, cache.getEntryCount());
+    }
+
+    @Test
+    void put_evictsLeastRecentlyUsed() {
+        ItemContentCache cache = new ItemContentCache(directory, 10);
+        cache.put("a", "tag", bytes("aaaa"));
+        cache.put("b", "tag", bytes("bbbb"));
+        assertTrue(cache.get("a", "tag").isPresent());
+
+        cache.put("c", "tag", bytes("cccc"));
+
+        assertTrue(cache.get("a", "tag").isPresent());
+        assertFalse(cache.get("b", "tag").isPresent());
+        assertTrue(cache.get("c", "tag").isPresent());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(8, cache.getSizeBytes());
+        assertEquals(2, countFiles());
+    }
+
+    @Test
+    void put_contentLargerThanCacheIgnored() {
+        ItemContentCache cache = new ItemContentCache(directory, 4);
+        cache.put("a", "tag", bytes("12345"));
+
+        assertFalse(cache.get("a", "tag").isPresent());
+        assertEquals(0, cache.getSizeBytes());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    @Test
+    void construct_loadsExistingEntries() throws IOException {
+        ItemContentCache first = new ItemContentCache(directory, 100);
+        first.put("a", "tag", bytes("aaaa"));
+        first.put("b", "tag", bytes("bbbb"));
+        Path interrupted = Files.write(directory.resolve("interrupted.tmp"), bytes("partial"));
+        Files.setLastModifiedTime(interrupted, FileTime.from(Instant.now()
+                .minus(ItemContentCache.STALE_TEMP_FILE_AGE).minusSeconds(1)));
+
+        ItemContentCache second = new ItemContentCache(directory, 100);
+
+        assertArrayEquals(bytes("aaaa"), second.get("a", "tag").orElseThrow());
+        assertArrayEquals(bytes("bbbb"), second.get("b", "tag").orElseThrow());
+        assertEquals(8, second.getSizeBytes());
+        assertFalse(Files.exists(directory.resolve("interrupted.tmp")));
+    }
+
+    @Test
+    void construct_keepsTempFilesOfWritesInProgress() throws IOException {
+        Path inProgress = Files.write(directory.resolve("in-progress.tmp"), bytes("partial"));
+
+        ItemContentCache cache = new ItemContentCache(directory, 100);
+
+        assertTrue(Files.exists(inProgress));
+        assertEquals(0, cache.getEntryCount());
+    }
+
+    @Test
+    void construct_evictsExistingEntriesToFit() {
+        ItemContentCache first = new ItemContentCache(directory, 100);
+        first.put("a", "tag", bytes("aaaa"));
+        first.put("b", "tag", bytes("bbbb"));
+
+        ItemContentCache second = new ItemContentCache(directory, 6);
+
+        assertEquals(1, second.getEntryCount());
+        assertEquals(1, second.getEvictionCount());
+        assertEquals(1, countFiles());
+    }
+
+    @Test
+    void get_entryRemovedExternally() throws IOException {
+        ItemContentCache cache = new ItemContentCache(directory, 100);
+        cache.put("a", "tag", bytes("aaaa"));
+        Files.delete(directory.resolve(ItemContentCache.getFileName("a", "tag")));
+
+        assertEquals(Optional.empty(), cache.get("a", "tag"));
+        assertEquals(0, cache.getSizeBytes());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void removeIfCurrent_keepsEntryRewrittenAfterLookup() {
+        ItemContentCache cache = new ItemContentCache(directory, 100);
+        String fileName = ItemContentCache.getFileName("a", "tag");
+        cache.put("a", "tag", bytes("aaaa"));
+        ItemContentCache.Entry lookedUp = cache.lookup(fileName);
+        assertNotNull(lookedUp);
+
+        // a read of the looked up entry fails after a concurrent put replaced it
+        cache.put("a", "tag", bytes("aaaa"));
+        cache.removeIfCurrent(fileName, lookedUp);
+
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(4, cache.getSizeBytes());
+        assertArrayEquals(bytes("aaaa"), cache.get("a", "tag").orElseThrow(AssertionError::new));
+
+        cache.removeIfCurrent(fileName, cache.lookup(fileName));
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getSizeBytes());
+    }
+
+    @Test
+    void getFileName_distinguishesKeyAndTag() {
+        assertNotEquals(ItemContentCache.getFileName("ab", "c"), ItemContentCache.getFileName("a", "bc"));
+        assertEquals(ItemContentCache.getFileName("a/b", "c"), ItemContentCache.getFileName("a/b", "c"));
+        assertFalse(ItemContentCache.getFileName("a/b", "c").contains("/"));
+    }
+
+    private long countFiles() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
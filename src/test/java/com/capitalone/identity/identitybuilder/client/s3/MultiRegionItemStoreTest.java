@@ -0,0 +1,195 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.capitalone.identity.identitybuilder.model.ConfigStoreItemInfo;
+import com.capitalone.identity.identitybuilder.repository.ItemStore;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MultiRegionItemStoreTest {
+
+    private static final String BUCKET = "bucket";
+    private static final Duration COOLDOWN = Duration.ofSeconds(30);
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final SlowFakeAmazonS3 eastS3 = new SlowFakeAmazonS3();
+    private final SlowFakeAmazonS3 westS3 = new SlowFakeAmazonS3();
+    private final MultiRegionItemStore store = new MultiRegionItemStore(
+            "us-east-1", new S3ItemStore(eastS3, BUCKET), "us-west-2", new S3ItemStore(westS3, BUCKET),
+            COOLDOWN, nanoTime::get);
+
+    @Test
+    void construct() {
+        S3ItemStore itemStore = new S3ItemStore(eastS3, BUCKET);
+        assertThrows(NullPointerException.class, () -> new MultiRegionItemStore("a", null, "b", itemStore));
+        assertThrows(IllegalArgumentException.class, () -> new MultiRegionItemStore(" ", itemStore, "b", itemStore));
+        assertThrows(IllegalArgumentException.class, () -> new MultiRegionItemStore("a", itemStore, "b", itemStore,
+                Duration.ofSeconds(-1)));
+    }
+
+    @Test
+    void getItem_routedToLowerLatencyRegion() throws IOException {
+        ConfigStoreItemInfo info = putInBothRegions("a/1.json", "one");
+        eastS3.getLatencyNanos = Duration.ofMillis(50).toNanos();
+        westS3.getLatencyNanos = Duration.ofMillis(5).toNanos();
+        assertEquals("us-east-1", store.getPreferredRegion());
+
+        // the remote region is first measured by a probe
+        for (int i = 0; i < MultiRegionItemStore.PROBE_INTERVAL + 19; i++) {
+            assertEquals("one", store.getItem(info).getContent());
+        }
+        assertEquals("us-west-2", store.getPreferredRegion());
+        assertEquals(MultiRegionItemStore.PROBE_INTERVAL - 1, eastS3.getRequestCount(FakeAmazonS3.GET));
+        assertEquals(20, westS3.getRequestCount(FakeAmazonS3.GET));
+    }
+
+    @Test
+    void getItem_freshStoreKeepsReadingLocalRegion() throws IOException {
+        ConfigStoreItemInfo info = putInBothRegions("a/1.json", "one");
+        eastS3.getLatencyNanos = Duration.ofMillis(50).toNanos();
+        westS3.getLatencyNanos = Duration.ofMillis(5).toNanos();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("one", store.getItem(info).getContent());
+        }
+        assertEquals("us-east-1", store.getPreferredRegion());
+        assertEquals(10, eastS3.getRequestCount(FakeAmazonS3.GET));
+        assertEquals(0, westS3.getRequestCount(FakeAmazonS3.GET));
+    }
+
+    @Test
+    void getItem_otherRegionProbed() throws IOException {
+        ConfigStoreItemInfo info = putInBothRegions("a/1.json", "one");
+        eastS3.getLatencyNanos = Duration.ofMillis(50).toNanos();
+        westS3.getLatencyNanos = Duration.ofMillis(5).toNanos();
+
+        for (int i = 0; i < MultiRegionItemStore.PROBE_INTERVAL * 3; i++) {
+            store.getItem(info);
+        }
+        // reads before the first probe, then one probe each after the remote region became preferred
+        assertEquals(MultiRegionItemStore.PROBE_INTERVAL + 1, eastS3.getRequestCount(FakeAmazonS3.GET));
+        assertEquals("us-west-2", store.getPreferredRegion());
+    }
+
+    @Test
+    void getItem_failsOverOnThrottling() throws IOException {
+        ConfigStoreItemInfo info = putInBothRegions("a/1.json", "one");
+
+        eastS3.throttleNextRequests(1);
+        assertEquals("one", store.getItem(info).getContent());
+        assertEquals(1, store.getFailoverCount());
+        assertEquals("us-west-2", store.getPreferredRegion());
+
+        // east is skipped during its cooldown, then used again
+        assertEquals("one", store.getItem(info).getContent());
+        assertEquals(1, eastS3.getRequestCount(FakeAmazonS3.GET));
+        nanoTime.addAndGet(COOLDOWN.toNanos() + 1);
+        assertEquals("one", store.getItem(info).getContent());
+        assertEquals("us-east-1", store.getPreferredRegion());
+    }
+
+    @Test
+    void getItem_failsWhenBothRegionsFail() {
+        ConfigStoreItemInfo info = putInBothRegions("a/1.json", "one");
+        eastS3.throttleNextRequests(1);
+        westS3.throttleNextRequests(1);
+
+        AmazonS3Exception e = assertThrows(AmazonS3Exception.class, () -> store.getItem(info));
+        assertEquals(503, e.getStatusCode());
+        assertEquals(1, e.getSuppressed().length);
+        assertEquals(0, store.getFailoverCount());
+    }
+
+    @Test
+    void getItem_tagMismatchReadFromOtherRegion() throws IOException {
+        eastS3.putObject("a/1.json", "old");
+        ConfigStoreItemInfo info = new ConfigStoreItemInfo("a/1.json", westS3.putObject("a/1.json", "new"));
+
+        assertEquals("new", store.getItem(info).getContent());
+        assertEquals(1, store.getTagMismatchCount());
+        assertEquals(0, store.getFailoverCount());
+        // a region without the tag is not treated as failed
+        assertEquals("us-east-1", store.getPreferredRegion());
+
+        ConfigStoreItemInfo missing = new ConfigStoreItemInfo("a/1.json", "unknown");
+        assertThrows(ItemTagMismatchException.class, () -> store.getItem(missing));
+        assertEquals(1, store.getTagMismatchCount());
+    }
+
+    @Test
+    void getItem_otherInvalidArgumentIsFailure() throws IOException {
+        ConfigStoreItemInfo info = putInBothRegions("a/1.json", "one");
+        ItemStore failing = mock(ItemStore.class);
+        when(failing.getItem(info)).thenThrow(new IllegalArgumentException("invalid"));
+        MultiRegionItemStore failingStore = new MultiRegionItemStore("us-east-1", failing,
+                "us-west-2", new S3ItemStore(westS3, BUCKET), COOLDOWN, nanoTime::get);
+
+        assertEquals("one", failingStore.getItem(info).getContent());
+        assertEquals(0, failingStore.getTagMismatchCount());
+        assertEquals(1, failingStore.getFailoverCount());
+        assertEquals("us-west-2", failingStore.getPreferredRegion());
+    }
+
+    @Test
+    void getItemStream() throws IOException {
+        ConfigStoreItemInfo info = putInBothRegions("a/1.json", "one");
+        eastS3.throttleNextRequests(1);
+
+        assertEquals("one", new String(store.getItemStream(info).readAllBytes(), StandardCharsets.UTF_8));
+        assertEquals(1, store.getFailoverCount());
+    }
+
+    @Test
+    void getSingleStoredItemInfo() {
+        ConfigStoreItemInfo info = putInBothRegions("a/metadata.json", "{}");
+        eastS3.throttleNextRequests(1);
+
+        assertEquals(Optional.of(info), store.getSingleStoredItemInfo("a/metadata.json"));
+        assertEquals(Optional.empty(), store.getSingleStoredItemInfo("b/metadata.json"));
+        assertEquals(1, store.getFailoverCount());
+    }
+
+    @Test
+    void getStoredItemInfo_failsOverBeforeFirstItem() {
+        ConfigStoreItemInfo info1 = putInBothRegions("a/1.json", "one");
+        ConfigStoreItemInfo info2 = putInBothRegions("b/1.json", "two");
+        eastS3.throttleNextRequests(1);
+
+        assertEquals(List.of(info1, info2), store.getStoredItemInfo().collectList().block());
+        assertEquals(List.of(info2), store.getStoredItemInfo("b/").collectList().block());
+        assertEquals(1, store.getFailoverCount());
+        assertEquals(2, westS3.getRequestCount(FakeAmazonS3.LIST));
+        assertEquals(2, store.getAllItemInfo().size());
+    }
+
+    private ConfigStoreItemInfo putInBothRegions(String key, String content) {
+        eastS3.putObject(key, content);
+        return new ConfigStoreItemInfo(key, westS3.putObject(key, content));
+    }
+
+    /**
+     * Advances the shared test clock on every GET, to simulate a region with a given latency
+     */
+    private class SlowFakeAmazonS3 extends FakeAmazonS3 {
+        long getLatencyNanos;
+
+        @Override
+        public S3Object getObject(GetObjectRequest request) {
+            nanoTime.addAndGet(getLatencyNanos);
+            return super.getObject(request);
+        }
+    }
+
+}
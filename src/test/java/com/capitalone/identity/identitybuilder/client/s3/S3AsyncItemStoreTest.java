@@ -0,0 +1,132 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.capitalone.identity.identitybuilder.model.ConfigStoreItem;
+import com.capitalone.identity.identitybuilder.model.ConfigStoreItemInfo;
+import com.capitalone.identity.identitybuilder.util.CompressionUtils;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3AsyncItemStoreTest {
+
+    private static final String BUCKET = "bucket";
+
+    private final FakeS3AsyncClient s3Client = new FakeS3AsyncClient();
+
+    @Test
+    void construct() {
+        assertThrows(NullPointerException.class, () -> new S3AsyncItemStore(null, BUCKET));
+        assertThrows(NullPointerException.class, () -> new S3AsyncItemStore(s3Client, null));
+        assertThrows(NullPointerException.class, () -> new S3AsyncItemStore(s3Client, BUCKET, null));
+    }
+
+    @Test
+    void getStoredItemInfo_pagesInKeyOrder() {
+        List<String> keys = IntStream.range(0, 2500)
+                .mapToObj(i -> String.format("us_consumers/a/policy_%04d/1.0/process/p.xml", i))
+                .collect(Collectors.toList());
+        keys.forEach(key -> s3Client.putObject(key, key));
+
+        List<ConfigStoreItemInfo> infos = new S3AsyncItemStore(s3Client, BUCKET).getStoredItemInfo()
+                .collectList().block();
+
+        assertNotNull(infos);
+        assertEquals(keys, infos.stream().map(ConfigStoreItemInfo::getName).collect(Collectors.toList()));
+        assertEquals(3, s3Client.getRequestCount(FakeS3AsyncClient.LIST));
+        assertEquals(new ConfigStoreItemInfo(keys.get(0), s3Client.putObject(keys.get(0), keys.get(0))),
+                infos.get(0));
+    }
+
+    @Test
+    void getStoredItemInfo_prefix() {
+        s3Client.putObject("root/a/1.xml", "a");
+        s3Client.putObject("root/b/1.xml", "b");
+        s3Client.putObject("other/a/1.xml", "c");
+        S3AsyncItemStore store = new S3AsyncItemStore(s3Client, BUCKET, "root/");
+
+        StepVerifier.create(store.getStoredItemInfo().map(ConfigStoreItemInfo::getName))
+                .expectNext("root/a/1.xml", "root/b/1.xml")
+                .verifyComplete();
+        StepVerifier.create(store.getStoredItemInfo("root/b").map(ConfigStoreItemInfo::getName))
+                .expectNext("root/b/1.xml")
+                .verifyComplete();
+        StepVerifier.create(store.getStoredItemInfo("").map(ConfigStoreItemInfo::getName))
+                .expectNext("root/a/1.xml", "root/b/1.xml")
+                .verifyComplete();
+        StepVerifier.create(store.getStoredItemInfo("other/")).verifyComplete();
+    }
+
+    @Test
+    void getItem() throws IOException {
+        String tag = s3Client.putObject("a/b.xml", "content");
+        S3AsyncItemStore store = new S3AsyncItemStore(s3Client, BUCKET);
+        ConfigStoreItemInfo info = new ConfigStoreItemInfo("a/b.xml", tag);
+
+        assertEquals(new ConfigStoreItem(info, "content"), store.getItem(info));
+        StepVerifier.create(store.getItemAsync(info).map(ConfigStoreItem::getContent))
+                .expectNext("content")
+                .verifyComplete();
+    }
+
+    @Test
+    void getItem_compressed() throws IOException {
+        String content = "<process>".repeat(100);
+        byte[] compressed = CompressionUtils.compress(content.getBytes(StandardCharsets.UTF_8));
+        String tag = s3Client.putObject("a/p.xml.gz", compressed, null);
+        String encodedTag = s3Client.putObject("a/q.xml", compressed, CompressionUtils.GZIP_ENCODING);
+        S3AsyncItemStore store = new S3AsyncItemStore(s3Client, BUCKET);
+
+        assertEquals(content, store.getItem(new ConfigStoreItemInfo("a/p.xml.gz", tag)).getContent());
+        assertEquals(content, store.getItem(new ConfigStoreItemInfo("a/q.xml", encodedTag)).getContent());
+    }
+
+    @Test
+    void getItem_tagChanged() {
+        String tag = s3Client.putObject("a/b.xml", "old");
+        s3Client.putObject("a/b.xml", "new");
+        S3AsyncItemStore store = new S3AsyncItemStore(s3Client, BUCKET);
+        ConfigStoreItemInfo info = new ConfigStoreItemInfo("a/b.xml", tag);
+
+        ItemTagMismatchException e = assertThrows(ItemTagMismatchException.class, () -> store.getItem(info));
+        assertEquals(412, ((S3Exception) e.getCause()).statusCode());
+    }
+
+    @Test
+    void getItem_outsideRootPrefix() {
+        S3AsyncItemStore store = new S3AsyncItemStore(s3Client, BUCKET, "root/");
+        ConfigStoreItemInfo info = new ConfigStoreItemInfo("other/b.xml", "tag");
+
+        assertThrows(UnsupportedOperationException.class, () -> store.getItem(info));
+        StepVerifier.create(store.getItemAsync(info)).verifyError(UnsupportedOperationException.class);
+        assertEquals(0, s3Client.getRequestCount(FakeS3AsyncClient.GET));
+    }
+
+    @Test
+    void getSingleStoredItemInfo() {
+        String tag = s3Client.putObject("a/metadata.json", "{}");
+        S3AsyncItemStore store = new S3AsyncItemStore(s3Client, BUCKET);
+
+        assertEquals(Optional.of(new ConfigStoreItemInfo("a/metadata.json", tag)),
+                store.getSingleStoredItemInfo("a/metadata.json"));
+        assertEquals(Optional.empty(), store.getSingleStoredItemInfo("b/metadata.json"));
+    }
+
+    @Test
+    void eTagQuoting() {
+        assertEquals("abc", S3AsyncItemStore.unquoteETag("\"abc\""));
+        assertEquals("abc", S3AsyncItemStore.unquoteETag("abc"));
+        assertNull(S3AsyncItemStore.unquoteETag(null));
+        assertEquals("\"abc\"", S3AsyncItemStore.quoteETag("abc"));
+        assertEquals("\"abc\"", S3AsyncItemStore.quoteETag("\"abc\""));
+    }
+
+}
@@ -46,6 +46,24 @@ public class S3BucketResolverTest {
         assertEquals("testWest", s3BucketResolver.getBucketName());
     }
 
+    @Test
+    public void testGetFailoverBucket() {
+        when(s3ConfigurationProperties.getRegionsOverride()).thenReturn(Regions.US_EAST_1);
+        when(s3ConfigurationProperties.getBucketNameForWestRegion()).thenReturn("testWest");
+        s3BucketResolver = new S3BucketResolver(s3ConfigurationProperties);
+        assertEquals("testWest", s3BucketResolver.getFailoverBucketName());
+        assertEquals(Regions.US_WEST_1, s3BucketResolver.getFailoverRegions(Regions.US_WEST_1));
+    }
+
+    @Test
+    public void testGetFailoverBucketWest() {
+        when(s3ConfigurationProperties.getRegionsOverride()).thenReturn(Regions.US_WEST_2);
+        when(s3ConfigurationProperties.getBucketNameForEastRegion()).thenReturn("testEast");
+        s3BucketResolver = new S3BucketResolver(s3ConfigurationProperties);
+        assertEquals("testEast", s3BucketResolver.getFailoverBucketName());
+        assertEquals(Regions.US_EAST_1, s3BucketResolver.getFailoverRegions(Regions.US_WEST_2));
+    }
+
     @Test
     public void testGetRegion() {
         when(s3ConfigurationProperties.getRegionsOverride()).thenReturn(Regions.US_EAST_1);
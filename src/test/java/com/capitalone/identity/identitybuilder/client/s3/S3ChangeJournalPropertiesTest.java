@@ -0,0 +1,35 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.capitalone.identity.identitybuilder.polling.ScanRequester;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3ChangeJournalPropertiesTest {
+
+    @Test
+    void construct_disabled() {
+        S3ChangeJournalProperties properties = new S3ChangeJournalProperties(" ", 24);
+        assertNull(properties.getJournalPrefix());
+
+        ScanRequester requester = Flux::never;
+        assertSame(requester, properties.apply(requester, new ConfigStoreClientS3Configuration("test")));
+    }
+
+    @Test
+    void construct_enabled() {
+        S3ChangeJournalProperties properties = new S3ChangeJournalProperties("journal/", 12);
+        assertEquals("journal/", properties.getJournalPrefix());
+        assertEquals(12, properties.getReconciliationInterval());
+
+        ScanRequester requester = properties.apply(Flux::never, new ConfigStoreClientS3Configuration("test"));
+        assertTrue(requester instanceof S3ChangeJournalScanRequester);
+    }
+
+    @Test
+    void construct_invalidReconciliationInterval() {
+        assertThrows(IllegalArgumentException.class, () -> new S3ChangeJournalProperties("journal/", 0));
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.capitalone.identity.identitybuilder.model.ScanRequest;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3ChangeJournalScanRequesterTest {
+
+    private static final String BUCKET = "bucket";
+
+    private final FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+    private final S3ChangeJournal journal = new S3ChangeJournal(fakeS3, BUCKET, "journal/",
+            S3ChangeJournalTest.fixedClock(10_000));
+
+    @Test
+    void construct() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new S3ChangeJournalScanRequester(journal, Flux::never, 0));
+        assertThrows(NullPointerException.class,
+                () -> new S3ChangeJournalScanRequester(null, Flux::never, 1));
+    }
+
+    @Test
+    void getScanRequests_partialThenReconciliation() {
+        Sinks.Many<ScanRequest> ticks = Sinks.many().unicast().onBackpressureBuffer();
+        S3ChangeJournalScanRequester requester = new S3ChangeJournalScanRequester(journal, ticks::asFlux, 3,
+                Duration.ZERO, S3ChangeJournalTest.fixedClock(5_000));
+
+        StepVerifier.create(requester.getScanRequests())
+                .then(() -> {
+                    journal.publish(Arrays.asList("a/1.json", "b/1.json"));
+                    journal.publish(Collections.singletonList("c/1.json"));
+                    ticks.tryEmitNext(new ScanRequest(1));
+                })
+                .assertNext(request -> assertEquals(new HashSet<>(Arrays.asList("a/1.json", "b/1.json", "c/1.json")),
+                        request.getChangedKeys()))
+                .then(() -> ticks.tryEmitNext(new ScanRequest(2)))
+                .assertNext(request -> {
+                    assertTrue(request.isPartial());
+                    assertEquals(Collections.emptySet(), request.getChangedKeys());
+                    assertEquals(2, request.getStartScheduled());
+                })
+                .then(() -> ticks.tryEmitNext(new ScanRequest(3)))
+                .assertNext(request -> assertFalse(request.isPartial()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void getScanRequests_unreadableJournalRequestsFullScan() {
+        fakeS3.putObject("journal/0000000009000-x.json", "not json");
+        S3ChangeJournalScanRequester requester = new S3ChangeJournalScanRequester(journal,
+                () -> Flux.just(new ScanRequest(1)), 10, Duration.ZERO, S3ChangeJournalTest.fixedClock(5_000));
+
+        StepVerifier.create(requester.getScanRequests())
+                .assertNext(request -> assertFalse(request.isPartial()))
+                .verifyComplete();
+    }
+
+    @Test
+    void getScanRequests_ignoresRecordsBeforeSubscription() {
+        new S3ChangeJournal(fakeS3, BUCKET, "journal/", S3ChangeJournalTest.fixedClock(1_000))
+                .publish(Collections.singletonList("old.json"));
+        journal.publish(Collections.singletonList("new.json"));
+        S3ChangeJournalScanRequester requester = new S3ChangeJournalScanRequester(journal,
+                () -> Flux.just(new ScanRequest(1)), 10, Duration.ofSeconds(1), S3ChangeJournalTest.fixedClock(6_000));
+
+        StepVerifier.create(requester.getScanRequests())
+                .assertNext(request -> assertEquals(Collections.singleton("new.json"), request.getChangedKeys()))
+                .verifyComplete();
+    }
+
+    @Test
+    void getScanRequests_readsRecordsBehindTheNewestRecordRead() {
+        Sinks.Many<ScanRequest> ticks = Sinks.many().unicast().onBackpressureBuffer();
+        S3ChangeJournalScanRequester requester = new S3ChangeJournalScanRequester(journal, ticks::asFlux, 10,
+                Duration.ofSeconds(5), S3ChangeJournalTest.fixedClock(9_000));
+        S3ChangeJournal slowPublisher = new S3ChangeJournal(fakeS3, BUCKET, "journal/",
+                S3ChangeJournalTest.fixedClock(7_000));
+
+        StepVerifier.create(requester.getScanRequests())
+                .then(() -> {
+                    journal.publish(Collections.singletonList("later.json"));
+                    ticks.tryEmitNext(new ScanRequest(1));
+                })
+                .assertNext(request -> assertEquals(Collections.singleton("later.json"), request.getChangedKeys()))
+                .then(() -> {
+                    slowPublisher.publish(Collections.singletonList("earlier.json"));
+                    ticks.tryEmitNext(new ScanRequest(2));
+                })
+                // the earlier record sorts before the one already read, which is not applied again
+                .assertNext(request -> assertEquals(Collections.singleton("earlier.json"), request.getChangedKeys()))
+                .then(() -> ticks.tryEmitNext(new ScanRequest(3)))
+                .assertNext(request -> assertEquals(Collections.emptySet(), request.getChangedKeys()))
+                .thenCancel()
+                .verify();
+    }
+
+}
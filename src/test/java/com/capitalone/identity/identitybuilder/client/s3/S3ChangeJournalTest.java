@@ -0,0 +1,77 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3ChangeJournalTest {
+
+    private static final String BUCKET = "bucket";
+
+    @Test
+    void construct() {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        assertThrows(NullPointerException.class, () -> new S3ChangeJournal(null, BUCKET, "journal/"));
+        assertThrows(IllegalArgumentException.class, () -> new S3ChangeJournal(fakeS3, BUCKET, ""));
+    }
+
+    @Test
+    void publishAndReadAfter() throws IOException {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        S3ChangeJournal journal = new S3ChangeJournal(fakeS3, BUCKET, "journal/", fixedClock(2000));
+        String cursor = journal.getCursorAt(1000);
+
+        String first = journal.publish(Arrays.asList("b/2.json", "a/1.json"));
+        String second = journal.publish(Collections.singletonList("c/3.json"));
+        fakeS3.putObject("not-journal/x.json", "{}");
+
+        List<S3ChangeJournal.RecordEntry> entries = journal.readAfter(cursor);
+        assertEquals(2, entries.size());
+        assertEquals(2000, entries.get(0).getRecord().createdAt);
+        // records created in the same millisecond have no defined order
+        List<String> recordKeys = entries.stream()
+                .map(S3ChangeJournal.RecordEntry::getRecordKey)
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList(first, second).stream().sorted().collect(Collectors.toList()), recordKeys);
+        S3ChangeJournal.Record firstRecord = entries.get(recordKeys.indexOf(first)).getRecord();
+        assertEquals(Arrays.asList("a/1.json", "b/2.json"), firstRecord.keys);
+
+        assertEquals(1, journal.readAfter(recordKeys.get(0)).size());
+        assertEquals(0, journal.readAfter(recordKeys.get(1)).size());
+    }
+
+    @Test
+    void readAfter_onlyNewerRecords() throws IOException {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        new S3ChangeJournal(fakeS3, BUCKET, "journal/", fixedClock(1000)).publish(Collections.singletonList("old"));
+        S3ChangeJournal journal = new S3ChangeJournal(fakeS3, BUCKET, "journal/", fixedClock(3000));
+        journal.publish(Collections.singletonList("new"));
+
+        List<S3ChangeJournal.RecordEntry> entries = journal.readAfter(journal.getCursorAt(2000));
+        assertEquals(1, entries.size());
+        assertEquals(Collections.singletonList("new"), entries.get(0).getRecord().keys);
+    }
+
+    @Test
+    void readAfter_invalidRecord() {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        S3ChangeJournal journal = new S3ChangeJournal(fakeS3, BUCKET, "journal/", fixedClock(1000));
+        fakeS3.putObject("journal/0000000002000-x.json", "not json");
+
+        assertThrows(IOException.class, () -> journal.readAfter(journal.getCursorAt(0)));
+    }
+
+    static Clock fixedClock(long millis) {
+        return Clock.fixed(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3HedgingPropertiesTest {
+
+    @Test
+    void construct_defaults() {
+        S3HedgingProperties properties = new S3HedgingProperties(false, S3RequestHedger.DEFAULT_PERCENTILE, null,
+                S3RequestHedger.DEFAULT_MAX_HEDGE_RATIO);
+        assertFalse(properties.isEnabled());
+        assertEquals(S3RequestHedger.DEFAULT_MIN_DELAY, properties.getMinDelay());
+
+        ConfigStoreClientS3Configuration configuration = properties.applyTo(new ConfigStoreClientS3Configuration("test"));
+        assertNull(configuration.getRequestHedger());
+    }
+
+    @Test
+    void construct_enabled() {
+        S3HedgingProperties properties = new S3HedgingProperties(true, 0.99, "PT0.1S", 0.1);
+        assertTrue(properties.isEnabled());
+        assertEquals(0.99, properties.getPercentile());
+        assertEquals(Duration.ofMillis(100), properties.getMinDelay());
+        assertEquals(0.1, properties.getMaxRatio());
+
+        ConfigStoreClientS3Configuration configuration = properties.applyTo(new ConfigStoreClientS3Configuration("test"));
+        assertEquals(0.99, configuration.getHedgingPercentile());
+        assertEquals(Duration.ofMillis(100), configuration.getHedgingMinDelay());
+        assertEquals(0.1, configuration.getHedgingMaxRatio());
+        assertNotNull(configuration.getRequestHedger());
+    }
+
+    @Test
+    void construct_invalid() {
+        assertThrows(IllegalArgumentException.class, () -> new S3HedgingProperties(true, 1, null, 0.1));
+        assertThrows(IllegalArgumentException.class, () -> new S3HedgingProperties(true, 0, null, 0.1));
+        assertThrows(IllegalArgumentException.class, () -> new S3HedgingProperties(true, 0.9, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> new S3HedgingProperties(true, 0.9, null, 2));
+        assertThrows(IllegalArgumentException.class, () -> new S3HedgingProperties(true, 0.9, "10ms", 0.1));
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.amazonaws.ClientConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3HttpClientProfileTest {
+
+    @Test
+    void applyTo_defaultsMatchSdk() {
+        ClientConfiguration expected = new ClientConfiguration();
+        ClientConfiguration actual = new S3HttpClientProfile().applyTo(new ClientConfiguration());
+
+        assertEquals(expected.getMaxConnections(), actual.getMaxConnections());
+        assertEquals(expected.getConnectionTimeout(), actual.getConnectionTimeout());
+        assertEquals(expected.getSocketTimeout(), actual.getSocketTimeout());
+        assertEquals(expected.getConnectionTTL(), actual.getConnectionTTL());
+        assertEquals(expected.getConnectionMaxIdleMillis(), actual.getConnectionMaxIdleMillis());
+        assertEquals(expected.getValidateAfterInactivityMillis(), actual.getValidateAfterInactivityMillis());
+        assertEquals(expected.useTcpKeepAlive(), actual.useTcpKeepAlive());
+    }
+
+    @Test
+    void applyTo_nonDefaults() {
+        S3HttpClientProfile profile = new S3HttpClientProfile(128, Duration.ofSeconds(1), Duration.ofSeconds(5),
+                Duration.ofMinutes(10), Duration.ofSeconds(20), Duration.ofSeconds(2), true);
+        ClientConfiguration actual = profile.applyTo(new ClientConfiguration());
+
+        assertEquals(128, actual.getMaxConnections());
+        assertEquals(1000, actual.getConnectionTimeout());
+        assertEquals(5000, actual.getSocketTimeout());
+        assertEquals(600_000, actual.getConnectionTTL());
+        assertEquals(20_000, actual.getConnectionMaxIdleMillis());
+        assertEquals(2000, actual.getValidateAfterInactivityMillis());
+        assertTrue(actual.useTcpKeepAlive());
+    }
+
+    @Test
+    void construct_invalid() {
+        assertThrows(IllegalArgumentException.class, () -> new S3HttpClientProfile(0));
+        assertThrows(IllegalArgumentException.class, () -> new S3HttpClientProfile(1, Duration.ofSeconds(-1)));
+        assertThrows(IllegalArgumentException.class, () -> new S3HttpClientProfile(1, Duration.ZERO,
+                Duration.ZERO, Duration.ofSeconds(-1)));
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.amazonaws.ClientConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3HttpClientPropertiesTest {
+
+    @Test
+    void construct_defaults() {
+        S3HttpClientProperties properties = new S3HttpClientProperties(ClientConfiguration.DEFAULT_MAX_CONNECTIONS,
+                null, null, "", null, null, false, false, false);
+        assertEquals(new S3HttpClientProfile(), properties.getProfile());
+        assertFalse(properties.isRequestMetricsEnabled());
+        assertFalse(properties.isAsyncClientEnabled());
+
+        ConfigStoreClientS3Configuration configuration = properties.applyTo(new ConfigStoreClientS3Configuration("test"));
+        assertEquals(new S3HttpClientProfile(), configuration.getHttpProfile());
+        assertNull(configuration.getRequestMetrics());
+        assertInstanceOf(S3ItemStore.class, configuration.newItemStore());
+    }
+
+    @Test
+    void construct_nonDefaults() {
+        S3HttpClientProperties properties = new S3HttpClientProperties(200, "PT2S", "PT20S", "PT5M", "PT30S",
+                "PT1S", true, true, true);
+        S3HttpClientProfile profile = properties.getProfile();
+        assertEquals(200, profile.getMaxConnections());
+        assertEquals(Duration.ofSeconds(2), profile.getConnectionTimeout());
+        assertEquals(Duration.ofSeconds(20), profile.getSocketTimeout());
+        assertEquals(Duration.ofMinutes(5), profile.getConnectionTtl());
+        assertEquals(Duration.ofSeconds(30), profile.getConnectionMaxIdle());
+        assertEquals(Duration.ofSeconds(1), profile.getValidateAfterInactivity());
+        assertTrue(profile.getTcpKeepAlive());
+
+        ConfigStoreClientS3Configuration configuration = properties.applyTo(new ConfigStoreClientS3Configuration("test"));
+        assertSame(profile, configuration.getHttpProfile());
+        assertNotNull(configuration.getRequestMetrics());
+        assertNotNull(configuration.getAwsClient());
+        assertTrue(configuration.getAsyncClientEnabled());
+        assertInstanceOf(S3AsyncItemStore.class, configuration.newItemStore());
+    }
+
+    @Test
+    void construct_invalid() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new S3HttpClientProperties(0, null, null, "", null, null, false, false, false));
+        assertThrows(IllegalArgumentException.class,
+                () -> new S3HttpClientProperties(10, "2s", null, "", null, null, false, false, false));
+        assertThrows(IllegalArgumentException.class,
+                () -> new S3HttpClientProperties(10, null, null, "-PT1S", null, null, false, false, false));
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.capitalone.identity.identitybuilder.util.ParseUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3ItemIndexWriterTest {
+
+    private static final String BUCKET = "bucket";
+    private static final Clock CLOCK = Clock.fixed(Instant.ofEpochMilli(1_000_000), ZoneOffset.UTC);
+
+    @Test
+    void construct() {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        assertThrows(NullPointerException.class, () -> new S3ItemIndexWriter(null, BUCKET, "", "index.json"));
+        assertThrows(IllegalArgumentException.class, () -> new S3ItemIndexWriter(fakeS3, BUCKET, "", " "));
+        assertThrows(IllegalArgumentException.class, () -> new S3ItemIndexWriter(fakeS3, "", "", "index.json"));
+    }
+
+    @Test
+    void publish() throws IOException {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        String tagB = fakeS3.putObject("ns/b.json", "bb");
+        String tagA = fakeS3.putObject("ns/a.json", "a");
+        fakeS3.putObject("other/c.json", "c");
+        fakeS3.putObject("ns/index.json", "{}");
+
+        S3ItemIndex published = new S3ItemIndexWriter(fakeS3, BUCKET, "ns/", "ns/index.json", CLOCK).publish();
+
+        S3ItemIndex stored = ParseUtils.MAPPER.readValue(
+                fakeS3.getObject(BUCKET, "ns/index.json").getObjectContent(), S3ItemIndex.class);
+        for (S3ItemIndex index : List.of(published, stored)) {
+            assertEquals(S3ItemIndex.FORMAT_VERSION, index.formatVersion);
+            assertEquals(1_000_000, index.generatedAt);
+            assertEquals(List.of("ns/a.json", "ns/b.json"),
+                    index.items.stream().map(entry -> entry.name).collect(Collectors.toList()));
+            assertEquals(List.of(tagA, tagB),
+                    index.items.stream().map(entry -> entry.tag).collect(Collectors.toList()));
+            assertEquals(List.of(1L, 2L),
+                    index.items.stream().map(entry -> entry.size).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void publish_truncatedListing() {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        for (int i = 0; i < 1500; i++) {
+            fakeS3.putObject(String.format("ns/%04d.json", i), "{}");
+        }
+
+        S3ItemIndex published = new S3ItemIndexWriter(fakeS3, BUCKET, "", "index.json", CLOCK).publish();
+
+        assertEquals(1500, published.items.size());
+        assertEquals(2, fakeS3.getRequestCount(FakeAmazonS3.LIST));
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3ItemPackPropertiesTest {
+
+    @Test
+    void construct_disabled() {
+        S3ItemPackProperties properties = new S3ItemPackProperties(" ", true);
+        assertNull(properties.getProfile());
+        assertNull(properties.applyTo(new ConfigStoreClientS3Configuration("test")).getPackProfile());
+    }
+
+    @Test
+    void construct_enabled() {
+        S3ItemPackProperties properties = new S3ItemPackProperties("packs/items.pack", true);
+        S3ItemPackProfile expected = new S3ItemPackProfile("packs/items.pack", true);
+        assertEquals(expected, properties.getProfile());
+        assertEquals("packs/items.pack.manifest.json", expected.getManifestKey());
+        assertEquals(expected, properties.applyTo(new ConfigStoreClientS3Configuration("test")).getPackProfile());
+    }
+
+}
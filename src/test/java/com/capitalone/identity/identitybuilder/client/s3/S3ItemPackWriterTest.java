@@ -0,0 +1,70 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.capitalone.identity.identitybuilder.util.ParseUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3ItemPackWriterTest {
+
+    private static final String BUCKET = "bucket";
+    private static final Clock CLOCK = Clock.fixed(Instant.ofEpochMilli(1_000_000), ZoneOffset.UTC);
+
+    @Test
+    void construct() {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        assertThrows(NullPointerException.class, () -> new S3ItemPackWriter(null, BUCKET, "", "pack"));
+        assertThrows(IllegalArgumentException.class, () -> new S3ItemPackWriter(fakeS3, BUCKET, "", " "));
+        assertThrows(IllegalArgumentException.class, () -> new S3ItemPackWriter(fakeS3, "", "", "pack"));
+        assertThrows(IllegalArgumentException.class, () -> new S3ItemPackWriter(fakeS3, BUCKET, "", "pack", 0));
+    }
+
+    @Test
+    void publish() throws IOException {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        String tagB = fakeS3.putObject("ns/b.json", "bb");
+        String tagA = fakeS3.putObject("ns/a.json", "a");
+        fakeS3.putObject("ns/large.xml", "x".repeat(100));
+        fakeS3.putObject("other/c.json", "c");
+
+        S3ItemPack published = new S3ItemPackWriter(fakeS3, BUCKET, "ns/", "ns/items.pack", 10, CLOCK).publish();
+
+        S3ItemPack stored = ParseUtils.MAPPER.readValue(
+                fakeS3.getObject(BUCKET, "ns/items.pack.manifest.json").getObjectContent(), S3ItemPack.class);
+        for (S3ItemPack pack : List.of(published, stored)) {
+            assertEquals(S3ItemPack.FORMAT_VERSION, pack.formatVersion);
+            assertEquals(1_000_000, pack.generatedAt);
+            assertEquals(fakeS3.getObjectMetadata(BUCKET, "ns/items.pack").getETag(), pack.packTag);
+            assertEquals(List.of("ns/a.json", "ns/b.json"),
+                    pack.items.stream().map(entry -> entry.name).collect(Collectors.toList()));
+            assertEquals(List.of(tagA, tagB), pack.items.stream().map(entry -> entry.tag).collect(Collectors.toList()));
+            assertEquals(List.of(0L, 1L), pack.items.stream().map(entry -> entry.offset).collect(Collectors.toList()));
+            assertEquals(List.of(1L, 2L), pack.items.stream().map(entry -> entry.length).collect(Collectors.toList()));
+        }
+        assertEquals("abb", new String(fakeS3.getObjectBytes("ns/items.pack"), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void publish_replacesPreviousPack() {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        fakeS3.putObject("ns/a.json", "a");
+        S3ItemPackWriter writer = new S3ItemPackWriter(fakeS3, BUCKET, "", "ns/items.pack", 10, CLOCK);
+        writer.publish();
+
+        fakeS3.putObject("ns/b.json", "b");
+        S3ItemPack pack = writer.publish();
+
+        // the previous pack and manifest are not packed themselves
+        assertEquals(List.of("ns/a.json", "ns/b.json"),
+                pack.items.stream().map(entry -> entry.name).collect(Collectors.toList()));
+    }
+
+}
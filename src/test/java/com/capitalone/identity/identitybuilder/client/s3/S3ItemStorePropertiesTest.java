@@ -0,0 +1,98 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3ItemStorePropertiesTest {
+
+    @Test
+    void construct_ok() {
+        S3ItemStoreProperties properties = new S3ItemStoreProperties(8, "", 1024, null, "", null, false);
+        assertEquals(8, properties.getListingParallelism());
+
+        ConfigStoreClientS3Configuration configuration = properties.applyTo(new ConfigStoreClientS3Configuration("test"));
+        assertEquals(8, configuration.getListingParallelism());
+        assertEquals(S3ItemStore.DEFAULT_LOOKUP_CACHE_TTL, configuration.getLookupCacheTtl());
+        assertNull(configuration.getContentCacheDirectory());
+        assertNull(configuration.getContentCache());
+    }
+
+    @Test
+    void construct_contentCache(@TempDir Path directory) {
+        S3ItemStoreProperties properties = new S3ItemStoreProperties(1, directory.toString(), 1024, null, "", null, false);
+        assertEquals(directory.toString(), properties.getContentCacheDirectory());
+        assertEquals(1024, properties.getContentCacheMaxSizeBytes());
+
+        ConfigStoreClientS3Configuration configuration = properties.applyTo(new ConfigStoreClientS3Configuration("test"));
+        assertNotNull(configuration.getContentCache());
+        assertEquals(1024, configuration.getContentCache().getMaxSizeBytes());
+    }
+
+    @Test
+    void construct_blankContentCacheDirectory() {
+        assertNull(new S3ItemStoreProperties(1, " ", 1024, null, "", null, false).getContentCacheDirectory());
+    }
+
+    @Test
+    void construct_invalidParallelism() {
+        assertThrows(IllegalArgumentException.class, () -> new S3ItemStoreProperties(0, "", 1024, null, "", null, false));
+    }
+
+    @Test
+    void construct_lookupCacheTtl() {
+        S3ItemStoreProperties properties = new S3ItemStoreProperties(1, "", 1024, "PT5M", "", null, false);
+        assertEquals(Duration.ofMinutes(5), properties.getLookupCacheTtl());
+        assertEquals(Duration.ofMinutes(5),
+                properties.applyTo(new ConfigStoreClientS3Configuration("test")).getLookupCacheTtl());
+        assertEquals(Duration.ZERO, new S3ItemStoreProperties(1, "", 1024, "PT0S", "", null, false).getLookupCacheTtl());
+    }
+
+    @Test
+    void construct_invalidLookupCacheTtl() {
+        assertThrows(IllegalArgumentException.class, () -> new S3ItemStoreProperties(1, "", 1024, "30", "", null, false));
+        assertThrows(IllegalArgumentException.class, () -> new S3ItemStoreProperties(1, "", 1024, "-PT1S", "", null, false));
+    }
+
+    @Test
+    void construct_index() {
+        S3ItemStoreProperties properties = new S3ItemStoreProperties(1, "", 1024, null, "index.json", "PT1H", false);
+        assertEquals("index.json", properties.getIndexKey());
+        assertEquals(Duration.ofHours(1), properties.getIndexMaxAge());
+
+        ConfigStoreClientS3Configuration configuration = properties.applyTo(new ConfigStoreClientS3Configuration("test"));
+        assertEquals("index.json", configuration.getIndexKey());
+        assertEquals(Duration.ofHours(1), configuration.getIndexMaxAge());
+    }
+
+    @Test
+    void construct_indexDefaults() {
+        S3ItemStoreProperties properties = new S3ItemStoreProperties(1, "", 1024, null, " ", null, false);
+        assertNull(properties.getIndexKey());
+        assertEquals(S3ItemStore.DEFAULT_INDEX_MAX_AGE, properties.getIndexMaxAge());
+    }
+
+    @Test
+    void construct_versionedListing() {
+        S3ItemStoreProperties properties = new S3ItemStoreProperties(1, "", 1024, null, "", null, true);
+        assertTrue(properties.isVersionedListingEnabled());
+        assertTrue(properties.applyTo(new ConfigStoreClientS3Configuration("test")).getVersionedListingEnabled());
+        assertFalse(new S3ItemStoreProperties(1, "", 1024, null, "", null, false).isVersionedListingEnabled());
+    }
+
+    @Test
+    void construct_invalidIndexMaxAge() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new S3ItemStoreProperties(1, "", 1024, null, "index.json", "1h", false));
+    }
+
+    @Test
+    void construct_invalidContentCacheSize() {
+        assertThrows(IllegalArgumentException.class, () -> new S3ItemStoreProperties(1, "cache", 0, null, "", null, false));
+    }
+
+}
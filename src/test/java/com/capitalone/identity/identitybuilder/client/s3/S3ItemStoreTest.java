@@ -1,16 +1,43 @@
 package com.capitalone.identity.identitybuilder.client.s3;
 
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.capitalone.identity.identitybuilder.model.ConfigStoreItemInfo;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class S3ItemStoreTest {
 
+    private static final String BUCKET = "bucket";
+    private static final Duration LOOKUP_CACHE_TTL = Duration.ofSeconds(30);
+
     @Mock
     AmazonS3 s3Client;
 
@@ -19,6 +46,857 @@ class S3ItemStoreTest {
         assertThrows(NullPointerException.class, () -> new S3ItemStore(null, null));
         assertThrows(NullPointerException.class, () -> new S3ItemStore(s3Client, null));
         assertThrows(NullPointerException.class, () -> new S3ItemStore(null, "test"));
+        assertThrows(IllegalArgumentException.class, () -> new S3ItemStore(s3Client, "test", "", 0));
+    }
+
+    @Test
+    void getStoredItemInfo_shardedListingMatchesSequential() {
+        FakeAmazonS3 fakeS3 = newFakeS3WithNamespaces();
+
+        List<ConfigStoreItemInfo> sequential = new S3ItemStore(fakeS3, BUCKET, "", 1)
+                .getStoredItemInfo().collectList().block();
+        List<ConfigStoreItemInfo> sharded = new S3ItemStore(fakeS3, BUCKET, "", 4)
+                .getStoredItemInfo().collectList().block();
+
+        assertNotNull(sequential);
+        assertEquals(63, sequential.size());
+        assertEquals(sequential, sharded);
+        assertEquals(sequential.stream().map(ConfigStoreItemInfo::getName).sorted().collect(Collectors.toList()),
+                sharded.stream().map(ConfigStoreItemInfo::getName).collect(Collectors.toList()));
+    }
+
+    @Test
+    void getAllItemInfo_shardedListingMatchesSequential() {
+        FakeAmazonS3 fakeS3 = newFakeS3WithNamespaces();
+        assertEquals(new S3ItemStore(fakeS3, BUCKET, "", 1).getAllItemInfo(),
+                new S3ItemStore(fakeS3, BUCKET, "", 3).getAllItemInfo());
+    }
+
+    @Test
+    void getShardedConfigStoreItemInfo_listsEachNamespace() {
+        FakeAmazonS3 fakeS3 = newFakeS3WithNamespaces();
+        S3ItemStore store = new S3ItemStore(fakeS3, BUCKET, "", 2);
+
+        // page size smaller than number of namespaces and namespace sizes exercises truncated listings
+        List<ConfigStoreItemInfo> items = store.getShardedConfigStoreItemInfo("", 2, 2).collectList().block();
+
+        assertNotNull(items);
+        assertEquals(63, items.size());
+        // 3 pages of delimiter listing (6 entries) + 3 namespaces of 10 pages each
+        assertEquals(3 + 3 * 10, fakeS3.getRequestCount(FakeAmazonS3.LIST));
+    }
+
+    @Test
+    void getStoredItemInfo_shardedRespectsRootPrefix() {
+        FakeAmazonS3 fakeS3 = newFakeS3WithNamespaces();
+        List<ConfigStoreItemInfo> items = new S3ItemStore(fakeS3, BUCKET, "ns_b", 4)
+                .getStoredItemInfo().collectList().block();
+
+        assertNotNull(items);
+        assertEquals(21, items.size());
+        assertTrue(items.stream().allMatch(item -> item.getName().startsWith("ns_b")));
+    }
+
+    @Test
+    void getConfigStoreItemInfoPages_fetchesPagesOnDemand() {
+        FakeAmazonS3 fakeS3 = newFakeS3WithNamespaces();
+        S3ItemStore store = new S3ItemStore(fakeS3, BUCKET);
+
+        StepVerifier.create(store.getConfigStoreItemInfoPages("ns_a/", 5), 0)
+                .then(() -> assertEquals(0, fakeS3.getRequestCount(FakeAmazonS3.LIST)))
+                .thenRequest(1)
+                .expectNextCount(1)
+                .then(() -> assertEquals(1, fakeS3.getRequestCount(FakeAmazonS3.LIST)))
+                .thenRequest(3)
+                .expectNextCount(3)
+                .then(() -> assertEquals(1, fakeS3.getRequestCount(FakeAmazonS3.LIST)))
+                .thenRequest(2)
+                .expectNextCount(2)
+                .then(() -> assertEquals(2, fakeS3.getRequestCount(FakeAmazonS3.LIST)))
+                .thenRequest(5)
+                .expectNextCount(5)
+                .then(() -> assertEquals(3, fakeS3.getRequestCount(FakeAmazonS3.LIST)))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void getStoredItemInfo_emitsInKeyOrderWithoutSorting() {
+        FakeAmazonS3 fakeS3 = newFakeS3WithNamespaces();
+        List<String> names = new S3ItemStore(fakeS3, BUCKET).getConfigStoreItemInfoPages("", 7)
+                .map(ConfigStoreItemInfo::getName)
+                .collectList()
+                .block();
+
+        assertNotNull(names);
+        assertEquals(63, names.size());
+        assertEquals(names.stream().sorted().collect(Collectors.toList()), names);
+    }
+
+    @Test
+    void getShardedConfigStoreItemInfo_keyOrder() {
+        FakeAmazonS3 fakeS3 = newFakeS3WithNamespaces();
+        List<String> names = new S3ItemStore(fakeS3, BUCKET).getShardedConfigStoreItemInfo("", 2, 3)
+                .map(ConfigStoreItemInfo::getName)
+                .collectList()
+                .block();
+
+        assertNotNull(names);
+        assertEquals(63, names.size());
+        assertEquals(names.stream().sorted().collect(Collectors.toList()), names);
+    }
+
+    @Test
+    void getItem_servedFromContentCache(@TempDir Path directory) throws IOException {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        String tag = fakeS3.putObject("us_consumers/a/b/c/1.0/policy.xml", "<policy/>");
+        ConfigStoreItemInfo info = new ConfigStoreItemInfo("us_consumers/a/b/c/1.0/policy.xml", tag);
+        ItemContentCache cache = new ItemContentCache(directory, 1024);
+        S3ItemStore store = new S3ItemStore(fakeS3, BUCKET, "", 1, cache);
+
+        assertEquals("<policy/>", store.getItem(info).getContent());
+        assertEquals("<policy/>", store.getItem(info).getContent());
+        assertEquals(1, fakeS3.getRequestCount(FakeAmazonS3.GET));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(Optional.of(cache), store.getContentCache());
+
+        // a restarted store serves the item from disk
+        S3ItemStore restarted = new S3ItemStore(fakeS3, BUCKET, "", 1, new ItemContentCache(directory, 1024));
+        assertEquals("<policy/>", restarted.getItem(info).getContent());
+        assertEquals(1, fakeS3.getRequestCount(FakeAmazonS3.GET));
+    }
+
+    @Test
+    void getItem_contentCacheKeyedByTag(@TempDir Path directory) throws IOException {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        String key = "us_consumers/a/b/c/1.0/policy.xml";
+        String tagA = fakeS3.putObject(key, "<policy>a</policy>");
+        S3ItemStore store = new S3ItemStore(fakeS3, BUCKET, "", 1, new ItemContentCache(directory, 1024));
+        assertEquals("<policy>a</policy>", store.getItem(new ConfigStoreItemInfo(key, tagA)).getContent());
+
+        String tagB = fakeS3.putObject(key, "<policy>b</policy>");
+        assertEquals("<policy>b</policy>", store.getItem(new ConfigStoreItemInfo(key, tagB)).getContent());
+        assertEquals(2, fakeS3.getRequestCount(FakeAmazonS3.GET));
+    }
+
+    @Test
+    void getItem_noContentCache() throws IOException {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        String tag = fakeS3.putObject("a/b", "content");
+        S3ItemStore store = new S3ItemStore(fakeS3, BUCKET);
+
+        assertEquals("content", store.getItem(new ConfigStoreItemInfo("a/b", tag)).getContent());
+        assertEquals("content", store.getItem(new ConfigStoreItemInfo("a/b", tag)).getContent());
+        assertEquals(2, fakeS3.getRequestCount(FakeAmazonS3.GET));
+        assertEquals(Optional.empty(), store.getContentCache());
+    }
+
+    @Test
+    void getSingleStoredItemInfo_singleRequest() {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        String tag = fakeS3.putObject("a/metadata.json", "{}");
+        S3ItemStore store = new S3ItemStore(fakeS3, BUCKET, "", 1, null, Duration.ZERO);
+
+        assertEquals(Optional.of(new ConfigStoreItemInfo("a/metadata.json", tag)),
+                store.getSingleStoredItemInfo("a/metadata.json"));
+        assertEquals(1, fakeS3.getRequestCount(FakeAmazonS3.HEAD));
+
+        assertEquals(Optional.empty(), store.getSingleStoredItemInfo("b/metadata.json"));
+        assertEquals(2, fakeS3.getRequestCount(FakeAmazonS3.HEAD));
+    }
+
+    @Test
+    void getSingleStoredItemInfo_otherErrorsPropagate() {
+        AmazonS3Exception forbidden = new AmazonS3Exception("Access Denied");
+        forbidden.setStatusCode(403);
+        when(s3Client.getObjectMetadata(BUCKET, "a/metadata.json")).thenThrow(forbidden);
+        S3ItemStore store = new S3ItemStore(s3Client, BUCKET);
+
+        assertSame(forbidden, assertThrows(AmazonS3Exception.class,
+                () -> store.getSingleStoredItemInfo("a/metadata.json")));
+    }
+
+    @Test
+    void getSingleStoredItemInfo_cachesFoundAndMissingKeys() {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        String tag = fakeS3.putObject("a/metadata.json", "{}");
+        S3ItemStore store = new S3ItemStore(fakeS3, BUCKET, "", 1, null, LOOKUP_CACHE_TTL);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Optional.of(new ConfigStoreItemInfo("a/metadata.json", tag)),
+                    store.getSingleStoredItemInfo("a/metadata.json"));
+            assertEquals(Optional.empty(), store.getSingleStoredItemInfo("b/metadata.json"));
+        }
+        assertEquals(2, fakeS3.getRequestCount(FakeAmazonS3.HEAD));
+    }
+
+    @Test
+    void getSingleStoredItemInfo_notCachedByDefault() {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        fakeS3.putObject("a/metadata.json", "{}");
+        S3ItemStore store = new S3ItemStore(fakeS3, BUCKET);
+
+        assertTrue(store.getSingleStoredItemInfo("b/metadata.json").isEmpty());
+        String tagB = fakeS3.putObject("b/metadata.json", "{}");
+        assertEquals(Optional.of(new ConfigStoreItemInfo("b/metadata.json", tagB)),
+                store.getSingleStoredItemInfo("b/metadata.json"));
+        assertEquals(2, fakeS3.getRequestCount(FakeAmazonS3.HEAD));
+    }
+
+    @Test
+    void getSingleStoredItemInfo_cacheRefreshedByPrefixListing() {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        fakeS3.putObject("a/metadata.json", "{}");
+        fakeS3.putObject("z/metadata.json", "{}");
+        S3ItemStore store = new S3ItemStore(fakeS3, BUCKET, "", 1, null, LOOKUP_CACHE_TTL);
+        assertTrue(store.getSingleStoredItemInfo("a/metadata.json").isPresent());
+        assertTrue(store.getSingleStoredItemInfo("a/1.0/policy-metadata.json").isEmpty());
+        assertTrue(store.getSingleStoredItemInfo("z/metadata.json").isPresent());
+
+        fakeS3.deleteObject("a/metadata.json");
+        String tag = fakeS3.putObject("a/1.0/policy-metadata.json", "{}");
+        fakeS3.deleteObject("z/metadata.json");
+        assertNotNull(store.getStoredItemInfo("a/").collectList().block());
+
+        assertEquals(Optional.empty(), store.getSingleStoredItemInfo("a/metadata.json"));
+        assertEquals(Optional.of(new ConfigStoreItemInfo("a/1.0/policy-metadata.json", tag)),
+                store.getSingleStoredItemInfo("a/1.0/policy-metadata.json"));
+        // keys outside of the prefix keep their cached result
+        assertTrue(store.getSingleStoredItemInfo("z/metadata.json").isPresent());
+        assertEquals(3, fakeS3.getRequestCount(FakeAmazonS3.HEAD));
+    }
+
+    @Test
+    void getSingleStoredItemInfo_cacheRefreshedByListing() {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        fakeS3.putObject("a/metadata.json", "{}");
+        S3ItemStore store = new S3ItemStore(fakeS3, BUCKET, "", 1, null, LOOKUP_CACHE_TTL);
+        assertTrue(store.getSingleStoredItemInfo("a/metadata.json").isPresent());
+        assertFalse(store.getSingleStoredItemInfo("b/metadata.json").isPresent());
+
+        fakeS3.deleteObject("a/metadata.json");
+        String tagB = fakeS3.putObject("b/metadata.json", "{\"b\": true}");
+        assertNotNull(store.getStoredItemInfo().collectList().block());
+
+        assertEquals(Optional.empty(), store.getSingleStoredItemInfo("a/metadata.json"));
+        assertEquals(Optional.of(new ConfigStoreItemInfo("b/metadata.json", tagB)),
+                store.getSingleStoredItemInfo("b/metadata.json"));
+        assertEquals(2, fakeS3.getRequestCount(FakeAmazonS3.HEAD));
+    }
+
+    @Test
+    void getSingleStoredItemInfo_cacheNotRefreshedByIncompleteListing() {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        fakeS3.putObject("a/metadata.json", "{}");
+        fakeS3.putObject("z/metadata.json", "{}");
+        S3ItemStore store = new S3ItemStore(fakeS3, BUCKET, "", 1, null, LOOKUP_CACHE_TTL);
+        assertTrue(store.getSingleStoredItemInfo("z/metadata.json").isPresent());
+
+        assertNotNull(store.getStoredItemInfo().take(1).collectList().block());
+
+        assertTrue(store.getSingleStoredItemInfo("z/metadata.json").isPresent());
+        assertEquals(1, fakeS3.getRequestCount(FakeAmazonS3.HEAD));
+    }
+
+    @Test
+    void construct_negativeLookupCacheTtl() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new S3ItemStore(s3Client, BUCKET, "", 1, null, Duration.ofSeconds(-1)));
+    }
+
+    @Test
+    void getStoredItemInfo_readsIndex() {
+        FakeAmazonS3 fakeS3 = newFakeS3WithNamespaces();
+        MutableClock clock = new MutableClock();
+        new S3ItemIndexWriter(fakeS3, BUCKET, "", "index.json", clock).publish();
+        S3ItemStore store = newIndexedStore(fakeS3, "", clock);
+        List<ConfigStoreItemInfo> listed = new S3ItemStore(fakeS3, BUCKET).getStoredItemInfo()
+                .filter(info -> !info.getName().equals("index.json"))
+                .collectList().block();
+        fakeS3.resetRequestCounts();
+
+        assertEquals(listed, store.getStoredItemInfo().collectList().block());
+        assertEquals(0, fakeS3.getRequestCount(FakeAmazonS3.LIST));
+        assertEquals(1, fakeS3.getRequestCount(FakeAmazonS3.GET));
+    }
+
+    @Test
+    void getStoredItemInfo_unchangedIndexNotDownloadedAgain() {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        MutableClock clock = new MutableClock();
+        String tagA = fakeS3.putObject("a.json", "a");
+        S3ItemIndexWriter writer = new S3ItemIndexWriter(fakeS3, BUCKET, "", "index.json", clock);
+        writer.publish();
+        S3ItemStore store = newIndexedStore(fakeS3, "", clock);
+        fakeS3.resetRequestCounts();
+
+        assertEquals(List.of(new ConfigStoreItemInfo("a.json", tagA)), store.getStoredItemInfo().collectList().block());
+        assertEquals(List.of(new ConfigStoreItemInfo("a.json", tagA)), store.getStoredItemInfo().collectList().block());
+        assertEquals(2, fakeS3.getRequestCount(FakeAmazonS3.GET));
+        assertEquals(0, fakeS3.getRequestCount(FakeAmazonS3.LIST));
+
+        // a newly published index is picked up by the next scan
+        String tagB = fakeS3.putObject("b.json", "b");
+        writer.publish();
+        fakeS3.resetRequestCounts();
+        assertEquals(List.of(new ConfigStoreItemInfo("a.json", tagA), new ConfigStoreItemInfo("b.json", tagB)),
+                store.getStoredItemInfo().collectList().block());
+        assertEquals(1, fakeS3.getRequestCount(FakeAmazonS3.GET));
+        assertEquals(0, fakeS3.getRequestCount(FakeAmazonS3.LIST));
+    }
+
+    @Test
+    void getStoredItemInfo_missingIndexFallsBackToListing() {
+        FakeAmazonS3 fakeS3 = newFakeS3WithNamespaces();
+        S3ItemStore store = newIndexedStore(fakeS3, "", new MutableClock());
+
+        List<ConfigStoreItemInfo> items = store.getStoredItemInfo().collectList().block();
+
+        assertNotNull(items);
+        assertEquals(63, items.size());
+        assertEquals(1, fakeS3.getRequestCount(FakeAmazonS3.LIST));
+        assertEquals(1, fakeS3.getRequestCount(FakeAmazonS3.GET));
+    }
+
+    @Test
+    void getStoredItemInfo_staleIndexFallsBackToListing() {
+        FakeAmazonS3 fakeS3 = newFakeS3WithNamespaces();
+        MutableClock clock = new MutableClock();
+        new S3ItemIndexWriter(fakeS3, BUCKET, "", "index.json", clock).publish();
+        S3ItemStore store = newIndexedStore(fakeS3, "", clock);
+        fakeS3.resetRequestCounts();
+
+        clock.millis += Duration.ofHours(2).toMillis();
+        List<ConfigStoreItemInfo> items = store.getStoredItemInfo().collectList().block();
+
+        assertNotNull(items);
+        assertEquals(63, items.size());
+        assertTrue(items.stream().noneMatch(info -> info.getName().equals("index.json")));
+        assertEquals(1, fakeS3.getRequestCount(FakeAmazonS3.LIST));
+    }
+
+    @Test
+    void getStoredItemInfo_unreadableIndexFallsBackToListing() {
+        FakeAmazonS3 fakeS3 = newFakeS3WithNamespaces();
+        fakeS3.putObject("index.json", "{\"FormatVersion\": 99, \"Items\": []}");
+        S3ItemStore store = newIndexedStore(fakeS3, "", new MutableClock());
+        assertEquals(Optional.empty(), store.readIndex());
+
+        fakeS3.putObject("index.json", "not json");
+        List<ConfigStoreItemInfo> items = store.getStoredItemInfo().collectList().block();
+        assertNotNull(items);
+        assertEquals(63, items.size());
+    }
+
+    @Test
+    void getStoredItemInfo_indexRespectsRootPrefix() {
+        FakeAmazonS3 fakeS3 = newFakeS3WithNamespaces();
+        MutableClock clock = new MutableClock();
+        new S3ItemIndexWriter(fakeS3, BUCKET, "", "index.json", clock).publish();
+
+        List<ConfigStoreItemInfo> items = newIndexedStore(fakeS3, "ns_b", clock).getStoredItemInfo()
+                .collectList().block();
+
+        assertNotNull(items);
+        assertEquals(21, items.size());
+        // only the listing made by the writer
+        assertEquals(1, fakeS3.getRequestCount(FakeAmazonS3.LIST));
+    }
+
+    @Test
+    void getStoredItemInfo_prefix() {
+        FakeAmazonS3 fakeS3 = newFakeS3WithNamespaces();
+
+        List<ConfigStoreItemInfo> items = new S3ItemStore(fakeS3, BUCKET, "ns_b").getStoredItemInfo("ns_b/")
+                .collectList().block();
+        assertNotNull(items);
+        assertEquals(20, items.size());
+        assertEquals(1, fakeS3.getRequestCount(FakeAmazonS3.LIST));
+
+        assertEquals(Collections.emptyList(),
+                new S3ItemStore(fakeS3, BUCKET, "ns_b").getStoredItemInfo("ns_a/").collectList().block());
+    }
+
+    @Test
+    void requestLimiter_retriesThrottledRequests() throws IOException {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        String tag = fakeS3.putObject("a/b", "content");
+        ConfigStoreClientS3Configuration configuration = new ConfigStoreClientS3Configuration(BUCKET);
+        configuration.setRequestLimitEnabled(true);
+        configuration.setRequestLimitInitial(8);
+        configuration.setRequestLimitMaxWait(Duration.ofSeconds(5));
+        S3ItemStore store = new S3ItemStore(fakeS3, configuration, Clock.systemUTC());
+        AdaptiveConcurrencyLimiter limiter = store.getRequestLimiter().orElseThrow(AssertionError::new);
+
+        fakeS3.throttleNextRequests(2);
+        assertEquals("content", store.getItem(new ConfigStoreItemInfo("a/b", tag)).getContent());
+        assertEquals(3, fakeS3.getRequestCount(FakeAmazonS3.GET));
+        assertEquals(2, limiter.getThrottleCount());
+        assertTrue(limiter.getLimit() < 8, "limit: " + limiter.getLimit());
+        assertEquals(0, limiter.getInFlightCount());
+
+        fakeS3.throttleNextRequests(1);
+        assertEquals(Collections.singletonList("a/b"), store.getStoredItemInfo()
+                .map(ConfigStoreItemInfo::getName)
+                .collectList()
+                .block());
+        assertEquals(2, fakeS3.getRequestCount(FakeAmazonS3.LIST));
+    }
+
+    @Test
+    void requestLimiter_permitHeldUntilContentRead() throws IOException {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        String tag = fakeS3.putObject("a/b", "content");
+        ConfigStoreClientS3Configuration configuration = new ConfigStoreClientS3Configuration(BUCKET);
+        configuration.setRequestLimitEnabled(true);
+        S3ItemStore store = new S3ItemStore(fakeS3, configuration, Clock.systemUTC());
+        AdaptiveConcurrencyLimiter limiter = store.getRequestLimiter().orElseThrow(AssertionError::new);
+        ConfigStoreItemInfo info = new ConfigStoreItemInfo("a/b", tag);
+
+        try (InputStream stream = store.getItemStream(info)) {
+            assertEquals(1, limiter.getInFlightCount());
+            assertEquals("content", new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(0, limiter.getInFlightCount());
+
+        assertEquals("content", store.getItem(info).getContent());
+        assertEquals(0, limiter.getInFlightCount());
+        assertThrows(ItemTagMismatchException.class, () -> store.getItem(new ConfigStoreItemInfo("a/b", "other")));
+        assertEquals(0, limiter.getInFlightCount());
+    }
+
+    @Test
+    void requestLimiter_disabledByDefault() {
+        assertEquals(Optional.empty(), new S3ItemStore(new FakeAmazonS3(), BUCKET).getRequestLimiter());
+    }
+
+    @Test
+    void requestHedger_hedgesSlowDownload() throws IOException {
+        AtomicInteger slowGets = new AtomicInteger();
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3() {
+            @Override
+            public S3Object getObject(GetObjectRequest request) {
+                if (request.getKey().equals("a/slow") && slowGets.incrementAndGet() == 1) {
+                    try {
+                        Thread.sleep(500);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.getObject(request);
+            }
+        };
+        String fastTag = fakeS3.putObject("a/fast", "fast");
+        String slowTag = fakeS3.putObject("a/slow", "slow");
+        ConfigStoreClientS3Configuration configuration = new ConfigStoreClientS3Configuration(BUCKET);
+        configuration.setHedgingEnabled(true);
+        configuration.setHedgingPercentile(0.5);
+        configuration.setHedgingMinDelay(Duration.ofMillis(100));
+        configuration.setHedgingMaxRatio(1.0);
+        S3ItemStore store = new S3ItemStore(fakeS3, configuration, Clock.systemUTC());
+        S3RequestHedger hedger = store.getRequestHedger().orElseThrow(AssertionError::new);
+
+        for (int i = 0; i < S3RequestHedger.MIN_SAMPLES; i++) {
+            assertEquals("fast", store.getItem(new ConfigStoreItemInfo("a/fast", fastTag)).getContent());
+        }
+        assertEquals("slow", store.getItem(new ConfigStoreItemInfo("a/slow", slowTag)).getContent());
+        assertEquals(S3RequestHedger.MIN_SAMPLES + 1, hedger.getRequestCount());
+        assertEquals(1, hedger.getHedgeCount());
+        assertEquals(1, hedger.getHedgeWinCount());
+        assertEquals(Optional.empty(), new S3ItemStore(fakeS3, BUCKET).getRequestHedger());
+    }
+
+    @Test
+    void getItem_rangedDownloadOfLargeListedItems() throws IOException {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        String large = IntStream.range(0, 250).mapToObj(i -> String.format("<line>%03d</line>", i))
+                .collect(Collectors.joining());
+        fakeS3.putObject("a/large.dmn", large);
+        fakeS3.putObject("a/small.dmn", "<small/>");
+        S3ItemStore store = newRangedStore(fakeS3);
+
+        List<ConfigStoreItemInfo> infos = store.getStoredItemInfo().collectList().block();
+        assertNotNull(infos);
+        fakeS3.resetRequestCounts();
+
+        assertEquals(large, store.getItem(infos.get(0)).getContent());
+        assertEquals(4000, large.length());
+        assertEquals(4, fakeS3.getRequestCount(FakeAmazonS3.GET));
+
+        fakeS3.resetRequestCounts();
+        assertEquals("<small/>", store.getItem(infos.get(1)).getContent());
+        assertEquals(1, fakeS3.getRequestCount(FakeAmazonS3.GET));
+    }
+
+    @Test
+    void getItem_rangedDownloadSizeFromLookup() throws IOException {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        String large = String.join("", Collections.nCopies(3000, "x"));
+        fakeS3.putObject("a/large.dmn", large);
+        S3ItemStore store = newRangedStore(fakeS3);
+
+        ConfigStoreItemInfo info = store.getSingleStoredItemInfo("a/large.dmn").orElseThrow(AssertionError::new);
+        assertEquals(large, store.getItem(info).getContent());
+        assertEquals(3, fakeS3.getRequestCount(FakeAmazonS3.GET));
+    }
+
+    @Test
+    void getItem_rangedDownloadOfChangedItemFails() {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        fakeS3.putObject("a/large.dmn", String.join("", Collections.nCopies(3000, "x")));
+        S3ItemStore store = newRangedStore(fakeS3);
+        ConfigStoreItemInfo info = store.getStoredItemInfo().blockFirst();
+        assertNotNull(info);
+
+        fakeS3.putObject("a/large.dmn", String.join("", Collections.nCopies(3000, "y")));
+        assertThrows(IllegalArgumentException.class, () -> store.getItem(info));
+    }
+
+    @Test
+    void getItem_rangedDownloadOfUnlistedItem() throws IOException {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        String large = String.join("", Collections.nCopies(3000, "x"));
+        String tag = fakeS3.putObject("a/large.dmn", large);
+
+        assertEquals(large, newRangedStore(fakeS3).getItem(new ConfigStoreItemInfo("a/large.dmn", tag)).getContent());
+        assertEquals(1, fakeS3.getRequestCount(FakeAmazonS3.GET));
+    }
+
+    @Test
+    void getItem_decompressesCompressedItems(@TempDir Path directory) throws IOException {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        String content = "<process>".repeat(500);
+        S3CompressedItemWriter writer = new S3CompressedItemWriter(fakeS3, BUCKET);
+        assertEquals("a/1.0/process/p.xml.gz", writer.put("a/1.0/process/p.xml", content));
+        assertTrue(fakeS3.getObjectBytes("a/1.0/process/p.xml.gz").length < content.length() / 5);
+        S3ItemStore store = new S3ItemStore(fakeS3, BUCKET, "", 1, new ItemContentCache(directory, 1 << 20));
+
+        ConfigStoreItemInfo info = store.getSingleStoredItemInfo("a/1.0/process/p.xml.gz")
+                .orElseThrow(AssertionError::new);
+        assertEquals(content, store.getItem(info).getContent());
+        // served from the content cache, which holds decompressed content
+        assertEquals(content, store.getItem(info).getContent());
+        try (InputStream stream = store.getItemStream(info)) {
+            assertEquals(content, new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(1, fakeS3.getRequestCount(FakeAmazonS3.GET));
+    }
+
+    @Test
+    void getItem_decompressesBySuffixOrEncoding() throws IOException {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        String content = "<process>".repeat(500);
+        new S3CompressedItemWriter(fakeS3, BUCKET).put("a/1.0/process/p.xml.gz", content);
+        S3ItemStore store = newRangedStore(fakeS3);
+
+        ConfigStoreItemInfo info = store.getStoredItemInfo().blockFirst();
+        assertNotNull(info);
+        assertEquals("a/1.0/process/p.xml.gz", info.getName());
+        assertEquals(content, store.getItem(info).getContent());
+        try (InputStream stream = store.getItemStream(info)) {
+            assertEquals(content, new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void getItem_rangedDownloadOfCompressedItem() throws IOException {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        StringBuilder content = new StringBuilder();
+        new Random(7).ints(2000, 0, 1000).forEach(i -> content.append(i).append(','));
+        new S3CompressedItemWriter(fakeS3, BUCKET).put("a/1.0/rules/r.dmn", content.toString());
+        S3ItemStore store = newRangedStore(fakeS3);
+
+        ConfigStoreItemInfo info = store.getStoredItemInfo().blockFirst();
+        assertNotNull(info);
+        fakeS3.resetRequestCounts();
+        assertEquals(content.toString(), store.getItem(info).getContent());
+        assertTrue(fakeS3.getRequestCount(FakeAmazonS3.GET) > 1);
+    }
+
+    @Test
+    void getItem_servedFromPackByRange() throws IOException {
+        FakeAmazonS3 fakeS3 = newFakeS3WithNamespaces();
+        new S3ItemPackWriter(fakeS3, BUCKET, "", "packs/items.pack").publish();
+        S3ItemStore store = newPackedStore(fakeS3, "packs/items.pack", false);
+
+        List<ConfigStoreItemInfo> infos = store.getStoredItemInfo().collectList().block();
+        assertEquals(new S3ItemStore(fakeS3, BUCKET).getStoredItemInfo().collectList().block().stream()
+                .filter(info -> !info.getName().startsWith("packs/"))
+                .collect(Collectors.toList()), infos);
+
+        fakeS3.resetRequestCounts();
+        for (ConfigStoreItemInfo info : infos) {
+            assertEquals(new String(fakeS3.getObjectBytes(info.getName()), StandardCharsets.UTF_8),
+                    store.getItem(info).getContent());
+        }
+        // one range read of the pack per item, no request for the items themselves
+        assertEquals(infos.size(), fakeS3.getRequestCount(FakeAmazonS3.GET));
+    }
+
+    @Test
+    void getItem_servedFromWholePack() throws IOException {
+        FakeAmazonS3 fakeS3 = newFakeS3WithNamespaces();
+        new S3CompressedItemWriter(fakeS3, BUCKET).put("ns_a/policy/0/1.0/process/zipped.xml", "<process/>");
+        new S3ItemPackWriter(fakeS3, BUCKET, "", "packs/items.pack").publish();
+        S3ItemStore store = newPackedStore(fakeS3, "packs/items.pack", true);
+
+        List<ConfigStoreItemInfo> infos = store.getStoredItemInfo().collectList().block();
+        assertNotNull(infos);
+        fakeS3.resetRequestCounts();
+        for (ConfigStoreItemInfo info : infos) {
+            assertNotNull(store.getItem(info).getContent());
+        }
+        ConfigStoreItemInfo zipped = infos.stream()
+                .filter(info -> info.getName().endsWith("zipped.xml.gz"))
+                .findFirst().orElseThrow(AssertionError::new);
+        assertEquals("<process/>", store.getItem(zipped).getContent());
+        try (InputStream stream = store.getItemStream(zipped)) {
+            assertEquals("<process/>", new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(1, fakeS3.getRequestCount(FakeAmazonS3.GET));
+    }
+
+    @Test
+    void getItem_changedItemNotServedFromPack() throws IOException {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        fakeS3.putObject("a/1.json", "old");
+        new S3ItemPackWriter(fakeS3, BUCKET, "", "items.pack").publish();
+        String tag = fakeS3.putObject("a/1.json", "new");
+        S3ItemStore store = newPackedStore(fakeS3, "items.pack", false);
+
+        fakeS3.resetRequestCounts();
+        assertEquals("new", store.getItem(new ConfigStoreItemInfo("a/1.json", tag)).getContent());
+        // manifest and item, no read of the pack
+        assertEquals(2, fakeS3.getRequestCount(FakeAmazonS3.GET));
+    }
+
+    @Test
+    void getItem_replacedPackFallsBackToItems() throws IOException {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        String tag = fakeS3.putObject("a/1.json", "one");
+        new S3ItemPackWriter(fakeS3, BUCKET, "", "items.pack").publish();
+        S3ItemStore store = newPackedStore(fakeS3, "items.pack", false);
+        store.readPack();
+        fakeS3.putObject("items.pack", "replaced");
+
+        ConfigStoreItemInfo info = new ConfigStoreItemInfo("a/1.json", tag);
+        assertEquals("one", store.getItem(info).getContent());
+        fakeS3.resetRequestCounts();
+        assertEquals("one", store.getItem(info).getContent());
+        assertEquals(1, fakeS3.getRequestCount(FakeAmazonS3.GET));
+
+        // the next scan reads the new manifest
+        new S3ItemPackWriter(fakeS3, BUCKET, "", "items.pack").publish();
+        store.getStoredItemInfo().blockLast();
+        fakeS3.resetRequestCounts();
+        assertEquals("one", store.getItem(info).getContent());
+        assertEquals(1, fakeS3.getRequestCount(FakeAmazonS3.GET));
+    }
+
+    @Test
+    void getStoredItemInfo_missingPackManifest() throws IOException {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        String tag = fakeS3.putObject("a/1.json", "one");
+        S3ItemStore store = newPackedStore(fakeS3, "items.pack", false);
+
+        assertEquals(List.of(new ConfigStoreItemInfo("a/1.json", tag)),
+                store.getStoredItemInfo().collectList().block());
+        assertEquals("one", store.getItem(new ConfigStoreItemInfo("a/1.json", tag)).getContent());
+    }
+
+    @Test
+    void getStoredItemInfo_versionedListing() {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        fakeS3.putObject("a/1.json", "old");
+        String tag1 = fakeS3.putObject("a/1.json", "one");
+        fakeS3.putObject("a/2.json", "two");
+        fakeS3.deleteObject("a/2.json");
+        String tag3 = fakeS3.putObject("a/3.json", "three");
+        List<ConfigStoreItemInfo> expected = List.of(
+                new ConfigStoreItemInfo("a/1.json", tag1), new ConfigStoreItemInfo("a/3.json", tag3));
+
+        S3ItemStore store = newVersionedStore(fakeS3);
+        assertEquals(expected, store.getStoredItemInfo().collectList().block());
+        assertEquals(expected, store.getConfigStoreItemInfoPages("", 1).collectList().block());
+        assertEquals(0, fakeS3.getRequestCount(FakeAmazonS3.LIST));
+        assertEquals(6, fakeS3.getRequestCount(FakeAmazonS3.LIST_VERSIONS));
+    }
+
+    @Test
+    void getItem_versionedListingPinsListedVersion() throws IOException {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        fakeS3.putObject("a/1.json", "one");
+        S3ItemStore store = newVersionedStore(fakeS3);
+        ConfigStoreItemInfo info = store.getStoredItemInfo().blockFirst();
+        assertNotNull(info);
+
+        fakeS3.putObject("a/1.json", "changed");
+        fakeS3.resetRequestCounts();
+        assertEquals("one", store.getItem(info).getContent());
+        assertEquals("one", new String(store.getItemStream(info).readAllBytes(), StandardCharsets.UTF_8));
+        assertEquals(2, fakeS3.getRequestCount(FakeAmazonS3.GET));
+        assertEquals(0, fakeS3.getRequestCount(FakeAmazonS3.LIST_VERSIONS));
+    }
+
+    @Test
+    void getShardedConfigStoreItemInfo_versionedListingPinsListedVersions() throws IOException {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        fakeS3.putObject("a/1.json", "old");
+        String tag1 = fakeS3.putObject("a/1.json", "one");
+        fakeS3.putObject("a/2.json", "two");
+        fakeS3.deleteObject("a/2.json");
+        String tag3 = fakeS3.putObject("b/3.json", "three");
+        fakeS3.putObject("top.json", "old");
+        String tagTop = fakeS3.putObject("top.json", "top");
+        fakeS3.putObject("z.json", "deleted");
+        fakeS3.deleteObject("z.json");
+        List<ConfigStoreItemInfo> expected = List.of(new ConfigStoreItemInfo("a/1.json", tag1),
+                new ConfigStoreItemInfo("b/3.json", tag3), new ConfigStoreItemInfo("top.json", tagTop));
+
+        S3ItemStore store = newVersionedStore(fakeS3);
+        List<ConfigStoreItemInfo> items = store.getShardedConfigStoreItemInfo("", 1, 2).collectList().block();
+        assertEquals(expected, items);
+        assertEquals(0, fakeS3.getRequestCount(FakeAmazonS3.LIST));
+
+        // items at the top level and in namespaces are downloaded from the listed versions
+        fakeS3.putObject("a/1.json", "changed");
+        fakeS3.putObject("top.json", "changed");
+        fakeS3.resetRequestCounts();
+        assertEquals("one", store.getItem(items.get(0)).getContent());
+        assertEquals("top", store.getItem(items.get(2)).getContent());
+        assertEquals(2, fakeS3.getRequestCount(FakeAmazonS3.GET));
+        assertEquals(0, fakeS3.getRequestCount(FakeAmazonS3.LIST_VERSIONS));
+    }
+
+    @Test
+    void getItem_versionedListingFindsUnlistedVersionInHistory() throws IOException {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        String tag = fakeS3.putObject("a/1.json", "one");
+        fakeS3.putObject("a/1.json", "changed");
+        S3ItemStore store = newVersionedStore(fakeS3);
+        ConfigStoreItemInfo info = new ConfigStoreItemInfo("a/1.json", tag);
+
+        assertEquals("one", store.getItem(info).getContent());
+        assertEquals(2, fakeS3.getRequestCount(FakeAmazonS3.GET));
+        assertEquals(1, fakeS3.getRequestCount(FakeAmazonS3.LIST_VERSIONS));
+
+        // the version id found in the history is remembered
+        assertEquals("one", store.getItem(info).getContent());
+        assertEquals(3, fakeS3.getRequestCount(FakeAmazonS3.GET));
+        assertEquals(1, fakeS3.getRequestCount(FakeAmazonS3.LIST_VERSIONS));
+
+        ConfigStoreItemInfo unknown = new ConfigStoreItemInfo("a/1.json", "unknown");
+        assertThrows(IllegalArgumentException.class, () -> store.getItem(unknown));
+    }
+
+    @Test
+    void getItem_versionedRangedDownloadOfChangedItem() throws IOException {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        String large = String.join("", Collections.nCopies(3000, "x"));
+        fakeS3.putObject("a/large.dmn", large);
+        ConfigStoreClientS3Configuration configuration = new ConfigStoreClientS3Configuration(BUCKET);
+        configuration.setRangedGetProfile(new S3RangedGetProfile(1000, 1000, 2));
+        configuration.setVersionedListingEnabled(true);
+        S3ItemStore store = new S3ItemStore(fakeS3, configuration, Clock.systemUTC());
+        ConfigStoreItemInfo info = store.getStoredItemInfo().blockFirst();
+        assertNotNull(info);
+
+        fakeS3.putObject("a/large.dmn", String.join("", Collections.nCopies(3000, "y")));
+        fakeS3.resetRequestCounts();
+        assertEquals(large, store.getItem(info).getContent());
+        assertEquals(3, fakeS3.getRequestCount(FakeAmazonS3.GET));
+    }
+
+    @Test
+    void getItem_unversionedListingOfChangedItemFails() {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        String tag = fakeS3.putObject("a/1.json", "one");
+        fakeS3.putObject("a/1.json", "changed");
+
+        S3ItemStore store = new S3ItemStore(fakeS3, BUCKET);
+        ConfigStoreItemInfo info = new ConfigStoreItemInfo("a/1.json", tag);
+        assertThrows(IllegalArgumentException.class, () -> store.getItem(info));
+        assertEquals(0, fakeS3.getRequestCount(FakeAmazonS3.LIST_VERSIONS));
+    }
+
+    private static S3ItemStore newVersionedStore(FakeAmazonS3 fakeS3) {
+        ConfigStoreClientS3Configuration configuration = new ConfigStoreClientS3Configuration(BUCKET);
+        configuration.setVersionedListingEnabled(true);
+        return new S3ItemStore(fakeS3, configuration, Clock.systemUTC());
+    }
+
+    private static S3ItemStore newPackedStore(FakeAmazonS3 fakeS3, String packKey, boolean cacheWholePack) {
+        ConfigStoreClientS3Configuration configuration = new ConfigStoreClientS3Configuration(BUCKET);
+        configuration.setPackProfile(new S3ItemPackProfile(packKey, cacheWholePack));
+        return new S3ItemStore(fakeS3, configuration, Clock.systemUTC());
+    }
+
+    private static S3ItemStore newRangedStore(FakeAmazonS3 fakeS3) {
+        ConfigStoreClientS3Configuration configuration = new ConfigStoreClientS3Configuration(BUCKET);
+        configuration.setRangedGetProfile(new S3RangedGetProfile(1000, 1000, 2));
+        return new S3ItemStore(fakeS3, configuration, Clock.systemUTC());
+    }
+
+    private static S3ItemStore newIndexedStore(FakeAmazonS3 fakeS3, String rootPrefix, Clock clock) {
+        ConfigStoreClientS3Configuration configuration = new ConfigStoreClientS3Configuration(BUCKET, rootPrefix);
+        configuration.setIndexKey("index.json");
+        configuration.setIndexMaxAge(Duration.ofHours(1));
+        return new S3ItemStore(fakeS3, configuration, clock);
+    }
+
+    private static class MutableClock extends Clock {
+        long millis = 1_000_000;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+
+    private static FakeAmazonS3 newFakeS3WithNamespaces() {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        for (String namespace : new String[]{"ns_a", "ns_b", "ns_c"}) {
+            IntStream.range(0, 20).forEach(i -> fakeS3.putObject(
+                    String.format("%s/policy/%s/1.0/process/p%02d.xml", namespace, i % 4, i), namespace + i));
+        }
+        fakeS3.putObject("a_top_level.json", "a");
+        fakeS3.putObject("ns_b.json", "b");
+        fakeS3.putObject("z_top_level.json", "z");
+        fakeS3.resetRequestCounts();
+        return fakeS3;
+    }
+
+    @Test
+    void getItemStream_fromS3AndContentCache(@TempDir Path directory) throws IOException {
+        FakeAmazonS3 fakeS3 = new FakeAmazonS3();
+        String tag = fakeS3.putObject("a/b", "content");
+        ConfigStoreItemInfo info = new ConfigStoreItemInfo("a/b", tag);
+        ItemContentCache cache = new ItemContentCache(directory, 1024);
+        S3ItemStore store = new S3ItemStore(fakeS3, BUCKET, "", 1, cache);
+
+        try (InputStream stream = store.getItemStream(info)) {
+            assertEquals("content", new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        // streamed content is not buffered into the cache
+        assertEquals(0, cache.getEntryCount());
+
+        store.getItem(info);
+        try (InputStream stream = store.getItemStream(info)) {
+            assertEquals("content", new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(2, fakeS3.getRequestCount(FakeAmazonS3.GET));
+        assertEquals(1, cache.getHitCount());
     }
 
 }
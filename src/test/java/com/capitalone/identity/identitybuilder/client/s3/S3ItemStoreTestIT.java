@@ -61,7 +61,7 @@ class S3ItemStoreTestIT {
     @Test
     void test_get_content() throws IOException {
         ConfigStoreItemInfo info = new ConfigStoreItemInfo(key, eTagV1);
-        String content = store.getItem(info).content;
+        String content = store.getItem(info).getContent();
         assertEquals(contentV1, content);
     }
 
@@ -102,7 +102,7 @@ class S3ItemStoreTestIT {
 
             // verifiying the Objects are successfully uploading into s3 or not
             ConfigStoreItemInfo info = new ConfigStoreItemInfo(pagination_prefix + i + ".txt", eTagV2);
-            String content = store.getItem(info).content;
+            String content = store.getItem(info).getContent();
             //checking the content
             assertEquals(dynamicContentVersion + i, content);
 
@@ -0,0 +1,35 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.amazonaws.regions.Regions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3MultiRegionPropertiesTest {
+
+    @Test
+    void construct_defaults() {
+        S3MultiRegionProperties properties = new S3MultiRegionProperties(false, "us-west-2", null);
+        assertFalse(properties.isEnabled());
+        assertEquals(Regions.US_WEST_2, properties.getWestRegion());
+        assertEquals(MultiRegionItemStore.DEFAULT_FAILURE_COOLDOWN, properties.getFailureCooldown());
+    }
+
+    @Test
+    void construct_enabled() {
+        S3MultiRegionProperties properties = new S3MultiRegionProperties(true, "us-west-1", "PT1M");
+        assertTrue(properties.isEnabled());
+        assertEquals(Regions.US_WEST_1, properties.getWestRegion());
+        assertEquals(Duration.ofMinutes(1), properties.getFailureCooldown());
+    }
+
+    @Test
+    void construct_invalid() {
+        assertThrows(IllegalArgumentException.class, () -> new S3MultiRegionProperties(true, "west", null));
+        assertThrows(IllegalArgumentException.class, () -> new S3MultiRegionProperties(true, "us-east-1", null));
+        assertThrows(IllegalArgumentException.class, () -> new S3MultiRegionProperties(true, "us-west-2", "-PT1S"));
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3RangedGetPropertiesTest {
+
+    @Test
+    void construct_disabled() {
+        S3RangedGetProperties properties = new S3RangedGetProperties(false,
+                S3RangedGetProfile.DEFAULT_THRESHOLD_BYTES, S3RangedGetProfile.DEFAULT_PART_SIZE_BYTES,
+                S3RangedGetProfile.DEFAULT_PARALLELISM);
+        assertNull(properties.getProfile());
+        assertNull(properties.applyTo(new ConfigStoreClientS3Configuration("test")).getRangedGetProfile());
+    }
+
+    @Test
+    void construct_enabled() {
+        S3RangedGetProperties properties = new S3RangedGetProperties(true, 1024, 256, 8);
+        S3RangedGetProfile expected = new S3RangedGetProfile(1024, 256, 8);
+        assertEquals(expected, properties.getProfile());
+        assertEquals(expected, properties.applyTo(new ConfigStoreClientS3Configuration("test")).getRangedGetProfile());
+    }
+
+    @Test
+    void construct_invalid() {
+        assertThrows(IllegalArgumentException.class, () -> new S3RangedGetProperties(true, 0, 256, 8));
+        assertThrows(IllegalArgumentException.class, () -> new S3RangedGetProperties(true, 1024, 0, 8));
+        assertThrows(IllegalArgumentException.class, () -> new S3RangedGetProperties(true, 1024, 256, 0));
+    }
+
+    @Test
+    void profile_partCount() {
+        S3RangedGetProfile profile = new S3RangedGetProfile(10, 4, 1);
+        assertEquals(3, profile.getPartCount(12 - 1));
+        assertEquals(3, profile.getPartCount(12));
+        assertEquals(4, profile.getPartCount(13));
+    }
+
+}
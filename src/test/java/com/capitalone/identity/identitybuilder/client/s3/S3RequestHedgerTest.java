@@ -0,0 +1,183 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import org.junit.jupiter.api.Test;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3RequestHedgerTest {
+
+    @Test
+    void construct_invalid() {
+        Duration delay = Duration.ofMillis(1);
+        assertThrows(IllegalArgumentException.class, () -> new S3RequestHedger(0, delay, 0.1));
+        assertThrows(IllegalArgumentException.class, () -> new S3RequestHedger(1, delay, 0.1));
+        assertThrows(IllegalArgumentException.class, () -> new S3RequestHedger(0.9, Duration.ofMillis(-1), 0.1));
+        assertThrows(IllegalArgumentException.class, () -> new S3RequestHedger(0.9, delay, 0));
+        assertThrows(IllegalArgumentException.class, () -> new S3RequestHedger(0.9, delay, 1.5));
+    }
+
+    @Test
+    void execute_noHedgeBeforeEnoughSamples() throws IOException {
+        S3RequestHedger hedger = new S3RequestHedger(0.5, Duration.ofMillis(1), 1);
+        for (int i = 0; i < S3RequestHedger.MIN_SAMPLES - 1; i++) {
+            assertEquals("ok", hedger.execute(() -> "ok"));
+        }
+        assertEquals(Optional.empty(), hedger.getHedgeDelay());
+
+        assertEquals("ok", hedger.execute(() -> "ok"));
+        assertEquals(S3RequestHedger.MIN_SAMPLES, hedger.getRequestCount());
+        assertEquals(0, hedger.getHedgeCount());
+        assertTrue(hedger.getHedgeDelay().isPresent());
+    }
+
+    @Test
+    void execute_hedgeOfSlowRequestWins() throws IOException {
+        S3RequestHedger hedger = warmedUp(new S3RequestHedger(0.5, Duration.ofMillis(100), 1));
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        try {
+            assertEquals("hedge", hedger.execute(slowFirstCall(calls, release, () -> "hedge")));
+        } finally {
+            release.countDown();
+        }
+        assertEquals(2, calls.get());
+        assertEquals(1, hedger.getHedgeCount());
+        assertEquals(1, hedger.getHedgeWinCount());
+    }
+
+    @Test
+    void execute_hedgeWinsWhileOriginalHasNoResponse() throws IOException {
+        S3RequestHedger hedger = warmedUp(new S3RequestHedger(0.5, Duration.ofMillis(100), 1));
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        long start = System.nanoTime();
+        try {
+            assertEquals("hedge", hedger.execute(onResponse -> {
+                if (calls.incrementAndGet() == 1) {
+                    // no response, and so no stream to abort, until the test completes
+                    assertTrue(release.await(10, TimeUnit.SECONDS));
+                    return "slow";
+                }
+                return "hedge";
+            }));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        } finally {
+            release.countDown();
+        }
+        assertEquals(1, hedger.getHedgeWinCount());
+    }
+
+    @Test
+    void execute_abortsLosingHedge() throws IOException, InterruptedException {
+        S3RequestHedger hedger = warmedUp(new S3RequestHedger(0.5, Duration.ofMillis(100), 1));
+        CountDownLatch hedgeStarted = new CountDownLatch(1);
+        CountDownLatch hedgeAborted = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertEquals("original", hedger.execute(onResponse -> {
+            if (calls.incrementAndGet() == 1) {
+                assertTrue(hedgeStarted.await(5, TimeUnit.SECONDS));
+                return "original";
+            }
+            onResponse.accept(abortableStream(hedgeAborted));
+            hedgeStarted.countDown();
+            assertTrue(hedgeAborted.await(5, TimeUnit.SECONDS));
+            throw new IOException("aborted");
+        }));
+        assertTrue(hedgeAborted.await(5, TimeUnit.SECONDS));
+        assertEquals(1, hedger.getHedgeCount());
+        assertEquals(0, hedger.getHedgeWinCount());
+    }
+
+    @Test
+    void execute_hedgeRateCapped() throws IOException {
+        S3RequestHedger hedger = warmedUp(new S3RequestHedger(0.5, Duration.ofMillis(100), 0.01));
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        Schedulers.parallel().schedule(release::countDown, 300, TimeUnit.MILLISECONDS);
+        assertEquals("slow", hedger.execute(slowFirstCall(calls, release, () -> "hedge")));
+        assertEquals(1, calls.get());
+        assertEquals(0, hedger.getHedgeCount());
+        assertEquals(1, hedger.getBudgetExhaustedCount());
+    }
+
+    @Test
+    void execute_failedHedgeIgnored() throws IOException {
+        S3RequestHedger hedger = warmedUp(new S3RequestHedger(0.5, Duration.ofMillis(100), 1));
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertEquals("slow", hedger.execute(slowFirstCall(calls, release, () -> {
+            release.countDown();
+            throw new IOException("hedge failed");
+        })));
+        assertEquals(1, hedger.getHedgeCount());
+        assertEquals(0, hedger.getHedgeWinCount());
+    }
+
+    @Test
+    void execute_failurePropagates() {
+        S3RequestHedger hedger = new S3RequestHedger(0.5, Duration.ofMillis(1), 1);
+        assertThrows(IOException.class, () -> hedger.execute(() -> {
+            throw new IOException("failed");
+        }));
+        assertThrows(IllegalArgumentException.class, () -> hedger.execute(() -> {
+            throw new IllegalArgumentException("failed");
+        }));
+    }
+
+    private static S3RequestHedger warmedUp(S3RequestHedger hedger) throws IOException {
+        for (int i = 0; i < S3RequestHedger.MIN_SAMPLES; i++) {
+            hedger.execute(() -> "ok");
+        }
+        return hedger;
+    }
+
+    /**
+     * @return a request whose first call waits for {@code release} and returns "slow", or fails if its response
+     * stream was aborted, while later calls run {@code next}
+     */
+    private static S3RequestHedger.Request<String> slowFirstCall(AtomicInteger calls, CountDownLatch release,
+                                                                 Callable<String> next) {
+        return onResponse -> {
+            if (calls.incrementAndGet() == 1) {
+                CountDownLatch aborted = new CountDownLatch(1);
+                onResponse.accept(abortableStream(aborted));
+                for (int i = 0; i < 500 && !release.await(10, TimeUnit.MILLISECONDS); i++) {
+                    if (aborted.getCount() == 0) {
+                        throw new IOException("aborted");
+                    }
+                }
+                return "slow";
+            }
+            return next.call();
+        };
+    }
+
+    /**
+     * @return a response stream that counts down {@code aborted} when it is aborted
+     */
+    private static S3ObjectInputStream abortableStream(CountDownLatch aborted) {
+        return new S3ObjectInputStream(new ByteArrayInputStream(new byte[0]) {
+            @Override
+            public void close() {
+                aborted.countDown();
+            }
+        }, null);
+    }
+
+}
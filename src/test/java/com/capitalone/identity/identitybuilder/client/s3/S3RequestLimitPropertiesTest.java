@@ -0,0 +1,50 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3RequestLimitPropertiesTest {
+
+    @Test
+    void construct_defaults() {
+        S3RequestLimitProperties properties = new S3RequestLimitProperties(false,
+                AdaptiveConcurrencyLimiter.DEFAULT_INITIAL_LIMIT, AdaptiveConcurrencyLimiter.DEFAULT_MIN_LIMIT,
+                AdaptiveConcurrencyLimiter.DEFAULT_MAX_LIMIT, null);
+        assertFalse(properties.isEnabled());
+        assertEquals(AdaptiveConcurrencyLimiter.DEFAULT_MAX_WAIT, properties.getMaxWait());
+
+        ConfigStoreClientS3Configuration configuration = properties.applyTo(new ConfigStoreClientS3Configuration("test"));
+        assertNull(configuration.getRequestLimiter());
+    }
+
+    @Test
+    void construct_enabled() {
+        S3RequestLimitProperties properties = new S3RequestLimitProperties(true, 4, 2, 8, "PT5S");
+        assertTrue(properties.isEnabled());
+        assertEquals(4, properties.getInitial());
+        assertEquals(2, properties.getMin());
+        assertEquals(8, properties.getMax());
+        assertEquals(Duration.ofSeconds(5), properties.getMaxWait());
+
+        ConfigStoreClientS3Configuration configuration = properties.applyTo(new ConfigStoreClientS3Configuration("test"));
+        assertEquals(4, configuration.getRequestLimitInitial());
+        assertEquals(2, configuration.getRequestLimitMin());
+        assertEquals(8, configuration.getRequestLimitMax());
+        assertEquals(Duration.ofSeconds(5), configuration.getRequestLimitMaxWait());
+        assertNotNull(configuration.getRequestLimiter());
+        assertEquals(4, configuration.getRequestLimiter().getLimit());
+    }
+
+    @Test
+    void construct_invalid() {
+        assertThrows(IllegalArgumentException.class, () -> new S3RequestLimitProperties(true, 1, 0, 8, null));
+        assertThrows(IllegalArgumentException.class, () -> new S3RequestLimitProperties(true, 2, 2, 1, null));
+        assertThrows(IllegalArgumentException.class, () -> new S3RequestLimitProperties(true, 9, 1, 8, null));
+        assertThrows(IllegalArgumentException.class, () -> new S3RequestLimitProperties(true, 4, 1, 8, "5s"));
+        assertThrows(IllegalArgumentException.class, () -> new S3RequestLimitProperties(true, 4, 1, 8, "-PT1S"));
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.http.HttpMethodName;
+import com.amazonaws.http.HttpResponse;
+import com.amazonaws.services.s3.model.*;
+import com.amazonaws.util.AWSRequestMetrics;
+import com.amazonaws.util.TimingInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3RequestMetricsTest {
+
+    private static Request<?> newRequest(AmazonWebServiceRequest original, HttpMethodName method, long latencyMillis) {
+        DefaultRequest<?> request = new DefaultRequest<>(original, "Amazon S3");
+        request.setHttpMethod(method);
+        TimingInfo timingInfo = TimingInfo.newTimingInfoFullSupport(0, TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+        request.setAWSRequestMetrics(new AWSRequestMetrics(timingInfo) {
+        });
+        return request;
+    }
+
+    private static Response<?> newResponse(Request<?> request, long contentLength) {
+        HttpResponse httpResponse = new HttpResponse(request, null);
+        httpResponse.addHeader("Content-Length", String.valueOf(contentLength));
+        return new Response<>(null, httpResponse);
+    }
+
+    @Test
+    void collectMetrics_perOperation() {
+        S3RequestMetrics metrics = new S3RequestMetrics();
+
+        Request<?> get1 = newRequest(new GetObjectRequest("b", "k"), HttpMethodName.GET, 10);
+        metrics.collectMetrics(get1, newResponse(get1, 100));
+        Request<?> get2 = newRequest(new GetObjectRequest("b", "k"), HttpMethodName.GET, 30);
+        metrics.collectMetrics(get2, newResponse(get2, 50));
+        Request<?> list = newRequest(new ListObjectsRequest(), HttpMethodName.GET, 5);
+        metrics.collectMetrics(list, newResponse(list, 2000));
+        Request<?> head = newRequest(new GetObjectMetadataRequest("b", "k"), HttpMethodName.HEAD, 2);
+        metrics.collectMetrics(head, newResponse(head, 100));
+        metrics.collectMetrics(newRequest(new GetObjectMetadataRequest("b", "k"), HttpMethodName.HEAD, 4), null);
+
+        S3RequestMetrics.Snapshot getStats = metrics.getSnapshot(S3RequestMetrics.GET).orElseThrow(AssertionError::new);
+        assertEquals(2, getStats.getCount());
+        assertEquals(0, getStats.getErrorCount());
+        assertEquals(40, getStats.getTotalLatencyMillis());
+        assertEquals(20, getStats.getMeanLatencyMillis());
+        assertEquals(30, getStats.getMaxLatencyMillis());
+        assertEquals(150, getStats.getBytes());
+
+        S3RequestMetrics.Snapshot listStats = metrics.getSnapshot(S3RequestMetrics.LIST).orElseThrow(AssertionError::new);
+        assertEquals(1, listStats.getCount());
+        assertEquals(2000, listStats.getBytes());
+
+        // HEAD responses declare the object size but carry no body
+        S3RequestMetrics.Snapshot headStats = metrics.getSnapshot(S3RequestMetrics.HEAD).orElseThrow(AssertionError::new);
+        assertEquals(2, headStats.getCount());
+        assertEquals(1, headStats.getErrorCount());
+        assertEquals(0, headStats.getBytes());
+        assertEquals(4, headStats.getMaxLatencyMillis());
+
+        assertEquals(3, metrics.getSnapshots().size());
+        assertTrue(metrics.toString().contains("GET={count=2"), metrics.toString());
+    }
+
+    @Test
+    void getOperation_otherRequest() {
+        assertEquals("PUT", S3RequestMetrics.getOperation(
+                newRequest(new PutObjectRequest("b", "k", "file"), HttpMethodName.PUT, 1)));
+        assertEquals(S3RequestMetrics.LIST, S3RequestMetrics.getOperation(
+                newRequest(new ListObjectsV2Request(), HttpMethodName.GET, 1)));
+        assertEquals(S3RequestMetrics.GET, S3RequestMetrics.getOperation(
+                newRequest(new GetObjectRequest("b", "k"), HttpMethodName.GET, 1)));
+    }
+
+    @Test
+    void getSnapshot_noRequests() {
+        assertFalse(new S3RequestMetrics().getSnapshot(S3RequestMetrics.GET).isPresent());
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.capitalone.identity.identitybuilder.client.s3;
+
+import com.capitalone.identity.identitybuilder.client.archive.ArchiveItemWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3SnapshotPropertiesTest {
+
+    @Test
+    void construct_disabled() {
+        assertNull(new S3SnapshotProperties(" ").getArchive());
+    }
+
+    @Test
+    void openArchive(@TempDir Path directory) throws IOException {
+        FakeAmazonS3 s3 = new FakeAmazonS3();
+        s3.putObject("a/1.json", "one");
+        Path file = directory.resolve("snapshot.zip");
+        new ArchiveItemWriter(new S3ItemStore(s3, "bucket")).write(file);
+
+        S3SnapshotProperties properties = new S3SnapshotProperties(file.toString());
+        assertEquals(file.toString(), properties.getArchive());
+        assertEquals(1, properties.openArchive().size());
+    }
+
+    @Test
+    void openArchive_invalid(@TempDir Path directory) throws IOException {
+        String missing = directory.resolve("missing.zip").toString();
+        String msg = assertThrows(IllegalArgumentException.class,
+                () -> new S3SnapshotProperties(missing).openArchive()).getMessage();
+        assertTrue(msg.contains("csc.s3.snapshot.archive"));
+
+        Path notZip = Files.writeString(directory.resolve("snapshot.zip"), "not a zip");
+        assertThrows(IllegalArgumentException.class,
+                () -> new S3SnapshotProperties(notZip.toString()).openArchive());
+    }
+
+}
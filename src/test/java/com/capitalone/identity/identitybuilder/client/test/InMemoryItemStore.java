@@ -32,6 +32,13 @@ public class InMemoryItemStore extends CommonItemStore {
         return Flux.fromStream(items.stream()).map(item -> item.info);
     }
 
+    @Override
+    public Flux<ConfigStoreItemInfo> getStoredItemInfo(String prefix) {
+        return Flux.fromStream(items.stream())
+                .map(item -> item.info)
+                .filter(info -> info.getName().startsWith(prefix));
+    }
+
     @Override
     public Optional<ConfigStoreItemInfo> getSingleStoredItemInfo(String key) {
         return items.stream()
@@ -675,6 +675,24 @@ class ConfigManagementModelParserTest {
 
     }
 
+    @Test
+    void parse_v2_compressedUseCaseKeyedByLogicalName() {
+        String schema = getJsonFile("simple_schema_v2.json");
+        String defaults = "{\"propertyAKey\":\"defaultA\" }";
+        String usecase = "{\"propertyAKey\":\"usecaseA\" }";
+
+        Set<ConfigStoreItem> useCases = Collections.singleton(
+                new ConfigStoreItem("abc/1.0/config/usecase_a.json.gz", usecase));
+        Set<ConfigStoreItem> features = Collections.singleton(
+                new ConfigStoreItem("abc/1.0/config/features.json", "{\"featureXKey\":\"featureX\"}"));
+        ConfigManagementModel result = ConfigManagementModelParser.parse("ParserTest", defaults, schema, useCases,
+                features, null);
+
+        assertEquals("usecaseA", result.getConfiguration("usecase_a", MatchingStrategies.MATCH_EXACT_ONLY)
+                .map(configuration -> configuration.get("propertyAKey")).orElse(null));
+        assertFalse(result.getConfiguration("usecase_a.gz", MatchingStrategies.MATCH_EXACT_ONLY).isPresent());
+    }
+
     @Test
     void parse_v2_error_schema_conflict() {
         String schema = getJsonFile("simple_schema_v2_conflict.json");
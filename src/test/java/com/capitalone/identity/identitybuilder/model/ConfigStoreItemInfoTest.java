@@ -56,4 +56,22 @@ public class ConfigStoreItemInfoTest {
         assertNotEquals(a.hashCode(), b.hashCode());
     }
 
+    @Test
+    public void type() {
+        ConfigStoreItemInfo info = new ConfigStoreItemInfo("a/1.0/process/p.xml.gz", "1");
+        assertEquals(ConfigStoreItem.Type.PROCESS, info.getType());
+        assertSame(info.getType(), info.getType());
+        assertEquals(ConfigStoreItem.Type.UNRECOGNIZED, new ConfigStoreItemInfo("a", "1").getType());
+    }
+
+    @Test
+    public void type_notPartOfEquality() {
+        ConfigStoreItemInfo a = new ConfigStoreItemInfo("a/1.0/rules/r.dmn", "1");
+        ConfigStoreItemInfo b = new ConfigStoreItemInfo("a/1.0/rules/r.dmn", "1");
+        a.getType();
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals(a.toString(), b.toString());
+    }
+
 }
@@ -4,6 +4,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class ConfigStoreItemTest {
@@ -21,7 +28,7 @@ public class ConfigStoreItemTest {
     @Test
     void constructor_contentNull() {
         ConfigStoreItemInfo info = new ConfigStoreItemInfo("name", "1");
-        assertThrows(NullPointerException.class, () -> new ConfigStoreItem(info, null));
+        assertThrows(NullPointerException.class, () -> new ConfigStoreItem(info, (String) null));
         assertThrows(NullPointerException.class, () -> new ConfigStoreItem("name", null));
     }
 
@@ -37,6 +44,9 @@ public class ConfigStoreItemTest {
     @Test
     void testNullType() {
         assertEquals(ConfigStoreItem.Type.PROCESS, ConfigStoreItem.getTypeFromPath("test/1.0/process/name.xml"));
+        assertEquals(ConfigStoreItem.Type.PROCESS, ConfigStoreItem.getTypeFromPath("test/1.0/process/name.xml.gz"));
+        assertEquals(ConfigStoreItem.Type.RULES, ConfigStoreItem.getTypeFromPath("test/1.0/rules/name.dmn.gz"));
+        assertEquals(ConfigStoreItem.Type.POLICY_STATUS, ConfigStoreItem.getTypeFromPath("test/metadata.json.gz"));
         assertEquals(ConfigStoreItem.Type.PROCESS, ConfigStoreItem.getTypeFromPath("test/1.0/34/process/name.xml"));
         assertEquals(ConfigStoreItem.Type.RULES, ConfigStoreItem.getTypeFromPath("test/1.0/rules/name.dmn"));
         assertEquals(ConfigStoreItem.Type.LIBRARY, ConfigStoreItem.getTypeFromPath("test/1.0/routes/name.xml"));
@@ -161,6 +171,23 @@ public class ConfigStoreItemTest {
         assertEquals(ConfigStoreItem.Type.UNRECOGNIZED, ConfigStoreItem.getTypeFromPath(key));
     }
 
+    @Test
+    void partitionByType() {
+        ConfigStoreItem process = new ConfigStoreItem("a/1.0/process/p.xml", "p");
+        ConfigStoreItem rules = new ConfigStoreItem("a/1.0/rules/r.dmn", "r");
+        ConfigStoreItem other = new ConfigStoreItem("a/readme.md", "m");
+        Map<ConfigStoreItem.Type, Set<ConfigStoreItem>> partition =
+                ConfigStoreItem.partitionByType(Set.of(process, rules, other));
+        assertEquals(ConfigStoreItem.Type.values().length, partition.size());
+        assertEquals(Set.of(process), partition.get(ConfigStoreItem.Type.PROCESS));
+        assertEquals(Set.of(rules), partition.get(ConfigStoreItem.Type.RULES));
+        assertEquals(Set.of(other), partition.get(ConfigStoreItem.Type.UNRECOGNIZED));
+        assertEquals(Set.of(), partition.get(ConfigStoreItem.Type.LIBRARY));
+        Set<ConfigStoreItem> processItems = partition.get(ConfigStoreItem.Type.PROCESS);
+        assertThrows(UnsupportedOperationException.class, () -> processItems.add(rules));
+        assertEquals(ConfigStoreItem.Type.PROCESS, process.getType());
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {
             "name1",
@@ -209,4 +236,63 @@ public class ConfigStoreItemTest {
 
     }
 
+    @Test
+    void constructor_bytesNull() {
+        ConfigStoreItemInfo info = new ConfigStoreItemInfo("name", "1");
+        assertThrows(NullPointerException.class, () -> new ConfigStoreItem(info, (byte[]) null));
+    }
+
+    @Test
+    void constructor_bytesEquivalence() {
+        ConfigStoreItemInfo info = new ConfigStoreItemInfo("name", "1");
+        String content = "<policy>\u00e9\u4e2d</policy>";
+        ConfigStoreItem stringConstruction = new ConfigStoreItem(info, content);
+        ConfigStoreItem byteConstruction = new ConfigStoreItem(info, content.getBytes(StandardCharsets.UTF_8));
+        assertEquals(stringConstruction, byteConstruction);
+        assertEquals(stringConstruction.hashCode(), byteConstruction.hashCode());
+        assertEquals(content, byteConstruction.getContent());
+        assertEquals(content.getBytes(StandardCharsets.UTF_8).length, byteConstruction.getContentLength());
+    }
+
+    @Test
+    void constructor_bytesEquivalenceInSets() {
+        ConfigStoreItemInfo info = new ConfigStoreItemInfo("name", "1");
+        // characters outside the basic multilingual plane take four bytes in UTF-8 and two chars in a String
+        String content = "{\"name\": \"\ud83d\ude00\"}";
+        ConfigStoreItem stringConstruction = new ConfigStoreItem(info, content);
+        ConfigStoreItem byteConstruction = new ConfigStoreItem(info, content.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(Set.of(stringConstruction), Set.of(byteConstruction));
+        assertTrue(new HashSet<>(Set.of(stringConstruction)).contains(byteConstruction));
+        assertArrayEquals(stringConstruction.getContentBytes(), byteConstruction.getContentBytes());
+        assertNotEquals(stringConstruction, new ConfigStoreItem(info, (content + " ").getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void getContent_decodedOnceAndReused() {
+        ConfigStoreItem item = new ConfigStoreItem(new ConfigStoreItemInfo("name", "1"),
+                "content".getBytes(StandardCharsets.UTF_8));
+        assertSame(item.getContent(), item.getContent());
+    }
+
+    @Test
+    void contentBytes_defensivelyCopied() {
+        byte[] source = "content".getBytes(StandardCharsets.UTF_8);
+        ConfigStoreItem item = new ConfigStoreItem(new ConfigStoreItemInfo("name", "1"), source);
+        source[0] = 'X';
+        item.getContentBytes()[0] = 'Y';
+        assertEquals("content", item.getContent());
+        assertArrayEquals("content".getBytes(StandardCharsets.UTF_8), item.getContentBytes());
+    }
+
+    @Test
+    void getContentStream() throws IOException {
+        ConfigStoreItem item = new ConfigStoreItem(new ConfigStoreItemInfo("name", "1"), "content");
+        try (InputStream stream = item.getContentStream()) {
+            assertEquals("content", new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        // each call returns an independent stream
+        assertEquals('c', item.getContentStream().read());
+    }
+
 }
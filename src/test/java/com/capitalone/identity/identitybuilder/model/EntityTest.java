@@ -11,7 +11,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -73,6 +76,20 @@ class EntityTest {
         assertEquals(EntityActivationStatus.ACTIVE, policy.getEntityActivationStatus());
     }
 
+    @Test
+    void policyItemsOfType() {
+        PolicyDefinition policySpec = new PolicyDefinition("a/b/c", "1.0");
+        EntityInfo.Policy policyInfo = new EntityInfo.Policy(policySpec, Collections.emptySet());
+        ConfigStoreItem process = new ConfigStoreItem("a/b/c/1.0/process/p.xml", "p");
+        ConfigStoreItem rule = new ConfigStoreItem("a/b/c/1.0/rules/r.dmn", "r");
+        Entity.Policy policy = new Entity.Policy(policyInfo, Set.of(process, rule),
+                EntityActivationStatus.ACTIVE);
+        assertEquals(Set.of(process), policy.getProcessItems());
+        assertEquals(Set.of(rule), policy.getRuleItems());
+        assertEquals(Set.of(), policy.getItemsOfType(ConfigStoreItem.Type.CONFIG_DEFAULT));
+        assertEquals(policy, policy.copy(policy.getInfo(), policy.getItems(), policy.getPolicyMetadata()));
+    }
+
     @Test
     void isDisabled() {
         PolicyDefinition policySpec = new PolicyDefinition("a/b/c", "1.0");
@@ -260,4 +277,16 @@ class EntityTest {
                 expectConfigFeature
         ));
     }
+    @Test
+    void getItemStreams() throws IOException {
+        ConfigStoreItem item = new ConfigStoreItem("a/b/c/1.0/config/defaults.json", "{}");
+        Entity.Simple entity = new Entity.Simple(Mockito.mock(EntityInfo.class), Collections.singleton(item));
+
+        Map<String, InputStream> streams = entity.getItemStreams();
+        assertEquals(Collections.singleton(item.getName()), streams.keySet());
+        try (InputStream stream = streams.get(item.getName())) {
+            assertEquals("{}", new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
 }
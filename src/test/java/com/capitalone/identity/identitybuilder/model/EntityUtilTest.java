@@ -11,9 +11,13 @@ import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.HashSet;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -218,21 +222,140 @@ class EntityUtilTest {
     }
 
     @Test
-    void snapshotErrorTest_blockingThread() {
-
-        Scheduler blockingScheduler = Schedulers.parallel();
+    void snapshotTest_nonBlockingThread() {
+        Scheduler nonBlockingScheduler = Schedulers.parallel();
+        Set<String> providerThreads = ConcurrentHashMap.newKeySet();
 
         Flux<EntityUtil.SnapshotHolder<Mock>> deltaFlux = Flux.just(new ScanRequest(1L))
-                .publishOn(blockingScheduler)
-                .transform(EntityUtil.streamOfSnapshots(Collections.emptyList(), Flux::empty));
+                .publishOn(nonBlockingScheduler)
+                .transform(EntityUtil.streamOfSnapshots(Collections.emptyList(), () -> {
+                    providerThreads.add(Thread.currentThread().getName());
+                    return Flux.just(new Mock("A", "1"));
+                }));
 
         StepVerifier.create(deltaFlux)
-                .expectSubscription()
-                .verifyErrorSatisfies(error -> {
-                    assertTrue(error instanceof IllegalStateException);
-                    assertTrue(error.getMessage().contains("Schedulers.boundedElastic()"));
-                });
+                .expectNextMatches(snapshot -> snapshot.getChanges().equals(
+                        Collections.singletonList(EntityState.Delta.add(new Mock("A", "1")))))
+                .verifyComplete();
+        assertEquals(1, providerThreads.size());
+        assertTrue(providerThreads.iterator().next().startsWith("boundedElastic"), providerThreads::toString);
+    }
+
+    @Test
+    void snapshotTest_scanScheduler() {
+        Scheduler scanScheduler = Schedulers.newSingle("scan-test");
+        try {
+            Set<String> providerThreads = ConcurrentHashMap.newKeySet();
+            Flux<EntityUtil.SnapshotHolder<Mock>> deltaFlux = Flux.just(new ScanRequest(1L))
+                    .transform(EntityUtil.streamOfSnapshots(Collections.emptyList(), () -> {
+                        providerThreads.add(Thread.currentThread().getName());
+                        return Flux.empty();
+                    }, null, scanScheduler));
+
+            StepVerifier.create(deltaFlux)
+                    .expectNextMatches(snapshot -> snapshot.getChanges().isEmpty())
+                    .verifyComplete();
+            assertEquals(1, providerThreads.size());
+            assertTrue(providerThreads.iterator().next().startsWith("scan-test"), providerThreads::toString);
+        } finally {
+            scanScheduler.dispose();
+        }
+    }
+
+    /**
+     * Scans of an asynchronous provider don't overlap, and each starts from the snapshot of the previous scan.
+     */
+    @Test
+    void snapshotTest_asyncProviderScansInOrder() {
+        List<List<Mock>> states = Arrays.asList(
+                Collections.singletonList(new Mock("A", "1")),
+                Arrays.asList(new Mock("A", "2"), new Mock("B", "1")),
+                Collections.singletonList(new Mock("B", "1")));
+        AtomicInteger stateIndex = new AtomicInteger();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        Supplier<Flux<Mock>> asyncProvider = () -> {
+            List<Mock> state = states.get(stateIndex.getAndIncrement());
+            return Flux.fromIterable(state)
+                    .delaySubscription(Duration.ofMillis(20))
+                    .doOnSubscribe(subscription -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                    .doOnTerminate(inFlight::decrementAndGet);
+        };
+
+        Flux<EntityUtil.SnapshotHolder<Mock>> deltaFlux = Flux.just(
+                        new ScanRequest(1L), new ScanRequest(2L), new ScanRequest(3L))
+                .transform(EntityUtil.streamOfSnapshots(Collections.emptyList(), asyncProvider, null,
+                        Schedulers.immediate()));
+
+        StepVerifier.create(deltaFlux)
+                .expectNextMatches(snapshot -> snapshot.getChanges().equals(Collections.singletonList(
+                        EntityState.Delta.add(new Mock("A", "1")))))
+                .expectNextMatches(snapshot -> snapshot.getChanges().equals(Arrays.asList(
+                        EntityState.Delta.update(new Mock("A", "2")),
+                        EntityState.Delta.add(new Mock("B", "1")))))
+                .expectNextMatches(snapshot -> snapshot.getChanges().equals(Collections.singletonList(
+                        EntityState.Delta.delete(new Mock("A", "2"))))
+                        && snapshot.getItems().equals(states.get(2)))
+                .verifyComplete();
+        assertEquals(1, maxInFlight.get());
+    }
+
+    @Test
+    void snapshotTest_partialScan() {
+        List<Mock> startState = Arrays.asList(
+                new Mock("B", "1"),
+                new Mock("C", "1"),
+                new Mock("D", "1"));
+        List<Mock> current = Arrays.asList(
+                new Mock("A", "1"),
+                new Mock("B", "2"),
+                new Mock("C", "1"),
+                new Mock("E", "1"));
+        AtomicInteger fullScans = new AtomicInteger();
+        EntityUtil.PartialSnapshotProvider<Mock> partialProvider = new EntityUtil.PartialSnapshotProvider<Mock>() {
+            @Override
+            public Set<String> getAffectedRoots(Set<String> changedKeys) {
+                return changedKeys.stream().map(key -> "root/" + key).collect(Collectors.toSet());
+            }
+
+            @Override
+            public Flux<Mock> getCurrentItems(String rootPrefix) {
+                return Flux.fromIterable(current).filter(mock -> rootPrefix.startsWith(EntityUtil.getRootPrefix(mock)));
+            }
+        };
+
+        ScanRequest request = new ScanRequest(1L, ScanRequest.ScanType.POLL,
+                new HashSet<>(Arrays.asList("A", "B", "D")));
+        Flux<EntityUtil.SnapshotHolder<Mock>> deltaFlux = Flux.just(request)
+                .transform(EntityUtil.streamOfSnapshots(startState, () -> {
+                    fullScans.incrementAndGet();
+                    return Flux.fromIterable(current);
+                }, partialProvider));
 
+        StepVerifier.create(deltaFlux)
+                .expectNextMatches(snapshot -> snapshot.getSourceItem() == request
+                        // E was not named by the partial scan, so it is not yet observed
+                        && snapshot.getItems().equals(Arrays.asList(
+                        new Mock("A", "1"), new Mock("B", "2"), new Mock("C", "1")))
+                        && snapshot.getChanges().equals(Arrays.asList(
+                        EntityState.Delta.add(new Mock("A", "1")),
+                        EntityState.Delta.update(new Mock("B", "2")),
+                        EntityState.Delta.delete(new Mock("D", "1")))))
+                .verifyComplete();
+        assertEquals(0, fullScans.get());
+    }
+
+    @Test
+    void snapshotTest_partialScanWithoutProviderIsFullScan() {
+        List<Mock> current = Collections.singletonList(new Mock("A", "1"));
+        ScanRequest request = new ScanRequest(1L, ScanRequest.ScanType.POLL, Collections.emptySet());
+
+        StepVerifier.create(Flux.just(request)
+                        .transform(EntityUtil.streamOfSnapshots(Collections.<Mock>emptyList(),
+                                () -> Flux.fromIterable(current))))
+                .expectNextMatches(snapshot -> snapshot.getChanges().equals(
+                        Collections.singletonList(EntityState.Delta.add(new Mock("A", "1")))))
+                .verifyComplete();
     }
 
     private static final class Mock implements Versionable {
@@ -0,0 +1,127 @@
+package com.capitalone.identity.identitybuilder.model;
+
+import com.capitalone.identity.identitybuilder.model.ConfigStoreItem.Type;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemTypeClassifierTest {
+
+    private static final String[] SEGMENTS = {"a", "b_c", "1", "12", "1.0", "2.13", "1.2.3", "01", ".", "", " ",
+            "rules", "process", "routes", "config", "rulesx", "configs", "defaults.json", "schema.json",
+            "features.json", "features-qa.json", "features-.json", "features_qa.json", "features", "metadata.json",
+            "policy-metadata.json", "x.dmn", "x.xml", "x.json", "\n", "a\r", "é"};
+    private static final String[] TEMPLATES = {"p/1.0/rules/r.dmn", "p/1.0/2/process/p.xml", "p/1.0/routes/r.xml",
+            "p/metadata.json", "p/1.0/2/policy-metadata.json", "p/1.0/config/u.json", "p/1.0/config/defaults.json",
+            "p/1.0/2/config/schema.json", "p/1.0/config/features-qa.json", "p/1.0/config/features.json"};
+    private static final String CHARACTERS = "/.-_aZ09 \n\r é";
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "a/1.0/rules.dmn",
+            "a/1.0/rulesx/y.dmn",
+            "1.0/rules/r.dmn",
+            "/1.0/rules/r.dmn",
+            "a/1.0/rules/.dmn",
+            "a/routes.xml",
+            "routes/r.xml",
+            "a/1.0/process/p/q.xml",
+            "a/1.0/process/p.xml\n",
+            "a/1.0/config/x/defaults.json",
+            "a/1.0/config/features/x.json",
+            "a/1.0/config/features-/x.json",
+            "a/1.0/config/features--.json",
+            "a/features/1.0/config/u.json",
+            "a/1.0/configs/u.json",
+            "a/1.0/2/3/policy-metadata.json",
+            "metadata.json",
+            "/metadata.json",
+            "/",
+            "",
+    })
+    void matchesPatterns_examples(String name) {
+        assertEquals(getTypeFromPatterns(name), ItemTypeClassifier.classify(name), name);
+    }
+
+    /**
+     * Compares the classifier with the patterns of {@link ConfigStoreItem} on random mutations of item names, so
+     * that most names are of some type or only miss it by a little.
+     */
+    @Test
+    void matchesPatterns_random() {
+        Random random = new Random(42);
+        Map<Type, Integer> counts = new EnumMap<>(Type.class);
+        for (int i = 0; i < 100_000; i++) {
+            StringBuilder name = new StringBuilder();
+            for (int j = random.nextInt(3); j > 0; j--) {
+                name.append(SEGMENTS[random.nextInt(SEGMENTS.length)]).append('/');
+            }
+            name.append(TEMPLATES[random.nextInt(TEMPLATES.length)]);
+            for (int j = random.nextInt(4); j > 0; j--) {
+                mutate(name, random);
+            }
+            Type expected = getTypeFromPatterns(name.toString());
+            assertEquals(expected, ItemTypeClassifier.classify(name.toString()), name::toString);
+            counts.merge(expected, 1, Integer::sum);
+        }
+        for (Type type : Type.values()) {
+            assertTrue(counts.getOrDefault(type, 0) > 500, () -> "Too few names of type " + type + ": " + counts);
+        }
+    }
+
+    /**
+     * Replace a segment, or insert or delete a character
+     */
+    private static void mutate(StringBuilder name, Random random) {
+        int position = random.nextInt(name.length() + 1);
+        switch (random.nextInt(3)) {
+            case 0:
+                int start = name.lastIndexOf("/", position - 1) + 1;
+                int end = name.indexOf("/", position);
+                name.replace(start, end < 0 ? name.length() : end, SEGMENTS[random.nextInt(SEGMENTS.length)]);
+                break;
+            case 1:
+                name.insert(position, CHARACTERS.charAt(random.nextInt(CHARACTERS.length())));
+                break;
+            default:
+                if (position < name.length()) {
+                    name.deleteCharAt(position);
+                }
+        }
+    }
+
+    /**
+     * The type patterns tried in order, as {@link ConfigStoreItem#getTypeFromPath(String)} did before the classifier
+     */
+    private static Type getTypeFromPatterns(String path) {
+        if (ConfigStoreItem.dmnPattern.matcher(path).matches()) {
+            return Type.RULES;
+        } else if (ConfigStoreItem.libraryPattern.matcher(path).matches()) {
+            return Type.LIBRARY;
+        } else if (ConfigStoreItem.processPattern.matcher(path).matches()) {
+            return Type.PROCESS;
+        } else if (ConfigStoreItem.policyStatusPattern.matcher(path).matches()) {
+            return Type.POLICY_STATUS;
+        } else if (ConfigStoreItem.policyStatusSparsePattern.matcher(path).matches()) {
+            return Type.POLICY_STATUS_SPARSE;
+        } else if (!ConfigStoreItem.configUseCaseAllowedPattern.matcher(path).matches()
+                && ConfigStoreItem.configUsecasePattern.matcher(path).matches()) {
+            return Type.CONFIG_USECASE;
+        } else if (ConfigStoreItem.configDefaultPattern.matcher(path).matches()) {
+            return Type.CONFIG_DEFAULT;
+        } else if (ConfigStoreItem.configSchemaPattern.matcher(path).matches()) {
+            return Type.CONFIG_SCHEMA;
+        } else if (ConfigStoreItem.configFeaturesPattern.matcher(path).matches()) {
+            return Type.CONFIG_FEATURES;
+        } else {
+            return Type.UNRECOGNIZED;
+        }
+    }
+
+}
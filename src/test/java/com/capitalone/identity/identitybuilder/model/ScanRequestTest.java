@@ -2,6 +2,8 @@ package com.capitalone.identity.identitybuilder.model;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.Collections;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class ScanRequestTest {
@@ -24,4 +26,14 @@ class ScanRequestTest {
         assertEquals(ScanRequest.ScanType.POLL, request.getScanType());
     }
 
+    @Test
+    void getChangedKeys() {
+        assertNull(request.getChangedKeys());
+        assertFalse(request.isPartial());
+
+        ScanRequest partial = new ScanRequest(startScheduled, ScanRequest.ScanType.POLL, Collections.singleton("a"));
+        assertEquals(Collections.singleton("a"), partial.getChangedKeys());
+        assertTrue(partial.isPartial());
+    }
+
 }
@@ -0,0 +1,124 @@
+package com.capitalone.identity.identitybuilder.repository;
+
+import com.capitalone.identity.identitybuilder.client.test.InMemoryItemStore;
+import com.capitalone.identity.identitybuilder.model.ConfigStoreItemInfo;
+import com.capitalone.identity.identitybuilder.model.EntityInfo;
+import com.capitalone.identity.identitybuilder.model.EntityType;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityInfoCacheTest {
+
+    private final CommonItemStore store = new InMemoryItemStore();
+    private final EntityInfoCache cache = new EntityInfoCache();
+
+    @Test
+    void get_sameItems() {
+        EntityBuilder builder = newPipBuilder("a", "1");
+        EntityInfo info = builder.build();
+        cache.put(builder, info, cache.nextGeneration());
+
+        assertSame(info, cache.get(newPipBuilder("a", "1"), cache.currentGeneration()));
+    }
+
+    @Test
+    void get_changedItems() {
+        EntityBuilder builder = newPipBuilder("a", "1");
+        cache.put(builder, builder.build(), cache.nextGeneration());
+
+        assertNull(cache.get(newPipBuilder("a", "2"), cache.currentGeneration()));
+        assertNull(cache.get(newPipBuilder("b", "1"), cache.currentGeneration()));
+    }
+
+    @Test
+    void get_sameDigestDifferentItems() {
+        // "Aa" and "BB" have the same String hash code
+        EntityBuilder builder = newPipBuilder("a", "Aa");
+        cache.put(builder, builder.build(), cache.nextGeneration());
+        EntityBuilder colliding = newPipBuilder("a", "BB");
+
+        assertEquals(builder.getItemDigest(), colliding.getItemDigest());
+        assertNull(cache.get(colliding, cache.currentGeneration()));
+    }
+
+    @Test
+    void itemDigest_orderIndependent() {
+        EntityBuilder first = newPolicyBuilder();
+        first.addItem(new ConfigStoreItemInfo("a/b/c/1.0/process/p.xml", "1"));
+        first.addItem(new ConfigStoreItemInfo("a/b/c/1.0/process/q.xml", "2"));
+        EntityBuilder second = newPolicyBuilder();
+        second.addItem(new ConfigStoreItemInfo("a/b/c/1.0/process/q.xml", "2"));
+        second.addItem(new ConfigStoreItemInfo("a/b/c/1.0/process/p.xml", "1"));
+        second.addItem(new ConfigStoreItemInfo("a/b/c/1.0/process/p.xml", "1"));
+        EntityBuilder swapped = newPolicyBuilder();
+        swapped.addItem(new ConfigStoreItemInfo("a/b/c/1.0/process/p.xml", "2"));
+        swapped.addItem(new ConfigStoreItemInfo("a/b/c/1.0/process/q.xml", "1"));
+
+        assertEquals(first.getItemDigest(), second.getItemDigest());
+        assertNotEquals(first.getItemDigest(), swapped.getItemDigest());
+    }
+
+    @Test
+    void prune() {
+        EntityBuilder seen = newPipBuilder("a", "1");
+        EntityBuilder deleted = newPipBuilder("b", "1");
+        long first = cache.nextGeneration();
+        cache.put(seen, seen.build(), first);
+        cache.put(deleted, deleted.build(), first);
+
+        long second = cache.nextGeneration();
+        assertNotNull(cache.get(newPipBuilder("a", "1"), second));
+        cache.prune(second, EnumSet.of(EntityType.POLICY));
+        assertEquals(2, cache.size());
+        cache.prune(second, EnumSet.of(EntityType.PIP));
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get(newPipBuilder("a", "1"), second));
+        assertNull(cache.get(newPipBuilder("b", "1"), second));
+    }
+
+    @Test
+    void getSubtree_unchangedListing() {
+        Set<EntityType> types = EnumSet.of(EntityType.PIP);
+        EntityBuilder builder = newPipBuilder("a", "1");
+        EntityInfo info = builder.build();
+        List<ConfigStoreItemInfo> items = List.copyOf(builder.items);
+        long first = cache.nextGeneration();
+        cache.put(builder, info, first);
+        cache.putSubtree("lib/", types, items, List.of(info), first);
+
+        long second = cache.nextGeneration();
+        assertEquals(List.of(info), cache.getSubtree("lib/", items, second));
+        assertNull(cache.getSubtree("lib/", List.of(new ConfigStoreItemInfo("lib/a/routes/r.xml", "2")), second));
+        assertNull(cache.getSubtree("other/", items, second));
+
+        // the entries of a skipped subtree are kept, and subtrees of other types are not pruned
+        cache.prune(second, types);
+        assertEquals(1, cache.size());
+        cache.prune(second, EnumSet.of(EntityType.POLICY));
+        assertEquals(1, cache.subtreeCount());
+        cache.prune(cache.nextGeneration(), types);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.subtreeCount());
+    }
+
+    private EntityBuilder newPipBuilder(String name, String tag) {
+        String key = "lib/" + name + "/routes/r.xml";
+        EntityBuilder builder = store.getFactoryForEntityType(EntityType.PIP).newBuilder(key);
+        assertNotNull(builder);
+        assertTrue(builder.addItem(new ConfigStoreItemInfo(key, tag)));
+        return builder;
+    }
+
+    private EntityBuilder newPolicyBuilder() {
+        EntityBuilder builder = store.getFactoryForEntityType(EntityType.POLICY)
+                .newBuilder("a/b/c/1.0/process/p.xml");
+        assertNotNull(builder);
+        return builder;
+    }
+
+}
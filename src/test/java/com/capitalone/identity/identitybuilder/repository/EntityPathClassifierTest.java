@@ -0,0 +1,173 @@
+package com.capitalone.identity.identitybuilder.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityPathClassifierTest {
+
+    private static final List<String> ACCESS_GROUPS = List.of("locationPrefix", "entityId", "policyFullName",
+            "policyShortName", "policyMajorVersion", "versionNumber");
+    private static final List<String> POLICY_GROUPS = List.of("locationPrefix", "entityId", "policyFullName",
+            "policyShortName", "policyMajorVersion", "policyMinorVersion", "policyPatchVersion");
+    private static final List<String> PIP_GROUPS = List.of("locationPrefix", "entityId");
+
+    private static final String[] SEGMENTS = {"a", "b_c", "us-consumers", "x.y", "1", "12", "1.0", "2.13", "1.2.3",
+            "01", "access-control", "policy-access.json", "policy-metadata.json", "process", "rules", "config",
+            "routes", "routes.xml", "routesx", "p.xml", "defaults.json", "", ".", "a b", "é", "\n", "a\r", " ",
+            "v1", "x-1.0"};
+    private static final String[] TEMPLATES = {"a/b/c/1/access-control/2/policy-access.json",
+            "a/b/c/1.0/2/process/p.xml", "a/b/c/1.0/rules/r.dmn", "a/b/c/1.0/config/defaults.json",
+            "a/b/c/1.0/policy-metadata.json", "lib/routes/r.xml", "lib/routes.xml"};
+    private static final String CHARACTERS = "/.-_aZ09 \n\r\u2028é";
+
+    @Test
+    void matchAccess() {
+        EntityPathMatch match = EntityPathClassifier.matchAccess(new EntityPath(
+                "x/y/z/us_consumers/b/policy-c/1/access-control/45/policy-access.json"));
+        assertNotNull(match);
+        assertEquals("x/y/z/us_consumers/b/policy-c/1/access-control/45/policy-access.json",
+                match.group("locationPrefix"));
+        assertEquals("us_consumers/b/policy-c/1/access-control", match.group("entityId"));
+        assertEquals("us_consumers/b/policy-c", match.group("policyFullName"));
+        assertEquals("policy-c", match.group("policyShortName"));
+        assertEquals("1", match.group("policyMajorVersion"));
+        assertEquals("45", match.group("versionNumber"));
+        assertThrows(IllegalArgumentException.class, () -> match.group("policyMinorVersion"));
+
+        assertNull(EntityPathClassifier.matchAccess(new EntityPath(
+                "a/b/c/1.0/access-control/45/policy-access.json")));
+    }
+
+    @Test
+    void matchPolicy() {
+        EntityPathMatch match = EntityPathClassifier.matchPolicy(new EntityPath("us/a/b/c/1.2/3/process/p.xml"));
+        assertNotNull(match);
+        assertEquals("us/a/b/c/1.2/3", match.group("locationPrefix"));
+        assertEquals("a/b/c/1.2", match.group("entityId"));
+        assertEquals("a/b/c", match.group("policyFullName"));
+        assertEquals("c", match.group("policyShortName"));
+        assertEquals("1", match.group("policyMajorVersion"));
+        assertEquals("2", match.group("policyMinorVersion"));
+        assertEquals("3", match.group("policyPatchVersion"));
+
+        match = EntityPathClassifier.matchPolicy(new EntityPath("a/b/c/1.2/policy-metadata.json"));
+        assertNotNull(match);
+        assertEquals("a/b/c/1.2", match.group("locationPrefix"));
+        assertNull(match.group("policyPatchVersion"));
+
+        assertNull(EntityPathClassifier.matchPolicy(new EntityPath("a/b/c/1.2/3/policy-metadata.json/x")));
+        assertNull(EntityPathClassifier.matchPolicy(new EntityPath("a/b/c/1.2/process/p\n.xml")));
+    }
+
+    @Test
+    void matchPip() {
+        EntityPathMatch match = EntityPathClassifier.matchPip(new EntityPath("x.y/a.a-b/routes/r.xml"));
+        assertNotNull(match);
+        assertEquals("x.y/a.a-b/routes/r.xml", match.group("locationPrefix"));
+        assertEquals("a-b/routes/r.xml", match.group("entityId"));
+
+        assertNotNull(EntityPathClassifier.matchPip(new EntityPath("a/routes.xml")));
+        assertNull(EntityPathClassifier.matchPip(new EntityPath("routes/r.xml")));
+        assertNull(EntityPathClassifier.matchPip(new EntityPath("a/routes/r.json")));
+    }
+
+    @Test
+    void matchesRegex_examples() {
+        for (String name : List.of(
+                "x/y/z/us_consumers/b/policy-c/1/access-control/45/policy-access.json",
+                "us/a/b/c/1.2/3/process/p.xml",
+                "us/a/b/c/1.2/3/4/rules/r.dmn",
+                "a/b/c/1.2/3/config/defaults.json",
+                "a/b/c/1.2/3/config",
+                "1.0/a/b/c/1.0/1.0/process/routes/x.xml",
+                "a/b/c/1.0/process/a/b/1/access-control/2/policy-access.json",
+                "a.b/c/d/1.0/2/policy-metadata.json",
+                "lib/routes/sub/route.xml",
+                "a//b/c/1.0/process/p.xml",
+                "")) {
+            assertMatchesRegex(name);
+        }
+    }
+
+    /**
+     * Compares the classifier with the reference patterns on random mutations of entity paths, so that most names
+     * match a pattern or only miss it by a little.
+     */
+    @Test
+    void matchesRegex_random() {
+        Random random = new Random(42);
+        int[] matches = new int[3];
+        for (int i = 0; i < 200_000; i++) {
+            StringBuilder name = new StringBuilder();
+            for (int j = random.nextInt(4); j > 0; j--) {
+                name.append(randomSegment(random)).append('/');
+            }
+            name.append(TEMPLATES[random.nextInt(TEMPLATES.length)]);
+            for (int j = random.nextInt(4); j > 0; j--) {
+                mutate(name, random);
+            }
+            EntityPath path = new EntityPath(name.toString());
+            matches[0] += EntityPathClassifier.matchAccess(path) != null ? 1 : 0;
+            matches[1] += EntityPathClassifier.matchPolicy(path) != null ? 1 : 0;
+            matches[2] += EntityPathClassifier.matchPip(path) != null ? 1 : 0;
+            assertMatchesRegex(name.toString());
+        }
+        for (int count : matches) {
+            assertTrue(count > 1_000, "Too few matches to compare: " + count);
+        }
+    }
+
+    private static String randomSegment(Random random) {
+        return SEGMENTS[random.nextInt(SEGMENTS.length)];
+    }
+
+    /**
+     * Replace a segment, or insert or delete a character
+     */
+    private static void mutate(StringBuilder name, Random random) {
+        int position = random.nextInt(name.length() + 1);
+        switch (random.nextInt(3)) {
+            case 0:
+                int start = name.lastIndexOf("/", position - 1) + 1;
+                int end = name.indexOf("/", position);
+                name.replace(start, end < 0 ? name.length() : end, randomSegment(random));
+                break;
+            case 1:
+                name.insert(position, CHARACTERS.charAt(random.nextInt(CHARACTERS.length())));
+                break;
+            default:
+                if (position < name.length()) {
+                    name.deleteCharAt(position);
+                }
+        }
+    }
+
+    private static void assertMatchesRegex(String name) {
+        EntityPath path = new EntityPath(name);
+        assertSameMatch(name, CommonItemStore.ACCESS_PATTERN, EntityPathClassifier::matchAccess, path, ACCESS_GROUPS);
+        assertSameMatch(name, CommonItemStore.POLICY_PATTERN, EntityPathClassifier::matchPolicy, path, POLICY_GROUPS);
+        assertSameMatch(name, CommonItemStore.PIP_PATTERN, EntityPathClassifier::matchPip, path, PIP_GROUPS);
+    }
+
+    private static void assertSameMatch(String name, Pattern pattern, Function<EntityPath, EntityPathMatch> classifier,
+                                        EntityPath path, List<String> groups) {
+        Matcher expected = pattern.matcher(name);
+        EntityPathMatch actual = classifier.apply(path);
+        if (!expected.matches()) {
+            assertNull(actual, () -> "Unexpected match of " + pattern + ": " + name);
+            return;
+        }
+        assertNotNull(actual, () -> "Missing match of " + pattern + ": " + name);
+        for (String group : groups) {
+            assertEquals(expected.group(group), actual.group(group), () -> "Group " + group + " of " + name);
+        }
+    }
+
+}
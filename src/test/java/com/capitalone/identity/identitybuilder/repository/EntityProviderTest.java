@@ -1,5 +1,6 @@
 package com.capitalone.identity.identitybuilder.repository;
 
+import com.capitalone.identity.identitybuilder.ClientEnvironment;
 import com.capitalone.identity.identitybuilder.client.local.LocalDebugItemStore;
 import com.capitalone.identity.identitybuilder.client.test.InMemoryItemStore;
 import com.capitalone.identity.identitybuilder.model.*;
@@ -11,10 +12,16 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -244,6 +251,56 @@ class EntityProviderTest {
         assertTrue(info instanceof EntityInfo.Pip);
     }
 
+    @Test
+    void getEntities_compressedItemsFormSameEntities() {
+        String access = "x/y/z/us_consumers/b/c/1/access-control/10/policy-access.json";
+        String pip = "x/y/z/routes/a/b/c/d/routefile.xml";
+        InMemoryItemStore uncompressedStore = new InMemoryItemStore();
+        uncompressedStore.addItem(new ConfigStoreItem(new ConfigStoreItemInfo(access, "a"), ""),
+                new ConfigStoreItem(new ConfigStoreItemInfo(pip, "a"), ""));
+        itemStore.addItem(new ConfigStoreItem(new ConfigStoreItemInfo(access + ".gz", "a"), ""),
+                new ConfigStoreItem(new ConfigStoreItemInfo(pip + ".gz", "a"), ""));
+
+        List<EntityInfo> uncompressed = new EntityProvider(uncompressedStore, Flux::never, scanPublisher)
+                .getEntities(EntityType.ACCESS, EntityType.PIP).collectList().block();
+        List<EntityInfo> compressed = provider.getEntities(EntityType.ACCESS, EntityType.PIP).collectList().block();
+
+        assertNotNull(uncompressed);
+        assertNotNull(compressed);
+        assertEquals(2, compressed.size());
+        for (int i = 0; i < uncompressed.size(); i++) {
+            EntityInfo expected = uncompressed.get(i);
+            EntityInfo actual = compressed.get(i);
+            assertEquals(expected.getClass(), actual.getClass());
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getLocationPrefix(), actual.getLocationPrefix());
+            assertEquals(expected.getPatchVersion(), actual.getPatchVersion());
+            assertEquals(Set.of(new ConfigStoreItemInfo(expected.getLocationPrefix() + ".gz", "a")),
+                    actual.getItemInfo());
+        }
+    }
+
+    @Test
+    void testGetStored_PolicyCompressedLegacyMetadata() {
+        itemStore.addItem(
+                new ConfigStoreItem(
+                        new ConfigStoreItemInfo("x/y/z/us_consumers/b/c/metadata.json.gz", "a"),
+                        "{\"Versions_Supported\": [{\"Version\": \"1.0\", \"Status\": \"READY_FOR_PROD\"}]}"
+                ),
+                new ConfigStoreItem(
+                        new ConfigStoreItemInfo("x/y/z/us_consumers/b/c/1.0/process/policy_a.xml.gz", "a"),
+                        ""
+                )
+        );
+
+        EntityInfo.Policy info = (EntityInfo.Policy) provider.getEntities(EntityType.POLICY).blockFirst();
+        assertNotNull(info);
+        assertEquals("x/y/z/us_consumers/b/c/1.0", info.getLocationPrefix());
+
+        Entity.Policy entity = (Entity.Policy) provider.getEntity(info);
+        assertEquals(EntityActivationStatus.AVAILABLE, entity.getEntityActivationStatus());
+    }
+
     @Test
     void getEntityUpdates_normal() {
 
@@ -457,4 +514,342 @@ class EntityProviderTest {
         }
     }
 
+    @Test
+    void construct_invalidConcurrency() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new EntityProvider(itemStore, Flux::never, scanPublisher, ClientEnvironment.PROD, 0, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new EntityProvider(itemStore, Flux::never, scanPublisher, ClientEnvironment.PROD, 1, 0));
+    }
+
+    @Test
+    void getEntityAsync_limitsConcurrencyPerEntity() {
+        TrackingItemStore trackingStore = new TrackingItemStore();
+        addLegacyPolicy(trackingStore, "us_consumers/b/c", 8);
+        Scheduler fetchScheduler = Schedulers.newBoundedElastic(4, Integer.MAX_VALUE, "csc-item-fetch");
+        EntityProvider concurrentProvider = new EntityProvider(trackingStore, Flux::never, scanPublisher,
+                ClientEnvironment.PROD, 16, 2, fetchScheduler);
+        EntityInfo info = concurrentProvider.getEntities(EntityType.POLICY).blockFirst();
+        assertNotNull(info);
+
+        Entity entity;
+        try {
+            entity = concurrentProvider.getEntityAsync(info).block();
+        } finally {
+            fetchScheduler.dispose();
+        }
+
+        assertNotNull(entity);
+        assertEquals(8, entity.getItems().size());
+        assertTrue(trackingStore.maxInFlight.get() <= 2, "max in flight: " + trackingStore.maxInFlight.get());
+        assertTrue(trackingStore.threadNames.stream().allMatch(name -> name.startsWith("csc-item-fetch")),
+                trackingStore.threadNames.toString());
+    }
+
+    @Test
+    void getEntityAsync_fetchesOnOwnedScheduler() {
+        TrackingItemStore trackingStore = new TrackingItemStore();
+        addLegacyPolicy(trackingStore, "us_consumers/b/c", 4);
+        EntityProvider concurrentProvider = new EntityProvider(trackingStore, Flux::never, scanPublisher,
+                ClientEnvironment.PROD, 2, 2);
+        EntityInfo info = concurrentProvider.getEntities(EntityType.POLICY).blockFirst();
+        assertNotNull(info);
+
+        Entity entity;
+        try {
+            entity = concurrentProvider.getEntityAsync(info).block();
+        } finally {
+            concurrentProvider.close();
+        }
+
+        assertNotNull(entity);
+        assertTrue(trackingStore.threadNames.stream()
+                        .allMatch(name -> name.startsWith(EntityProvider.FETCH_THREAD_NAME_PREFIX)),
+                trackingStore.threadNames.toString());
+    }
+
+    @Test
+    void close_failsPendingAndLaterEntityLoads() {
+        InMemoryItemStore neverStore = new InMemoryItemStore() {
+            @Override
+            public Mono<ConfigStoreItem> getItemAsync(ConfigStoreItemInfo info) {
+                return Mono.never();
+            }
+        };
+        addLegacyPolicy(neverStore, "us_consumers/b/c", 2);
+        EntityProvider closingProvider = new EntityProvider(neverStore, Flux::never, scanPublisher,
+                ClientEnvironment.PROD, 1, 1);
+        EntityInfo info = closingProvider.getEntities(EntityType.POLICY).blockFirst();
+        assertNotNull(info);
+
+        StepVerifier.create(closingProvider.getEntityAsync(info))
+                .expectSubscription()
+                .then(closingProvider::close)
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(5));
+        StepVerifier.create(closingProvider.getEntityAsync(info))
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void getEntityAsync_limitsGlobalConcurrency() {
+        TrackingItemStore trackingStore = new TrackingItemStore();
+        addLegacyPolicy(trackingStore, "us_consumers/b/c", 4);
+        addLegacyPolicy(trackingStore, "us_consumers/b/d", 4);
+        addLegacyPolicy(trackingStore, "us_consumers/b/e", 4);
+        EntityProvider concurrentProvider = new EntityProvider(trackingStore, Flux::never, scanPublisher,
+                ClientEnvironment.PROD, 3, 4);
+
+        List<Entity> entities = concurrentProvider.getEntities(EntityType.POLICY)
+                .flatMap(concurrentProvider::getEntityAsync)
+                .collectList()
+                .block();
+
+        assertNotNull(entities);
+        assertEquals(3, entities.size());
+        assertTrue(trackingStore.maxInFlight.get() <= 3, "max in flight: " + trackingStore.maxInFlight.get());
+    }
+
+    @Test
+    void getEntityAsync_limitsGlobalConcurrencyOfNonBlockingFetches() {
+        AsyncTrackingItemStore trackingStore = new AsyncTrackingItemStore();
+        addLegacyPolicy(trackingStore, "us_consumers/b/c", 4);
+        addLegacyPolicy(trackingStore, "us_consumers/b/d", 4);
+        addLegacyPolicy(trackingStore, "us_consumers/b/e", 4);
+        EntityProvider concurrentProvider = new EntityProvider(trackingStore, Flux::never, scanPublisher,
+                ClientEnvironment.PROD, 3, 4);
+
+        List<Entity> entities = concurrentProvider.getEntities(EntityType.POLICY)
+                .flatMap(concurrentProvider::getEntityAsync)
+                .collectList()
+                .block();
+
+        assertNotNull(entities);
+        assertEquals(3, entities.size());
+        assertEquals(3, trackingStore.maxInFlight.get());
+    }
+
+    @Test
+    void getEntityAsync_concurrentLoadsShareItemFetches() {
+        TrackingItemStore trackingStore = new TrackingItemStore();
+        addLegacyPolicy(trackingStore, "us_consumers/b/c", 2);
+        EntityProvider concurrentProvider = new EntityProvider(trackingStore, Flux::never, scanPublisher);
+        EntityInfo info = concurrentProvider.getEntities(EntityType.POLICY).blockFirst();
+        assertNotNull(info);
+
+        List<Entity> entities = Flux.range(0, 5)
+                .flatMap(i -> concurrentProvider.getEntityAsync(info))
+                .collectList()
+                .block();
+
+        assertNotNull(entities);
+        assertEquals(5, entities.size());
+        assertEquals(1, new HashSet<>(entities).size());
+        for (ConfigStoreItemInfo itemInfo : info.getItemInfo()) {
+            assertEquals(1, trackingStore.fetchCounts.get(itemInfo.getName()).get(), itemInfo.getName());
+        }
+
+        // completed fetches are not reused
+        assertNotNull(concurrentProvider.getEntity(info));
+        for (ConfigStoreItemInfo itemInfo : info.getItemInfo()) {
+            assertEquals(2, trackingStore.fetchCounts.get(itemInfo.getName()).get(), itemInfo.getName());
+        }
+    }
+
+    @Test
+    void getEntity_propagatesFetchException() {
+        TrackingItemStore trackingStore = new TrackingItemStore();
+        addLegacyPolicy(trackingStore, "us_consumers/b/c", 2);
+        EntityProvider failingProvider = new EntityProvider(trackingStore, Flux::never, scanPublisher);
+        EntityInfo info = failingProvider.getEntities(EntityType.POLICY).blockFirst();
+        assertNotNull(info);
+        trackingStore.failure = new IllegalStateException("test");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> failingProvider.getEntity(info));
+        assertSame(trackingStore.failure, e);
+
+        StepVerifier.create(failingProvider.getEntityAsync(info))
+                .expectErrorMatches(error -> error == trackingStore.failure)
+                .verify();
+    }
+
+    @Test
+    void getEntityUpdatesBatch_partialScanOnlyListsChangedEntities() {
+        addLegacyPolicy(itemStore, "us_consumers/b/c", 1);
+        addLegacyPolicy(itemStore, "us_consumers/b/d", 1);
+        addLegacyPolicy(itemStore, "us_consumers/b/e", 1);
+        List<EntityInfo> start = provider.getEntities(EntityType.POLICY).collectList().block();
+        assertNotNull(start);
+        assertEquals(3, start.size());
+
+        itemStore.setItem(new ConfigStoreItem(
+                new ConfigStoreItemInfo("us_consumers/b/d/1.0/process/policy_0.xml", "b"), "updated"));
+        itemStore.removeItem("us_consumers/b/e/1.0/process/policy_0.xml");
+        itemStore.addItem(new ConfigStoreItem(
+                new ConfigStoreItemInfo("us_consumers/b/f/1.0/process/policy_0.xml", "a"), ""));
+
+        InMemoryItemStore spyStore = spy(itemStore);
+        ScanRequest request = new ScanRequest(1L, ScanRequest.ScanType.POLL, new HashSet<>(Arrays.asList(
+                "us_consumers/b/d/1.0/process/policy_0.xml",
+                "us_consumers/b/e/1.0/process/policy_0.xml",
+                "us_consumers/b/f/1.0/process/policy_0.xml",
+                "unrelated/key.txt")));
+        EntityProvider partialProvider = new EntityProvider(spyStore, () -> Flux.just(request), scanPublisher);
+
+        List<List<EntityState.Delta<EntityInfo>>> batches = partialProvider
+                .getEntityUpdatesBatch(start, EntityType.POLICY)
+                .collectList().block();
+
+        assertNotNull(batches);
+        assertEquals(1, batches.size());
+        Map<String, EntityState.Delta.ChangeType> changes = new HashMap<>();
+        batches.get(0).forEach(delta -> changes.put(delta.getEntityInfo().getId(), delta.getType()));
+        assertEquals(EntityState.Delta.ChangeType.UPDATE, changes.get("us_consumers/b/d/1.0"));
+        assertEquals(EntityState.Delta.ChangeType.DELETE, changes.get("us_consumers/b/e/1.0"));
+        assertEquals(EntityState.Delta.ChangeType.ADD, changes.get("us_consumers/b/f/1.0"));
+        assertEquals(3, changes.size());
+        verify(spyStore, never()).getStoredItemInfo();
+    }
+
+    @Test
+    void getEntities_reusesUnchangedEntities() {
+        addLegacyPolicy(itemStore, "us_consumers/b/c", 2);
+        addLegacyPolicy(itemStore, "us_consumers/b/d", 1);
+        List<EntityInfo> first = provider.getEntities(EntityType.POLICY).collectList().block();
+        assertNotNull(first);
+        assertEquals(2, first.size());
+
+        itemStore.setItem(new ConfigStoreItem(
+                new ConfigStoreItemInfo("us_consumers/b/d/1.0/process/policy_0.xml", "b"), "updated"));
+        List<EntityInfo> second = provider.getEntities(EntityType.POLICY).collectList().block();
+        assertNotNull(second);
+        assertEquals(2, second.size());
+        assertSame(first.get(0), second.get(0));
+        assertNotSame(first.get(1), second.get(1));
+        assertNotEquals(first.get(1).getVersion(), second.get(1).getVersion());
+        assertEquals(first.get(1).getId(), second.get(1).getId());
+    }
+
+    @Test
+    void getEntities_skipsUnchangedSubtrees() {
+        addLegacyPolicy(itemStore, "ns1/b/c", 2);
+        addLegacyPolicy(itemStore, "ns2/b/d", 1);
+        EntityProvider spyProvider = spy(provider);
+        List<EntityInfo> first = spyProvider.getEntities(EntityType.POLICY).collectList().block();
+        assertNotNull(first);
+        assertEquals(2, first.size());
+
+        clearInvocations(spyProvider);
+        itemStore.setItem(new ConfigStoreItem(
+                new ConfigStoreItemInfo("ns2/b/d/1.0/process/policy_0.xml", "b"), "updated"));
+        List<EntityInfo> second = spyProvider.getEntities(EntityType.POLICY).collectList().block();
+        assertNotNull(second);
+        assertSame(first.get(0), second.get(0));
+        assertNotSame(first.get(1), second.get(1));
+        // only the changed subtree is classified again
+        verify(spyProvider, never()).getStoredObjectEntityBuilder(startsWith("ns1/"), any());
+        verify(spyProvider, atLeastOnce()).getStoredObjectEntityBuilder(startsWith("ns2/"), any());
+
+        // a listing of other entity types does not reuse the subtrees
+        assertEquals(0, spyProvider.getEntities(EntityType.ACCESS).count().block());
+    }
+
+    @Test
+    void getEntities_rebuildsLaterVersionsOfChangedPriorVersion() {
+        String access = "us_consumers/b/policy-c/1/access-control/";
+        itemStore.addItem(new ConfigStoreItem(new ConfigStoreItemInfo(access + "1/policy-access.json", "a"), "{}"));
+        itemStore.addItem(new ConfigStoreItem(new ConfigStoreItemInfo(access + "2/policy-access.json", "a"), "{}"));
+        EntityInfo first = provider.getEntities(EntityType.ACCESS).blockLast();
+        assertNotNull(first);
+        assertEquals(2, first.getPatchVersion());
+        assertEquals(1, first.getPriorVersion().getPatchVersion());
+
+        itemStore.setItem(new ConfigStoreItem(new ConfigStoreItemInfo(access + "1/policy-access.json", "b"), "{}"));
+        EntityInfo second = provider.getEntities(EntityType.ACCESS).blockLast();
+        assertNotNull(second);
+        // the final version is unchanged, but the cached instance still links to the old prior version
+        assertNotSame(first, second);
+        assertEquals(first.getVersion(), second.getVersion());
+        assertNotEquals(first.getPriorVersion().getVersion(), second.getPriorVersion().getVersion());
+        assertEquals("a", first.getPriorVersion().getItemInfo().iterator().next().getTag());
+
+        EntityInfo third = provider.getEntities(EntityType.ACCESS).blockLast();
+        assertSame(second, third);
+        assertSame(second.getPriorVersion(), third.getPriorVersion());
+    }
+
+    @Test
+    void getEntities_reusedInstancesProduceNoDeltas() {
+        addLegacyPolicy(itemStore, "us_consumers/b/c", 1);
+        List<EntityInfo> start = provider.getEntities(EntityType.POLICY).collectList().block();
+        assertNotNull(start);
+        EntityProvider scanningProvider = new EntityProvider(itemStore,
+                () -> Flux.just(new ScanRequest(1L), new ScanRequest(2L)), scanPublisher);
+
+        List<List<EntityState.Delta<EntityInfo>>> batches = scanningProvider
+                .getEntityUpdatesBatch(start, EntityType.POLICY)
+                .collectList().block();
+
+        assertNotNull(batches);
+        assertEquals(2, batches.size());
+        assertTrue(batches.get(0).isEmpty());
+        assertTrue(batches.get(1).isEmpty());
+    }
+
+    private static void addLegacyPolicy(InMemoryItemStore store, String policy, int processCount) {
+        store.addItem(new ConfigStoreItem(new ConfigStoreItemInfo(policy + "/metadata.json", "a"),
+                "{\"Versions_Supported\": [{\"Version\": \"1.0\", \"Status\": \"READY_FOR_PROD\"}]}"));
+        for (int i = 0; i < processCount; i++) {
+            store.addItem(new ConfigStoreItem(
+                    new ConfigStoreItemInfo(policy + "/1.0/process/policy_" + i + ".xml", "a"), ""));
+        }
+    }
+
+    /**
+     * Records concurrent calls to {@link #getItem(ConfigStoreItemInfo)}, each of which blocks briefly.
+     */
+    /**
+     * Completes fetches after a delay without holding a thread
+     */
+    private static class AsyncTrackingItemStore extends InMemoryItemStore {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        @Override
+        public Mono<ConfigStoreItem> getItemAsync(ConfigStoreItemInfo info) {
+            return Mono.delay(Duration.ofMillis(20))
+                    .doOnSubscribe(subscription -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                    .map(tick -> getItem(info))
+                    .doOnTerminate(inFlight::decrementAndGet);
+        }
+    }
+
+    private static class TrackingItemStore extends InMemoryItemStore {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final Set<String> threadNames = ConcurrentHashMap.newKeySet();
+        final Map<String, AtomicInteger> fetchCounts = new ConcurrentHashMap<>();
+        volatile RuntimeException failure;
+
+        @Override
+        public ConfigStoreItem getItem(ConfigStoreItemInfo info) {
+            if (failure != null) {
+                throw failure;
+            }
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            fetchCounts.computeIfAbsent(info.getName(), name -> new AtomicInteger()).incrementAndGet();
+            threadNames.add(Thread.currentThread().getName());
+            try {
+                Thread.sleep(20);
+                return super.getItem(info);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
 }
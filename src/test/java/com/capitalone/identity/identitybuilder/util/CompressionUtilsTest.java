@@ -0,0 +1,48 @@
+package com.capitalone.identity.identitybuilder.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressionUtilsTest {
+
+    @Test
+    void compress_roundTrip() throws IOException {
+        byte[] content = "<process>".repeat(100).getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = CompressionUtils.compress(content);
+
+        assertTrue(compressed.length < content.length / 5);
+        assertArrayEquals(content, CompressionUtils.decompress(compressed));
+        try (InputStream stream = CompressionUtils.decompress(new ByteArrayInputStream(compressed))) {
+            assertArrayEquals(content, stream.readAllBytes());
+        }
+    }
+
+    @Test
+    void decompress_notCompressed() {
+        byte[] content = "plain".getBytes(StandardCharsets.UTF_8);
+        assertThrows(IOException.class, () -> CompressionUtils.decompress(content));
+    }
+
+    @Test
+    void stripCompressionSuffix() {
+        assertEquals("a/1.0/process/p.xml", CompressionUtils.stripCompressionSuffix("a/1.0/process/p.xml.gz"));
+        assertEquals("a/1.0/process/p.xml", CompressionUtils.stripCompressionSuffix("a/1.0/process/p.xml"));
+    }
+
+    @Test
+    void isCompressed() {
+        assertTrue(CompressionUtils.isCompressed("a.xml.gz", null));
+        assertTrue(CompressionUtils.isCompressed("a.xml", "gzip"));
+        assertTrue(CompressionUtils.isCompressed("a.xml", "GZIP"));
+        assertFalse(CompressionUtils.isCompressed("a.xml", null));
+        assertFalse(CompressionUtils.isCompressed("a.xml", "identity"));
+        assertFalse(CompressionUtils.isCompressedName(null));
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.capitalone.identity.identitybuilder.util;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    @Test
+    void execute_concurrentCallsShareResult() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        Sinks.One<String> result = Sinks.one();
+        AtomicInteger calls = new AtomicInteger();
+
+        Mono<String> first = singleFlight.execute("a", () -> {
+            calls.incrementAndGet();
+            return result.asMono();
+        });
+        Mono<String> second = singleFlight.execute("a", () -> {
+            calls.incrementAndGet();
+            return Mono.just("other");
+        });
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> assertEquals(1, singleFlight.getInFlightCount()))
+                .then(() -> result.tryEmitValue("value"))
+                .assertNext(tuple -> {
+                    assertEquals("value", tuple.getT1());
+                    assertEquals("value", tuple.getT2());
+                })
+                .verifyComplete();
+        assertEquals(1, calls.get());
+        assertEquals(0, singleFlight.getInFlightCount());
+    }
+
+    @Test
+    void execute_keyReleasedAfterCompletion() {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        assertEquals(1, singleFlight.execute("a", () -> Mono.fromCallable(calls::incrementAndGet)).block());
+        assertEquals(2, singleFlight.execute("a", () -> Mono.fromCallable(calls::incrementAndGet)).block());
+        assertEquals(0, singleFlight.getInFlightCount());
+    }
+
+    @Test
+    void execute_keyReleasedAfterError() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        IllegalStateException failure = new IllegalStateException("test");
+
+        StepVerifier.create(singleFlight.execute("a", () -> Mono.error(failure)))
+                .expectErrorMatches(error -> error == failure)
+                .verify();
+        assertEquals(0, singleFlight.getInFlightCount());
+        assertEquals("ok", singleFlight.execute("a", () -> Mono.just("ok")).block());
+    }
+
+    @Test
+    void execute_differentKeysNotShared() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        Sinks.One<String> resultA = Sinks.one();
+        Sinks.One<String> resultB = Sinks.one();
+
+        StepVerifier.create(Mono.zip(
+                        singleFlight.execute("a", resultA::asMono),
+                        singleFlight.execute("b", resultB::asMono)))
+                .then(() -> assertEquals(2, singleFlight.getInFlightCount()))
+                .then(() -> resultA.tryEmitValue("a"))
+                .then(() -> resultB.tryEmitValue("b"))
+                .assertNext(tuple -> {
+                    assertEquals("a", tuple.getT1());
+                    assertEquals("b", tuple.getT2());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void execute_lazy() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        Mono<String> mono = singleFlight.execute("a", () -> {
+            calls.incrementAndGet();
+            return Mono.just("value");
+        });
+
+        assertEquals(0, calls.get());
+        assertEquals(0, singleFlight.getInFlightCount());
+        assertEquals("value", mono.block());
+        assertEquals(1, calls.get());
+    }
+
+}